@@ -0,0 +1,112 @@
+package com.adityachandel.booklore.repository;
+
+import com.adityachandel.booklore.util.BookUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Latency comparison of the legacy {@code LIKE '%term%'} search against the FULLTEXT index on
+ * {@code search_text}, at 10k, 100k and 500k synthetic books.
+ * <p>
+ * Run with {@code ./gradlew benchmark}. Needs a scratch MariaDB and is skipped unless
+ * {@code BOOKLORE_BENCHMARK_DB_URL} is set, e.g.
+ * {@code jdbc:mariadb://localhost:3306/booklore_bench?user=root&password=secret}. It creates and drops
+ * its own {@code bench_book_search} table.
+ */
+@EnabledIfEnvironmentVariable(named = "BOOKLORE_BENCHMARK_DB_URL", matches = ".+")
+class BookSearchLatencyBenchmarkTest {
+
+    private static final int[] SIZES = {10_000, 100_000, 500_000};
+    private static final int QUERIES_PER_RUN = 200;
+    private static final String[] WORDS = {
+            "dragon", "empire", "shadow", "winter", "garden", "ocean", "silver", "crown", "forest", "machine",
+            "letters", "river", "storm", "hidden", "last", "night", "city", "glass", "iron", "memory",
+            "king", "stephen", "tolkien", "austen", "pratchett", "le guin", "herbert", "asimov", "christie", "orwell"};
+
+    @Test
+    void compareLikeAndFullTextLatency() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(System.getenv("BOOKLORE_BENCHMARK_DB_URL"))) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS bench_book_search");
+                statement.execute("""
+                        CREATE TABLE bench_book_search (
+                            id BIGINT PRIMARY KEY,
+                            library_id BIGINT NOT NULL,
+                            search_text TEXT,
+                            FULLTEXT INDEX ft_bench_search_text (search_text)
+                        )""");
+            }
+
+            Random random = new Random(42);
+            int inserted = 0;
+            System.out.printf("%-8s %-9s %10s %10s%n", "books", "mode", "p50 (ms)", "p99 (ms)");
+            for (int size : SIZES) {
+                inserted = insertBooks(connection, random, inserted, size);
+                List<String> terms = randomTerms(random);
+                report(size, "LIKE", measure(connection, "SELECT id FROM bench_book_search WHERE search_text LIKE CONCAT('%', ?, '%') LIMIT 50", terms, false));
+                report(size, "FULLTEXT", measure(connection, "SELECT id FROM bench_book_search WHERE MATCH(search_text) AGAINST (? IN BOOLEAN MODE) ORDER BY MATCH(search_text) AGAINST (? IN BOOLEAN MODE) DESC LIMIT 50", terms, true));
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE bench_book_search");
+            }
+        }
+    }
+
+    private static int insertBooks(Connection connection, Random random, int from, int to) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO bench_book_search (id, library_id, search_text) VALUES (?, ?, ?)")) {
+            for (int id = from; id < to; id++) {
+                StringBuilder text = new StringBuilder();
+                for (int w = 0; w < 6; w++) {
+                    text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+                }
+                text.append("volume").append(id);
+                insert.setLong(1, id);
+                insert.setLong(2, id % 5);
+                insert.setString(3, BookUtils.normalizeForSearch(text.toString()));
+                insert.addBatch();
+                if (id % 5_000 == 0) insert.executeBatch();
+            }
+            insert.executeBatch();
+        }
+        return to;
+    }
+
+    private static List<String> randomTerms(Random random) {
+        List<String> terms = new ArrayList<>(QUERIES_PER_RUN);
+        for (int i = 0; i < QUERIES_PER_RUN; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            terms.add(word.substring(0, Math.max(3, word.length() - random.nextInt(3))));
+        }
+        return terms;
+    }
+
+    private static long[] measure(Connection connection, String sql, List<String> terms, boolean fullText) throws SQLException {
+        long[] nanos = new long[terms.size()];
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            for (int i = 0; i < terms.size(); i++) {
+                String term = fullText ? BookUtils.buildFullTextQuery(terms.get(i)) : terms.get(i);
+                query.setString(1, term);
+                if (fullText) query.setString(2, term);
+                long start = System.nanoTime();
+                try (ResultSet resultSet = query.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultSet.getLong(1);
+                    }
+                }
+                nanos[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static void report(int size, String mode, long[] sortedNanos) {
+        double p50 = sortedNanos[(int) (sortedNanos.length * 0.50)] / 1_000_000.0;
+        double p99 = sortedNanos[Math.min(sortedNanos.length - 1, (int) (sortedNanos.length * 0.99))] / 1_000_000.0;
+        System.out.printf("%-8d %-9s %10.2f %10.2f%n", size, mode, p50, p99);
+    }
+}
@@ -0,0 +1,140 @@
+package com.adityachandel.booklore.service.metadata.writer;
+
+import com.adityachandel.booklore.model.MetadataClearFlags;
+import com.adityachandel.booklore.model.entity.BookMetadataEntity;
+import net.lingala.zip4j.ZipFile;
+import net.lingala.zip4j.model.ZipParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Per-book latency and throughput of the streaming EPUB rewrite against the extract-and-rezip approach it replaced,
+ * on a synthetic illustrated book. Run with {@code ./gradlew benchmark}.
+ */
+class EpubMetadataWriterBenchmarkTest {
+
+    private static final int IMAGES = 60;
+    private static final int IMAGE_BYTES = 400 * 1024;
+    private static final int CHAPTERS = 40;
+    private static final int RUNS = 10;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compareStreamingAndExtractRewrite() throws Exception {
+        Path epub = createIllustratedEpub(tempDir.resolve("bench.epub"));
+        double sizeMb = Files.size(epub) / (1024.0 * 1024.0);
+        EpubMetadataWriter writer = new EpubMetadataWriter();
+
+        long extractNanos = 0;
+        long streamingNanos = 0;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            extractAndRezip(epub);
+            extractNanos += System.nanoTime() - start;
+
+            BookMetadataEntity metadata = new BookMetadataEntity();
+            metadata.setTitle("Benchmark " + run);
+            start = System.nanoTime();
+            writer.writeMetadataToFile(epub.toFile(), metadata, null, new MetadataClearFlags());
+            streamingNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("book size %.1f MB, %d runs%n", sizeMb, RUNS);
+        System.out.printf("%-10s %12s %10s%n", "path", "ms/book", "MB/s");
+        System.out.printf("%-10s %12.1f %10.1f%n", "extract", extractNanos / 1e6 / RUNS, sizeMb * RUNS / (extractNanos / 1e9));
+        System.out.printf("%-10s %12.1f %10.1f%n", "streaming", streamingNanos / 1e6 / RUNS, sizeMb * RUNS / (streamingNanos / 1e9));
+    }
+
+    /**
+     * The previous write path: back up, extract everything, rewrite the tree into a new archive and swap it in.
+     */
+    private void extractAndRezip(Path epub) throws IOException {
+        Path backup = epub.resolveSibling(epub.getFileName() + ".bak");
+        Files.copy(epub, backup);
+        Path extracted = Files.createTempDirectory(tempDir, "extract");
+        try (ZipFile zipFile = new ZipFile(epub.toFile())) {
+            zipFile.extractAll(extracted.toString());
+        }
+        Path rezipped = epub.resolveSibling(epub.getFileName() + ".tmp");
+        try (ZipFile zipFile = new ZipFile(rezipped.toFile()); Stream<Path> files = Files.walk(extracted)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                ZipParameters params = new ZipParameters();
+                params.setFileNameInZip(extracted.relativize(file).toString().replace(File.separatorChar, '/'));
+                zipFile.addFile(file.toFile(), params);
+            }
+        }
+        Files.delete(rezipped);
+        Files.delete(backup);
+        try (Stream<Path> files = Files.walk(extracted)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static Path createIllustratedEpub(Path target) throws IOException {
+        Random random = new Random(7);
+        StringBuilder manifest = new StringBuilder();
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(target))) {
+            ZipEntry mimetype = new ZipEntry("mimetype");
+            mimetype.setMethod(ZipEntry.STORED);
+            byte[] mimetypeBytes = "application/epub+zip".getBytes(StandardCharsets.US_ASCII);
+            java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+            crc.update(mimetypeBytes);
+            mimetype.setSize(mimetypeBytes.length);
+            mimetype.setCrc(crc.getValue());
+            zos.putNextEntry(mimetype);
+            zos.write(mimetypeBytes);
+            zos.closeEntry();
+
+            zos.putNextEntry(new ZipEntry("META-INF/container.xml"));
+            zos.write("""
+                    <?xml version="1.0" encoding="UTF-8"?>
+                    <container version="1.0" xmlns="urn:oasis:names:tc:opendocument:xmlns:container">
+                        <rootfiles><rootfile full-path="OEBPS/content.opf" media-type="application/oebps-package+xml"/></rootfiles>
+                    </container>
+                    """.getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+
+            byte[] image = new byte[IMAGE_BYTES];
+            for (int i = 0; i < IMAGES; i++) {
+                random.nextBytes(image);
+                zos.putNextEntry(new ZipEntry("OEBPS/images/img" + i + ".jpg"));
+                zos.write(image);
+                zos.closeEntry();
+                manifest.append("<item id=\"img").append(i).append("\" href=\"images/img").append(i).append(".jpg\" media-type=\"image/jpeg\"/>");
+            }
+            String paragraph = "<p>" + "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(40) + "</p>";
+            for (int i = 0; i < CHAPTERS; i++) {
+                zos.putNextEntry(new ZipEntry("OEBPS/chapter" + i + ".xhtml"));
+                zos.write(("<html><body>" + paragraph.repeat(50) + "</body></html>").getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+                manifest.append("<item id=\"ch").append(i).append("\" href=\"chapter").append(i).append(".xhtml\" media-type=\"application/xhtml+xml\"/>");
+            }
+
+            zos.putNextEntry(new ZipEntry("OEBPS/content.opf"));
+            zos.write(("""
+                    <?xml version="1.0" encoding="UTF-8"?>
+                    <package xmlns="http://www.idpf.org/2007/opf" version="3.0">
+                        <metadata xmlns:dc="http://purl.org/dc/elements/1.1/"><dc:title>Benchmark</dc:title></metadata>
+                        <manifest>%s</manifest>
+                    </package>
+                    """.formatted(manifest)).getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,53 @@
+package com.adityachandel.booklore.service.recommender;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Per-book neighbour lookup cost of the LSH index against the exact scan the old task effectively did, at 10k and
+ * 100k synthetic books. Run with {@code ./gradlew benchmark}.
+ */
+class BookVectorIndexBenchmarkTest {
+
+    private static final int[] SIZES = {10_000, 100_000};
+    private static final int QUERIES_PER_RUN = 500;
+
+    @Test
+    void compareApproximateAndExactLookup() {
+        System.out.printf("%-8s %12s %12s %14s %8s%n", "books", "build (ms)", "lsh (us/q)", "exact (us/q)", "recall");
+        for (int size : SIZES) {
+            long buildStart = System.nanoTime();
+            BookVectorIndex index = BookVectorIndexTest.clusteredIndex(size, new Random(42));
+            long buildNanos = System.nanoTime() - buildStart;
+
+            Random random = new Random(size);
+            long[] queries = new long[QUERIES_PER_RUN];
+            for (int i = 0; i < queries.length; i++) {
+                queries[i] = random.nextInt(size);
+            }
+
+            long approximateNanos = 0;
+            long exactNanos = 0;
+            double recall = 0;
+            for (long bookId : queries) {
+                long start = System.nanoTime();
+                var approximate = index.findNearest(bookId, 25, 0.1);
+                approximateNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                var exact = index.findNearestExact(bookId, 25, 0.1);
+                exactNanos += System.nanoTime() - start;
+
+                Set<Long> exactIds = new HashSet<>();
+                exact.forEach(n -> exactIds.add(n.bookId()));
+                recall += exactIds.isEmpty() ? 1 : (double) approximate.stream().filter(n -> exactIds.contains(n.bookId())).count() / exactIds.size();
+            }
+
+            System.out.printf("%-8d %12.1f %12.1f %14.1f %8.3f%n", size, buildNanos / 1e6,
+                    approximateNanos / 1e3 / QUERIES_PER_RUN, exactNanos / 1e3 / QUERIES_PER_RUN, recall / QUERIES_PER_RUN);
+        }
+    }
+}
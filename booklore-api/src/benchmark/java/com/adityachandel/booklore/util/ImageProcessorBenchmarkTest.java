@@ -0,0 +1,129 @@
+package com.adityachandel.booklore.util;
+
+import com.adityachandel.booklore.config.AppProperties;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cover-plus-thumbnail throughput of {@link ImageProcessor} against the decode-and-{@code getScaledInstance} path
+ * it replaced, on synthetic covers at typical EPUB and comic scan sizes. Run with {@code ./gradlew benchmark}.
+ */
+class ImageProcessorBenchmarkTest {
+
+    private static final int[][] SIZES = {{600, 900}, {1400, 2100}, {2500, 3800}, {4200, 6300}};
+    private static final int COVERS_PER_SIZE = 6;
+    private static final int WARMUP_RUNS = 2;
+    private static final int RUNS = 5;
+
+    @Test
+    void compareScaledInstanceAndPipeline() throws IOException {
+        List<byte[]> covers = new ArrayList<>();
+        Random random = new Random(7);
+        for (int[] size : SIZES) {
+            for (int i = 0; i < COVERS_PER_SIZE; i++) {
+                covers.add(jpeg(syntheticCover(size[0], size[1], random)));
+            }
+        }
+        AppProperties appProperties = new AppProperties();
+        ImageProcessor processor = new ImageProcessor(appProperties);
+
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            covers.forEach(ImageProcessorBenchmarkTest::legacy);
+            processor.processAll(covers, ImageProcessorBenchmarkTest::pipeline);
+        }
+
+        long legacyNanos = 0;
+        long sequentialNanos = 0;
+        long batchNanos = 0;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            covers.forEach(ImageProcessorBenchmarkTest::legacy);
+            legacyNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (byte[] cover : covers) {
+                pipeline(cover);
+            }
+            sequentialNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            processor.processAll(covers, ImageProcessorBenchmarkTest::pipeline);
+            batchNanos += System.nanoTime() - start;
+        }
+
+        int total = covers.size() * RUNS;
+        System.out.printf("%d covers, %d runs%n", covers.size(), RUNS);
+        System.out.printf("%-12s %12s %12s%n", "path", "ms/cover", "covers/s");
+        print("scaled", legacyNanos, total);
+        print("pipeline", sequentialNanos, total);
+        print("batch", batchNanos, total);
+    }
+
+    private static void print(String name, long nanos, int total) {
+        System.out.printf("%-12s %12.2f %12.1f%n", name, nanos / 1e6 / total, total / (nanos / 1e9));
+    }
+
+    /**
+     * The previous path: full decode, RGB copy, {@code SCALE_SMOOTH} to the cover box and again to the thumbnail.
+     */
+    private static void legacy(byte[] data) {
+        try {
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(data));
+            BufferedImage rgb = new BufferedImage(decoded.getWidth(), decoded.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = rgb.createGraphics();
+            g.drawImage(decoded, 0, 0, Color.WHITE, null);
+            g.dispose();
+            double scale = Math.min(1.0, Math.min(1000.0 / rgb.getWidth(), 1500.0 / rgb.getHeight()));
+            BufferedImage cover = scaledInstance(rgb, (int) (rgb.getWidth() * scale), (int) (rgb.getHeight() * scale));
+            scaledInstance(cover, 250, 350);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static BufferedImage scaledInstance(BufferedImage source, int width, int height) {
+        Image tmp = source.getScaledInstance(width, height, Image.SCALE_SMOOTH);
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resized.createGraphics();
+        g.drawImage(tmp, 0, 0, null);
+        g.dispose();
+        return resized;
+    }
+
+    private static void pipeline(byte[] data) throws IOException {
+        BufferedImage decoded = ImageProcessor.read(new ByteArrayInputStream(data), 1000, 1500);
+        BufferedImage cover = ImageProcessor.scaleToFit(decoded, 1000, 1500);
+        ImageProcessor.scale(cover, 250, 350);
+    }
+
+    private static BufferedImage syntheticCover(int width, int height, Random random) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(random.nextInt()), width, height, new Color(random.nextInt())));
+        g.fillRect(0, 0, width, height);
+        for (int i = 0; i < 400; i++) {
+            g.setColor(new Color(random.nextInt()));
+            g.fillOval(random.nextInt(width), random.nextInt(height), random.nextInt(width / 4) + 1, random.nextInt(height / 4) + 1);
+        }
+        g.setFont(new Font(Font.SERIF, Font.BOLD, width / 10));
+        g.setColor(Color.WHITE);
+        g.drawString("Benchmark", width / 10, height / 3);
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
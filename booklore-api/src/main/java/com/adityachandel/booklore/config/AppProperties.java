@@ -1,10 +1,14 @@
 package com.adityachandel.booklore.config;
 
+import com.adityachandel.booklore.model.enums.MetadataProvider;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 @Component
 @ConfigurationProperties(prefix = "app")
 @Getter
@@ -16,6 +20,21 @@ public class AppProperties {
     private RemoteAuth remoteAuth;
     private Swagger swagger = new Swagger();
     private Boolean forceDisableOidc = false;
+    private LibraryScan libraryScan = new LibraryScan();
+    private PdfRender pdfRender = new PdfRender();
+    private PrincipalCache principalCache = new PrincipalCache();
+    private EventFanout eventFanout = new EventFanout();
+    private KoboSync koboSync = new KoboSync();
+    private CoverVariants coverVariants = new CoverVariants();
+    private CbxConversion cbxConversion = new CbxConversion();
+    private PdfMetadata pdfMetadata = new PdfMetadata();
+    private ImageProcessing imageProcessing = new ImageProcessing();
+    private FileWatcher fileWatcher = new FileWatcher();
+    private MetadataRefresh metadataRefresh = new MetadataRefresh();
+    private MetadataCache metadataCache = new MetadataCache();
+    private ConversionCache conversionCache = new ConversionCache();
+    private NameCache nameCache = new NameCache();
+    private ProgressBuffer progressBuffer = new ProgressBuffer();
 
     @Getter
     @Setter
@@ -35,4 +54,151 @@ public class AppProperties {
     public static class Swagger {
         private boolean enabled = true;
     }
+
+    @Getter
+    @Setter
+    public static class LibraryScan {
+        private int defaultParallelism = 0;  // 0 = derive from available processors
+        private int maxParallelism = 8;
+        private int connectionHeadroom = 4;  // Pool connections kept free of scan workers, each of which holds one
+        private int batchSize = 50;
+        private long flushIntervalMs = 1000;
+        private boolean incrementalRescan = true;
+    }
+
+    @Getter
+    @Setter
+    public static class PdfRender {
+        private int parallelism = 0;            // 0 = derive from available processors
+        private int readAhead = 3;              // Pages rendered in the background after the requested one
+        private int openDocuments = 8;          // Hot PDFs kept open between page requests
+        private int renderersPerDocument = 2;   // PDDocument is not thread safe, each renderer opens its own copy
+        private int defaultDpi = 200;
+        private int maxDpi = 300;
+        private int maxWidth = 3000;
+    }
+
+    @Getter
+    @Setter
+    public static class PrincipalCache {
+        private int maxEntries = 1024;      // 0 disables the cache
+        private long ttlSeconds = 60;       // Upper bound on staleness for changes that bypass explicit invalidation
+    }
+
+    @Getter
+    @Setter
+    public static class EventFanout {
+        private long flushIntervalMs = 250;     // Upper bound on how long a book-added event waits for its batch
+        private int maxBatchSize = 200;         // Books per websocket message, also flushes early once reached
+        private int maxPendingBooks = 5000;     // Producers flush inline beyond this so imports cannot outrun the fan-out
+        private int sendTimeLimitMs = 10000;    // Slow websocket clients are disconnected instead of buffering forever
+        private int sendBufferSizeLimitKb = 2048;
+    }
+
+    @Getter
+    @Setter
+    public static class KoboSync {
+        private boolean adaptivePaging = true;  // false restores the fixed page of 5 books per sync call
+        private int initialPageSize = 100;      // Used until a device's entitlement size has been observed
+        private int minPageSize = 5;
+        private int maxPageSize = 500;
+        private int targetPayloadKb = 2048;     // Response size each sync page aims for on a given device
+        private boolean prefetch = true;        // Build the next page while the device downloads the current one
+    }
+
+    @Getter
+    @Setter
+    public static class CoverVariants {
+        private int parallelism = 0;            // 0 = derive from available processors
+        private int maxCacheSizeMb = 256;       // Least recently served variants are evicted beyond this
+        private int defaultQuality = 85;        // JPEG quality when the client does not ask for one
+        private int maxDimension = 2000;
+    }
+
+    @Getter
+    @Setter
+    public static class CbxConversion {
+        private int parallelism = 2;            // Folders converted at once by the Convert Comics to CBZ task
+    }
+
+    @Getter
+    @Setter
+    public static class PdfMetadata {
+        private boolean incrementalSave = true;     // false rewrites the whole PDF on every metadata edit
+        private int maxIncrementalUpdates = 20;     // Appended updates before the next edit compacts the file, 0 never compacts
+    }
+
+    @Getter
+    @Setter
+    public static class ImageProcessing {
+        private int parallelism = 0;            // 0 = derive from available processors, used by batch cover jobs
+    }
+
+    @Getter
+    @Setter
+    public static class FileWatcher {
+        private long quietPeriodMs = 2000;      // A path is processed once it has seen no events for this long
+        private int maxBatchSize = 500;         // New files handed to the library scan at once
+        private PollingMode polling = PollingMode.AUTO;
+        private long pollIntervalSeconds = 60;  // How often polled folders are listed and compared
+
+        public enum PollingMode {
+            AUTO,       // Poll folders on network file systems, where inotify does not see remote changes
+            ALWAYS,
+            NEVER
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class MetadataRefresh {
+        private int concurrency = 8;            // Books fetched at once, the providers of a book are queried in parallel
+        private int writeBatchSize = 20;        // Fetched books written per transaction
+        private long maxBackoffSeconds = 300;   // Longest pause of a provider after repeated 429/503 responses
+        // Sustained requests per second per provider, requests beyond it wait for their turn
+        private Map<MetadataProvider, Double> requestsPerSecond = new EnumMap<>(Map.of(
+                MetadataProvider.Google, 2.0,
+                MetadataProvider.Hardcover, 1.0,
+                MetadataProvider.GoodReads, 1.0,
+                MetadataProvider.Comicvine, 0.5,
+                MetadataProvider.Amazon, 0.5,
+                MetadataProvider.Douban, 0.5));
+    }
+
+    @Getter
+    @Setter
+    public static class MetadataCache {
+        private boolean enabled = true;
+        private int maxCacheSizeMb = 64;        // Least recently used responses are evicted beyond this
+        private long negativeTtlHours = 24;     // How long "nothing found" is remembered
+        // How long found results are reused per provider
+        private Map<MetadataProvider, Long> ttlHours = new EnumMap<>(Map.of(
+                MetadataProvider.Google, 168L,
+                MetadataProvider.Hardcover, 168L,
+                MetadataProvider.GoodReads, 336L,
+                MetadataProvider.Comicvine, 720L,
+                MetadataProvider.Amazon, 168L,
+                MetadataProvider.Douban, 336L));
+    }
+
+    @Getter
+    @Setter
+    public static class ConversionCache {
+        private int maxCacheSizeMb = 4096;      // Least recently downloaded conversions are evicted beyond this
+        private int parallelism = 1;            // Books the pre-conversion task converts at once
+    }
+
+    @Getter
+    @Setter
+    public static class NameCache {
+        private int maxEntries = 10000;         // Author and category names each, 0 disables the cache
+    }
+
+    @Getter
+    @Setter
+    public static class ProgressBuffer {
+        private boolean enabled = true;         // false writes every progress update straight through
+        private long flushIntervalMs = 2000;    // Upper bound on how long a progress update stays in memory
+        private int maxPendingEntries = 1000;   // (user, book) pairs waiting before a flush is started early
+    }
 }
@@ -1,6 +1,7 @@
 package com.adityachandel.booklore.config;
 
 import com.adityachandel.booklore.model.enums.MetadataProvider;
+import com.adityachandel.booklore.service.metadata.MetadataResponseCache;
 import com.adityachandel.booklore.service.metadata.parser.*;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,14 +13,15 @@ public class BookParserConfig {
 
     @Bean
     public Map<MetadataProvider, BookParser> parserMap(GoogleParser googleParser, AmazonBookParser amazonBookParser,
-                                                       GoodReadsParser goodReadsParser, HardcoverParser hardcoverParser, ComicvineBookParser comicvineBookParser, DoubanBookParser doubanBookParser) {
+                                                       GoodReadsParser goodReadsParser, HardcoverParser hardcoverParser, ComicvineBookParser comicvineBookParser, DoubanBookParser doubanBookParser,
+                                                       MetadataResponseCache responseCache) {
         return Map.of(
-                MetadataProvider.Amazon, amazonBookParser,
-                MetadataProvider.GoodReads, goodReadsParser,
-                MetadataProvider.Google, googleParser,
-                MetadataProvider.Hardcover, hardcoverParser,
-                MetadataProvider.Comicvine, comicvineBookParser,
-                MetadataProvider.Douban, doubanBookParser
+                MetadataProvider.Amazon, responseCache.wrap(MetadataProvider.Amazon, amazonBookParser),
+                MetadataProvider.GoodReads, responseCache.wrap(MetadataProvider.GoodReads, goodReadsParser),
+                MetadataProvider.Google, responseCache.wrap(MetadataProvider.Google, googleParser),
+                MetadataProvider.Hardcover, responseCache.wrap(MetadataProvider.Hardcover, hardcoverParser),
+                MetadataProvider.Comicvine, responseCache.wrap(MetadataProvider.Comicvine, comicvineBookParser),
+                MetadataProvider.Douban, responseCache.wrap(MetadataProvider.Douban, doubanBookParser)
         );
     }
 }
@@ -2,6 +2,7 @@ package com.adityachandel.booklore.config.security.filter;
 
 import com.adityachandel.booklore.config.security.JwtUtils;
 import com.adityachandel.booklore.config.security.service.DynamicOidcJwtProcessor;
+import com.adityachandel.booklore.config.security.service.PrincipalCache;
 import com.adityachandel.booklore.config.security.userdetails.UserAuthenticationDetails;
 import com.adityachandel.booklore.exception.ApiError;
 import com.adityachandel.booklore.mapper.custom.BookLoreUserTransformer;
@@ -43,6 +44,7 @@ public class DualJwtAuthenticationFilter extends OncePerRequestFilter {
     private final UserProvisioningService userProvisioningService;
     private static final ConcurrentMap<String, Object> userLocks = new ConcurrentHashMap<>();
     private final DynamicOidcJwtProcessor dynamicOidcJwtProcessor;
+    private final PrincipalCache principalCache;
 
     private static final List<String> WHITELISTED_PATHS = List.of(
             "/api/v1/opds/",
@@ -89,8 +91,8 @@ public class DualJwtAuthenticationFilter extends OncePerRequestFilter {
 
     private void authenticateLocalUser(String token, HttpServletRequest request) {
         Long userId = jwtUtils.extractUserId(token);
-        BookLoreUserEntity entity = userRepository.findById(userId).orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + userId));
-        BookLoreUser user = bookLoreUserTransformer.toDTO(entity);
+        BookLoreUser user = principalCache.get(userId, id -> bookLoreUserTransformer.toDTO(
+                userRepository.findById(id).orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + id))));
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, null);
         authentication.setDetails(new UserAuthenticationDetails(request, user.getId()));
         SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -0,0 +1,136 @@
+package com.adityachandel.booklore.config.security.service;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.BookLoreUser;
+import com.adityachandel.booklore.service.event.UserChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches the {@link BookLoreUser} principal built for JWT-authenticated requests so page images, thumbnails and
+ * other high-frequency endpoints do not reload the user, permissions, settings and libraries on every call.
+ * <p>
+ * Entries are bounded by count (LRU) and TTL. Anything that changes a user, their permissions, settings or
+ * assigned libraries must call {@link #invalidate(Long)} or {@link #invalidateAll()}; invalidation is repeated
+ * after the surrounding transaction commits so a request racing the write cannot re-cache the old state.
+ * Our JWTs carry no version claim, so the cache version is an invalidation generation: a load that started
+ * before an invalidation is returned to its caller but never stored.
+ * <p>
+ * Every invalidation is also published as a {@link UserChangedEvent} for other per-user indexes.
+ * <p>
+ * Hit, miss and eviction counts are published as the standard {@code cache.*} meters with {@code cache=principal}.
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entry(BookLoreUser user, long loadedAtNanos) {
+    }
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Map<Long, Entry> entries;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PrincipalCache(AppProperties appProperties, MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        AppProperties.PrincipalCache config = appProperties.getPrincipalCache();
+        this.ttlNanos = Math.max(0, config.getTtlSeconds()) * 1_000_000_000L;
+        this.maxEntries = Math.max(0, config.getMaxEntries());
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        });
+
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get).tag("cache", "principal").tag("result", "hit")
+                .description("Principal lookups served from memory").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get).tag("cache", "principal").tag("result", "miss")
+                .description("Principal lookups that loaded the user from the database").register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get).tag("cache", "principal")
+                .description("Principals evicted because the cache was full").register(meterRegistry);
+        Gauge.builder("cache.size", entries, Map::size).tag("cache", "principal")
+                .description("Principals currently cached").register(meterRegistry);
+    }
+
+    public BookLoreUser get(Long userId, Function<Long, BookLoreUser> loader) {
+        if (maxEntries == 0 || ttlNanos == 0) {
+            misses.incrementAndGet();
+            return loader.apply(userId);
+        }
+        Entry entry = entries.get(userId);
+        long now = System.nanoTime();
+        if (entry != null && now - entry.loadedAtNanos() < ttlNanos) {
+            hits.incrementAndGet();
+            return entry.user();
+        }
+        misses.incrementAndGet();
+        long loadGeneration = generation.get();
+        BookLoreUser user = loader.apply(userId);
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                entries.put(userId, new Entry(user, now));
+            }
+        }
+        return user;
+    }
+
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(userId);
+        afterCommit(() -> evict(userId));
+    }
+
+    public void invalidateAll() {
+        clear();
+        afterCommit(this::clear);
+    }
+
+    private void evict(Long userId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(userId);
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(this, userId));
+    }
+
+    private void clear() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(this, null));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
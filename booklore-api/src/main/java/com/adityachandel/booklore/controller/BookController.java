@@ -11,6 +11,7 @@ import com.adityachandel.booklore.model.dto.request.ReadStatusUpdateRequest;
 import com.adityachandel.booklore.model.dto.request.ShelvesAssignmentRequest;
 import com.adityachandel.booklore.model.dto.response.BookDeletionResponse;
 import com.adityachandel.booklore.model.enums.ResetProgressType;
+import com.adityachandel.booklore.service.book.BookListService;
 import com.adityachandel.booklore.service.book.BookService;
 import com.adityachandel.booklore.service.metadata.BookMetadataService;
 import com.adityachandel.booklore.service.recommender.BookRecommendationService;
@@ -19,12 +20,12 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -40,16 +41,23 @@ import java.util.Set;
 public class BookController {
 
     private final BookService bookService;
+    private final BookListService bookListService;
     private final BookRecommendationService bookRecommendationService;
     private final BookMetadataService bookMetadataService;
 
-    @Operation(summary = "Get all books", description = "Retrieve a list of all books. Optionally include descriptions.")
+    @Operation(summary = "Get all books", description = "Retrieve the books visible to the current user, ordered by ID. Optionally include descriptions. "
+            + "Pass limit to fetch a single page; the cursor for the next page is returned in the X-Next-Cursor header.")
     @ApiResponse(responseCode = "200", description = "List of books returned successfully")
     @GetMapping
-    public ResponseEntity<List<Book>> getBooks(
+    public void getBooks(
             @Parameter(description = "Include book descriptions in the response")
-            @RequestParam(required = false, defaultValue = "false") boolean withDescription) {
-        return ResponseEntity.ok(bookService.getBookDTOs(withDescription));
+            @RequestParam(required = false, defaultValue = "false") boolean withDescription,
+            @Parameter(description = "Only return books with an ID greater than this cursor")
+            @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Maximum number of books to return (max 5000); omit to stream every book")
+            @RequestParam(required = false) @Min(1) @Max(5000) Integer limit,
+            HttpServletResponse response) throws IOException {
+        bookListService.writeBooks(withDescription, cursor, limit, response);
     }
 
     @Operation(summary = "Get a book by ID", description = "Retrieve details of a specific book by its ID.")
@@ -98,9 +106,10 @@ public class BookController {
     @ApiResponse(responseCode = "200", description = "Book content returned successfully")
     @GetMapping("/{bookId}/content")
     @CheckBookAccess(bookIdParam = "bookId")
-    public ResponseEntity<ByteArrayResource> getBookContent(
-            @Parameter(description = "ID of the book") @PathVariable long bookId) throws IOException {
-        return bookService.getBookContent(bookId);
+    public void getBookContent(
+            @Parameter(description = "ID of the book") @PathVariable long bookId,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        bookService.getBookContent(bookId, request, response);
     }
 
     @Operation(summary = "Download book", description = "Download the book file. Requires download permission or admin.")
@@ -111,9 +120,10 @@ public class BookController {
     @GetMapping("/{bookId}/download")
     @PreAuthorize("@securityUtil.canDownload() or @securityUtil.isAdmin()")
     @CheckBookAccess(bookIdParam = "bookId")
-    public ResponseEntity<Resource> downloadBook(
-            @Parameter(description = "ID of the book to download") @PathVariable("bookId") Long bookId) {
-        return bookService.downloadBook(bookId);
+    public void downloadBook(
+            @Parameter(description = "ID of the book to download") @PathVariable("bookId") Long bookId,
+            HttpServletRequest request, HttpServletResponse response) {
+        bookService.downloadBook(bookId, request, response);
     }
 
     @Operation(summary = "Get viewer settings", description = "Retrieve viewer settings for a specific book.")
@@ -18,6 +18,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
@@ -61,9 +62,11 @@ public class BookMediaController {
     public void getPdfPage(
             @Parameter(description = "ID of the book") @PathVariable Long bookId,
             @Parameter(description = "Page number to retrieve") @PathVariable int pageNumber,
+            @Parameter(description = "Render resolution in DPI") @RequestParam(required = false) Integer dpi,
+            @Parameter(description = "Render width in pixels, takes precedence over dpi") @RequestParam(required = false) Integer width,
             HttpServletResponse response) throws IOException {
         response.setContentType(MediaType.IMAGE_JPEG_VALUE);
-        pdfReaderService.streamPageImage(bookId, pageNumber, response.getOutputStream());
+        pdfReaderService.streamPageImage(bookId, pageNumber, dpi, width, response.getOutputStream());
     }
 
     @Operation(summary = "Get CBX page as image", description = "Retrieve a specific page from a CBX book as an image.")
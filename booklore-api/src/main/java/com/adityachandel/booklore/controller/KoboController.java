@@ -23,6 +23,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -77,10 +78,11 @@ public class KoboController {
     public ResponseEntity<Resource> getThumbnail(
             @Parameter(description = "Image ID") @PathVariable String imageId,
             @Parameter(description = "Width of the thumbnail") @PathVariable int width,
-            @Parameter(description = "Height of the thumbnail") @PathVariable int height) {
+            @Parameter(description = "Height of the thumbnail") @PathVariable int height,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         if (StringUtils.isNumeric(imageId)) {
-            return koboThumbnailService.getThumbnail(Long.valueOf(imageId));
+            return koboThumbnailService.getThumbnail(Long.valueOf(imageId), width, height, null, false, ifNoneMatch);
         } else {
             String cdnUrl = String.format("https://cdn.kobo.com/book-images/%s/%d/%d/image.jpg", imageId, width, height);
             return koboServerProxy.proxyExternalUrl(cdnUrl);
@@ -95,10 +97,11 @@ public class KoboController {
             @Parameter(description = "Width of the thumbnail") @PathVariable int width,
             @Parameter(description = "Height of the thumbnail") @PathVariable int height,
             @Parameter(description = "Quality of the thumbnail") @PathVariable int quality,
-            @Parameter(description = "Is greyscale") @PathVariable boolean isGreyscale) {
+            @Parameter(description = "Is greyscale") @PathVariable boolean isGreyscale,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         if (StringUtils.isNumeric(bookId)) {
-            return koboThumbnailService.getThumbnail(Long.valueOf(bookId));
+            return koboThumbnailService.getThumbnail(Long.valueOf(bookId), width, height, quality, isGreyscale, ifNoneMatch);
         } else {
             String cdnUrl = String.format("https://cdn.kobo.com/book-images/%s/%d/%d/%d/%b/image.jpg", bookId, width, height, quality, isGreyscale);
             return koboServerProxy.proxyExternalUrl(cdnUrl);
@@ -39,6 +39,7 @@ public class MetadataController {
     private final DuckDuckGoCoverService duckDuckGoCoverService;
     private final BookRepository bookRepository;
     private final MetadataManagementService metadataManagementService;
+    private final MetadataResponseCache metadataResponseCache;
 
     @Operation(summary = "Get prospective metadata for a book", description = "Fetch prospective metadata for a book by its ID. Requires metadata edit permission or admin.")
     @ApiResponse(responseCode = "200", description = "Prospective metadata returned successfully")
@@ -184,6 +185,15 @@ public class MetadataController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Clear the metadata response cache", description = "Drop all cached metadata provider answers. Requires admin.")
+    @ApiResponse(responseCode = "204", description = "Metadata response cache cleared successfully")
+    @DeleteMapping("/metadata/cache")
+    @PreAuthorize("@securityUtil.isAdmin()")
+    public ResponseEntity<Void> clearMetadataCache() {
+        metadataResponseCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+
     @Operation(summary = "Get cover images for a book", description = "Fetch cover images for a book.")
     @ApiResponse(responseCode = "200", description = "Cover images returned successfully")
     @PostMapping("/{bookId}/metadata/covers")
@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
@@ -19,6 +20,8 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+
 @Tag(name = "OPDS", description = "Endpoints for OPDS catalog feeds, book downloads, covers, and search description")
 @Slf4j
 @RestController
@@ -26,8 +29,8 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class OpdsController {
 
-    private static final String OPDS_CATALOG_MEDIA_TYPE = "application/atom+xml;profile=opds-catalog;kind=navigation;charset=utf-8";
-    private static final String OPDS_ACQUISITION_MEDIA_TYPE = "application/atom+xml;profile=opds-catalog;kind=acquisition;charset=utf-8";
+    private static final String OPDS_CATALOG_MEDIA_TYPE = OpdsFeedService.NAVIGATION_MEDIA_TYPE;
+    private static final String OPDS_ACQUISITION_MEDIA_TYPE = OpdsFeedService.ACQUISITION_MEDIA_TYPE;
 
     private final OpdsFeedService opdsFeedService;
     private final BookService bookService;
@@ -38,8 +41,9 @@ public class OpdsController {
         @ApiResponse(responseCode = "404", description = "Book not found")
     })
     @GetMapping("/{bookId}/download")
-    public ResponseEntity<Resource> downloadBook(@Parameter(description = "ID of the book to download") @PathVariable("bookId") Long bookId) {
-        return bookService.downloadBook(bookId);
+    public void downloadBook(@Parameter(description = "ID of the book to download") @PathVariable("bookId") Long bookId,
+                             HttpServletRequest request, HttpServletResponse response) {
+        bookService.downloadBook(bookId, request, response);
     }
 
     @Operation(summary = "Get book cover image", description = "Retrieve the cover image for a book by its ID.")
@@ -60,91 +64,73 @@ public class OpdsController {
     @Operation(summary = "Get OPDS root catalog", description = "Retrieve the OPDS root navigation feed.")
     @ApiResponse(responseCode = "200", description = "Root OPDS catalog returned successfully")
     @GetMapping(produces = OPDS_CATALOG_MEDIA_TYPE)
-    public ResponseEntity<String> getRootCatalog(@Parameter(hidden = true) HttpServletRequest request) {
-        String feed = opdsFeedService.generateRootNavigation(request);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(OPDS_CATALOG_MEDIA_TYPE))
-                .body(feed);
+    public void getRootCatalog(@Parameter(hidden = true) HttpServletRequest request,
+                               @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        opdsFeedService.generateRootNavigation(request, response);
     }
 
     @Operation(summary = "Get OPDS libraries navigation", description = "Retrieve the OPDS libraries navigation feed.")
     @ApiResponse(responseCode = "200", description = "Libraries navigation feed returned successfully")
     @GetMapping(value = "/libraries", produces = OPDS_CATALOG_MEDIA_TYPE)
-    public ResponseEntity<String> getLibrariesNavigation(@Parameter(hidden = true) HttpServletRequest request) {
-        String feed = opdsFeedService.generateLibrariesNavigation(request);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(OPDS_CATALOG_MEDIA_TYPE))
-                .body(feed);
+    public void getLibrariesNavigation(@Parameter(hidden = true) HttpServletRequest request,
+                                       @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        opdsFeedService.generateLibrariesNavigation(request, response);
     }
 
     @Operation(summary = "Get OPDS shelves navigation", description = "Retrieve the OPDS shelves navigation feed.")
     @ApiResponse(responseCode = "200", description = "Shelves navigation feed returned successfully")
     @GetMapping(value = "/shelves", produces = OPDS_CATALOG_MEDIA_TYPE)
-    public ResponseEntity<String> getShelvesNavigation(@Parameter(hidden = true) HttpServletRequest request) {
-        String feed = opdsFeedService.generateShelvesNavigation(request);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(OPDS_CATALOG_MEDIA_TYPE))
-                .body(feed);
+    public void getShelvesNavigation(@Parameter(hidden = true) HttpServletRequest request,
+                                     @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        opdsFeedService.generateShelvesNavigation(request, response);
     }
 
     @Operation(summary = "Get OPDS magic shelves navigation", description = "Retrieve the OPDS magic shelves navigation feed.")
     @ApiResponse(responseCode = "200", description = "Magic shelves navigation feed returned successfully")
     @GetMapping(value = "/magic-shelves", produces = OPDS_CATALOG_MEDIA_TYPE)
-    public ResponseEntity<String> getMagicShelvesNavigation(@Parameter(hidden = true) HttpServletRequest request) {
-        String feed = opdsFeedService.generateMagicShelvesNavigation(request);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(OPDS_CATALOG_MEDIA_TYPE))
-                .body(feed);
+    public void getMagicShelvesNavigation(@Parameter(hidden = true) HttpServletRequest request,
+                                          @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        opdsFeedService.generateMagicShelvesNavigation(request, response);
     }
 
     @Operation(summary = "Get OPDS authors navigation", description = "Retrieve the OPDS authors navigation feed.")
     @ApiResponse(responseCode = "200", description = "Authors navigation feed returned successfully")
     @GetMapping(value = "/authors", produces = OPDS_CATALOG_MEDIA_TYPE)
-    public ResponseEntity<String> getAuthorsNavigation(@Parameter(hidden = true) HttpServletRequest request) {
-        String feed = opdsFeedService.generateAuthorsNavigation(request);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(OPDS_CATALOG_MEDIA_TYPE))
-                .body(feed);
+    public void getAuthorsNavigation(@Parameter(hidden = true) HttpServletRequest request,
+                                     @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        opdsFeedService.generateAuthorsNavigation(request, response);
     }
 
     @Operation(summary = "Get OPDS series navigation", description = "Retrieve the OPDS series navigation feed.")
     @ApiResponse(responseCode = "200", description = "Series navigation feed returned successfully")
     @GetMapping(value = "/series", produces = OPDS_CATALOG_MEDIA_TYPE)
-    public ResponseEntity<String> getSeriesNavigation(@Parameter(hidden = true) HttpServletRequest request) {
-        String feed = opdsFeedService.generateSeriesNavigation(request);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(OPDS_CATALOG_MEDIA_TYPE))
-                .body(feed);
+    public void getSeriesNavigation(@Parameter(hidden = true) HttpServletRequest request,
+                                    @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        opdsFeedService.generateSeriesNavigation(request, response);
     }
 
     @Operation(summary = "Get OPDS catalog feed", description = "Retrieve the OPDS acquisition catalog feed.")
     @ApiResponse(responseCode = "200", description = "Catalog feed returned successfully")
     @GetMapping(value = "/catalog", produces = OPDS_ACQUISITION_MEDIA_TYPE)
-    public ResponseEntity<String> getCatalog(@Parameter(hidden = true) HttpServletRequest request) {
-        String feed = opdsFeedService.generateCatalogFeed(request);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(OPDS_ACQUISITION_MEDIA_TYPE))
-                .body(feed);
+    public void getCatalog(@Parameter(hidden = true) HttpServletRequest request,
+                           @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        opdsFeedService.generateCatalogFeed(request, response);
     }
 
     @Operation(summary = "Get recent books feed", description = "Retrieve the OPDS feed for recently added books.")
     @ApiResponse(responseCode = "200", description = "Recent books feed returned successfully")
     @GetMapping(value = "/recent", produces = OPDS_ACQUISITION_MEDIA_TYPE)
-    public ResponseEntity<String> getRecentBooks(@Parameter(hidden = true) HttpServletRequest request) {
-        String feed = opdsFeedService.generateRecentFeed(request);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(OPDS_ACQUISITION_MEDIA_TYPE))
-                .body(feed);
+    public void getRecentBooks(@Parameter(hidden = true) HttpServletRequest request,
+                               @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        opdsFeedService.generateRecentFeed(request, response);
     }
 
     @Operation(summary = "Get surprise feed", description = "Retrieve the OPDS feed for surprise/random books.")
     @ApiResponse(responseCode = "200", description = "Surprise feed returned successfully")
     @GetMapping(value = "/surprise", produces = OPDS_ACQUISITION_MEDIA_TYPE)
-    public ResponseEntity<String> getSurpriseFeed(@Parameter(hidden = true) HttpServletRequest request) {
-        String feed = opdsFeedService.generateSurpriseFeed(request);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(OPDS_ACQUISITION_MEDIA_TYPE))
-                .body(feed);
+    public void getSurpriseFeed(@Parameter(hidden = true) HttpServletRequest request,
+                                @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        opdsFeedService.generateSurpriseFeed(request, response);
     }
 
     @Operation(summary = "Get OPDS search description", description = "Retrieve the OpenSearch description document for OPDS search.")
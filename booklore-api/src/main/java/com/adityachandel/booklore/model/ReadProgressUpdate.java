@@ -0,0 +1,55 @@
+package com.adityachandel.booklore.model;
+
+import com.adityachandel.booklore.model.enums.ReadStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * The progress columns one reader update sets. Null fields leave the stored value untouched.
+ */
+@Getter
+@Builder
+public class ReadProgressUpdate {
+    private final Instant lastReadTime;
+    private final Integer pdfProgress;
+    private final Float pdfProgressPercent;
+    private final String epubProgress;
+    private final Float epubProgressPercent;
+    private final Integer cbxProgress;
+    private final Float cbxProgressPercent;
+    private final String koreaderProgress;
+    private final Float koreaderProgressPercent;
+    private final String koreaderDevice;
+    private final String koreaderDeviceId;
+    private final Instant koreaderLastSyncTime;
+    private final ReadStatus readStatus;
+    private final Instant dateFinished;
+
+    /**
+     * This update followed by {@code newer}: every field {@code newer} sets wins, the others are kept.
+     */
+    public ReadProgressUpdate then(ReadProgressUpdate newer) {
+        return ReadProgressUpdate.builder()
+                .lastReadTime(latest(newer.lastReadTime, lastReadTime))
+                .pdfProgress(latest(newer.pdfProgress, pdfProgress))
+                .pdfProgressPercent(latest(newer.pdfProgressPercent, pdfProgressPercent))
+                .epubProgress(latest(newer.epubProgress, epubProgress))
+                .epubProgressPercent(latest(newer.epubProgressPercent, epubProgressPercent))
+                .cbxProgress(latest(newer.cbxProgress, cbxProgress))
+                .cbxProgressPercent(latest(newer.cbxProgressPercent, cbxProgressPercent))
+                .koreaderProgress(latest(newer.koreaderProgress, koreaderProgress))
+                .koreaderProgressPercent(latest(newer.koreaderProgressPercent, koreaderProgressPercent))
+                .koreaderDevice(latest(newer.koreaderDevice, koreaderDevice))
+                .koreaderDeviceId(latest(newer.koreaderDeviceId, koreaderDeviceId))
+                .koreaderLastSyncTime(latest(newer.koreaderLastSyncTime, koreaderLastSyncTime))
+                .readStatus(latest(newer.readStatus, readStatus))
+                .dateFinished(latest(newer.dateFinished, dateFinished))
+                .build();
+    }
+
+    private static <T> T latest(T newer, T older) {
+        return newer != null ? newer : older;
+    }
+}
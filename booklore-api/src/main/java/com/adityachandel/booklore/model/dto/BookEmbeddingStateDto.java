@@ -0,0 +1,10 @@
+package com.adityachandel.booklore.model.dto;
+
+import java.time.Instant;
+
+public interface BookEmbeddingStateDto {
+    Long getId();
+    String getSeriesName();
+    Instant getEmbeddingUpdatedAt();
+    Instant getSimilarBooksUpdatedAt();
+}
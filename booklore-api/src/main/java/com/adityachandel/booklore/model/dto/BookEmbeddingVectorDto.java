@@ -0,0 +1,6 @@
+package com.adityachandel.booklore.model.dto;
+
+public interface BookEmbeddingVectorDto {
+    Long getBookId();
+    String getEmbeddingVector();
+}
@@ -0,0 +1,6 @@
+package com.adityachandel.booklore.model.dto;
+
+public interface BookSimilarBooksDto {
+    Long getBookId();
+    String getSimilarBooksJson();
+}
@@ -5,6 +5,7 @@ import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.model.enums.IconType;
 import com.adityachandel.booklore.model.enums.LibraryScanMode;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -32,4 +33,7 @@ public class CreateLibraryRequest {
     private boolean watch;
     private LibraryScanMode scanMode;
     private BookFileType defaultBookFormat;
+
+    @Min(value = 1, message = "Scan parallelism must be at least 1.")
+    private Integer scanParallelism;
 }
@@ -19,6 +19,7 @@ public class LibraryFile {
     private String fileSubPath;
     private String fileName;
     private BookFileType bookFileType;
+    private String fileHash;
 
     public Path getFullPath() {
         if (fileSubPath == null || fileSubPath.isEmpty()) {
@@ -2,11 +2,13 @@ package com.adityachandel.booklore.model.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.List;
 import java.util.Objects;
 
 @Entity
+@BatchSize(size = 100)
 @Getter
 @Setter
 @Builder
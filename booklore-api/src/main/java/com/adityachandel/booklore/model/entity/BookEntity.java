@@ -79,6 +79,9 @@ public class BookEntity {
     @Column(name = "similar_books_json", columnDefinition = "TEXT")
     private Set<BookRecommendationLite> similarBooksJson;
 
+    @Column(name = "similar_books_updated_at")
+    private Instant similarBooksUpdatedAt;
+
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<BookAdditionalFileEntity> additionalFiles;
 
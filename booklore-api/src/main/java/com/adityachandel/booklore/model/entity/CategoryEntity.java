@@ -2,12 +2,14 @@ package com.adityachandel.booklore.model.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
 @Entity
+@BatchSize(size = 100)
 @Getter
 @Setter
 @Builder
@@ -58,6 +58,9 @@ public class LibraryEntity {
     @Column(name = "default_book_format")
     private BookFileType defaultBookFormat;
 
+    @Column(name = "scan_parallelism")
+    private Integer scanParallelism;
+
     @PrePersist
     public void ensureIconType() {
         if (this.iconType == null) {
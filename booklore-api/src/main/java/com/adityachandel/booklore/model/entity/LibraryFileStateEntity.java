@@ -0,0 +1,56 @@
+package com.adityachandel.booklore.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "library_file_state")
+public class LibraryFileStateEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "library_id", nullable = false)
+    private Long libraryId;
+
+    @Column(name = "library_path_id", nullable = false)
+    private Long libraryPathId;
+
+    /**
+     * Path relative to the library path, using '/' as separator. The library path root itself is "".
+     */
+    @Column(name = "relative_path", nullable = false, length = 2048)
+    private String relativePath;
+
+    @Column(name = "is_directory", nullable = false)
+    private boolean directory;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "last_modified", nullable = false)
+    private Long lastModified;
+
+    @Column(name = "file_key")
+    private String fileKey;
+
+    @Column(name = "fingerprint", length = 128)
+    private String fingerprint;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.updatedAt = Instant.now();
+    }
+}
@@ -7,6 +7,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -17,5 +19,6 @@ public class TaskProgressPayload {
     private String message;
     private int progress; // 0-100 percentage
     private TaskStatus taskStatus;
+    private Map<String, Double> stageThroughput; // files/s per pipeline stage, only set by staged tasks
 }
 
@@ -2,10 +2,12 @@ package com.adityachandel.booklore.repository;
 
 import com.adityachandel.booklore.model.entity.AuthorEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -17,6 +19,20 @@ public interface AuthorRepository extends JpaRepository<AuthorEntity, Long> {
 
     Optional<AuthorEntity> findByNameIgnoreCase(String name);
 
+    List<AuthorEntity> findAllByNameIn(Collection<String> names);
+
+    /**
+     * Inserts every name of the JSON array {@code names} that does not exist yet. The unique index on {@code name}
+     * turns names inserted concurrently, or listed twice, into no-ops.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO author (name)
+            SELECT jt.name FROM JSON_TABLE(:names, '$[*]' COLUMNS (name VARCHAR(255) PATH '$')) AS jt
+            ON DUPLICATE KEY UPDATE id = author.id
+            """, nativeQuery = true)
+    void insertMissingNames(@Param("names") String names);
+
     @Query("SELECT a FROM AuthorEntity a JOIN a.bookMetadataEntityList bm WHERE bm.bookId = :bookId")
     List<AuthorEntity> findAuthorsByBookId(@Param("bookId") Long bookId);
 }
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface BookAdditionalFileRepository extends JpaRepository<BookAdditionalFileEntity, Long> {
@@ -39,6 +40,9 @@ public interface BookAdditionalFileRepository extends JpaRepository<BookAddition
     @Query("SELECT COUNT(af) FROM BookAdditionalFileEntity af WHERE af.book.id = :bookId AND af.additionalFileType = :additionalFileType")
     long countByBookIdAndAdditionalFileType(@Param("bookId") Long bookId, @Param("additionalFileType") AdditionalFileType additionalFileType);
 
+    @Query("SELECT CASE WHEN af.fileSubPath = '' THEN af.fileName ELSE CONCAT(af.fileSubPath, '/', af.fileName) END FROM BookAdditionalFileEntity af WHERE af.book.libraryPath.id = :libraryPathId")
+    Set<String> findRelativePathsByLibraryPathId(@Param("libraryPathId") Long libraryPathId);
+
     @Query("SELECT af FROM BookAdditionalFileEntity af WHERE af.book.library.id = :libraryId")
     List<BookAdditionalFileEntity> findByLibraryId(@Param("libraryId") Long libraryId);
 }
@@ -1,5 +1,6 @@
 package com.adityachandel.booklore.repository;
 
+import com.adityachandel.booklore.model.dto.BookEmbeddingVectorDto;
 import com.adityachandel.booklore.model.entity.*;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -8,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface BookMetadataRepository extends JpaRepository<BookMetadataEntity, Long> {
@@ -20,6 +22,14 @@ public interface BookMetadataRepository extends JpaRepository<BookMetadataEntity
     @Query("UPDATE BookMetadataEntity m SET m.coverUpdatedOn = :timestamp WHERE m.bookId = :bookId")
     void updateCoverTimestamp(@Param("bookId") Long bookId, @Param("timestamp") Instant timestamp);
 
+    @Query("SELECT m.bookId AS bookId, m.embeddingVector AS embeddingVector FROM BookMetadataEntity m WHERE m.bookId IN :bookIds")
+    List<BookEmbeddingVectorDto> findEmbeddingVectorsByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BookMetadataEntity m SET m.embeddingVector = :embeddingVector, m.embeddingUpdatedAt = :timestamp WHERE m.bookId = :bookId")
+    void updateEmbedding(@Param("bookId") Long bookId, @Param("embeddingVector") String embeddingVector, @Param("timestamp") Instant timestamp);
+
     List<BookMetadataEntity> findAllByAuthorsContaining(AuthorEntity author);
 
     List<BookMetadataEntity> findAllByCategoriesContaining(CategoryEntity category);
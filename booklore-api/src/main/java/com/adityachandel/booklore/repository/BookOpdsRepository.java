@@ -81,6 +81,25 @@ public interface BookOpdsRepository extends JpaRepository<BookEntity, Long>, Jpa
             """)
     Page<Long> findBookIdsByMetadataSearch(@Param("text") String text, Pageable pageable);
 
+    // Full-text variants: :query is a boolean-mode expression from BookUtils.buildFullTextQuery, served by
+    // the ft_book_metadata_search_text index and ordered by relevance instead of scanning search_text.
+
+    @Query(value = """
+            SELECT b.id FROM book b
+            JOIN book_metadata m ON m.book_id = b.id
+            WHERE (b.deleted IS NULL OR b.deleted = false)
+              AND MATCH(m.search_text) AGAINST (:query IN BOOLEAN MODE)
+            ORDER BY MATCH(m.search_text) AGAINST (:query IN BOOLEAN MODE) DESC, b.added_on DESC
+            """,
+            countQuery = """
+                    SELECT COUNT(*) FROM book b
+                    JOIN book_metadata m ON m.book_id = b.id
+                    WHERE (b.deleted IS NULL OR b.deleted = false)
+                      AND MATCH(m.search_text) AGAINST (:query IN BOOLEAN MODE)
+                    """,
+            nativeQuery = true)
+    Page<Long> findBookIdsByFullTextSearch(@Param("query") String query, Pageable pageable);
+
     @EntityGraph(attributePaths = {"metadata", "metadata.authors", "metadata.categories", "additionalFiles", "shelves"})
     @Query("SELECT DISTINCT b FROM BookEntity b WHERE b.id IN :ids AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithFullMetadataByIds(@Param("ids") Collection<Long> ids);
@@ -101,6 +120,24 @@ public interface BookOpdsRepository extends JpaRepository<BookEntity, Long>, Jpa
             """)
     Page<Long> findBookIdsByMetadataSearchAndLibraryIds(@Param("text") String text, @Param("libraryIds") Collection<Long> libraryIds, Pageable pageable);
 
+    @Query(value = """
+            SELECT b.id FROM book b
+            JOIN book_metadata m ON m.book_id = b.id
+            WHERE (b.deleted IS NULL OR b.deleted = false)
+              AND b.library_id IN :libraryIds
+              AND MATCH(m.search_text) AGAINST (:query IN BOOLEAN MODE)
+            ORDER BY MATCH(m.search_text) AGAINST (:query IN BOOLEAN MODE) DESC, b.added_on DESC
+            """,
+            countQuery = """
+                    SELECT COUNT(*) FROM book b
+                    JOIN book_metadata m ON m.book_id = b.id
+                    WHERE (b.deleted IS NULL OR b.deleted = false)
+                      AND b.library_id IN :libraryIds
+                      AND MATCH(m.search_text) AGAINST (:query IN BOOLEAN MODE)
+                    """,
+            nativeQuery = true)
+    Page<Long> findBookIdsByFullTextSearchAndLibraryIds(@Param("query") String query, @Param("libraryIds") Collection<Long> libraryIds, Pageable pageable);
+
     @EntityGraph(attributePaths = {"metadata", "metadata.authors", "metadata.categories", "additionalFiles", "shelves"})
     @Query("SELECT DISTINCT b FROM BookEntity b WHERE b.id IN :ids AND b.library.id IN :libraryIds AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithFullMetadataByIdsAndLibraryIds(@Param("ids") Collection<Long> ids, @Param("libraryIds") Collection<Long> libraryIds);
@@ -1,9 +1,10 @@
 package com.adityachandel.booklore.repository;
 
+import com.adityachandel.booklore.model.dto.BookEmbeddingStateDto;
+import com.adityachandel.booklore.model.dto.BookSimilarBooksDto;
 import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.model.entity.LibraryPathEntity;
 import jakarta.transaction.Transactional;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
@@ -31,17 +32,20 @@ public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpec
                                                                        @Param("fileSubPath") String fileSubPath,
                                                                        @Param("fileName") String fileName);
 
+    @Query("SELECT CASE WHEN b.fileSubPath = '' THEN b.fileName ELSE CONCAT(b.fileSubPath, '/', b.fileName) END FROM BookEntity b WHERE b.libraryPath.id = :libraryPathId")
+    Set<String> findRelativePathsByLibraryPathId(@Param("libraryPathId") Long libraryPathId);
+
     @Query("SELECT b.id FROM BookEntity b WHERE b.libraryPath.id IN :libraryPathIds AND (b.deleted IS NULL OR b.deleted = false)")
     List<Long> findAllBookIdsByLibraryPathIdIn(@Param("libraryPathIds") Collection<Long> libraryPathIds);
 
-    @EntityGraph(attributePaths = {"metadata", "shelves", "libraryPath"})
-    @Query("SELECT b FROM BookEntity b WHERE (b.deleted IS NULL OR b.deleted = false)")
-    List<BookEntity> findAllWithMetadata();
-
     @EntityGraph(attributePaths = {"metadata", "shelves", "libraryPath"})
     @Query("SELECT b FROM BookEntity b WHERE b.id IN :bookIds AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithMetadataByIds(@Param("bookIds") Set<Long> bookIds);
 
+    @EntityGraph(attributePaths = {"metadata", "metadata.authors", "metadata.categories"})
+    @Query("SELECT b FROM BookEntity b WHERE b.id IN :bookIds AND (b.deleted IS NULL OR b.deleted = false)")
+    List<BookEntity> findAllForKoboSyncByIds(@Param("bookIds") Collection<Long> bookIds);
+
     @EntityGraph(attributePaths = {"metadata", "shelves", "libraryPath"})
     @Query("SELECT b FROM BookEntity b WHERE b.id IN :bookIds AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findWithMetadataByIdsWithPagination(@Param("bookIds") Set<Long> bookIds, Pageable pageable);
@@ -50,10 +54,6 @@ public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpec
     @Query("SELECT b FROM BookEntity b WHERE b.library.id = :libraryId AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithMetadataByLibraryId(@Param("libraryId") Long libraryId);
 
-    @EntityGraph(attributePaths = {"metadata", "shelves", "libraryPath"})
-    @Query("SELECT b FROM BookEntity b WHERE b.library.id IN :libraryIds AND (b.deleted IS NULL OR b.deleted = false)")
-    List<BookEntity> findAllWithMetadataByLibraryIds(@Param("libraryIds") Collection<Long> libraryIds);
-
     @EntityGraph(attributePaths = {"metadata", "shelves", "libraryPath"})
     @Query("SELECT DISTINCT b FROM BookEntity b JOIN b.shelves s WHERE s.id = :shelfId AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithMetadataByShelfId(@Param("shelfId") Long shelfId);
@@ -89,35 +89,80 @@ public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpec
             """)
     List<BookEntity> findBooksWithMetadataAndAuthors(@Param("bookIds") List<Long> bookIds);
 
-    @Query(value = """
-                SELECT DISTINCT b FROM BookEntity b
+    @Query("""
+                SELECT b.id AS id,
+                       m.seriesName AS seriesName,
+                       m.embeddingUpdatedAt AS embeddingUpdatedAt,
+                       b.similarBooksUpdatedAt AS similarBooksUpdatedAt
+                FROM BookEntity b
                 LEFT JOIN b.metadata m
-                WHERE (b.deleted IS NULL OR b.deleted = false) AND (
-                      m.searchText LIKE CONCAT('%', :text, '%')
-                )
-            """,
-            countQuery = """
-                        SELECT COUNT(DISTINCT b.id) FROM BookEntity b
-                        LEFT JOIN b.metadata m
-                        WHERE (b.deleted IS NULL OR b.deleted = false) AND (
-                              m.searchText LIKE CONCAT('%', :text, '%')
-                        )
-                    """)
-    Page<BookEntity> searchByMetadata(@Param("text") String text, Pageable pageable);
+                WHERE (b.deleted IS NULL OR b.deleted = false)
+            """)
+    List<BookEmbeddingStateDto> findAllEmbeddingStates();
+
+    @Query("""
+                SELECT DISTINCT b FROM BookEntity b
+                LEFT JOIN FETCH b.metadata m
+                LEFT JOIN FETCH m.authors
+                LEFT JOIN FETCH m.categories
+                WHERE b.id IN :bookIds
+            """)
+    List<BookEntity> findBooksForEmbedding(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query(value = "SELECT id AS bookId, similar_books_json AS similarBooksJson FROM book WHERE id IN :bookIds AND similar_books_json IS NOT NULL", nativeQuery = true)
+    List<BookSimilarBooksDto> findSimilarBooksJsonByIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("SELECT b.id FROM BookEntity b WHERE b.deleted IS TRUE")
+    List<Long> findAllSoftDeletedIds();
+
+    @Query("SELECT b.id FROM BookEntity b WHERE b.deleted IS TRUE AND b.deletedAt < :cutoffDate")
+    List<Long> findSoftDeletedIdsBefore(@Param("cutoffDate") Instant cutoffDate);
 
     @Modifying
     @Transactional
-    @Query("DELETE FROM BookEntity b WHERE b.deleted IS TRUE")
-    int deleteAllSoftDeleted();
+    @Query("DELETE FROM BookEntity b WHERE b.deleted IS TRUE AND b.id IN :bookIds")
+    int deleteSoftDeletedByIds(@Param("bookIds") Collection<Long> bookIds);
 
     @Modifying
     @Transactional
-    @Query("DELETE FROM BookEntity b WHERE b.deleted IS TRUE AND b.deletedAt < :cutoffDate")
-    int deleteSoftDeletedBefore(@Param("cutoffDate") Instant cutoffDate);
+    @Query(value = "UPDATE book SET similar_books_json = :similarBooksJson, similar_books_updated_at = :timestamp WHERE id = :bookId", nativeQuery = true)
+    void updateSimilarBooks(@Param("bookId") Long bookId, @Param("similarBooksJson") String similarBooksJson, @Param("timestamp") Instant timestamp);
 
     @Query("SELECT COUNT(b) FROM BookEntity b WHERE b.deleted = TRUE")
     long countAllSoftDeleted();
 
+    @Query("""
+                SELECT b FROM BookEntity b
+                JOIN FETCH b.libraryPath lp
+                JOIN FETCH lp.library
+                WHERE b.bookType = com.adityachandel.booklore.model.enums.BookFileType.CBX
+                  AND (LOWER(b.fileName) LIKE '%.cbr' OR LOWER(b.fileName) LIKE '%.cb7')
+                  AND (b.deleted IS NULL OR b.deleted = false)
+            """)
+    List<BookEntity> findAllCbrAndCb7Books();
+
+    @Query("""
+                SELECT DISTINCT b.id FROM BookEntity b
+                JOIN b.shelves s
+                WHERE s.name = :shelfName
+                  AND b.bookType IN (com.adityachandel.booklore.model.enums.BookFileType.EPUB, com.adityachandel.booklore.model.enums.BookFileType.CBX)
+                  AND (b.deleted IS NULL OR b.deleted = false)
+            """)
+    List<Long> findEpubAndCbxIdsOnShelvesNamed(@Param("shelfName") String shelfName);
+
+    @EntityGraph(attributePaths = {"metadata", "metadata.authors", "metadata.categories", "metadata.tags", "libraryPath"})
+    @Query("SELECT b FROM BookEntity b WHERE b.id IN :bookIds AND (b.deleted IS NULL OR b.deleted = false)")
+    List<BookEntity> findAllForKoboConversionByIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BookEntity b SET b.fileName = :fileName, b.currentHash = :currentHash, b.fileSizeKb = :fileSizeKb WHERE b.id = :bookId")
+    void updateFileNameHashAndSize(
+            @Param("bookId") Long bookId,
+            @Param("fileName") String fileName,
+            @Param("currentHash") String currentHash,
+            @Param("fileSizeKb") Long fileSizeKb);
+
     @Modifying
     @Query("""
                 UPDATE BookEntity b
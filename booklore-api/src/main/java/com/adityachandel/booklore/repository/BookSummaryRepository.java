@@ -0,0 +1,268 @@
+package com.adityachandel.booklore.repository;
+
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.BookMetadata;
+import com.adityachandel.booklore.model.dto.LibraryPath;
+import com.adityachandel.booklore.model.dto.Shelf;
+import com.adityachandel.booklore.model.dto.Sort;
+import com.adityachandel.booklore.model.entity.UserBookProgressEntity;
+import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.model.enums.IconType;
+import com.adityachandel.booklore.model.enums.ReadStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Read model for the book list. Every query selects scalar columns only, so nothing is attached to the
+ * persistence context and no entity graph is hydrated; collections are loaded with one query per association
+ * for the whole page of books.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookSummaryRepository {
+
+    private static final String BOOK_COLUMNS = """
+            b.id AS id, b.bookType AS bookType, l.id AS libraryId, l.name AS libraryName, b.libraryPath.id AS libraryPathId,
+            b.fileName AS fileName, b.fileSubPath AS fileSubPath, b.fileSizeKb AS fileSizeKb,
+            b.metadataMatchScore AS metadataMatchScore, b.addedOn AS addedOn,
+            m.bookId AS metadataBookId, m.title AS title, m.subtitle AS subtitle, m.publisher AS publisher,
+            m.publishedDate AS publishedDate, m.seriesName AS seriesName, m.seriesNumber AS seriesNumber,
+            m.seriesTotal AS seriesTotal, m.isbn13 AS isbn13, m.isbn10 AS isbn10, m.pageCount AS pageCount,
+            m.language AS language, m.asin AS asin, m.amazonRating AS amazonRating,
+            m.amazonReviewCount AS amazonReviewCount, m.goodreadsId AS goodreadsId, m.comicvineId AS comicvineId,
+            m.goodreadsRating AS goodreadsRating, m.goodreadsReviewCount AS goodreadsReviewCount,
+            m.hardcoverId AS hardcoverId, m.hardcoverBookId AS hardcoverBookId, m.hardcoverRating AS hardcoverRating,
+            m.hardcoverReviewCount AS hardcoverReviewCount, m.googleId AS googleId, m.coverUpdatedOn AS coverUpdatedOn,
+            m.titleLocked AS titleLocked, m.subtitleLocked AS subtitleLocked, m.publisherLocked AS publisherLocked,
+            m.publishedDateLocked AS publishedDateLocked, m.descriptionLocked AS descriptionLocked,
+            m.seriesNameLocked AS seriesNameLocked, m.seriesNumberLocked AS seriesNumberLocked,
+            m.seriesTotalLocked AS seriesTotalLocked, m.isbn13Locked AS isbn13Locked, m.isbn10Locked AS isbn10Locked,
+            m.asinLocked AS asinLocked, m.goodreadsIdLocked AS goodreadsIdLocked, m.comicvineIdLocked AS comicvineIdLocked,
+            m.hardcoverIdLocked AS hardcoverIdLocked, m.hardcoverBookIdLocked AS hardcoverBookIdLocked,
+            m.googleIdLocked AS googleIdLocked, m.pageCountLocked AS pageCountLocked, m.languageLocked AS languageLocked,
+            m.amazonRatingLocked AS amazonRatingLocked, m.amazonReviewCountLocked AS amazonReviewCountLocked,
+            m.goodreadsRatingLocked AS goodreadsRatingLocked, m.goodreadsReviewCountLocked AS goodreadsReviewCountLocked,
+            m.hardcoverRatingLocked AS hardcoverRatingLocked, m.hardcoverReviewCountLocked AS hardcoverReviewCountLocked,
+            m.coverLocked AS coverLocked, m.authorsLocked AS authorsLocked, m.categoriesLocked AS categoriesLocked,
+            m.moodsLocked AS moodsLocked, m.tagsLocked AS tagsLocked, m.reviewsLocked AS reviewsLocked""";
+
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    /**
+     * Keyset page of books ordered by id, starting after {@code afterId}.
+     *
+     * @param libraryIds libraries to include, or {@code null} for every library
+     */
+    public List<Book> findBooks(Collection<Long> libraryIds, long afterId, int limit, boolean includeDescription) {
+        if (libraryIds != null && libraryIds.isEmpty()) {
+            return List.of();
+        }
+        String jpql = "SELECT " + BOOK_COLUMNS + (includeDescription ? ", m.description AS description" : "") + """
+                 FROM BookEntity b
+                 JOIN b.library l
+                 LEFT JOIN b.metadata m
+                 WHERE (b.deleted IS NULL OR b.deleted = false)
+                   AND b.id > :afterId
+                """ + (libraryIds != null ? " AND l.id IN :libraryIds" : "") + " ORDER BY b.id";
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql, Tuple.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit);
+        if (libraryIds != null) {
+            query.setParameter("libraryIds", libraryIds);
+        }
+
+        List<Book> books = new ArrayList<>();
+        for (Tuple row : query.getResultList()) {
+            books.add(toBook(row, includeDescription));
+        }
+        attachNames(books, "authors", BookMetadata::setAuthors);
+        attachNames(books, "categories", BookMetadata::setCategories);
+        attachNames(books, "moods", BookMetadata::setMoods);
+        attachNames(books, "tags", BookMetadata::setTags);
+        return books;
+    }
+
+    public Map<Long, Set<Shelf>> findShelvesByBookIds(Collection<Long> bookIds, Long userId) {
+        if (bookIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Tuple> rows = entityManager.createQuery("""
+                        SELECT b.id AS bookId, s.id AS id, s.name AS name, s.icon AS icon, s.iconType AS iconType, s.sort AS sort
+                        FROM BookEntity b
+                        JOIN b.shelves s
+                        WHERE b.id IN :bookIds AND s.user.id = :userId
+                        """, Tuple.class)
+                .setParameter("bookIds", bookIds)
+                .setParameter("userId", userId)
+                .getResultList();
+
+        Map<Long, Set<Shelf>> shelves = new HashMap<>();
+        for (Tuple row : rows) {
+            shelves.computeIfAbsent(row.get("bookId", Long.class), id -> new LinkedHashSet<>()).add(Shelf.builder()
+                    .id(row.get("id", Long.class))
+                    .name(row.get("name", String.class))
+                    .icon(row.get("icon", String.class))
+                    .iconType(row.get("iconType", IconType.class))
+                    .sort(row.get("sort", Sort.class))
+                    .userId(userId)
+                    .build());
+        }
+        return shelves;
+    }
+
+    /**
+     * Progress rows for a page of books as detached entities carrying only the fields the book list renders.
+     */
+    public Map<Long, UserBookProgressEntity> findProgressByBookIds(Long userId, Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Tuple> rows = entityManager.createQuery("""
+                        SELECT p.book.id AS bookId, p.lastReadTime AS lastReadTime,
+                               p.pdfProgress AS pdfProgress, p.pdfProgressPercent AS pdfProgressPercent,
+                               p.epubProgress AS epubProgress, p.epubProgressPercent AS epubProgressPercent,
+                               p.cbxProgress AS cbxProgress, p.cbxProgressPercent AS cbxProgressPercent,
+                               p.koreaderProgressPercent AS koreaderProgressPercent, p.koboProgressPercent AS koboProgressPercent,
+                               p.readStatus AS readStatus, p.dateFinished AS dateFinished, p.personalRating AS personalRating
+                        FROM UserBookProgressEntity p
+                        WHERE p.user.id = :userId AND p.book.id IN :bookIds
+                        """, Tuple.class)
+                .setParameter("userId", userId)
+                .setParameter("bookIds", bookIds)
+                .getResultList();
+
+        Map<Long, UserBookProgressEntity> progress = new HashMap<>();
+        for (Tuple row : rows) {
+            progress.put(row.get("bookId", Long.class), UserBookProgressEntity.builder()
+                    .lastReadTime(row.get("lastReadTime", Instant.class))
+                    .pdfProgress(row.get("pdfProgress", Integer.class))
+                    .pdfProgressPercent(row.get("pdfProgressPercent", Float.class))
+                    .epubProgress(row.get("epubProgress", String.class))
+                    .epubProgressPercent(row.get("epubProgressPercent", Float.class))
+                    .cbxProgress(row.get("cbxProgress", Integer.class))
+                    .cbxProgressPercent(row.get("cbxProgressPercent", Float.class))
+                    .koreaderProgressPercent(row.get("koreaderProgressPercent", Float.class))
+                    .koboProgressPercent(row.get("koboProgressPercent", Float.class))
+                    .readStatus(row.get("readStatus", ReadStatus.class))
+                    .dateFinished(row.get("dateFinished", Instant.class))
+                    .personalRating(row.get("personalRating", Integer.class))
+                    .build());
+        }
+        return progress;
+    }
+
+    private void attachNames(List<Book> books, String association, BiConsumer<BookMetadata, Set<String>> setter) {
+        Map<Long, BookMetadata> metadataByBookId = new HashMap<>();
+        for (Book book : books) {
+            if (book.getMetadata() != null) {
+                metadataByBookId.put(book.getId(), book.getMetadata());
+            }
+        }
+        if (metadataByBookId.isEmpty()) {
+            return;
+        }
+        List<Tuple> rows = entityManager.createQuery(
+                        "SELECT m.bookId AS bookId, x.name AS name FROM BookMetadataEntity m JOIN m." + association + " x WHERE m.bookId IN :bookIds",
+                        Tuple.class)
+                .setParameter("bookIds", metadataByBookId.keySet())
+                .getResultList();
+        Map<Long, Set<String>> names = new HashMap<>();
+        for (Tuple row : rows) {
+            names.computeIfAbsent(row.get("bookId", Long.class), id -> new LinkedHashSet<>()).add(row.get("name", String.class));
+        }
+        names.forEach((bookId, values) -> setter.accept(metadataByBookId.get(bookId), values));
+    }
+
+    private static Book toBook(Tuple row, boolean includeDescription) {
+        Long libraryPathId = row.get("libraryPathId", Long.class);
+        Book book = Book.builder()
+                .id(row.get("id", Long.class))
+                .bookType(row.get("bookType", BookFileType.class))
+                .libraryId(row.get("libraryId", Long.class))
+                .libraryName(row.get("libraryName", String.class))
+                .libraryPath(libraryPathId == null ? null : LibraryPath.builder().id(libraryPathId).build())
+                .fileName(row.get("fileName", String.class))
+                .fileSubPath(row.get("fileSubPath", String.class))
+                .fileSizeKb(row.get("fileSizeKb", Long.class))
+                .metadataMatchScore(row.get("metadataMatchScore", Float.class))
+                .addedOn(row.get("addedOn", Instant.class))
+                .build();
+        if (row.get("metadataBookId") == null) {
+            return book;
+        }
+        book.setMetadata(BookMetadata.builder()
+                .bookId(row.get("metadataBookId", Long.class))
+                .title(row.get("title", String.class))
+                .subtitle(row.get("subtitle", String.class))
+                .publisher(row.get("publisher", String.class))
+                .publishedDate(row.get("publishedDate", LocalDate.class))
+                .description(includeDescription ? row.get("description", String.class) : null)
+                .seriesName(row.get("seriesName", String.class))
+                .seriesNumber(row.get("seriesNumber", Float.class))
+                .seriesTotal(row.get("seriesTotal", Integer.class))
+                .isbn13(row.get("isbn13", String.class))
+                .isbn10(row.get("isbn10", String.class))
+                .pageCount(row.get("pageCount", Integer.class))
+                .language(row.get("language", String.class))
+                .asin(row.get("asin", String.class))
+                .amazonRating(row.get("amazonRating", Double.class))
+                .amazonReviewCount(row.get("amazonReviewCount", Integer.class))
+                .goodreadsId(row.get("goodreadsId", String.class))
+                .comicvineId(row.get("comicvineId", String.class))
+                .goodreadsRating(row.get("goodreadsRating", Double.class))
+                .goodreadsReviewCount(row.get("goodreadsReviewCount", Integer.class))
+                .hardcoverId(row.get("hardcoverId", String.class))
+                .hardcoverBookId(row.get("hardcoverBookId", Integer.class))
+                .hardcoverRating(row.get("hardcoverRating", Double.class))
+                .hardcoverReviewCount(row.get("hardcoverReviewCount", Integer.class))
+                .googleId(row.get("googleId", String.class))
+                .coverUpdatedOn(row.get("coverUpdatedOn", Instant.class))
+                .titleLocked(row.get("titleLocked", Boolean.class))
+                .subtitleLocked(row.get("subtitleLocked", Boolean.class))
+                .publisherLocked(row.get("publisherLocked", Boolean.class))
+                .publishedDateLocked(row.get("publishedDateLocked", Boolean.class))
+                .descriptionLocked(row.get("descriptionLocked", Boolean.class))
+                .seriesNameLocked(row.get("seriesNameLocked", Boolean.class))
+                .seriesNumberLocked(row.get("seriesNumberLocked", Boolean.class))
+                .seriesTotalLocked(row.get("seriesTotalLocked", Boolean.class))
+                .isbn13Locked(row.get("isbn13Locked", Boolean.class))
+                .isbn10Locked(row.get("isbn10Locked", Boolean.class))
+                .asinLocked(row.get("asinLocked", Boolean.class))
+                .goodreadsIdLocked(row.get("goodreadsIdLocked", Boolean.class))
+                .comicvineIdLocked(row.get("comicvineIdLocked", Boolean.class))
+                .hardcoverIdLocked(row.get("hardcoverIdLocked", Boolean.class))
+                .hardcoverBookIdLocked(row.get("hardcoverBookIdLocked", Boolean.class))
+                .googleIdLocked(row.get("googleIdLocked", Boolean.class))
+                .pageCountLocked(row.get("pageCountLocked", Boolean.class))
+                .languageLocked(row.get("languageLocked", Boolean.class))
+                .amazonRatingLocked(row.get("amazonRatingLocked", Boolean.class))
+                .amazonReviewCountLocked(row.get("amazonReviewCountLocked", Boolean.class))
+                .goodreadsRatingLocked(row.get("goodreadsRatingLocked", Boolean.class))
+                .goodreadsReviewCountLocked(row.get("goodreadsReviewCountLocked", Boolean.class))
+                .hardcoverRatingLocked(row.get("hardcoverRatingLocked", Boolean.class))
+                .hardcoverReviewCountLocked(row.get("hardcoverReviewCountLocked", Boolean.class))
+                .coverLocked(row.get("coverLocked", Boolean.class))
+                .authorsLocked(row.get("authorsLocked", Boolean.class))
+                .categoriesLocked(row.get("categoriesLocked", Boolean.class))
+                .moodsLocked(row.get("moodsLocked", Boolean.class))
+                .tagsLocked(row.get("tagsLocked", Boolean.class))
+                .reviewsLocked(row.get("reviewsLocked", Boolean.class))
+                .authors(Set.of())
+                .categories(Set.of())
+                .moods(Set.of())
+                .tags(Set.of())
+                .build());
+        return book;
+    }
+}
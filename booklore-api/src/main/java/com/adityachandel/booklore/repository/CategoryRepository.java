@@ -2,8 +2,13 @@ package com.adityachandel.booklore.repository;
 
 import com.adityachandel.booklore.model.entity.CategoryEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,18 @@ public interface CategoryRepository extends JpaRepository<CategoryEntity, Long>
     Optional<CategoryEntity> findByName(String categoryName);
 
     Optional<CategoryEntity> findByNameIgnoreCase(String categoryName);
+
+    List<CategoryEntity> findAllByNameIn(Collection<String> names);
+
+    /**
+     * Inserts every name of the JSON array {@code names} that does not exist yet. The unique index on {@code name}
+     * turns names inserted concurrently, or listed twice, into no-ops.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO category (name)
+            SELECT jt.name FROM JSON_TABLE(:names, '$[*]' COLUMNS (name VARCHAR(255) PATH '$')) AS jt
+            ON DUPLICATE KEY UPDATE id = category.id
+            """, nativeQuery = true)
+    void insertMissingNames(@Param("names") String names);
 }
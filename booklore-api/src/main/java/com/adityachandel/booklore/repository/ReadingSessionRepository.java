@@ -5,24 +5,31 @@ import com.adityachandel.booklore.model.entity.ReadingSessionEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ReadingSessionRepository extends JpaRepository<ReadingSessionEntity, Long> {
 
-    @Query("""
-            SELECT CAST(rs.createdAt AS LocalDate) as date, COUNT(rs) as count
-            FROM ReadingSessionEntity rs
-            WHERE rs.user.id = :userId
-            AND YEAR(rs.createdAt) = :year
-            GROUP BY CAST(rs.createdAt AS LocalDate)
-            ORDER BY date
-            """)
-    List<ReadingSessionCountDto> findSessionCountsByUserAndYear(@Param("userId") Long userId, @Param("year") int year);
+    @Query(value = """
+            SELECT stat_date AS date, session_count AS count
+            FROM reading_session_daily_stats
+            WHERE user_id = :userId
+            AND stat_date >= :fromDate
+            AND stat_date < :toDate
+            ORDER BY stat_date
+            """, nativeQuery = true)
+    List<ReadingSessionCountDto> findSessionCountsByUserAndDateRange(
+            @Param("userId") Long userId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate);
 
     @Query("""
             SELECT 
@@ -36,82 +43,232 @@ public interface ReadingSessionRepository extends JpaRepository<ReadingSessionEn
             FROM ReadingSessionEntity rs
             JOIN rs.book b
             WHERE rs.user.id = :userId
-            AND YEAR(rs.startTime) = :year
-            AND MONTH(rs.startTime) = :month
-            AND WEEK(rs.startTime) = :week
+            AND rs.startTime >= :from
+            AND rs.startTime < :to
             GROUP BY b.id, b.metadata.title, rs.bookType
             ORDER BY MIN(rs.startTime)
             """)
-    List<ReadingSessionTimelineDto> findSessionTimelineByUserAndWeek(
+    List<ReadingSessionTimelineDto> findSessionTimelineByUserAndRange(
             @Param("userId") Long userId,
-            @Param("year") int year,
-            @Param("month") int month,
-            @Param("week") int week);
+            @Param("from") Instant from,
+            @Param("to") Instant to);
 
-    @Query("""
+    @Query(value = """
             SELECT 
-                CAST(rs.createdAt AS LocalDate) as date,
-                AVG(rs.progressDelta / (rs.durationSeconds / 60.0)) as avgProgressPerMinute,
-                COUNT(rs) as totalSessions
-            FROM ReadingSessionEntity rs
-            WHERE rs.user.id = :userId
-            AND rs.durationSeconds > 0
-            AND rs.progressDelta > 0
-            AND YEAR(rs.createdAt) = :year
-            GROUP BY CAST(rs.createdAt AS LocalDate)
-            ORDER BY date
-            """)
-    List<ReadingSpeedDto> findReadingSpeedByUserAndYear(@Param("userId") Long userId, @Param("year") int year);
+                stat_date AS date,
+                progress_per_minute_sum / speed_session_count AS avgProgressPerMinute,
+                speed_session_count AS totalSessions
+            FROM reading_session_daily_stats
+            WHERE user_id = :userId
+            AND speed_session_count > 0
+            AND stat_date >= :fromDate
+            AND stat_date < :toDate
+            ORDER BY stat_date
+            """, nativeQuery = true)
+    List<ReadingSpeedDto> findReadingSpeedByUserAndDateRange(
+            @Param("userId") Long userId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate);
 
-    @Query("""
+    /**
+     * {@code month} of 0 matches every month; it is only used to filter a month across all years.
+     */
+    @Query(value = """
             SELECT 
-                HOUR(rs.startTime) as hourOfDay,
-                COUNT(rs) as sessionCount,
-                SUM(rs.durationSeconds) as totalDurationSeconds
-            FROM ReadingSessionEntity rs
-            WHERE rs.user.id = :userId
-            AND (:year IS NULL OR YEAR(rs.startTime) = :year)
-            AND (:month IS NULL OR MONTH(rs.startTime) = :month)
-            GROUP BY HOUR(rs.startTime)
+                stat_hour AS hourOfDay,
+                SUM(session_count) AS sessionCount,
+                SUM(total_duration_seconds) AS totalDurationSeconds
+            FROM reading_session_hourly_stats
+            WHERE user_id = :userId
+            AND stat_date >= :fromDate
+            AND stat_date < :toDate
+            AND (:month = 0 OR MONTH(stat_date) = :month)
+            GROUP BY stat_hour
             ORDER BY hourOfDay
-            """)
+            """, nativeQuery = true)
     List<PeakReadingHourDto> findPeakReadingHoursByUser(
             @Param("userId") Long userId,
-            @Param("year") Integer year,
-            @Param("month") Integer month);
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate,
+            @Param("month") int month);
 
-    @Query("""
+    /**
+     * {@code month} of 0 matches every month; it is only used to filter a month across all years.
+     */
+    @Query(value = """
             SELECT 
-                DAYOFWEEK(rs.startTime) as dayOfWeek,
-                COUNT(rs) as sessionCount,
-                SUM(rs.durationSeconds) as totalDurationSeconds
-            FROM ReadingSessionEntity rs
-            WHERE rs.user.id = :userId
-            AND (:year IS NULL OR YEAR(rs.startTime) = :year)
-            AND (:month IS NULL OR MONTH(rs.startTime) = :month)
-            GROUP BY DAYOFWEEK(rs.startTime)
+                DAYOFWEEK(stat_date) AS dayOfWeek,
+                SUM(session_count) AS sessionCount,
+                SUM(total_duration_seconds) AS totalDurationSeconds
+            FROM reading_session_hourly_stats
+            WHERE user_id = :userId
+            AND stat_date >= :fromDate
+            AND stat_date < :toDate
+            AND (:month = 0 OR MONTH(stat_date) = :month)
+            GROUP BY DAYOFWEEK(stat_date)
             ORDER BY dayOfWeek
-            """)
+            """, nativeQuery = true)
     List<FavoriteReadingDayDto> findFavoriteReadingDaysByUser(
             @Param("userId") Long userId,
-            @Param("year") Integer year,
-            @Param("month") Integer month);
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate,
+            @Param("month") int month);
 
-    @Query("""
+    @Query(value = """
             SELECT 
-                c.name as genre,
-                COUNT(DISTINCT b.id) as bookCount,
-                COUNT(rs) as totalSessions,
-                SUM(rs.durationSeconds) as totalDurationSeconds
-            FROM ReadingSessionEntity rs
-            JOIN rs.book b
-            JOIN b.metadata.categories c
-            WHERE rs.user.id = :userId
+                c.name AS genre,
+                COUNT(DISTINCT s.book_id) AS bookCount,
+                SUM(s.session_count) AS totalSessions,
+                SUM(s.total_duration_seconds) AS totalDurationSeconds
+            FROM reading_session_book_stats s
+            JOIN book_metadata_category_mapping m ON m.book_id = s.book_id
+            JOIN category c ON c.id = m.category_id
+            WHERE s.user_id = :userId
             GROUP BY c.name
             ORDER BY totalSessions DESC
-            """)
+            """, nativeQuery = true)
     List<GenreStatisticsDto> findGenreStatisticsByUser(@Param("userId") Long userId);
 
+    /**
+     * The rollup keys are derived in SQL from the stored session row, so dates and hours come out exactly as in the
+     * rebuild queries below and in the stored time zone.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO reading_session_daily_stats (user_id, stat_date, session_count, speed_session_count, progress_per_minute_sum)
+            SELECT user_id,
+                   DATE(created_at),
+                   1,
+                   duration_seconds > 0 AND progress_delta > 0,
+                   IF(duration_seconds > 0 AND progress_delta > 0, progress_delta / (duration_seconds / 60.0), 0)
+            FROM reading_sessions
+            WHERE id = :sessionId
+            ON DUPLICATE KEY UPDATE
+                session_count = session_count + 1,
+                speed_session_count = speed_session_count + VALUES(speed_session_count),
+                progress_per_minute_sum = progress_per_minute_sum + VALUES(progress_per_minute_sum)
+            """, nativeQuery = true)
+    void addToDailyStats(@Param("sessionId") Long sessionId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO reading_session_hourly_stats (user_id, stat_date, stat_hour, session_count, total_duration_seconds)
+            SELECT user_id, DATE(start_time), HOUR(start_time), 1, duration_seconds
+            FROM reading_sessions
+            WHERE id = :sessionId
+            ON DUPLICATE KEY UPDATE
+                session_count = session_count + 1,
+                total_duration_seconds = total_duration_seconds + VALUES(total_duration_seconds)
+            """, nativeQuery = true)
+    void addToHourlyStats(@Param("sessionId") Long sessionId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO reading_session_book_stats (user_id, book_id, session_count, total_duration_seconds)
+            SELECT user_id, book_id, 1, duration_seconds
+            FROM reading_sessions
+            WHERE id = :sessionId
+            ON DUPLICATE KEY UPDATE
+                session_count = session_count + 1,
+                total_duration_seconds = total_duration_seconds + VALUES(total_duration_seconds)
+            """, nativeQuery = true)
+    void addToBookStats(@Param("sessionId") Long sessionId);
+
+    /**
+     * Takes the sessions of the given books out of the daily rollups, grouped the same way they were added. Rows left
+     * without sessions are removed by {@link #deleteEmptyDailyStats()}.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE reading_session_daily_stats d
+            JOIN (
+                SELECT user_id,
+                       DATE(created_at) AS stat_date,
+                       COUNT(*) AS session_count,
+                       SUM(duration_seconds > 0 AND progress_delta > 0) AS speed_session_count,
+                       SUM(IF(duration_seconds > 0 AND progress_delta > 0, progress_delta / (duration_seconds / 60.0), 0)) AS progress_per_minute_sum
+                FROM reading_sessions
+                WHERE book_id IN (:bookIds)
+                GROUP BY user_id, DATE(created_at)
+            ) removed ON removed.user_id = d.user_id AND removed.stat_date = d.stat_date
+            SET d.session_count = d.session_count - removed.session_count,
+                d.speed_session_count = d.speed_session_count - removed.speed_session_count,
+                d.progress_per_minute_sum = d.progress_per_minute_sum - removed.progress_per_minute_sum
+            """, nativeQuery = true)
+    void subtractBooksFromDailyStats(@Param("bookIds") Collection<Long> bookIds);
+
+    @Modifying
+    @Query(value = """
+            UPDATE reading_session_hourly_stats h
+            JOIN (
+                SELECT user_id,
+                       DATE(start_time) AS stat_date,
+                       HOUR(start_time) AS stat_hour,
+                       COUNT(*) AS session_count,
+                       SUM(duration_seconds) AS total_duration_seconds
+                FROM reading_sessions
+                WHERE book_id IN (:bookIds)
+                GROUP BY user_id, DATE(start_time), HOUR(start_time)
+            ) removed ON removed.user_id = h.user_id AND removed.stat_date = h.stat_date AND removed.stat_hour = h.stat_hour
+            SET h.session_count = h.session_count - removed.session_count,
+                h.total_duration_seconds = h.total_duration_seconds - removed.total_duration_seconds
+            """, nativeQuery = true)
+    void subtractBooksFromHourlyStats(@Param("bookIds") Collection<Long> bookIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM reading_session_daily_stats WHERE session_count <= 0", nativeQuery = true)
+    void deleteEmptyDailyStats();
+
+    @Modifying
+    @Query(value = "DELETE FROM reading_session_hourly_stats WHERE session_count <= 0", nativeQuery = true)
+    void deleteEmptyHourlyStats();
+
+    @Modifying
+    @Query(value = "DELETE FROM reading_session_daily_stats WHERE user_id = :userId", nativeQuery = true)
+    void deleteDailyStats(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM reading_session_hourly_stats WHERE user_id = :userId", nativeQuery = true)
+    void deleteHourlyStats(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM reading_session_book_stats WHERE user_id = :userId", nativeQuery = true)
+    void deleteBookStats(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO reading_session_daily_stats (user_id, stat_date, session_count, speed_session_count, progress_per_minute_sum)
+            SELECT user_id,
+                   DATE(created_at),
+                   COUNT(*),
+                   SUM(duration_seconds > 0 AND progress_delta > 0),
+                   SUM(IF(duration_seconds > 0 AND progress_delta > 0, progress_delta / (duration_seconds / 60.0), 0))
+            FROM reading_sessions
+            WHERE user_id = :userId
+            GROUP BY user_id, DATE(created_at)
+            """, nativeQuery = true)
+    void rebuildDailyStats(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO reading_session_hourly_stats (user_id, stat_date, stat_hour, session_count, total_duration_seconds)
+            SELECT user_id, DATE(start_time), HOUR(start_time), COUNT(*), SUM(duration_seconds)
+            FROM reading_sessions
+            WHERE user_id = :userId
+            GROUP BY user_id, DATE(start_time), HOUR(start_time)
+            """, nativeQuery = true)
+    void rebuildHourlyStats(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO reading_session_book_stats (user_id, book_id, session_count, total_duration_seconds)
+            SELECT user_id, book_id, COUNT(*), SUM(duration_seconds)
+            FROM reading_sessions
+            WHERE user_id = :userId
+            GROUP BY user_id, book_id
+            """, nativeQuery = true)
+    void rebuildBookStats(@Param("userId") Long userId);
+
     @Query("""
             SELECT rs
             FROM ReadingSessionEntity rs
@@ -1,12 +1,15 @@
 package com.adityachandel.booklore.repository;
 
+import com.adityachandel.booklore.model.ReadProgressUpdate;
 import com.adityachandel.booklore.model.dto.CompletionTimelineDto;
 import com.adityachandel.booklore.model.entity.UserBookProgressEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -60,4 +63,60 @@ public interface UserBookProgressRepository extends JpaRepository<UserBookProgre
             ORDER BY year DESC, month DESC
             """)
     List<CompletionTimelineDto> findCompletionTimelineByUser(@Param("userId") Long userId, @Param("year") int year);
+
+    /**
+     * Applies {@code update} to the progress row of the user and book, creating it when missing. Null fields keep
+     * the stored value, and the unique key on (user_id, book_id) makes concurrent first writes safe.
+     */
+    default void upsert(Long userId, Long bookId, ReadProgressUpdate update) {
+        upsertProgress(userId, bookId, update.getLastReadTime(),
+                update.getPdfProgress(), update.getPdfProgressPercent(),
+                update.getEpubProgress(), update.getEpubProgressPercent(),
+                update.getCbxProgress(), update.getCbxProgressPercent(),
+                update.getKoreaderProgress(), update.getKoreaderProgressPercent(),
+                update.getKoreaderDevice(), update.getKoreaderDeviceId(), update.getKoreaderLastSyncTime(),
+                update.getReadStatus() != null ? update.getReadStatus().name() : null,
+                update.getDateFinished());
+    }
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_book_progress (user_id, book_id, last_read_time,
+                                            pdf_progress, pdf_progress_percent,
+                                            epub_progress, epub_progress_percent,
+                                            cbx_progress, cbx_progress_percent,
+                                            koreader_progress, koreader_progress_percent,
+                                            koreader_device, koreader_device_id, koreader_last_sync_time,
+                                            read_status, date_finished)
+            VALUES (:userId, :bookId, :lastReadTime,
+                    :pdfProgress, :pdfProgressPercent,
+                    :epubProgress, :epubProgressPercent,
+                    :cbxProgress, :cbxProgressPercent,
+                    :koreaderProgress, :koreaderProgressPercent,
+                    :koreaderDevice, :koreaderDeviceId, :koreaderLastSyncTime,
+                    :readStatus, :dateFinished)
+            ON DUPLICATE KEY UPDATE
+                last_read_time = COALESCE(VALUES(last_read_time), last_read_time),
+                pdf_progress = COALESCE(VALUES(pdf_progress), pdf_progress),
+                pdf_progress_percent = COALESCE(VALUES(pdf_progress_percent), pdf_progress_percent),
+                epub_progress = COALESCE(VALUES(epub_progress), epub_progress),
+                epub_progress_percent = COALESCE(VALUES(epub_progress_percent), epub_progress_percent),
+                cbx_progress = COALESCE(VALUES(cbx_progress), cbx_progress),
+                cbx_progress_percent = COALESCE(VALUES(cbx_progress_percent), cbx_progress_percent),
+                koreader_progress = COALESCE(VALUES(koreader_progress), koreader_progress),
+                koreader_progress_percent = COALESCE(VALUES(koreader_progress_percent), koreader_progress_percent),
+                koreader_device = COALESCE(VALUES(koreader_device), koreader_device),
+                koreader_device_id = COALESCE(VALUES(koreader_device_id), koreader_device_id),
+                koreader_last_sync_time = COALESCE(VALUES(koreader_last_sync_time), koreader_last_sync_time),
+                read_status = COALESCE(VALUES(read_status), read_status),
+                date_finished = COALESCE(VALUES(date_finished), date_finished)
+            """, nativeQuery = true)
+    void upsertProgress(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("lastReadTime") Instant lastReadTime,
+                        @Param("pdfProgress") Integer pdfProgress, @Param("pdfProgressPercent") Float pdfProgressPercent,
+                        @Param("epubProgress") String epubProgress, @Param("epubProgressPercent") Float epubProgressPercent,
+                        @Param("cbxProgress") Integer cbxProgress, @Param("cbxProgressPercent") Float cbxProgressPercent,
+                        @Param("koreaderProgress") String koreaderProgress, @Param("koreaderProgressPercent") Float koreaderProgressPercent,
+                        @Param("koreaderDevice") String koreaderDevice, @Param("koreaderDeviceId") String koreaderDeviceId,
+                        @Param("koreaderLastSyncTime") Instant koreaderLastSyncTime,
+                        @Param("readStatus") String readStatus, @Param("dateFinished") Instant dateFinished);
 }
@@ -2,6 +2,7 @@ package com.adityachandel.booklore.repository;
 
 import com.adityachandel.booklore.model.entity.BookLoreUserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,4 +18,7 @@ public interface UserRepository extends JpaRepository<BookLoreUserEntity, Long>
     Optional<BookLoreUserEntity> findById(Long id);
 
     List<BookLoreUserEntity> findAllByLibraries_Id(Long libraryId);
+
+    @Query("SELECT u.id FROM BookLoreUserEntity u")
+    List<Long> findAllIds();
 }
@@ -1,22 +1,17 @@
 package com.adityachandel.booklore.service;
 
 import com.adityachandel.booklore.config.security.service.AuthenticationService;
-import com.adityachandel.booklore.model.entity.BookLoreUserEntity;
-import com.adityachandel.booklore.model.entity.UserPermissionsEntity;
 import com.adityachandel.booklore.model.enums.PermissionType;
 import com.adityachandel.booklore.model.websocket.Topic;
-import com.adityachandel.booklore.repository.UserRepository;
+import com.adityachandel.booklore.service.event.EventRecipientIndex;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.EnumSet;
-import java.util.List;
 import java.util.Set;
 
-import static com.adityachandel.booklore.util.UserPermissionUtils.hasPermission;
-
 @Slf4j
 @Service
 @AllArgsConstructor
@@ -24,7 +19,7 @@ public class NotificationService {
 
     private final SimpMessagingTemplate messagingTemplate;
     private final AuthenticationService authenticationService;
-    private final UserRepository userRepository;
+    private final EventRecipientIndex recipientIndex;
 
     public void sendMessage(Topic topic, Object message) {
         try {
@@ -47,17 +42,8 @@ public class NotificationService {
         permissionSet.addAll(permissionTypes);
 
         try {
-            List<BookLoreUserEntity> users = userRepository.findAll();
-            for (BookLoreUserEntity user : users) {
-                UserPermissionsEntity perms = user.getPermissions();
-                if (perms != null) {
-                    for (PermissionType p : permissionSet) {
-                        if (hasPermission(perms, p)) {
-                            messagingTemplate.convertAndSendToUser(user.getUsername(), topic.getPath(), message);
-                            break;
-                        }
-                    }
-                }
+            for (String username : recipientIndex.usersWithAnyPermission(permissionSet)) {
+                messagingTemplate.convertAndSendToUser(username, topic.getPath(), message);
             }
         } catch (Exception e) {
             log.error("Error sending message to users with permissions {}: {}", permissionSet, e.getMessage(), e);
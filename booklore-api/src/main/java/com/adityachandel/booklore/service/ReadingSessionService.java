@@ -29,9 +29,16 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -39,6 +46,13 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ReadingSessionService {
 
+    // Bounds of the MariaDB DATE type, used when a statistic is not limited to a year
+    private static final LocalDate MIN_STAT_DATE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate MAX_STAT_DATE = LocalDate.of(9999, 12, 31);
+    // Hibernate writes Instants to the DATETIME session columns as UTC, so that is the zone WEEK(), DATE() and HOUR()
+    // see in the database
+    static final ZoneOffset SESSION_TIME_ZONE = ZoneOffset.UTC;
+
     private final AuthenticationService authenticationService;
     private final ReadingSessionRepository readingSessionRepository;
     private final BookRepository bookRepository;
@@ -68,6 +82,9 @@ public class ReadingSessionService {
                 .build();
 
         readingSessionRepository.save(session);
+        readingSessionRepository.addToDailyStats(session.getId());
+        readingSessionRepository.addToHourlyStats(session.getId());
+        readingSessionRepository.addToBookStats(session.getId());
 
         log.info("Reading session persisted successfully: sessionId={}, userId={}, bookId={}, duration={}s", session.getId(), userId, request.getBookId(), request.getDurationSeconds());
     }
@@ -77,7 +94,7 @@ public class ReadingSessionService {
         BookLoreUser authenticatedUser = authenticationService.getAuthenticatedUser();
         Long userId = authenticatedUser.getId();
 
-        return readingSessionRepository.findSessionCountsByUserAndYear(userId, year)
+        return readingSessionRepository.findSessionCountsByUserAndDateRange(userId, LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1))
                 .stream()
                 .map(dto -> ReadingSessionHeatmapResponse.builder()
                         .date(dto.getDate())
@@ -91,7 +108,11 @@ public class ReadingSessionService {
         BookLoreUser authenticatedUser = authenticationService.getAuthenticatedUser();
         Long userId = authenticatedUser.getId();
 
-        return readingSessionRepository.findSessionTimelineByUserAndWeek(userId, year, month, week)
+        Optional<Instant[]> range = weekRange(year, month, week);
+        if (range.isEmpty()) {
+            return List.of();
+        }
+        return readingSessionRepository.findSessionTimelineByUserAndRange(userId, range.get()[0], range.get()[1])
                 .stream()
                 .map(dto -> ReadingSessionTimelineResponse.builder()
                         .bookId(dto.getBookId())
@@ -110,7 +131,7 @@ public class ReadingSessionService {
         BookLoreUser authenticatedUser = authenticationService.getAuthenticatedUser();
         Long userId = authenticatedUser.getId();
 
-        return readingSessionRepository.findReadingSpeedByUserAndYear(userId, year)
+        return readingSessionRepository.findReadingSpeedByUserAndDateRange(userId, LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1))
                 .stream()
                 .map(dto -> ReadingSpeedResponse.builder()
                         .date(dto.getDate())
@@ -125,7 +146,11 @@ public class ReadingSessionService {
         BookLoreUser authenticatedUser = authenticationService.getAuthenticatedUser();
         Long userId = authenticatedUser.getId();
 
-        return readingSessionRepository.findPeakReadingHoursByUser(userId, year, month)
+        if (month != null && (month < 1 || month > 12)) {
+            return List.of();
+        }
+        LocalDate[] range = dateRange(year, month);
+        return readingSessionRepository.findPeakReadingHoursByUser(userId, range[0], range[1], year == null && month != null ? month : 0)
                 .stream()
                 .map(dto -> PeakReadingHoursResponse.builder()
                         .hourOfDay(dto.getHourOfDay())
@@ -142,7 +167,11 @@ public class ReadingSessionService {
 
         String[] dayNames = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
 
-        return readingSessionRepository.findFavoriteReadingDaysByUser(userId, year, month)
+        if (month != null && (month < 1 || month > 12)) {
+            return List.of();
+        }
+        LocalDate[] range = dateRange(year, month);
+        return readingSessionRepository.findFavoriteReadingDaysByUser(userId, range[0], range[1], year == null && month != null ? month : 0)
                 .stream()
                 .map(dto -> FavoriteReadingDaysResponse.builder()
                         .dayOfWeek(dto.getDayOfWeek())
@@ -215,6 +244,36 @@ public class ReadingSessionService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Takes the sessions of books that are about to be deleted out of the daily and hourly rollups. The sessions and
+     * the per-book rollup go with the book through their foreign key cascades, which no rollup query sees, so call
+     * this in the deleting transaction before the books are removed.
+     */
+    @Transactional
+    public void removeBooksFromStatisticsRollups(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        readingSessionRepository.subtractBooksFromDailyStats(bookIds);
+        readingSessionRepository.subtractBooksFromHourlyStats(bookIds);
+        readingSessionRepository.deleteEmptyDailyStats();
+        readingSessionRepository.deleteEmptyHourlyStats();
+    }
+
+    /**
+     * Recomputes a user's statistics rollups from their sessions, e.g. after sessions were removed outside of
+     * {@link #removeBooksFromStatisticsRollups(Collection)}.
+     */
+    @Transactional
+    public void rebuildStatisticsRollups(Long userId) {
+        readingSessionRepository.deleteDailyStats(userId);
+        readingSessionRepository.deleteHourlyStats(userId);
+        readingSessionRepository.deleteBookStats(userId);
+        readingSessionRepository.rebuildDailyStats(userId);
+        readingSessionRepository.rebuildHourlyStats(userId);
+        readingSessionRepository.rebuildBookStats(userId);
+    }
+
     @Transactional(readOnly = true)
     public Page<ReadingSessionResponse> getReadingSessionsForBook(Long bookId, int page) {
         BookLoreUser authenticatedUser = authenticationService.getAuthenticatedUser();
@@ -241,4 +300,36 @@ public class ReadingSessionService {
                 .createdAt(session.getCreatedAt())
                 .build());
     }
+
+    /**
+     * The start (inclusive) and end (exclusive) of a year, of a month in a year, or of all time when no year is
+     * given; a month without a year is filtered separately.
+     */
+    private static LocalDate[] dateRange(Integer year, Integer month) {
+        if (year == null) {
+            return new LocalDate[]{MIN_STAT_DATE, MAX_STAT_DATE};
+        }
+        LocalDate from = LocalDate.of(year, month != null ? month : 1, 1);
+        return new LocalDate[]{from, month != null ? from.plusMonths(1) : from.plusYears(1)};
+    }
+
+    /**
+     * The part of {@code month} that falls in {@code week} of the year, numbered as MariaDB's default {@code WEEK()}
+     * does: weeks start on Sunday, week 1 starts on the first Sunday and the days before it are week 0.
+     */
+    static Optional<Instant[]> weekRange(int year, int month, int week) {
+        if (month < 1 || month > 12 || week < 0 || week > 53) {
+            return Optional.empty();
+        }
+        LocalDate firstSunday = LocalDate.of(year, 1, 1).with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+        LocalDate weekStart = week == 0 ? LocalDate.of(year, 1, 1) : firstSunday.plusWeeks(week - 1);
+        LocalDate weekEnd = week == 0 ? firstSunday : firstSunday.plusWeeks(week);
+        LocalDate monthStart = LocalDate.of(year, month, 1);
+        LocalDate from = weekStart.isAfter(monthStart) ? weekStart : monthStart;
+        LocalDate to = weekEnd.isBefore(monthStart.plusMonths(1)) ? weekEnd : monthStart.plusMonths(1);
+        if (!from.isBefore(to)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Instant[]{from.atStartOfDay(SESSION_TIME_ZONE).toInstant(), to.atStartOfDay(SESSION_TIME_ZONE).toInstant()});
+    }
 }
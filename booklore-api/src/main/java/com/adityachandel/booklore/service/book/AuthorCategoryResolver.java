@@ -0,0 +1,307 @@
+package com.adityachandel.booklore.service.book;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.entity.AuthorEntity;
+import com.adityachandel.booklore.model.entity.CategoryEntity;
+import com.adityachandel.booklore.repository.AuthorRepository;
+import com.adityachandel.booklore.repository.CategoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Turns author and category names into entities with as few queries as possible, instead of a
+ * {@code findByName} and possibly a {@code save} per name.
+ * <p>
+ * The names of a call are looked up with one {@code IN} query, and the missing ones are created with one
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE} that the unique index on {@code name} makes safe when another
+ * transaction inserts the same name at the same time. Resolved ids are kept in a bounded LRU keyed by the trimmed,
+ * lower-cased name (the database collation is case-insensitive too), so names seen before cost no query: they are
+ * handed out as {@code getReferenceById} references, which the entities' {@code @BatchSize} loads together if their
+ * names are read. Within a transaction the resolved entities are reused as they are: batch writers call
+ * {@link #prefetch} once with the names of all their books, and the per-book resolutions that follow need no query
+ * at all.
+ * <p>
+ * Names created by a transaction are cached once it commits, so a rollback leaves no ids of rows that never existed.
+ * Merging, renaming or deleting authors or categories must call {@link #invalidateAuthors()} or
+ * {@link #invalidateCategories()}, cached ids are not checked against the database.
+ * <p>
+ * Hit, miss and eviction counts are published as the standard {@code cache.*} meters with {@code cache=authors} and
+ * {@code cache=categories}.
+ */
+@Slf4j
+@Service
+public class AuthorCategoryResolver {
+
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private final ObjectMapper objectMapper;
+    private final NameTable<AuthorEntity> authors;
+    private final NameTable<CategoryEntity> categories;
+
+    public AuthorCategoryResolver(AuthorRepository authorRepository, CategoryRepository categoryRepository, ObjectMapper objectMapper,
+                                  AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        int maxEntries = Math.max(0, appProperties.getNameCache().getMaxEntries());
+        this.authors = new NameTable<>("authors", maxEntries, meterRegistry,
+                AuthorEntity::getId, AuthorEntity::getName,
+                authorRepository::getReferenceById, authorRepository::findAllByNameIn, authorRepository::insertMissingNames);
+        this.categories = new NameTable<>("categories", maxEntries, meterRegistry,
+                CategoryEntity::getId, CategoryEntity::getName,
+                categoryRepository::getReferenceById, categoryRepository::findAllByNameIn, categoryRepository::insertMissingNames);
+    }
+
+    /**
+     * The authors named {@code names}, created where missing. Blank names are ignored, long ones truncated to the
+     * column size.
+     */
+    @Transactional
+    public Set<AuthorEntity> resolveAuthors(Collection<String> names) {
+        return new HashSet<>(authors.resolve(names, true).values());
+    }
+
+    /**
+     * The categories named {@code names}, created where missing. Blank names are ignored, long ones truncated to the
+     * column size.
+     */
+    @Transactional
+    public Set<CategoryEntity> resolveCategories(Collection<String> names) {
+        return new HashSet<>(categories.resolve(names, true).values());
+    }
+
+    /**
+     * Looks up the existing authors and categories among the names a batch of books is about to use, in one query
+     * each. Nothing is created here, so names a book ends up not using (locked fields, merge rules) leave no rows.
+     */
+    @Transactional
+    public void prefetch(Collection<String> authorNames, Collection<String> categoryNames) {
+        authors.resolve(authorNames, false);
+        categories.resolve(categoryNames, false);
+    }
+
+    public void invalidateAuthors() {
+        authors.clear();
+        afterCommit(authors::clear);
+    }
+
+    public void invalidateCategories() {
+        categories.clear();
+        afterCommit(categories::clear);
+    }
+
+    static String normalise(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private final class NameTable<E> {
+
+        private final int maxEntries;
+        private final Function<E, Long> idOf;
+        private final Function<E, String> nameOf;
+        private final Function<Long, E> referenceById;
+        private final Function<Collection<String>, List<E>> findByNames;
+        private final Consumer<String> insertMissingNames;
+        private final Map<String, Long> ids;
+        private final AtomicLong generation = new AtomicLong();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        private NameTable(String cacheName, int maxEntries, MeterRegistry meterRegistry, Function<E, Long> idOf, Function<E, String> nameOf,
+                          Function<Long, E> referenceById, Function<Collection<String>, List<E>> findByNames,
+                          Consumer<String> insertMissingNames) {
+            this.maxEntries = maxEntries;
+            this.idOf = idOf;
+            this.nameOf = nameOf;
+            this.referenceById = referenceById;
+            this.findByNames = findByNames;
+            this.insertMissingNames = insertMissingNames;
+            this.ids = Collections.synchronizedMap(new LinkedHashMap<String, Long>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    if (size() > NameTable.this.maxEntries) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            });
+
+            FunctionCounter.builder("cache.gets", hits, AtomicLong::get).tag("cache", cacheName).tag("result", "hit")
+                    .description("Names resolved from memory").register(meterRegistry);
+            FunctionCounter.builder("cache.gets", misses, AtomicLong::get).tag("cache", cacheName).tag("result", "miss")
+                    .description("Names looked up in the database").register(meterRegistry);
+            FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get).tag("cache", cacheName)
+                    .description("Names evicted because the cache was full").register(meterRegistry);
+            Gauge.builder("cache.size", ids, Map::size).tag("cache", cacheName)
+                    .description("Names currently cached").register(meterRegistry);
+        }
+
+        Map<String, E> resolve(Collection<String> names, boolean create) {
+            Map<String, String> wanted = new LinkedHashMap<>();
+            for (String name : names != null ? names : List.<String>of()) {
+                if (name != null && !name.isBlank()) {
+                    String truncated = name.length() <= MAX_NAME_LENGTH ? name : name.substring(0, MAX_NAME_LENGTH);
+                    wanted.putIfAbsent(normalise(truncated), truncated);
+                }
+            }
+            Map<String, E> resolved = new HashMap<>();
+            if (wanted.isEmpty()) {
+                return resolved;
+            }
+
+            Map<String, E> transactionScope = transactionScope();
+            if (transactionScope != null) {
+                wanted.keySet().stream()
+                        .filter(transactionScope::containsKey)
+                        .forEach(key -> resolved.put(key, transactionScope.get(key)));
+            }
+            resolveCached(wanted, resolved);
+
+            List<String> missing = missingNames(wanted, resolved);
+            if (!missing.isEmpty()) {
+                long loadGeneration = generation.get();
+                Map<String, E> found = byName(missing);
+                cache(found, loadGeneration);
+                if (create && found.size() < missing.size()) {
+                    Map<String, E> existing = found;
+                    insertMissingNames.accept(toJson(missing.stream().filter(name -> !existing.containsKey(normalise(name))).toList()));
+                    found = byName(missing);
+                    Map<String, E> inserted = new HashMap<>(found);
+                    inserted.keySet().removeAll(existing.keySet());
+                    // Rows this transaction inserted exist for everyone else only once it commits
+                    afterCommit(() -> cache(inserted, loadGeneration));
+                }
+                resolved.putAll(found);
+            }
+            if (create && resolved.size() < wanted.size()) {
+                // An accent-insensitive collation matched a row stored under another spelling, the database knows best
+                for (String name : missingNames(wanted, resolved)) {
+                    findByNames.apply(List.of(name)).stream().findFirst()
+                            .ifPresentOrElse(entity -> resolved.put(normalise(name), entity),
+                                    () -> log.warn("Name '{}' could not be resolved", name));
+                }
+            }
+
+            if (transactionScope != null) {
+                transactionScope.putAll(resolved);
+            }
+            return resolved;
+        }
+
+        private void resolveCached(Map<String, String> wanted, Map<String, E> resolved) {
+            if (maxEntries == 0) {
+                return;
+            }
+            for (String key : wanted.keySet()) {
+                if (resolved.containsKey(key)) {
+                    continue;
+                }
+                Long id = ids.get(key);
+                if (id != null) {
+                    resolved.put(key, referenceById.apply(id));
+                    hits.incrementAndGet();
+                }
+            }
+        }
+
+        private Map<String, E> byName(List<String> names) {
+            misses.addAndGet(names.size());
+            Map<String, E> found = new HashMap<>();
+            for (E entity : findByNames.apply(names)) {
+                found.putIfAbsent(normalise(nameOf.apply(entity)), entity);
+            }
+            return found;
+        }
+
+        private List<String> missingNames(Map<String, String> wanted, Map<String, E> resolved) {
+            return wanted.entrySet().stream()
+                    .filter(entry -> !resolved.containsKey(entry.getKey()))
+                    .map(Map.Entry::getValue)
+                    .toList();
+        }
+
+        private void cache(Map<String, E> found, long loadGeneration) {
+            if (maxEntries == 0 || found.isEmpty()) {
+                return;
+            }
+            synchronized (ids) {
+                if (generation.get() == loadGeneration) {
+                    found.forEach((key, entity) -> ids.put(key, idOf.apply(entity)));
+                }
+            }
+        }
+
+        void clear() {
+            synchronized (ids) {
+                generation.incrementAndGet();
+                ids.clear();
+            }
+        }
+
+        /**
+         * Entities resolved earlier in the current transaction, bound like Spring's own resource holders so a
+         * suspended outer transaction's entities never leak into a {@code REQUIRES_NEW} one.
+         */
+        private Map<String, E> transactionScope() {
+            if (!TransactionSynchronizationManager.isSynchronizationActive() || !TransactionSynchronizationManager.isActualTransactionActive()) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, E> scope = (Map<String, E>) TransactionSynchronizationManager.getResource(this);
+            if (scope != null) {
+                return scope;
+            }
+            Map<String, E> created = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(NameTable.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(NameTable.this, created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(NameTable.this);
+                }
+            });
+            return created;
+        }
+    }
+
+    private String toJson(List<String> names) {
+        try {
+            return objectMapper.writeValueAsString(names);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise names", e);
+        }
+    }
+}
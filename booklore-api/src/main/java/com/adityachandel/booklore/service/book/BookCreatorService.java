@@ -20,9 +20,11 @@ import java.util.*;
 public class BookCreatorService {
 
     private final AuthorRepository authorRepository;
-    private final CategoryRepository categoryRepository;
+    private final AuthorCategoryResolver authorCategoryResolver;
     private final BookRepository bookRepository;
     private final BookMetadataRepository bookMetadataRepository;
+    private final LibraryRepository libraryRepository;
+    private final LibraryPathRepository libraryPathRepository;
 
     public BookEntity createShellBook(LibraryFile libraryFile, BookFileType bookFileType) {
         Optional<BookEntity> existingBookOpt = bookRepository.findByLibraryIdAndLibraryPathIdAndFileSubPathAndFileName(
@@ -45,9 +47,10 @@ public class BookCreatorService {
 
         long fileSizeKb = FileUtils.getFileSizeInKb(libraryFile.getFullPath());
 
+        // Parallel scan workers share the caller's library entities, only their ids are read outside its session
         BookEntity bookEntity = BookEntity.builder()
-                .library(libraryFile.getLibraryEntity())
-                .libraryPath(libraryFile.getLibraryPathEntity())
+                .library(libraryRepository.getReferenceById(libraryFile.getLibraryEntity().getId()))
+                .libraryPath(libraryPathRepository.getReferenceById(libraryFile.getLibraryPathEntity().getId()))
                 .fileName(libraryFile.getFileName())
                 .fileSubPath(libraryFile.getFileSubPath())
                 .bookType(bookFileType)
@@ -67,31 +70,17 @@ public class BookCreatorService {
         if (bookEntity.getMetadata().getCategories() == null) {
             bookEntity.getMetadata().setCategories(new HashSet<>());
         }
-        categories.stream()
-                .map(cat -> truncate(cat, 255))
-                .map(truncated -> categoryRepository.findByName(truncated)
-                        .orElseGet(() -> categoryRepository.save(CategoryEntity.builder().name(truncated).build())))
-                .forEach(catEntity -> bookEntity.getMetadata().getCategories().add(catEntity));
+        bookEntity.getMetadata().getCategories().addAll(authorCategoryResolver.resolveCategories(categories));
     }
 
     public void addAuthorsToBook(Set<String> authors, BookEntity bookEntity) {
         if (bookEntity.getMetadata().getAuthors() == null) {
             bookEntity.getMetadata().setAuthors(new HashSet<>());
         }
-        authors.stream()
-                .map(authorName -> truncate(authorName, 255))
-                .map(authorName -> authorRepository.findByName(authorName)
-                        .orElseGet(() -> authorRepository.save(AuthorEntity.builder().name(authorName).build())))
-                .forEach(authorEntity -> bookEntity.getMetadata().getAuthors().add(authorEntity));
+        bookEntity.getMetadata().getAuthors().addAll(authorCategoryResolver.resolveAuthors(authors));
         bookEntity.getMetadata().updateSearchText(); // Manually trigger search text update since collection modification doesn't trigger @PreUpdate
     }
 
-    private String truncate(String input, int maxLength) {
-        if (input == null)
-            return null;
-        return input.length() <= maxLength ? input : input.substring(0, maxLength);
-    }
-
     public void saveConnections(BookEntity bookEntity) {
         if (bookEntity.getMetadata().getAuthors() != null && !bookEntity.getMetadata().getAuthors().isEmpty()) {
             authorRepository.saveAll(bookEntity.getMetadata().getAuthors());
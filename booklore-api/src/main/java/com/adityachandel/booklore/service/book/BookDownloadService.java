@@ -6,22 +6,18 @@ import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
-import com.adityachandel.booklore.service.kobo.KepubConversionService;
-import com.adityachandel.booklore.service.kobo.CbxConversionService;
+import com.adityachandel.booklore.service.kobo.KoboConversionCache;
+import com.adityachandel.booklore.util.FileStreamingUtils;
 import com.adityachandel.booklore.util.FileUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.FileSystemUtils;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
@@ -40,39 +36,26 @@ public class BookDownloadService {
     private static final Pattern NON_ASCII_PATTERN = Pattern.compile("[^\\x00-\\x7F]");
 
     private final BookRepository bookRepository;
-    private final KepubConversionService kepubConversionService;
-    private final CbxConversionService cbxConversionService;
+    private final KoboConversionCache koboConversionCache;
     private final AppSettingService appSettingService;
 
-    public ResponseEntity<Resource> downloadBook(Long bookId) {
-        try {
-            BookEntity bookEntity = bookRepository.findById(bookId)
-                    .orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
+    public void downloadBook(Long bookId, HttpServletRequest request, HttpServletResponse response) {
+        BookEntity bookEntity = bookRepository.findById(bookId)
+                .orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
 
-            Path file = Paths.get(FileUtils.getBookFullPath(bookEntity)).toAbsolutePath().normalize();
-            File bookFile = file.toFile();
+        Path file = Paths.get(FileUtils.getBookFullPath(bookEntity)).toAbsolutePath().normalize();
+        if (!Files.isRegularFile(file)) {
+            throw ApiError.FAILED_TO_DOWNLOAD_FILE.createException(bookId);
+        }
 
-            if (!bookFile.exists()) {
-                throw ApiError.FAILED_TO_DOWNLOAD_FILE.createException(bookId);
+        try {
+            FileStreamingUtils.streamFile(file, MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                    buildContentDisposition(file.getFileName().toString()), request, response);
+        } catch (IOException e) {
+            if (response.isCommitted()) {
+                log.debug("Download of book {} aborted by client: {}", bookId, e.getMessage());
+                return;
             }
-
-            InputStream inputStream = new FileInputStream(bookFile);
-            InputStreamResource resource = new InputStreamResource(inputStream);
-
-            String encodedFilename = URLEncoder.encode(file.getFileName().toString(), StandardCharsets.UTF_8)
-                    .replace("+", "%20");
-            String fallbackFilename = NON_ASCII_PATTERN.matcher(file.getFileName().toString()).replaceAll("_");
-            String contentDisposition = String.format("attachment; filename=\"%s\"; filename*=UTF-8''%s",
-                    fallbackFilename, encodedFilename);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .contentLength(bookFile.length())
-                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
-                    .header(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate")
-                    .header(HttpHeaders.PRAGMA, "no-cache")
-                    .header(HttpHeaders.EXPIRES, "0")
-                    .body(resource);
-        } catch (Exception e) {
             log.error("Failed to download book {}: {}", bookId, e.getMessage(), e);
             throw ApiError.FAILED_TO_DOWNLOAD_FILE.createException(bookId);
         }
@@ -93,27 +76,8 @@ public class BookDownloadService {
             throw ApiError.GENERIC_BAD_REQUEST.createException("Kobo settings not found.");
         }
 
-        boolean convertEpubToKepub = isEpub && koboSettings.isConvertToKepub() && bookEntity.getFileSizeKb() <= (long) koboSettings.getConversionLimitInMb() * 1024;
-        boolean convertCbxToEpub = isCbx && koboSettings.isConvertCbxToEpub() && bookEntity.getFileSizeKb() <= (long) koboSettings.getConversionLimitInMbForCbx() * 1024;
-
-        int compressionPercentage = koboSettings.getConversionImageCompressionPercentage();
-        Path tempDir = null;
-        try {
-            File inputFile = new File(FileUtils.getBookFullPath(bookEntity));
-            File fileToSend = inputFile;
-
-            if (convertCbxToEpub || convertEpubToKepub) {
-                tempDir = Files.createTempDirectory("kobo-conversion");
-            }
-
-            if (convertCbxToEpub) {
-                fileToSend = cbxConversionService.convertCbxToEpub(inputFile, tempDir.toFile(), bookEntity,compressionPercentage);
-            }
-
-            if (convertEpubToKepub) {
-                fileToSend = kepubConversionService.convertEpubToKepub(inputFile, tempDir.toFile(),
-                    koboSettings.isForceEnableHyphenation());
-            }
+        try (KoboConversionCache.Lease download = koboConversionCache.resolve(bookEntity, koboSettings)) {
+            File fileToSend = download.file();
 
             setResponseHeaders(response, fileToSend);
             streamFileToResponse(fileToSend, response);
@@ -123,19 +87,19 @@ public class BookDownloadService {
         } catch (Exception e) {
             log.error("Failed to download kobo book {}: {}", bookId, e.getMessage(), e);
             throw ApiError.FAILED_TO_DOWNLOAD_FILE.createException(bookId);
-        } finally {
-            cleanupTempDirectory(tempDir);
         }
     }
 
     private void setResponseHeaders(HttpServletResponse response, File file) {
         response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
         response.setContentLengthLong(file.length());
-        String encodedFilename = URLEncoder.encode(file.getName(), StandardCharsets.UTF_8).replace("+", "%20");
-        String fallbackFilename = NON_ASCII_PATTERN.matcher(file.getName()).replaceAll("_");
-        String contentDisposition = String.format("attachment; filename=\"%s\"; filename*=UTF-8''%s",
-                fallbackFilename, encodedFilename);
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, buildContentDisposition(file.getName()));
+    }
+
+    private String buildContentDisposition(String fileName) {
+        String encodedFilename = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20");
+        String fallbackFilename = NON_ASCII_PATTERN.matcher(fileName).replaceAll("_");
+        return String.format("attachment; filename=\"%s\"; filename*=UTF-8''%s", fallbackFilename, encodedFilename);
     }
 
     private void streamFileToResponse(File file, HttpServletResponse response) {
@@ -146,15 +110,4 @@ public class BookDownloadService {
             throw new UncheckedIOException("Failed to stream file to response", e);
         }
     }
-
-    private void cleanupTempDirectory(Path tempDir) {
-        if (tempDir != null) {
-            try {
-                FileSystemUtils.deleteRecursively(tempDir);
-                log.debug("Deleted temporary directory {}", tempDir);
-            } catch (Exception e) {
-                log.warn("Failed to delete temporary directory {}: {}", tempDir, e.getMessage());
-            }
-        }
-    }
 }
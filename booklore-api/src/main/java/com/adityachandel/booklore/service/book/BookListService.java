@@ -0,0 +1,99 @@
+package com.adityachandel.booklore.service.book;
+
+import com.adityachandel.booklore.config.security.service.AuthenticationService;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.BookLoreUser;
+import com.adityachandel.booklore.model.dto.Library;
+import com.adityachandel.booklore.model.dto.Shelf;
+import com.adityachandel.booklore.model.entity.UserBookProgressEntity;
+import com.adityachandel.booklore.repository.BookSummaryRepository;
+import com.adityachandel.booklore.service.user.ReadProgressBuffer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the book list from {@link BookSummaryRepository} in id-ordered chunks, so a request never holds more
+ * than one chunk of books in memory and the client starts receiving JSON after the first chunk is read.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookListService {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int CHUNK_SIZE = 1000;
+
+    private final BookSummaryRepository bookSummaryRepository;
+    private final AuthenticationService authenticationService;
+    private final ObjectMapper objectMapper;
+    private final ReadProgressBuffer readProgressBuffer;
+
+    /**
+     * Writes the books visible to the current user as a JSON array.
+     * <p>
+     * Without a {@code limit} every book after {@code cursor} is streamed. With a {@code limit} a single page is
+     * written and, if more books follow, the id to pass as the next {@code cursor} is returned in
+     * {@value #NEXT_CURSOR_HEADER}.
+     */
+    public void writeBooks(boolean includeDescription, Long cursor, Integer limit, HttpServletResponse response) throws IOException {
+        BookLoreUser user = authenticationService.getAuthenticatedUser();
+        Set<Long> libraryIds = user.getPermissions().isAdmin()
+                ? null
+                : user.getAssignedLibraries().stream().map(Library::getId).collect(Collectors.toSet());
+        long afterId = cursor == null ? 0 : cursor;
+        readProgressBuffer.flush(user.getId());
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        if (limit != null) {
+            List<Book> page = loadChunk(user, libraryIds, afterId, limit + 1, includeDescription);
+            if (page.size() > limit) {
+                page = page.subList(0, limit);
+                response.setHeader(NEXT_CURSOR_HEADER, String.valueOf(page.getLast().getId()));
+            }
+            objectMapper.writeValue(response.getOutputStream(), page);
+            return;
+        }
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            List<Book> chunk;
+            do {
+                chunk = loadChunk(user, libraryIds, afterId, CHUNK_SIZE, includeDescription);
+                for (Book book : chunk) {
+                    generator.writeObject(book);
+                }
+                generator.flush();
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.getLast().getId();
+                }
+            } while (chunk.size() == CHUNK_SIZE);
+            generator.writeEndArray();
+        }
+    }
+
+    private List<Book> loadChunk(BookLoreUser user, Set<Long> libraryIds, long afterId, int size, boolean includeDescription) {
+        List<Book> books = bookSummaryRepository.findBooks(libraryIds, afterId, size, includeDescription);
+        if (books.isEmpty()) {
+            return books;
+        }
+        Set<Long> bookIds = books.stream().map(Book::getId).collect(Collectors.toSet());
+        Map<Long, UserBookProgressEntity> progressMap = bookSummaryRepository.findProgressByBookIds(user.getId(), bookIds);
+        Map<Long, Set<Shelf>> shelvesMap = bookSummaryRepository.findShelvesByBookIds(bookIds, user.getId());
+
+        for (Book book : books) {
+            BookService.enrichBookWithProgress(book, progressMap.get(book.getId()));
+            book.setShelves(shelvesMap.getOrDefault(book.getId(), Collections.emptySet()));
+        }
+        return books;
+    }
+}
@@ -3,6 +3,7 @@ package com.adityachandel.booklore.service.book;
 import com.adityachandel.booklore.config.security.service.AuthenticationService;
 import com.adityachandel.booklore.exception.ApiError;
 import com.adityachandel.booklore.mapper.BookMapper;
+import com.adityachandel.booklore.model.ReadProgressUpdate;
 import com.adityachandel.booklore.model.dto.*;
 import com.adityachandel.booklore.model.dto.progress.CbxProgress;
 import com.adityachandel.booklore.model.dto.progress.EpubProgress;
@@ -16,11 +17,16 @@ import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.model.enums.ReadStatus;
 import com.adityachandel.booklore.model.enums.ResetProgressType;
 import com.adityachandel.booklore.repository.*;
+import com.adityachandel.booklore.service.ReadingSessionService;
 import com.adityachandel.booklore.service.kobo.KoboReadingStateService;
+import com.adityachandel.booklore.service.user.ReadProgressBuffer;
 import com.adityachandel.booklore.service.user.UserProgressService;
 import com.adityachandel.booklore.service.monitoring.MonitoringRegistrationService;
 import com.adityachandel.booklore.util.FileService;
+import com.adityachandel.booklore.util.FileStreamingUtils;
 import com.adityachandel.booklore.util.FileUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.EnumUtils;
@@ -30,10 +36,11 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
@@ -64,9 +71,12 @@ public class BookService {
     private final BookDownloadService bookDownloadService;
     private final MonitoringRegistrationService monitoringRegistrationService;
     private final KoboReadingStateService koboReadingStateService;
+    private final ReadProgressBuffer readProgressBuffer;
+    private final ReadingSessionService readingSessionService;
+    private final PlatformTransactionManager transactionManager;
 
 
-    private void setBookProgress(Book book, UserBookProgressEntity progress) {
+    static void setBookProgress(Book book, UserBookProgressEntity progress) {
         if (progress.getKoboProgressPercent() != null) {
             book.setKoboProgress(KoboProgress.builder()
                     .percentage(progress.getKoboProgressPercent())
@@ -94,7 +104,7 @@ public class BookService {
         }
     }
 
-    private void enrichBookWithProgress(Book book, UserBookProgressEntity progress) {
+    static void enrichBookWithProgress(Book book, UserBookProgressEntity progress) {
         if (progress != null) {
             setBookProgress(book, progress);
             book.setLastReadTime(progress.getLastReadTime());
@@ -104,34 +114,6 @@ public class BookService {
         }
     }
 
-    public List<Book> getBookDTOs(boolean includeDescription) {
-        BookLoreUser user = authenticationService.getAuthenticatedUser();
-        boolean isAdmin = user.getPermissions().isAdmin();
-
-        List<Book> books = isAdmin
-                ? bookQueryService.getAllBooks(includeDescription)
-                : bookQueryService.getAllBooksByLibraryIds(
-                user.getAssignedLibraries().stream()
-                        .map(Library::getId)
-                        .collect(Collectors.toSet()),
-                includeDescription,
-                user.getId()
-        );
-
-        Map<Long, UserBookProgressEntity> progressMap =
-                userProgressService.fetchUserProgress(
-                        user.getId(),
-                        books.stream().map(Book::getId).collect(Collectors.toSet())
-                );
-
-        books.forEach(book -> {
-            enrichBookWithProgress(book, progressMap.get(book.getId()));
-            book.setShelves(filterShelvesByUserId(book.getShelves(), user.getId()));
-        });
-
-        return books;
-    }
-
     public List<Book> getBooksByIds(Set<Long> bookIds, boolean withDescription) {
         BookLoreUser user = authenticationService.getAuthenticatedUser();
 
@@ -153,6 +135,7 @@ public class BookService {
         BookLoreUser user = authenticationService.getAuthenticatedUser();
         BookEntity bookEntity = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
 
+        readProgressBuffer.flush(user.getId());
         UserBookProgressEntity userProgress = userBookProgressRepository.findByUserIdAndBookId(user.getId(), bookId).orElse(new UserBookProgressEntity());
 
         Book book = bookMapper.toBook(bookEntity);
@@ -326,63 +309,54 @@ public class BookService {
         }
     }
 
-    @Transactional
     public void updateReadProgress(ReadProgressRequest request) {
         BookEntity book = bookRepository.findById(request.getBookId())
                 .orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(request.getBookId()));
 
         BookLoreUser user = authenticationService.getAuthenticatedUser();
 
-        UserBookProgressEntity progress = userBookProgressRepository
-                .findByUserIdAndBookId(user.getId(), book.getId())
-                .orElseGet(UserBookProgressEntity::new);
-
-        BookLoreUserEntity userEntity = userRepository.findById(user.getId())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        progress.setUser(userEntity);
-
-        progress.setBook(book);
-        progress.setLastReadTime(Instant.now());
+        ReadProgressUpdate.ReadProgressUpdateBuilder progress = ReadProgressUpdate.builder()
+                .lastReadTime(Instant.now());
 
         Float percentage = null;
         switch (book.getBookType()) {
             case EPUB -> {
                 if (request.getEpubProgress() != null) {
-                    progress.setEpubProgress(request.getEpubProgress().getCfi());
+                    progress.epubProgress(request.getEpubProgress().getCfi());
                     percentage = request.getEpubProgress().getPercentage();
                 }
             }
             case PDF -> {
                 if (request.getPdfProgress() != null) {
-                    progress.setPdfProgress(request.getPdfProgress().getPage());
+                    progress.pdfProgress(request.getPdfProgress().getPage());
                     percentage = request.getPdfProgress().getPercentage();
                 }
             }
             case CBX -> {
                 if (request.getCbxProgress() != null) {
-                    progress.setCbxProgress(request.getCbxProgress().getPage());
+                    progress.cbxProgress(request.getCbxProgress().getPage());
                     percentage = request.getCbxProgress().getPercentage();
                 }
             }
         }
 
         if (percentage != null) {
-            progress.setReadStatus(getStatus(percentage));
+            progress.readStatus(getStatus(percentage));
             setProgressPercent(progress, book.getBookType(), percentage);
         }
 
         if (request.getDateFinished() != null) {
-            progress.setDateFinished(request.getDateFinished());
+            progress.dateFinished(request.getDateFinished());
         }
 
-        userBookProgressRepository.save(progress);
+        readProgressBuffer.record(user.getId(), book.getId(), progress.build());
     }
 
-    private void setProgressPercent(UserBookProgressEntity progress, BookFileType type, Float percentage) {
+    private void setProgressPercent(ReadProgressUpdate.ReadProgressUpdateBuilder progress, BookFileType type, Float percentage) {
         switch (type) {
-            case EPUB -> progress.setEpubProgressPercent(percentage);
-            case PDF -> progress.setPdfProgressPercent(percentage);
-            case CBX -> progress.setCbxProgressPercent(percentage);
+            case EPUB -> progress.epubProgressPercent(percentage);
+            case PDF -> progress.pdfProgressPercent(percentage);
+            case CBX -> progress.cbxProgressPercent(percentage);
         }
     }
 
@@ -392,11 +366,14 @@ public class BookService {
         return ReadStatus.UNREAD;
     }
 
-    @Transactional
     public List<Book> updateReadStatus(List<Long> bookIds, String status) {
         BookLoreUser user = authenticationService.getAuthenticatedUser();
+        readProgressBuffer.flush(user.getId());
         ReadStatus readStatus = EnumUtils.getEnumIgnoreCase(ReadStatus.class, status);
+        return new TransactionTemplate(transactionManager).execute(tx -> saveReadStatus(user, bookIds, readStatus));
+    }
 
+    private List<Book> saveReadStatus(BookLoreUser user, List<Long> bookIds, ReadStatus readStatus) {
         List<BookEntity> books = bookRepository.findAllById(bookIds);
         if (books.size() != bookIds.size()) {
             throw ApiError.BOOK_NOT_FOUND.createException("One or more books not found");
@@ -431,7 +408,7 @@ public class BookService {
                             .findByUserIdAndBookId(user.getId(), bookEntity.getId())
                             .orElse(null);
 
-                    this.enrichBookWithProgress(book, progress);
+                    enrichBookWithProgress(book, progress);
                     return book;
                 })
                 .collect(Collectors.toList());
@@ -439,6 +416,7 @@ public class BookService {
 
     public List<Book> resetProgress(List<Long> bookIds, ResetProgressType type) {
         BookLoreUser user = authenticationService.getAuthenticatedUser();
+        readProgressBuffer.flush(user.getId());
         List<Book> updatedBooks = new ArrayList<>();
         Optional<BookLoreUserEntity> userEntity = userRepository.findById(user.getId());
 
@@ -487,10 +465,13 @@ public class BookService {
         return updatedBooks;
     }
 
-   @Transactional
     public List<Book> updatePersonalRating(List<Long> bookIds, Integer rating) {
         BookLoreUser user = authenticationService.getAuthenticatedUser();
+        readProgressBuffer.flush(user.getId());
+        return new TransactionTemplate(transactionManager).execute(tx -> savePersonalRating(user, bookIds, rating));
+    }
 
+    private List<Book> savePersonalRating(BookLoreUser user, List<Long> bookIds, Integer rating) {
         List<BookEntity> books = bookRepository.findAllById(bookIds);
         if (books.size() != bookIds.size()) {
             throw ApiError.BOOK_NOT_FOUND.createException("One or more books not found");
@@ -517,7 +498,7 @@ public class BookService {
                             .findByUserIdAndBookId(user.getId(), bookEntity.getId())
                             .orElse(null);
 
-                    this.enrichBookWithProgress(book, progress);
+                    enrichBookWithProgress(book, progress);
                     return book;
                 })
                 .collect(Collectors.toList());
@@ -525,6 +506,7 @@ public class BookService {
 
     public List<Book> resetPersonalRating(List<Long> bookIds) {
         BookLoreUser user = authenticationService.getAuthenticatedUser();
+        readProgressBuffer.flush(user.getId());
         List<Book> updatedBooks = new ArrayList<>();
         Optional<BookLoreUserEntity> userEntity = userRepository.findById(user.getId());
 
@@ -617,17 +599,17 @@ public class BookService {
         }
     }
 
-    public ResponseEntity<Resource> downloadBook(Long bookId) {
-        return bookDownloadService.downloadBook(bookId);
+    public void downloadBook(Long bookId, HttpServletRequest request, HttpServletResponse response) {
+        bookDownloadService.downloadBook(bookId, request, response);
     }
 
-    public ResponseEntity<ByteArrayResource> getBookContent(long bookId) throws IOException {
+    public void getBookContent(long bookId, HttpServletRequest request, HttpServletResponse response) throws IOException {
         BookEntity bookEntity = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
-        try (FileInputStream inputStream = new FileInputStream(FileUtils.getBookFullPath(bookEntity))) {
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(new ByteArrayResource(inputStream.readAllBytes()));
+        Path bookPath = Paths.get(FileUtils.getBookFullPath(bookEntity));
+        if (!Files.isRegularFile(bookPath)) {
+            throw ApiError.FILE_NOT_FOUND.createException(bookPath);
         }
+        FileStreamingUtils.streamFile(bookPath, MediaType.APPLICATION_OCTET_STREAM_VALUE, null, request, response);
     }
 
 
@@ -657,6 +639,7 @@ public class BookService {
             }
         }
 
+        readingSessionService.removeBooksFromStatisticsRollups(books.stream().map(BookEntity::getId).toList());
         bookRepository.deleteAll(books);
         BookDeletionResponse response = new BookDeletionResponse(ids, failedFileDeletions);
         return failedFileDeletions.isEmpty()
@@ -0,0 +1,339 @@
+package com.adityachandel.booklore.service.book;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.util.FileService;
+import com.adityachandel.booklore.util.ImageProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Serves derived versions of a book's cover: scaled to fit a box, greyscale and/or at a given JPEG quality.
+ * <p>
+ * Variants are cached one file per variant under {@code cover_variant_cache/<bookId>/}, named after the cover
+ * version (modification time and size of {@code cover.jpg}) and the variant parameters, so replacing a cover
+ * retires its variants without any bookkeeping. Generation shares a fixed number of permits, concurrent requests
+ * for the same variant wait on a single generation, and the cache is kept under the configured size by evicting
+ * the least recently served variants. Responses carry a strong ETag derived from the variant key, so a
+ * revalidation is answered without reading any image.
+ */
+@Slf4j
+@Service
+public class CoverVariantService {
+
+    private static final int MIN_DIMENSION = 16;
+    private static final int MIN_QUALITY = 10;
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private final FileService fileService;
+    private final AppProperties.CoverVariants config;
+    private final Semaphore generatePermits;
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong cacheSizeBytes = new AtomicLong(-1);
+    private final Object evictionLock = new Object();
+
+    public CoverVariantService(FileService fileService, AppProperties appProperties) {
+        this.fileService = fileService;
+        this.config = appProperties.getCoverVariants();
+        int parallelism = config.getParallelism() > 0
+                ? config.getParallelism()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.generatePermits = new Semaphore(parallelism);
+    }
+
+    public record Variant(int maxWidth, int maxHeight, int quality, boolean greyscale) {
+        String key() {
+            return "w" + maxWidth + "-h" + maxHeight + "-q" + quality + (greyscale ? "-g" : "");
+        }
+    }
+
+    /**
+     * Normalises client supplied parameters; a missing or non-positive quality uses the configured default.
+     */
+    public Variant variant(int width, int height, Integer quality, boolean greyscale) {
+        int maxDimension = Math.max(MIN_DIMENSION, config.getMaxDimension());
+        int resolvedQuality = quality != null && quality > 0 ? Math.clamp(quality, MIN_QUALITY, 100) : config.getDefaultQuality();
+        return new Variant(Math.clamp(width, MIN_DIMENSION, maxDimension), Math.clamp(height, MIN_DIMENSION, maxDimension), resolvedQuality, greyscale);
+    }
+
+    public boolean hasCover(long bookId) {
+        return Files.isRegularFile(coverPath(bookId));
+    }
+
+    /**
+     * @param ifNoneMatch the request's {@code If-None-Match} header, answered with 304 when it matches
+     */
+    public ResponseEntity<Resource> serve(long bookId, Variant variant, String ifNoneMatch) {
+        Path cover = coverPath(bookId);
+        String coverVersion;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(cover, BasicFileAttributes.class);
+            coverVersion = Long.toHexString(attributes.lastModifiedTime().toMillis()) + "." + Long.toHexString(attributes.size());
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read cover of book " + bookId, e);
+        }
+
+        String etag = "\"" + bookId + "-" + coverVersion + "-" + variant.key() + "\"";
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+        }
+
+        byte[] image;
+        try {
+            image = load(bookId, cover, coverVersion, variant);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build cover variant for book " + bookId, e);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .body(new ByteArrayResource(image));
+    }
+
+    private byte[] load(long bookId, Path cover, String coverVersion, Variant variant) throws IOException {
+        Path target = Path.of(fileService.getCoverVariantCachePath(), String.valueOf(bookId), coverVersion + "-" + variant.key() + ".jpg");
+        byte[] image;
+        try {
+            image = Files.readAllBytes(generateIfMissing(cover, coverVersion, variant, target));
+        } catch (NoSuchFileException e) {
+            // Evicted between generation and read, generate it once more
+            image = Files.readAllBytes(generateIfMissing(cover, coverVersion, variant, target));
+        }
+        touch(target);
+        return image;
+    }
+
+    private Path generateIfMissing(Path cover, String coverVersion, Variant variant, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return target;
+        }
+        CompletableFuture<Path> generation = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(target, generation);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            generatePermits.acquire();
+            try {
+                write(cover, coverVersion, variant, target);
+            } finally {
+                generatePermits.release();
+            }
+            generation.complete(target);
+            return target;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while generating " + target);
+            generation.completeExceptionally(interrupted);
+            throw interrupted;
+        } catch (IOException | RuntimeException e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(target, generation);
+        }
+    }
+
+    private void write(Path cover, String coverVersion, Variant variant, Path target) throws IOException {
+        BufferedImage source = ImageIO.read(cover.toFile());
+        if (source == null) {
+            throw new IOException("Unsupported cover image: " + cover);
+        }
+        BufferedImage image = render(source, variant);
+
+        Files.createDirectories(target.getParent());
+        removeRetiredVersions(target.getParent(), coverVersion);
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(tempFile.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(variant.quality() / 100f);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+            source.flush();
+            image.flush();
+        }
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        recordCachedBytes(Files.size(target));
+    }
+
+    /**
+     * Scales {@code source} down to fit the variant's box, never up.
+     */
+    static BufferedImage render(BufferedImage source, Variant variant) {
+        BufferedImage scaled = ImageProcessor.scaleToFit(source, variant.maxWidth(), variant.maxHeight());
+        return variant.greyscale() ? toGreyscale(scaled) : scaled;
+    }
+
+    /**
+     * Rec. 601 luma computed on the sRGB values; drawing into {@code TYPE_BYTE_GRAY} directly goes through a linear
+     * grey colour space and comes out visibly too dark.
+     */
+    private static BufferedImage toGreyscale(BufferedImage rgb) {
+        int width = rgb.getWidth();
+        int height = rgb.getHeight();
+        BufferedImage grey = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        WritableRaster raster = grey.getRaster();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            rgb.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int pixel = row[x];
+                int luma = (299 * ((pixel >> 16) & 0xFF) + 587 * ((pixel >> 8) & 0xFF) + 114 * (pixel & 0xFF)) / 1000;
+                raster.setSample(x, y, 0, luma);
+            }
+        }
+        return grey;
+    }
+
+    private void removeRetiredVersions(Path bookDir, String coverVersion) {
+        try (Stream<Path> files = Files.list(bookDir)) {
+            for (Path file : files.filter(f -> !f.getFileName().toString().startsWith(coverVersion + "-")).toList()) {
+                long size = Files.size(file);
+                if (Files.deleteIfExists(file) && cacheSizeBytes.get() >= 0) {
+                    cacheSizeBytes.addAndGet(-size);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.debug("Failed to remove retired cover variants in {}: {}", bookDir, e.getMessage());
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Path await(CompletableFuture<Path> generation) throws IOException {
+        try {
+            return generation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for cover variant");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to generate cover variant", e.getCause());
+        }
+    }
+
+    private void recordCachedBytes(long bytes) {
+        long maxCacheSizeBytes = config.getMaxCacheSizeMb() * 1024L * 1024L;
+        long current = cacheSizeBytes.get() < 0 ? computeCacheSize() : cacheSizeBytes.addAndGet(bytes);
+        if (current > maxCacheSizeBytes) {
+            evictLeastRecentlyServed(maxCacheSizeBytes);
+        }
+    }
+
+    private long computeCacheSize() {
+        long total = listCachedVariants().stream().mapToLong(CachedVariant::size).sum();
+        cacheSizeBytes.set(total);
+        return total;
+    }
+
+    private void evictLeastRecentlyServed(long maxCacheSizeBytes) {
+        synchronized (evictionLock) {
+            List<CachedVariant> variants = listCachedVariants();
+            long total = variants.stream().mapToLong(CachedVariant::size).sum();
+            long target = maxCacheSizeBytes * 9 / 10;
+            variants.sort(Comparator.comparingLong(CachedVariant::lastServed));
+            for (CachedVariant variant : variants) {
+                if (total <= target) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(variant.path());
+                    total -= variant.size();
+                } catch (IOException e) {
+                    log.debug("Failed to evict cover variant {}: {}", variant.path(), e.getMessage());
+                }
+            }
+            cacheSizeBytes.set(total);
+            log.debug("Evicted cover variant cache down to {} bytes", total);
+        }
+    }
+
+    private List<CachedVariant> listCachedVariants() {
+        Path cacheRoot = Path.of(fileService.getCoverVariantCachePath());
+        if (!Files.isDirectory(cacheRoot)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.walk(cacheRoot)) {
+            return paths
+                    .filter(p -> p.getFileName().toString().endsWith(".jpg"))
+                    .map(p -> {
+                        try {
+                            return new CachedVariant(p, Files.size(p), Files.getLastModifiedTime(p).toMillis());
+                        } catch (IOException e) {
+                            return null;
+                        }
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to list cover variant cache: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private void touch(Path variantPath) {
+        try {
+            Files.setLastModifiedTime(variantPath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Failed to update last served time of {}: {}", variantPath, e.getMessage());
+        }
+    }
+
+    private Path coverPath(long bookId) {
+        return Path.of(fileService.getCoverFile(bookId));
+    }
+
+    private record CachedVariant(Path path, long size, long lastServed) {
+    }
+}
@@ -1,33 +1,137 @@
 package com.adityachandel.booklore.service.event;
 
+import com.adityachandel.booklore.config.AppProperties;
 import com.adityachandel.booklore.model.dto.Book;
 import com.adityachandel.booklore.model.websocket.LogNotification;
 import com.adityachandel.booklore.model.websocket.Topic;
-import com.adityachandel.booklore.service.user.UserService;
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import static com.adityachandel.booklore.model.websocket.LogNotification.createLogNotification;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Coalesces book-added events into {@link Topic#BOOKS_ADD} batches.
+ * <p>
+ * Producers only enqueue. A single fan-out thread drains the queue every {@code flushIntervalMs}, or as soon as
+ * {@code maxBatchSize} books are waiting, groups recipients by the set of libraries they can see and serializes
+ * each group's payload once. Sends go through the broker's outbound channel, so a slow client is cut off by the
+ * websocket send limits rather than stalling the fan-out thread. If the queue still reaches
+ * {@code maxPendingBooks}, the producer flushes inline so memory stays bounded during large imports.
+ */
 @Slf4j
-@AllArgsConstructor
 @Service
 public class BookEventBroadcaster {
 
     private final SimpMessagingTemplate messagingTemplate;
-    private final UserService userService;
+    private final EventRecipientIndex recipientIndex;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
+    private final int maxPendingBooks;
+    private final Queue<Book> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService executor;
+
+    public BookEventBroadcaster(SimpMessagingTemplate messagingTemplate, EventRecipientIndex recipientIndex, ObjectMapper objectMapper, AppProperties appProperties) {
+        this.messagingTemplate = messagingTemplate;
+        this.recipientIndex = recipientIndex;
+        this.objectMapper = objectMapper;
+        AppProperties.EventFanout config = appProperties.getEventFanout();
+        this.maxBatchSize = Math.max(1, config.getMaxBatchSize());
+        this.maxPendingBooks = Math.max(maxBatchSize, config.getMaxPendingBooks());
+        long flushIntervalMs = Math.max(1, config.getFlushIntervalMs());
+        this.executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("book-event-fanout").daemon().factory());
+        this.executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
 
     public void broadcastBookAddEvent(Book book) {
-        Long libraryId = book.getLibraryId();
-        userService.getBookLoreUsers().stream()
-                .filter(u -> u.getPermissions().isAdmin() || u.getAssignedLibraries().stream()
-                        .anyMatch(lib -> lib.getId().equals(libraryId)))
-                .forEach(u -> {
-                    String username = u.getUsername();
-                    messagingTemplate.convertAndSendToUser(username, Topic.BOOK_ADD.getPath(), book);
-                    messagingTemplate.convertAndSendToUser(username, Topic.LOG.getPath(), LogNotification.info("Book added: " + book.getFileName()));
-                });
+        pending.add(book);
+        int count = pendingCount.incrementAndGet();
+        if (count >= maxPendingBooks) {
+            flush();
+        } else if (count >= maxBatchSize && flushRequested.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    void flush() {
+        synchronized (flushLock) {
+            List<Book> drained = new ArrayList<>();
+            Book book;
+            while ((book = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                drained.add(book);
+            }
+            if (drained.isEmpty()) {
+                return;
+            }
+
+            Map<Long, List<Book>> booksByLibrary = new LinkedHashMap<>();
+            for (Book added : drained) {
+                booksByLibrary.computeIfAbsent(added.getLibraryId(), k -> new ArrayList<>()).add(added);
+            }
+            Map<String, Set<Long>> librariesByUser = new LinkedHashMap<>();
+            booksByLibrary.keySet().forEach(libraryId ->
+                    recipientIndex.usersForLibrary(libraryId).forEach(username ->
+                            librariesByUser.computeIfAbsent(username, k -> new LinkedHashSet<>()).add(libraryId)));
+            Map<Set<Long>, List<String>> usersByLibrarySet = new LinkedHashMap<>();
+            librariesByUser.forEach((username, libraryIds) ->
+                    usersByLibrarySet.computeIfAbsent(libraryIds, k -> new ArrayList<>()).add(username));
+
+            usersByLibrarySet.forEach((libraryIds, usernames) -> {
+                List<Book> books = new ArrayList<>();
+                libraryIds.forEach(libraryId -> books.addAll(booksByLibrary.get(libraryId)));
+                send(books, usernames);
+            });
+        }
+    }
+
+    private void send(List<Book> books, List<String> usernames) {
+        LogNotification logNotification = books.size() == 1
+                ? LogNotification.info("Book added: " + books.getFirst().getFileName())
+                : LogNotification.info(books.size() + " books added");
+        for (int from = 0; from < books.size(); from += maxBatchSize) {
+            String payload;
+            try {
+                payload = objectMapper.writeValueAsString(books.subList(from, Math.min(books.size(), from + maxBatchSize)));
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize book add batch: {}", e.getMessage(), e);
+                return;
+            }
+            for (String username : usernames) {
+                messagingTemplate.convertAndSendToUser(username, Topic.BOOKS_ADD.getPath(), payload);
+            }
+        }
+        for (String username : usernames) {
+            messagingTemplate.convertAndSendToUser(username, Topic.LOG.getPath(), logNotification);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to broadcast book add events: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        flushQuietly();
     }
 }
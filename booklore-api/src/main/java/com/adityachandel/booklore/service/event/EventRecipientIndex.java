@@ -0,0 +1,102 @@
+package com.adityachandel.booklore.service.event;
+
+import com.adityachandel.booklore.model.entity.BookLoreUserEntity;
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.UserPermissionsEntity;
+import com.adityachandel.booklore.model.enums.PermissionType;
+import com.adityachandel.booklore.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.adityachandel.booklore.util.UserPermissionUtils.hasPermission;
+
+/**
+ * In-memory index of which users should receive websocket events: library id to assigned usernames and
+ * permission to usernames. Built from one user-table load and rebuilt lazily after a {@link UserChangedEvent},
+ * so broadcasting no longer reads every user for every message.
+ */
+@Component
+@RequiredArgsConstructor
+public class EventRecipientIndex {
+
+    private record Snapshot(Set<String> admins, Map<Long, Set<String>> usersByLibrary, Map<PermissionType, Set<String>> usersByPermission) {
+    }
+
+    private final UserRepository userRepository;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    /**
+     * @return admins plus every user assigned to {@code libraryId}
+     */
+    public Set<String> usersForLibrary(Long libraryId) {
+        Snapshot current = snapshot();
+        Set<String> assigned = libraryId == null ? Set.of() : current.usersByLibrary().getOrDefault(libraryId, Set.of());
+        if (assigned.isEmpty()) {
+            return current.admins();
+        }
+        Set<String> users = new LinkedHashSet<>(current.admins());
+        users.addAll(assigned);
+        return users;
+    }
+
+    public Set<String> usersWithAnyPermission(Set<PermissionType> permissionTypes) {
+        Snapshot current = snapshot();
+        Set<String> users = new LinkedHashSet<>();
+        for (PermissionType permissionType : permissionTypes) {
+            users.addAll(current.usersByPermission().getOrDefault(permissionType, Set.of()));
+        }
+        return users;
+    }
+
+    @EventListener
+    public void handleUserChanged(UserChangedEvent event) {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        long buildGeneration = generation.get();
+        current = build(userRepository.findAll());
+        synchronized (this) {
+            if (generation.get() == buildGeneration) {
+                snapshot = current;
+            }
+        }
+        return current;
+    }
+
+    private static Snapshot build(List<BookLoreUserEntity> users) {
+        Set<String> admins = new LinkedHashSet<>();
+        Map<Long, Set<String>> usersByLibrary = new HashMap<>();
+        Map<PermissionType, Set<String>> usersByPermission = new EnumMap<>(PermissionType.class);
+        for (BookLoreUserEntity user : users) {
+            String username = user.getUsername();
+            UserPermissionsEntity permissions = user.getPermissions();
+            if (permissions != null) {
+                for (PermissionType permissionType : PermissionType.values()) {
+                    if (hasPermission(permissions, permissionType)) {
+                        usersByPermission.computeIfAbsent(permissionType, k -> new LinkedHashSet<>()).add(username);
+                    }
+                }
+                if (permissions.isPermissionAdmin()) {
+                    admins.add(username);
+                }
+            }
+            if (user.getLibraries() != null) {
+                for (LibraryEntity library : user.getLibraries()) {
+                    usersByLibrary.computeIfAbsent(library.getId(), k -> new LinkedHashSet<>()).add(username);
+                }
+            }
+        }
+        return new Snapshot(Collections.unmodifiableSet(admins), usersByLibrary, usersByPermission);
+    }
+}
@@ -0,0 +1,18 @@
+package com.adityachandel.booklore.service.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published whenever a user, their permissions, settings or library assignments change.
+ * A {@code null} user id means any user may have changed, e.g. after a library was updated or deleted.
+ */
+@Getter
+public class UserChangedEvent extends ApplicationEvent {
+    private final Long userId;
+
+    public UserChangedEvent(Object source, Long userId) {
+        super(source);
+        this.userId = userId;
+    }
+}
@@ -6,6 +6,14 @@ import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
+/**
+ * KOReader's partial MD5: 1 KB blocks sampled at offsets 256 B, 1 KB, 4 KB ... 1 GB. KOReader computes the same
+ * digest on the device to match progress to books, so the sampling must not change.
+ * <p>
+ * Data appended to a file (such as a PDF incremental update) only changes the digest if it fills a block that was
+ * short or reaches the next sample offset. A book whose metadata was written in place can therefore keep its
+ * hash; that is expected, the content KOReader identifies the book by is unchanged.
+ */
 public class FileFingerprint {
 
     public static String generateHash(Path filePath) {
@@ -12,6 +12,7 @@ import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.service.monitoring.MonitoringRegistrationService;
+import com.adityachandel.booklore.service.opds.OpdsCatalogStamps;
 import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -38,6 +39,7 @@ public class FileMoveService {
     private final BookMapper bookMapper;
     private final NotificationService notificationService;
     private final EntityManager entityManager;
+    private final OpdsCatalogStamps opdsCatalogStamps;
 
 
     @Transactional
@@ -118,6 +120,8 @@ public class FileMoveService {
             String newFileName = newFilePath.getFileName().toString();
             String newFileSubPath = fileMoveHelper.extractSubPath(newFilePath, libraryPathEntity);
             bookRepository.updateFileAndLibrary(bookEntity.getId(), newFileSubPath, newFileName, targetLibrary.getId(), libraryPathEntity);
+            opdsCatalogStamps.libraryChanged(bookEntity.getLibrary().getId());
+            opdsCatalogStamps.libraryChanged(targetLibrary.getId());
 
             fileMoveHelper.commitMove(tempPath, newFilePath);
             tempPath = null;
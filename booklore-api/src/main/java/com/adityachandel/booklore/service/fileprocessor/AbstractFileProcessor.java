@@ -47,7 +47,8 @@ public abstract class AbstractFileProcessor implements BookFileProcessor {
     @Override
     public FileProcessResult processFile(LibraryFile libraryFile) {
         Path path = libraryFile.getFullPath();
-        String hash = FileFingerprint.generateHash(path);
+        String hash = libraryFile.getFileHash() != null ? libraryFile.getFileHash() : FileFingerprint.generateHash(path);
+        libraryFile.setFileHash(hash);
         Book book = createAndMapBook(libraryFile, hash);
         return new FileProcessResult(book, FileProcessStatus.NEW);
     }
@@ -23,7 +23,6 @@ import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.time.Instant;
@@ -145,7 +144,7 @@ public class CbxProcessor extends AbstractFileProcessor implements BookFileProce
                 .min(Comparator.comparing(ZipArchiveEntry::getName))
                 .map(entry -> {
                     try (InputStream is = zipFile.getInputStream(entry)) {
-                        return ImageIO.read(is);
+                        return FileService.readCoverImage(is);
                     } catch (Exception e) {
                         log.warn("Failed to read image from ZIP entry {}: {}", entry.getName(), e.getMessage());
                         return null;
@@ -176,7 +175,7 @@ public class CbxProcessor extends AbstractFileProcessor implements BookFileProce
                                 if (bytesRead < 0) break;
                                 offset += bytesRead;
                             }
-                            return Optional.ofNullable(ImageIO.read(new ByteArrayInputStream(content)));
+                            return Optional.ofNullable(FileService.readCoverImage(new ByteArrayInputStream(content)));
                         }
                     }
                 }
@@ -197,7 +196,7 @@ public class CbxProcessor extends AbstractFileProcessor implements BookFileProce
             for (FileHeader header : imageHeaders) {
                 try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
                     archive.extractFile(header, baos);
-                    return Optional.ofNullable(ImageIO.read(new ByteArrayInputStream(baos.toByteArray())));
+                    return Optional.ofNullable(FileService.readCoverImage(new ByteArrayInputStream(baos.toByteArray())));
                 } catch (Exception e) {
                     log.warn("Error reading RAR entry {}: {}", header.getFileName(), e.getMessage());
                 }
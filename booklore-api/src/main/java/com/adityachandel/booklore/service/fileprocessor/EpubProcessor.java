@@ -17,7 +17,6 @@ import com.adityachandel.booklore.util.FileUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -71,7 +70,7 @@ public class EpubProcessor extends AbstractFileProcessor implements BookFileProc
 
             boolean saved;
             try (ByteArrayInputStream bais = new ByteArrayInputStream(coverData)) {
-                BufferedImage originalImage = ImageIO.read(bais);
+                BufferedImage originalImage = FileService.readCoverImage(bais);
                 if (originalImage == null) {
                     log.warn("Cover image found but could not be decoded (possibly SVG or unsupported format) in EPUB '{}'", bookEntity.getFileName());
                     return false;
@@ -17,7 +17,6 @@ import com.adityachandel.booklore.util.FileUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -128,7 +127,7 @@ public class Fb2Processor extends AbstractFileProcessor implements BookFileProce
     }
 
     private boolean saveCoverImage(byte[] coverData, long bookId) throws Exception {
-        BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(coverData));
+        BufferedImage originalImage = FileService.readCoverImage(new ByteArrayInputStream(coverData));
         try {
             return fileService.saveCoverImages(originalImage, bookId);
         } finally {
@@ -9,6 +9,7 @@ import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import freemarker.template.TemplateExceptionHandler;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
@@ -19,21 +20,25 @@ import com.github.junrar.Archive;
 import com.github.junrar.rarfile.FileHeader;
 import com.github.junrar.exception.RarException;
 import org.springframework.stereotype.Service;
-import org.springframework.util.FileSystemUtils;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
 import javax.imageio.IIOImage;
 import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * Service for converting comic book archive files (CBX) to EPUB format.
@@ -52,6 +57,7 @@ import java.util.*;
  * <h3>Size Limits</h3>
  * <ul>
  *   <li>Maximum individual image size: 50 MB</li>
+ *   <li>Read pages held in memory per conversion: 256 MB, further pages are spilled to the temp directory</li>
  * </ul>
  * 
  * @see KepubConversionService
@@ -69,9 +75,20 @@ public class CbxConversionService {
     private static final String COVER_IMAGE_PATH = "OEBPS/Images/cover.jpg";
     private static final String MIMETYPE_CONTENT = "application/epub+zip";
     private static final long MAX_IMAGE_SIZE_BYTES = 50L * 1024 * 1024;
-    private static final String EXTRACTED_IMAGES_SUBDIR = "cbx_extracted_images";
+    private static final int MAX_BUFFERED_PAGE_BYTES = 256 * 1024 * 1024;
+    // Replaces a page in the page list once it is written, so its image bytes can be collected
+    private static final CompletableFuture<PageContent> WRITTEN_PAGE =
+            CompletableFuture.completedFuture(new PageContent(0, null, null, 0, 0, null, 0));
+    // Shared by all conversions, so concurrent Kobo syncs cannot oversubscribe the CPU
+    private static final int PAGE_WORKERS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    private static final Comparator<String> PAGE_ORDER = Comparator.comparing(CbxConversionService::pageSortKey)
+            .thenComparing(Comparator.naturalOrder());
+    // Part of the conversion cache key, bump it whenever the generated EPUB changes
+    public static final int CONVERTER_VERSION = 2;
     
     private final Configuration freemarkerConfig;
+    private final ExecutorService pageWorkers = Executors.newFixedThreadPool(PAGE_WORKERS,
+            Thread.ofPlatform().name("cbx-epub-", 0).daemon().factory());
 
     public CbxConversionService() {
         this.freemarkerConfig = initializeFreemarkerConfiguration();
@@ -85,10 +102,12 @@ public class CbxConversionService {
      * <p>
      * The conversion process:
      * <ol>
-     *   <li>Extracts all images from the archive to a temporary directory</li>
-     *   <li>Creates an EPUB structure with one XHTML page per image</li>
+     *   <li>Reads each image from the archive once, without extracting the archive to disk</li>
+     *   <li>Converts the pages on a bounded worker pool and streams them into the EPUB in page order, one XHTML
+     *   page per image</li>
      *   <li>Includes proper EPUB metadata from the book entity</li>
-     *   <li>JPEG images are passed through directly; other formats are converted to JPEG (85% quality)</li>
+     *   <li>JPEG images are copied as raw bytes; other formats are converted to JPEG at {@code compressionPercentage}
+     *   quality</li>
      * </ol>
      * </p>
      * 
@@ -115,45 +134,54 @@ public class CbxConversionService {
         return outputFile;
     }
 
-    private File executeCbxConversion(File cbxFile, File tempDir, BookEntity bookEntity,int compressionPercentage)
+    private File executeCbxConversion(File cbxFile, File tempDir, BookEntity bookEntity, int compressionPercentage)
             throws IOException, TemplateException, RarException {
-        
+
         Path epubFilePath = Paths.get(tempDir.getAbsolutePath(), cbxFile.getName() + ".epub");
         File epubFile = epubFilePath.toFile();
+        Map<String, Object> metadataModel = createBookMetadataModel(bookEntity);
 
-        Path extractedImagesDir = Paths.get(tempDir.getAbsolutePath(), EXTRACTED_IMAGES_SUBDIR);
-        Files.createDirectories(extractedImagesDir);
+        PageReader pageReader = new PageReader(cbxFile, tempDir.toPath(), compressionPercentage / 100f);
+        Thread readerThread = Thread.ofPlatform().name("cbx-epub-reader").daemon().start(pageReader::run);
+        try {
+            List<CompletableFuture<PageContent>> pages = await(pageReader.listing);
+            if (pages.isEmpty()) {
+                throw new IllegalStateException("No valid images found in CBX file: " + cbxFile.getName());
+            }
 
-        List<Path> imagePaths = extractImagesFromCbx(cbxFile, extractedImagesDir);
-        if (imagePaths.isEmpty()) {
-            throw new IllegalStateException("No valid images found in CBX file: " + cbxFile.getName());
-        }
+            log.debug("Streaming {} images from CBX file into EPUB", pages.size());
+            CompletableFuture<PackageDocuments> packageDocuments = renderPackageDocuments(pages, metadataModel);
 
-        log.debug("Extracted {} images from CBX file to disk", imagePaths.size());
+            try (ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(new BufferedOutputStream(new FileOutputStream(epubFile)))) {
+                addMimetypeEntry(zipOut);
+                addMetaInfContainer(zipOut);
+                addStylesheet(zipOut);
 
-        try (ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(new FileOutputStream(epubFile))) {
-            addMimetypeEntry(zipOut);
-            addMetaInfContainer(zipOut);
-            addStylesheet(zipOut);
-            
-            List<EpubContentFileGroup> contentGroups = addImagesAndPages(zipOut, imagePaths,compressionPercentage);
-            
-            addContentOpf(zipOut, bookEntity, contentGroups);
-            addTocNcx(zipOut, bookEntity, contentGroups);
-            addNavXhtml(zipOut, bookEntity, contentGroups);
-        }
+                List<EpubContentFileGroup> contentGroups = addImagesAndPages(zipOut, pages, pageReader);
+                if (contentGroups.isEmpty()) {
+                    throw new IllegalStateException("No valid images found in CBX file: " + cbxFile.getName());
+                }
 
-        deleteDirectory(extractedImagesDir);
+                PackageDocuments documents = await(packageDocuments);
+                addEntry(zipOut, CONTENT_OPF_PATH, documents.contentOpf());
+                addEntry(zipOut, TOC_NCX_PATH, documents.tocNcx());
+                addEntry(zipOut, NAV_XHTML_PATH, documents.navXhtml());
+            }
+        } finally {
+            pageReader.stopped = true;
+            try {
+                readerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
 
         return epubFile;
     }
-    
-    private void deleteDirectory(Path directory) {
-        try {
-            FileSystemUtils.deleteRecursively(directory);
-        } catch (IOException e) {
-            log.warn("Failed to delete directory {}: {}", directory, e.getMessage());
-        }
+
+    @PreDestroy
+    void shutdownPageWorkers() {
+        pageWorkers.shutdownNow();
     }
 
     private void validateInputs(File cbxFile, File tempDir) {
@@ -181,127 +209,34 @@ public class CbxConversionService {
         return config;
     }
 
-    private List<Path> extractImagesFromCbx(File cbxFile, Path extractedImagesDir) throws IOException, RarException {
-        String fileName = cbxFile.getName().toLowerCase();
-        
-        if (fileName.endsWith(".cbz")) {
-            return extractImagesFromZip(cbxFile, extractedImagesDir);
-        } else if (fileName.endsWith(".cbr")) {
-            return extractImagesFromRar(cbxFile, extractedImagesDir);
-        } else if (fileName.endsWith(".cb7")) {
-            return extractImagesFrom7z(cbxFile, extractedImagesDir);
-        } else {
-            throw new IllegalArgumentException("Unsupported archive format: " + fileName);
-        }
-    }
-    
-    private List<Path> extractImagesFromZip(File cbzFile, Path extractedImagesDir) throws IOException {
+    private ZipFile openZip(File cbzFile) throws IOException {
         // Fast path: Try reading from Central Directory
-        try (ZipFile zipFile = ZipFile.builder()
-                .setFile(cbzFile)
-                .setUseUnicodeExtraFields(true)
-                .setIgnoreLocalFileHeader(true)
-                .get()) {
-            List<Path> paths = extractImagesFromZipFile(zipFile, extractedImagesDir);
-            if (!paths.isEmpty()) return paths;
+        try {
+            ZipFile zipFile = ZipFile.builder()
+                    .setFile(cbzFile)
+                    .setUseUnicodeExtraFields(true)
+                    .setIgnoreLocalFileHeader(true)
+                    .get();
+            if (Collections.list(zipFile.getEntries()).stream().anyMatch(entry -> !entry.isDirectory() && isImageFile(entry.getName()))) {
+                return zipFile;
+            }
+            zipFile.close();
         } catch (Exception e) {
             log.debug("Fast path extraction failed for {}: {}", cbzFile.getName(), e.getMessage());
         }
 
         // Slow path: Fallback to scanning local file headers
-        try (ZipFile zipFile = ZipFile.builder()
+        return ZipFile.builder()
                 .setFile(cbzFile)
                 .setUseUnicodeExtraFields(true)
                 .setIgnoreLocalFileHeader(false)
-                .get()) {
-            return extractImagesFromZipFile(zipFile, extractedImagesDir);
-        }
+                .get();
     }
 
-    private List<Path> extractImagesFromZipFile(ZipFile zipFile, Path extractedImagesDir) {
-        List<Path> imagePaths = new ArrayList<>();
-        for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
-            if (entry.isDirectory() || !isImageFile(entry.getName())) {
-                continue;
-            }
-
-            try {
-                validateImageSize(entry.getName(), entry.getSize());
-                Path outputPath = extractedImagesDir.resolve(extractFileName(entry.getName()));
-                try (InputStream inputStream = zipFile.getInputStream(entry)) {
-                    Files.copy(inputStream, outputPath);
-                    imagePaths.add(outputPath);
-                }
-            } catch (Exception e) {
-                log.warn("Error extracting image {}: {}", entry.getName(), e.getMessage());
-            }
-        }
-        
-        log.debug("Found {} image entries in CBZ file", imagePaths.size());
-        imagePaths.sort(Comparator.comparing(path -> path.getFileName().toString().toLowerCase()));
-        return imagePaths;
-    }
-    
-    private List<Path> extractImagesFromRar(File cbrFile, Path extractedImagesDir) throws IOException, RarException {
-        List<Path> imagePaths = new ArrayList<>();
-        
-        try (Archive rarFile = new Archive(cbrFile)) {
-            for (FileHeader fileHeader : rarFile) {
-                if (fileHeader.isDirectory() || !isImageFile(fileHeader.getFileName())) {
-                    continue;
-                }
-                
-                validateImageSize(fileHeader.getFileName(), fileHeader.getFullUnpackSize());
-                
-                try (InputStream inputStream = rarFile.getInputStream(fileHeader)) {
-                    Path outputPath = extractedImagesDir.resolve(extractFileName(fileHeader.getFileName()));
-                    Files.copy(inputStream, outputPath);
-                    imagePaths.add(outputPath);
-                } catch (Exception e) {
-                    log.warn("Error extracting image {}: {}", fileHeader.getFileName(), e.getMessage());
-                }
-            }
-        }
-        
-        log.debug("Found {} image entries in CBR file", imagePaths.size());
-        imagePaths.sort(Comparator.comparing(path -> path.getFileName().toString().toLowerCase()));
-        return imagePaths;
-    }
-    
-    private List<Path> extractImagesFrom7z(File cb7File, Path extractedImagesDir) throws IOException {
-        List<Path> imagePaths = new ArrayList<>();
-        
-        try (SevenZFile sevenZFile = SevenZFile.builder().setFile(cb7File).get()) {
-            SevenZArchiveEntry entry;
-            while ((entry = sevenZFile.getNextEntry()) != null) {
-                if (entry.isDirectory() || !isImageFile(entry.getName())) {
-                    continue;
-                }
-                
-                validateImageSize(entry.getName(), entry.getSize());
-                
-                try {
-                    Path outputPath = extractedImagesDir.resolve(extractFileName(entry.getName()));
-                    try (InputStream entryInputStream = sevenZFile.getInputStream(entry);
-                         OutputStream fileOutputStream = Files.newOutputStream(outputPath)) {
-                        entryInputStream.transferTo(fileOutputStream);
-                    }
-                    imagePaths.add(outputPath);
-                } catch (Exception e) {
-                    log.warn("Error extracting image {}: {}", entry.getName(), e.getMessage());
-                }
-            }
-        }
-        
-        log.debug("Found {} image entries in CB7 file", imagePaths.size());
-        imagePaths.sort(Comparator.comparing(path -> path.getFileName().toString().toLowerCase()));
-        return imagePaths;
-    }
-    
-    private String extractFileName(String entryPath) {
-        return Path.of(entryPath).getFileName().toString();
+    private static String pageSortKey(String entryPath) {
+        return Path.of(entryPath).getFileName().toString().toLowerCase();
     }
-    
+
     private void validateImageSize(String imageName, long size) throws IOException {
         if (size > MAX_IMAGE_SIZE_BYTES) {
             throw new IOException(String.format("Image '%s' exceeds maximum size limit: %d bytes (max: %d bytes)",
@@ -317,17 +252,6 @@ public class CbxConversionService {
                lowerName.endsWith(".gif") || lowerName.endsWith(".bmp");
     }
 
-    private boolean isJpegFile(Path path) {
-        Set<String> jpegExtensions = Set.of(".jpg", ".jpeg");
-        String fileName = path.getFileName().toString().toLowerCase();
-        int lastDot = fileName.lastIndexOf('.');
-        if (lastDot > 0) {
-            String extension = fileName.substring(lastDot);
-            return jpegExtensions.contains(extension);
-        }
-        return false;
-    }
-
     private void addMimetypeEntry(ZipArchiveOutputStream zipOut) throws IOException {
         byte[] mimetypeBytes = MIMETYPE_CONTENT.getBytes(StandardCharsets.UTF_8);
         ZipArchiveEntry mimetypeEntry = new ZipArchiveEntry("mimetype");
@@ -361,75 +285,115 @@ public class CbxConversionService {
         zipOut.closeArchiveEntry();
     }
 
-    private List<EpubContentFileGroup> addImagesAndPages(ZipArchiveOutputStream zipOut, List<Path> imagePaths,int compressionPercentage)
-            throws IOException, TemplateException {
-        
+    private List<EpubContentFileGroup> addImagesAndPages(ZipArchiveOutputStream zipOut, List<CompletableFuture<PageContent>> pages,
+                                                         PageReader pageReader) throws IOException, TemplateException, RarException {
+
         List<EpubContentFileGroup> contentGroups = new ArrayList<>();
 
-        if (!imagePaths.isEmpty()) {
-            addImageToZipFromPath(zipOut, COVER_IMAGE_PATH, imagePaths.getFirst(),compressionPercentage);
+        for (int i = 0; i < pages.size(); i++) {
+            pageReader.nextPage = i;
+            PageContent page = await(pages.get(i));
+            if (page == null) {
+                continue;
+            }
+            try {
+                int pageNumber = contentGroups.size() + 1;
+                EpubContentFileGroup group = contentGroup(pageNumber);
+
+                if (contentGroups.isEmpty()) {
+                    addImageEntry(zipOut, COVER_IMAGE_PATH, page);
+                }
+                addImageEntry(zipOut, group.imagePath(), page);
+
+                // Pages after a skipped image move up one number, their XHTML was rendered for the old one
+                String htmlContent = page.pageNumber() == pageNumber
+                        ? page.html()
+                        : generatePageHtml(pageImageFileName(pageNumber), pageNumber);
+                addEntry(zipOut, group.htmlPath(), htmlContent);
+
+                contentGroups.add(group);
+            } finally {
+                pageReader.release(page);
+                pages.set(i, WRITTEN_PAGE);
+            }
         }
 
-        for (int i = 0; i < imagePaths.size(); i++) {
-            Path imageSourcePath = imagePaths.get(i);
-            String contentKey = String.format("page-%04d", i + 1);
-            String imageFileName = contentKey + ".jpg";
-            String htmlFileName = contentKey + ".xhtml";
+        return contentGroups;
+    }
 
-            String imagePath = IMAGE_ROOT_PATH + imageFileName;
-            String htmlPath = HTML_ROOT_PATH + htmlFileName;
+    private static EpubContentFileGroup contentGroup(int pageNumber) {
+        String contentKey = String.format("page-%04d", pageNumber);
+        return new EpubContentFileGroup(contentKey, IMAGE_ROOT_PATH + contentKey + ".jpg", HTML_ROOT_PATH + contentKey + ".xhtml");
+    }
 
-            addImageToZipFromPath(zipOut, imagePath, imageSourcePath,compressionPercentage);
+    private static String pageImageFileName(int pageNumber) {
+        return String.format("page-%04d.jpg", pageNumber);
+    }
 
-            String htmlContent = generatePageHtml(imageFileName, i + 1);
-            ZipArchiveEntry htmlEntry = new ZipArchiveEntry(htmlPath);
-            zipOut.putArchiveEntry(htmlEntry);
-            zipOut.write(htmlContent.getBytes(StandardCharsets.UTF_8));
-            zipOut.closeArchiveEntry();
+    private void addImageEntry(ZipArchiveOutputStream zipOut, String epubImagePath, PageContent page) throws IOException {
+        // Page images are JPEG already and do not deflate, so they are stored as they are
+        ZipArchiveEntry imageEntry = new ZipArchiveEntry(epubImagePath);
+        imageEntry.setMethod(ZipArchiveEntry.STORED);
+        imageEntry.setSize(page.size());
+        imageEntry.setCrc(page.crc());
 
-            contentGroups.add(new EpubContentFileGroup(contentKey, imagePath, htmlPath));
+        zipOut.putArchiveEntry(imageEntry);
+        if (page.jpeg() != null) {
+            zipOut.write(page.jpeg());
+        } else {
+            Files.copy(page.spillFile(), zipOut);
         }
+        zipOut.closeArchiveEntry();
+    }
 
-        return contentGroups;
+    private void addEntry(ZipArchiveOutputStream zipOut, String path, String content) throws IOException {
+        ZipArchiveEntry entry = new ZipArchiveEntry(path);
+        zipOut.putArchiveEntry(entry);
+        zipOut.write(content.getBytes(StandardCharsets.UTF_8));
+        zipOut.closeArchiveEntry();
     }
 
-    private void addImageToZipFromPath(ZipArchiveOutputStream zipOut, String epubImagePath, Path sourceImagePath,int compressionPercentage)
-            throws IOException {
-        ZipArchiveEntry imageEntry = new ZipArchiveEntry(epubImagePath);
-        zipOut.putArchiveEntry(imageEntry);
-        
-        if (isJpegFile(sourceImagePath)) {
-            try (InputStream fis = Files.newInputStream(sourceImagePath)) {
-                fis.transferTo(zipOut);
-            }
-        } else {
-            try (InputStream fis = Files.newInputStream(sourceImagePath)) {
-                BufferedImage image = ImageIO.read(fis);
-                if (image != null) {
-                    writeJpegImage(image, zipOut, compressionPercentage/100f);
-                } else {
-                    log.warn("Could not decode image {}, copying raw bytes", sourceImagePath.getFileName());
-                    try (InputStream rawStream = Files.newInputStream(sourceImagePath)) {
-                        rawStream.transferTo(zipOut);
-                    }
-                }
+    private PageContent renderPage(int pageNumber, String imageName, byte[] data, Path spillFile, int bufferedBytes, float quality)
+            throws IOException, TemplateException {
+        byte[] source = data != null ? data : Files.readAllBytes(spillFile);
+        byte[] jpeg = isJpeg(source) ? source : transcodeToJpeg(imageName, source, quality);
+        String htmlContent = generatePageHtml(pageImageFileName(pageNumber), pageNumber);
+        long crc = calculateCrc32(jpeg);
+
+        if (spillFile != null) {
+            if (jpeg != source) {
+                Files.write(spillFile, jpeg);
             }
+            return new PageContent(pageNumber, null, spillFile, jpeg.length, crc, htmlContent, 0);
         }
-        
-        zipOut.closeArchiveEntry();
+        return new PageContent(pageNumber, jpeg, null, jpeg.length, crc, htmlContent, bufferedBytes);
     }
-    
-    private void writeJpegImage(BufferedImage image, ZipArchiveOutputStream zipOut, float quality) 
+
+    private static boolean isJpeg(byte[] data) {
+        return data.length > 2 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8 && (data[2] & 0xFF) == 0xFF;
+    }
+
+    private byte[] transcodeToJpeg(String imageName, byte[] data, float quality) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        if (image == null) {
+            log.warn("Could not decode image {}, copying raw bytes", imageName);
+            return data;
+        }
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream(data.length / 2);
+        writeJpegImage(image, jpeg, quality);
+        return jpeg.toByteArray();
+    }
+
+    private void writeJpegImage(BufferedImage image, OutputStream out, float quality)
             throws IOException {
         BufferedImage rgbImage = image;
         if (image.getType() != BufferedImage.TYPE_INT_RGB) {
             rgbImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
-            rgbImage.getGraphics().drawImage(image, 0, 0, null);
-            rgbImage.getGraphics().dispose();
+            Graphics2D graphics = rgbImage.createGraphics();
+            graphics.drawImage(image, 0, 0, null);
+            graphics.dispose();
         }
-        
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        
+
         Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpg");
         if (!writers.hasNext()) {
             throw new IOException("No JPEG image writer available");
@@ -437,22 +401,19 @@ public class CbxConversionService {
         ImageWriter writer = writers.next();
 
         ImageWriteParam param = writer.getDefaultWriteParam();
-        
+
         if (param.canWriteCompressed()) {
             param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
             param.setCompressionQuality(quality);
         }
-        
-        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
+
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
             writer.setOutput(ios);
             writer.write(null, new IIOImage(rgbImage, null, null), param);
         } finally {
             writer.dispose();
         }
-        
-        zipOut.write(baos.toByteArray());
     }
-
     private String generatePageHtml(String imageFileName, int pageNumber) throws IOException, TemplateException {
         Map<String, Object> model = new HashMap<>();
         model.put("imageFileName", "../Images/" + imageFileName);
@@ -462,11 +423,43 @@ public class CbxConversionService {
         return processTemplate("xml/image_page.xhtml.ftl", model);
     }
 
-    private void addContentOpf(ZipArchiveOutputStream zipOut, BookEntity bookEntity, 
-                              List<EpubContentFileGroup> contentGroups) throws IOException, TemplateException {
-        
-        Map<String, Object> model = createBookMetadataModel(bookEntity);
-        
+    /**
+     * Renders the OPF, NCX and navigation documents in parallel as soon as every page is known to be kept or skipped,
+     * while the writer is still storing the last pages.
+     */
+    private CompletableFuture<PackageDocuments> renderPackageDocuments(List<CompletableFuture<PageContent>> pages,
+                                                                       Map<String, Object> metadataModel) {
+        return CompletableFuture.allOf(pages.toArray(CompletableFuture[]::new))
+                .thenCompose(ignored -> {
+                    List<EpubContentFileGroup> contentGroups = new ArrayList<>();
+                    for (int i = 0; i < pages.size(); i++) {
+                        if (pages.get(i).join() != null) {
+                            contentGroups.add(contentGroup(contentGroups.size() + 1));
+                        }
+                    }
+                    CompletableFuture<String> contentOpf = renderAsync(() -> renderContentOpf(metadataModel, contentGroups));
+                    CompletableFuture<String> tocNcx = renderAsync(() -> renderTocNcx(metadataModel, contentGroups));
+                    CompletableFuture<String> navXhtml = renderAsync(() -> renderNavXhtml(metadataModel, contentGroups));
+                    return CompletableFuture.allOf(contentOpf, tocNcx, navXhtml)
+                            .thenApply(done -> new PackageDocuments(contentOpf.join(), tocNcx.join(), navXhtml.join()));
+                });
+    }
+
+    private CompletableFuture<String> renderAsync(Callable<String> renderer) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return renderer.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, pageWorkers);
+    }
+
+    private String renderContentOpf(Map<String, Object> metadataModel, List<EpubContentFileGroup> contentGroups)
+            throws IOException, TemplateException {
+
+        Map<String, Object> model = new HashMap<>(metadataModel);
+
         List<EpubContentFileGroup> relativeContentGroups = contentGroups.stream()
                 .map(group -> new EpubContentFileGroup(
                         group.contentKey(),
@@ -474,48 +467,49 @@ public class CbxConversionService {
                         makeRelativeToOebps(group.htmlPath())
                 ))
                 .toList();
-        
+
         model.put("contentFileGroups", relativeContentGroups);
         model.put("coverImagePath", makeRelativeToOebps(COVER_IMAGE_PATH));
         model.put("tocNcxPath", makeRelativeToOebps(TOC_NCX_PATH));
         model.put("navXhtmlPath", makeRelativeToOebps(NAV_XHTML_PATH));
         model.put("stylesheetCssPath", makeRelativeToOebps(STYLESHEET_CSS_PATH));
         model.put("firstPageId", contentGroups.isEmpty() ? "" : "page_" + contentGroups.getFirst().contentKey());
-        
-        String contentOpf = processTemplate("xml/content.opf.ftl", model);
-        
-        ZipArchiveEntry contentEntry = new ZipArchiveEntry(CONTENT_OPF_PATH);
-        zipOut.putArchiveEntry(contentEntry);
-        zipOut.write(contentOpf.getBytes(StandardCharsets.UTF_8));
-        zipOut.closeArchiveEntry();
+
+        return processTemplate("xml/content.opf.ftl", model);
     }
 
-    private void addTocNcx(ZipArchiveOutputStream zipOut, BookEntity bookEntity, 
-                          List<EpubContentFileGroup> contentGroups) throws IOException, TemplateException {
-        
-        Map<String, Object> model = createBookMetadataModel(bookEntity);
+    private String renderTocNcx(Map<String, Object> metadataModel, List<EpubContentFileGroup> contentGroups)
+            throws IOException, TemplateException {
+
+        Map<String, Object> model = new HashMap<>(metadataModel);
         model.put("contentFileGroups", contentGroups);
-        
-        String tocNcx = processTemplate("xml/toc.xml.ftl", model);
-        
-        ZipArchiveEntry tocEntry = new ZipArchiveEntry(TOC_NCX_PATH);
-        zipOut.putArchiveEntry(tocEntry);
-        zipOut.write(tocNcx.getBytes(StandardCharsets.UTF_8));
-        zipOut.closeArchiveEntry();
+
+        return processTemplate("xml/toc.xml.ftl", model);
     }
 
-    private void addNavXhtml(ZipArchiveOutputStream zipOut, BookEntity bookEntity, 
-                            List<EpubContentFileGroup> contentGroups) throws IOException, TemplateException {
-        
-        Map<String, Object> model = createBookMetadataModel(bookEntity);
+    private String renderNavXhtml(Map<String, Object> metadataModel, List<EpubContentFileGroup> contentGroups)
+            throws IOException, TemplateException {
+
+        Map<String, Object> model = new HashMap<>(metadataModel);
         model.put("contentFileGroups", contentGroups);
-        
-        String navXhtml = processTemplate("xml/nav.xhtml.ftl", model);
-        
-        ZipArchiveEntry navEntry = new ZipArchiveEntry(NAV_XHTML_PATH);
-        zipOut.putArchiveEntry(navEntry);
-        zipOut.write(navXhtml.getBytes(StandardCharsets.UTF_8));
-        zipOut.closeArchiveEntry();
+
+        return processTemplate("xml/nav.xhtml.ftl", model);
+    }
+    /**
+     * Hash of the book metadata embedded in the generated EPUB, ignoring the per-conversion identifier and
+     * timestamp. Changes exactly when a new conversion would carry different metadata.
+     */
+    public String metadataFingerprint(BookEntity bookEntity) {
+        Map<String, Object> model = new TreeMap<>(createBookMetadataModel(bookEntity));
+        model.remove("identifier");
+        model.remove("modified");
+        model.replaceAll((key, value) -> value instanceof List<?> list ? list.stream().map(String::valueOf).sorted().toList() : value);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(model.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     private Map<String, Object> createBookMetadataModel(BookEntity bookEntity) {
@@ -647,4 +641,235 @@ public class CbxConversionService {
                lowerName.endsWith(".cb7");
     }
 
+    private static <T> T await(CompletableFuture<T> future) throws IOException, TemplateException, RarException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while converting CBX to EPUB");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof TemplateException templateException) {
+                throw templateException;
+            }
+            if (cause instanceof RarException rarException) {
+                throw rarException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("CBX to EPUB conversion failed", cause);
+        }
+    }
+
+    /**
+     * A converted page: its JPEG, in memory or spilled to {@code spillFile}, and its rendered XHTML.
+     */
+    private record PageContent(int pageNumber, byte[] jpeg, Path spillFile, long size, long crc, String html, int bufferedBytes) {
+    }
+
+    private record PackageDocuments(String contentOpf, String tocNcx, String navXhtml) {
+    }
+
+    @FunctionalInterface
+    private interface EntryStream {
+        InputStream open() throws Exception;
+    }
+
+    /**
+     * Reads the images of one archive in a single pass and hands each to the page workers, completing one future per
+     * page in page order so the EPUB writer streams pages out while later ones are still read and transcoded.
+     * <p>
+     * Read pages are held in memory up to {@link #MAX_BUFFERED_PAGE_BYTES}. Past that the reader waits for the writer,
+     * unless the writer itself waits on a page the reader has not reached yet (RAR and 7z are read in archive order,
+     * which need not be page order); those pages are spilled to the temp directory instead.
+     */
+    private final class PageReader {
+
+        private final File cbxFile;
+        private final Path spillDir;
+        private final float quality;
+        private final CompletableFuture<List<CompletableFuture<PageContent>>> listing = new CompletableFuture<>();
+        private final Semaphore buffer = new Semaphore(MAX_BUFFERED_PAGE_BYTES);
+        private final Map<String, Deque<Integer>> pageIndexes = new HashMap<>();
+        private List<CompletableFuture<PageContent>> pages = List.of();
+        private AtomicIntegerArray dispatched = new AtomicIntegerArray(0);
+        private volatile int nextPage;
+        private volatile boolean stopped;
+
+        private PageReader(File cbxFile, Path spillDir, float quality) {
+            this.cbxFile = cbxFile;
+            this.spillDir = spillDir;
+            this.quality = quality;
+        }
+
+        void run() {
+            try {
+                String fileName = cbxFile.getName().toLowerCase();
+                if (fileName.endsWith(".cbz")) {
+                    readZip();
+                } else if (fileName.endsWith(".cbr")) {
+                    readRar();
+                } else if (fileName.endsWith(".cb7")) {
+                    read7z();
+                } else {
+                    throw new IllegalArgumentException("Unsupported archive format: " + fileName);
+                }
+            } catch (Exception e) {
+                listing.completeExceptionally(e);
+                pages.forEach(page -> page.completeExceptionally(e));
+            } finally {
+                // Listed entries that were never read are skipped like unreadable ones
+                pages.forEach(page -> page.complete(null));
+            }
+        }
+
+        private void readZip() throws IOException {
+            try (ZipFile zipFile = openZip(cbxFile)) {
+                List<ZipArchiveEntry> entries = Collections.list(zipFile.getEntries()).stream()
+                        .filter(entry -> !entry.isDirectory() && isImageFile(entry.getName()))
+                        .sorted(Comparator.comparing(ZipArchiveEntry::getName, PAGE_ORDER))
+                        .toList();
+                log.debug("Found {} image entries in CBZ file", entries.size());
+                open(entries.stream().map(ZipArchiveEntry::getName).toList());
+
+                // Zip entries are random access, so they are read straight in page order
+                for (ZipArchiveEntry entry : entries) {
+                    if (stopped) {
+                        return;
+                    }
+                    readEntry(entry.getName(), entry.getSize(), () -> zipFile.getInputStream(entry));
+                }
+            }
+        }
+
+        private void readRar() throws IOException, RarException {
+            try (Archive rarFile = new Archive(cbxFile)) {
+                List<FileHeader> headers = rarFile.getFileHeaders().stream()
+                        .filter(header -> !header.isDirectory() && isImageFile(header.getFileName()))
+                        .toList();
+                log.debug("Found {} image entries in CBR file", headers.size());
+                open(headers.stream().map(FileHeader::getFileName).toList());
+
+                // Solid archives only unpack front to back, so entries are read in archive order
+                for (FileHeader header : headers) {
+                    if (stopped) {
+                        return;
+                    }
+                    readEntry(header.getFileName(), header.getFullUnpackSize(), () -> rarFile.getInputStream(header));
+                }
+            }
+        }
+
+        private void read7z() throws IOException {
+            try (SevenZFile sevenZFile = SevenZFile.builder().setFile(cbxFile).get()) {
+                List<String> imageNames = new ArrayList<>();
+                for (SevenZArchiveEntry entry : sevenZFile.getEntries()) {
+                    if (!entry.isDirectory() && isImageFile(entry.getName())) {
+                        imageNames.add(entry.getName());
+                    }
+                }
+                log.debug("Found {} image entries in CB7 file", imageNames.size());
+                open(imageNames);
+
+                SevenZArchiveEntry entry;
+                while ((entry = sevenZFile.getNextEntry()) != null) {
+                    if (stopped) {
+                        return;
+                    }
+                    if (entry.isDirectory() || !isImageFile(entry.getName())) {
+                        continue;
+                    }
+                    SevenZArchiveEntry current = entry;
+                    readEntry(entry.getName(), entry.getSize(), () -> sevenZFile.getInputStream(current));
+                }
+            }
+        }
+
+        private void open(List<String> imageNames) {
+            List<String> ordered = imageNames.stream().sorted(PAGE_ORDER).toList();
+            // The writer swaps written pages for WRITTEN_PAGE while this thread and the package renderer still read it
+            List<CompletableFuture<PageContent>> listed = Collections.synchronizedList(new ArrayList<>(ordered.size()));
+            for (int i = 0; i < ordered.size(); i++) {
+                pageIndexes.computeIfAbsent(ordered.get(i), name -> new ArrayDeque<>()).add(i);
+                listed.add(new CompletableFuture<>());
+            }
+            pages = listed;
+            dispatched = new AtomicIntegerArray(listed.size());
+            listing.complete(listed);
+        }
+
+        private void readEntry(String name, long size, EntryStream entryStream) {
+            Deque<Integer> indexes = pageIndexes.get(name);
+            Integer index = indexes != null ? indexes.poll() : null;
+            if (index == null) {
+                return;
+            }
+            CompletableFuture<PageContent> page = pages.get(index);
+            try {
+                validateImageSize(name, size);
+                byte[] data;
+                try (InputStream inputStream = entryStream.open()) {
+                    data = inputStream.readNBytes((int) MAX_IMAGE_SIZE_BYTES + 1);
+                }
+                validateImageSize(name, data.length);
+
+                Path spillFile = null;
+                int bufferedBytes = data.length;
+                if (!reserve(bufferedBytes)) {
+                    spillFile = Files.createTempFile(spillDir, "cbx-page-", ".img");
+                    Files.write(spillFile, data);
+                    data = null;
+                    bufferedBytes = 0;
+                }
+                submit(index, name, data, spillFile, bufferedBytes, page);
+            } catch (Exception e) {
+                log.warn("Error extracting image {}: {}", name, e.getMessage());
+                page.complete(null);
+            } finally {
+                dispatched.set(index, 1);
+            }
+        }
+
+        private boolean reserve(int bytes) throws InterruptedException {
+            while (!buffer.tryAcquire(bytes, 100, TimeUnit.MILLISECONDS)) {
+                int waitingOn = nextPage;
+                if (stopped || (waitingOn < dispatched.length() && dispatched.get(waitingOn) == 0)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void submit(int index, String name, byte[] data, Path spillFile, int bufferedBytes, CompletableFuture<PageContent> page) {
+            pageWorkers.execute(() -> {
+                PageContent content = null;
+                try {
+                    if (!stopped) {
+                        content = renderPage(index + 1, name, data, spillFile, bufferedBytes, quality);
+                    }
+                } catch (Exception e) {
+                    log.warn("Error converting image {}: {}", name, e.getMessage());
+                }
+                if (content == null) {
+                    buffer.release(bufferedBytes);
+                }
+                page.complete(content);
+            });
+        }
+
+        void release(PageContent page) {
+            buffer.release(page.bufferedBytes());
+            if (page.spillFile() != null) {
+                try {
+                    Files.deleteIfExists(page.spillFile());
+                } catch (IOException e) {
+                    log.debug("Failed to delete spilled page {}: {}", page.spillFile(), e.getMessage());
+                }
+            }
+        }
+    }
 }
@@ -28,6 +28,8 @@ public class KepubConversionService {
     private static final String BIN_LINUX_ARM = "kepubify-linux-arm";
     private static final String BIN_LINUX_ARM64 = "kepubify-linux-arm64";
 
+    private volatile String converterVersion;
+
     public File convertEpubToKepub(File epubFile, File tempDir, boolean forceEnableHyphenation) throws IOException, InterruptedException {
         validateInputs(epubFile);
 
@@ -38,6 +40,20 @@ public class KepubConversionService {
         return outputFile;
     }
 
+    /**
+     * Identifies the kepubify build in use, downloading it if needed, so cached conversions are redone when the
+     * binary is replaced. Worked out once, a replaced binary is picked up on the next start.
+     */
+    public String converterVersion() throws IOException {
+        String version = converterVersion;
+        if (version == null) {
+            Path kepubifyBinary = setupKepubifyBinary();
+            version = kepubifyBinary.getFileName() + "-" + Files.size(kepubifyBinary);
+            converterVersion = version;
+        }
+        return version;
+    }
+
     private void validateInputs(File epubFile) {
         if (epubFile == null || !epubFile.isFile() || !epubFile.getName().endsWith(".epub")) {
             throw new IllegalArgumentException("Invalid EPUB file: " + epubFile);
@@ -0,0 +1,369 @@
+package com.adityachandel.booklore.service.kobo;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.settings.KoboSettings;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.util.FileService;
+import com.adityachandel.booklore.util.FileUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the Kepub and CBX-to-EPUB conversions Kobo downloads need, so a book is converted once instead of on every
+ * download.
+ * <p>
+ * Conversions are content addressed: each lives in {@code conversion_cache/<sha256 of key>/}, where the key is the
+ * book's {@code currentHash} (or file size and modification time while it has none), the converter version and the
+ * settings the output depends on. Editing the book, replacing kepubify or changing the Kobo settings therefore
+ * simply misses the old entries, which age out under {@code app.conversion-cache.max-cache-size-mb} as the least
+ * recently downloaded. Entries are pinned while they are being converted or streamed, and eviction skips pinned
+ * entries. Concurrent downloads of the same book wait on a single conversion.
+ */
+@Slf4j
+@Service
+public class KoboConversionCache {
+
+    private static final String STAGING_PREFIX = ".staging-";
+
+    private final KepubConversionService kepubConversionService;
+    private final CbxConversionService cbxConversionService;
+    private final FileService fileService;
+    private final AppProperties.ConversionCache config;
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Path, Integer> pins = new ConcurrentHashMap<>();
+    private final AtomicLong cacheSizeBytes = new AtomicLong(-1);
+    private final Object evictionLock = new Object();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public KoboConversionCache(KepubConversionService kepubConversionService, CbxConversionService cbxConversionService,
+                               FileService fileService, AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.kepubConversionService = kepubConversionService;
+        this.cbxConversionService = cbxConversionService;
+        this.fileService = fileService;
+        this.config = appProperties.getConversionCache();
+        this.hits = Counter.builder("cache.gets").tag("cache", "conversion").tag("result", "hit")
+                .description("Kobo downloads served from an earlier conversion").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "conversion").tag("result", "miss")
+                .description("Kobo downloads that had to convert the book").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "conversion")
+                .description("Conversions evicted to keep the cache under its size limit").register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface Converter {
+        File convert(File input, File tempDir) throws Exception;
+    }
+
+    /**
+     * The file to send for a Kobo download. A cached conversion stays pinned until the lease is closed.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private final File file;
+        private final Runnable release;
+
+        private Lease(File file, Runnable release) {
+            this.file = file;
+            this.release = release;
+        }
+
+        public File file() {
+            return file;
+        }
+
+        @Override
+        public void close() {
+            release.run();
+        }
+    }
+
+    /**
+     * Whether the Kobo settings ask for {@code book} to be converted before it is sent to a device.
+     */
+    public boolean needsConversion(BookEntity book, KoboSettings settings) {
+        return convertsEpubToKepub(book, settings) || convertsCbxToEpub(book, settings);
+    }
+
+    /**
+     * The file a Kobo download of {@code book} should stream: its conversion, converted now unless an earlier one
+     * is cached, or the book file itself when the settings ask for none. Close the lease once the file is sent.
+     */
+    public Lease resolve(BookEntity book, KoboSettings settings) throws IOException {
+        File input = new File(FileUtils.getBookFullPath(book));
+        if (convertsCbxToEpub(book, settings)) {
+            int compression = settings.getConversionImageCompressionPercentage();
+            String key = String.join("|", "cbx-epub", version(book, input), String.valueOf(CbxConversionService.CONVERTER_VERSION),
+                    String.valueOf(compression), cbxConversionService.metadataFingerprint(book));
+            return getOrConvert(key, input, (in, tempDir) -> cbxConversionService.convertCbxToEpub(in, tempDir, book, compression));
+        }
+        if (convertsEpubToKepub(book, settings)) {
+            boolean hyphenate = settings.isForceEnableHyphenation();
+            String key = String.join("|", "kepub", version(book, input), kepubConversionService.converterVersion(),
+                    "hyphenate=" + hyphenate);
+            return getOrConvert(key, input, (in, tempDir) -> kepubConversionService.convertEpubToKepub(in, tempDir, hyphenate));
+        }
+        return new Lease(input, () -> {
+        });
+    }
+
+    /**
+     * Converts {@code book} ahead of its first download, unless a conversion is already cached.
+     */
+    public void prepare(BookEntity book, KoboSettings settings) throws IOException {
+        resolve(book, settings).close();
+    }
+
+    private static boolean convertsEpubToKepub(BookEntity book, KoboSettings settings) {
+        return book.getBookType() == BookFileType.EPUB && settings.isConvertToKepub()
+                && book.getFileSizeKb() <= (long) settings.getConversionLimitInMb() * 1024;
+    }
+
+    private static boolean convertsCbxToEpub(BookEntity book, KoboSettings settings) {
+        return book.getBookType() == BookFileType.CBX && settings.isConvertCbxToEpub()
+                && book.getFileSizeKb() <= (long) settings.getConversionLimitInMbForCbx() * 1024;
+    }
+
+    private static String version(BookEntity book, File input) throws IOException {
+        if (book.getCurrentHash() != null && !book.getCurrentHash().isBlank()) {
+            return book.getCurrentHash();
+        }
+        BasicFileAttributes attributes = Files.readAttributes(input.toPath(), BasicFileAttributes.class);
+        return "file:" + input.getAbsolutePath() + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+    }
+
+    private Lease getOrConvert(String key, File input, Converter converter) throws IOException {
+        Path entryDir = Path.of(fileService.getConversionCachePath(), sha256(key));
+        pin(entryDir);
+        try {
+            return new Lease(getOrConvert(key, entryDir, input, converter).toFile(), () -> unpin(entryDir));
+        } catch (IOException | RuntimeException e) {
+            unpin(entryDir);
+            throw e;
+        }
+    }
+
+    private Path getOrConvert(String key, Path entryDir, File input, Converter converter) throws IOException {
+        Path cached = findOutput(entryDir);
+        if (cached != null) {
+            hits.increment();
+            touch(cached);
+            return cached;
+        }
+        CompletableFuture<Path> conversion = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, conversion);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            cached = findOutput(entryDir);
+            if (cached == null) {
+                misses.increment();
+                cached = convert(entryDir, input, converter);
+            }
+            conversion.complete(cached);
+            return cached;
+        } catch (Exception e) {
+            conversion.completeExceptionally(e);
+            if (e instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to convert " + input.getName(), e);
+        } finally {
+            inFlight.remove(key, conversion);
+        }
+    }
+
+    private Path convert(Path entryDir, File input, Converter converter) throws Exception {
+        Path tempDir = Files.createTempDirectory("kobo-conversion");
+        Path stagingDir = null;
+        try {
+            File output = converter.convert(input, tempDir.toFile());
+            Files.createDirectories(entryDir.getParent());
+            stagingDir = Files.createTempDirectory(entryDir.getParent(), STAGING_PREFIX);
+            Files.move(output.toPath(), stagingDir.resolve(output.getName()), StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(stagingDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileSystemException e) {
+                log.debug("Conversion {} was stored concurrently, keeping the existing one", entryDir.getFileName());
+            }
+            Path cached = findOutput(entryDir);
+            if (cached == null) {
+                throw new IOException("Conversion of " + input.getName() + " vanished from " + entryDir);
+            }
+            recordCachedBytes(Files.size(cached));
+            return cached;
+        } finally {
+            deleteQuietly(tempDir);
+            if (stagingDir != null) {
+                deleteQuietly(stagingDir);
+            }
+        }
+    }
+
+    private static Path findOutput(Path entryDir) {
+        if (!Files.isDirectory(entryDir)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(entryDir)) {
+            return files.filter(Files::isRegularFile).findFirst().orElse(null);
+        } catch (IOException e) {
+            log.debug("Failed to read conversion cache entry {}: {}", entryDir, e.getMessage());
+            return null;
+        }
+    }
+
+    private Path await(CompletableFuture<Path> conversion) throws IOException {
+        try {
+            hits.increment();
+            return conversion.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for conversion");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to convert book", e.getCause());
+        }
+    }
+
+    private void recordCachedBytes(long bytes) {
+        long maxCacheSizeBytes = config.getMaxCacheSizeMb() * 1024L * 1024L;
+        long current = cacheSizeBytes.get() < 0 ? computeCacheSize() : cacheSizeBytes.addAndGet(bytes);
+        if (current > maxCacheSizeBytes) {
+            evictLeastRecentlyDownloaded(maxCacheSizeBytes);
+        }
+    }
+
+    private long computeCacheSize() {
+        long total = listEntries().stream().mapToLong(CachedConversion::size).sum();
+        cacheSizeBytes.set(total);
+        return total;
+    }
+
+    /**
+     * Evicts down to 90% of the limit, skipping pinned entries.
+     */
+    private void evictLeastRecentlyDownloaded(long maxCacheSizeBytes) {
+        synchronized (evictionLock) {
+            List<CachedConversion> entries = listEntries();
+            long total = entries.stream().mapToLong(CachedConversion::size).sum();
+            long target = maxCacheSizeBytes * 9 / 10;
+            entries.sort(Comparator.comparingLong(CachedConversion::lastDownloaded));
+            for (CachedConversion entry : entries) {
+                if (total <= target) {
+                    break;
+                }
+                if (!deleteUnlessPinned(entry.dir())) {
+                    continue;
+                }
+                total -= entry.size();
+                evictions.increment();
+            }
+            cacheSizeBytes.set(total);
+            log.debug("Evicted conversion cache down to {} bytes", total);
+        }
+    }
+
+    private void pin(Path entryDir) {
+        pins.merge(entryDir, 1, Integer::sum);
+    }
+
+    private void unpin(Path entryDir) {
+        pins.computeIfPresent(entryDir, (dir, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Deletes the entry under its pin mapping, so a download either pins it first and keeps it, or finds it gone
+     * and converts again.
+     */
+    private boolean deleteUnlessPinned(Path entryDir) {
+        boolean[] deleted = {false};
+        pins.compute(entryDir, (dir, count) -> {
+            if (count == null) {
+                deleteQuietly(dir);
+                deleted[0] = true;
+            }
+            return count;
+        });
+        return deleted[0];
+    }
+
+    private List<CachedConversion> listEntries() {
+        Path cacheRoot = Path.of(fileService.getConversionCachePath());
+        if (!Files.isDirectory(cacheRoot)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> dirs = Files.list(cacheRoot)) {
+            return dirs
+                    .filter(dir -> !dir.getFileName().toString().startsWith(STAGING_PREFIX))
+                    .map(dir -> {
+                        Path output = findOutput(dir);
+                        if (output == null) {
+                            return null;
+                        }
+                        try {
+                            return new CachedConversion(dir, Files.size(output), Files.getLastModifiedTime(output).toMillis());
+                        } catch (IOException e) {
+                            return null;
+                        }
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to list conversion cache: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Failed to update last download time of {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            FileSystemUtils.deleteRecursively(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static String sha256(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedConversion(Path dir, long size, long lastDownloaded) {
+    }
+}
@@ -16,13 +16,17 @@ import com.adityachandel.booklore.util.kobo.KoboUrlBuilder;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -43,17 +47,50 @@ public class KoboEntitlementService {
     private final KoboReadingStateBuilder readingStateBuilder;
 
     public List<NewEntitlement> generateNewEntitlements(Set<Long> bookIds, String token, boolean removed) {
-        List<BookEntity> books = bookQueryService.findAllWithMetadataByIds(bookIds);
+        if (bookIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Long userId = authenticationService.getAuthenticatedUser().getId();
+        return generateNewEntitlements(userId, bookIds, koboUrlBuilder.downloadUrlTemplate(token), removed);
+    }
 
-        return books.stream()
+    /**
+     * Builds new entitlements for a whole sync page. Books with their metadata, existing Kobo reading states and the
+     * user's progress are each loaded with a single query, and nothing here touches the current request or security
+     * context, so a page can also be built in the background.
+     */
+    public List<NewEntitlement> generateNewEntitlements(Long userId, Collection<Long> bookIds, String downloadUrlTemplate, boolean removed) {
+        if (bookIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<BookEntity> books = bookQueryService.findAllForKoboSyncByIds(bookIds).stream()
                 .filter(koboCompatibilityService::isBookSupportedForKobo)
-                .map(book -> NewEntitlement.builder()
-                        .newEntitlement(BookEntitlementContainer.builder()
-                                .bookEntitlement(buildBookEntitlement(book, removed))
-                                .bookMetadata(mapToKoboMetadata(book, token))
-                                .readingState(createInitialReadingState(book))
-                                .build())
-                        .build())
+                .toList();
+        if (books.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<String> entitlementIds = books.stream().map(book -> String.valueOf(book.getId())).collect(Collectors.toSet());
+        Map<String, KoboReadingStateEntity> readingStates = readingStateRepository.findByEntitlementIdIn(entitlementIds).stream()
+                .collect(Collectors.toMap(KoboReadingStateEntity::getEntitlementId, Function.identity(), (first, second) -> first));
+        Set<Long> bookIdSet = books.stream().map(BookEntity::getId).collect(Collectors.toSet());
+        Map<Long, UserBookProgressEntity> progressByBookId = progressRepository.findByUserIdAndBookIdIn(userId, bookIdSet).stream()
+                .collect(Collectors.toMap(progress -> progress.getBook().getId(), Function.identity(), (first, second) -> first));
+        KoboSettings koboSettings = appSettingService.getAppSettings().getKoboSettings();
+
+        return books.stream()
+                .map(book -> {
+                    KoboReadingStateEntity readingState = readingStates.get(String.valueOf(book.getId()));
+                    return NewEntitlement.builder()
+                            .newEntitlement(BookEntitlementContainer.builder()
+                                    .bookEntitlement(buildBookEntitlement(book, removed))
+                                    .bookMetadata(mapToKoboMetadata(book, expandDownloadUrl(downloadUrlTemplate, book.getId()), koboSettings))
+                                    .readingState(createInitialReadingState(book,
+                                            readingState != null ? readingStateMapper.toDto(readingState) : null,
+                                            progressByBookId.get(book.getId())))
+                                    .build())
+                            .build();
+                })
                 .collect(Collectors.toList());
     }
 
@@ -118,17 +155,11 @@ public class KoboEntitlementService {
                 .build();
     }
 
-    private KoboReadingState createInitialReadingState(BookEntity book) {
+    private KoboReadingState createInitialReadingState(BookEntity book, KoboReadingState existingState, UserBookProgressEntity bookProgress) {
         OffsetDateTime now = getCurrentUtc();
+        Optional<UserBookProgressEntity> userProgress = Optional.ofNullable(bookProgress);
         String entitlementId = String.valueOf(book.getId());
-        
-        KoboReadingState existingState = readingStateRepository.findByEntitlementId(entitlementId)
-                .map(readingStateMapper::toDto)
-                .orElse(null);
-        
-        Optional<UserBookProgressEntity> userProgress = progressRepository
-                .findByUserIdAndBookId(authenticationService.getAuthenticatedUser().getId(), book.getId());
-        
+
         KoboReadingState.CurrentBookmark bookmark = existingState != null && existingState.getCurrentBookmark() != null
                 ? existingState.getCurrentBookmark()
                 : userProgress
@@ -182,6 +213,10 @@ public class KoboEntitlementService {
     }
 
     private KoboBookMetadata mapToKoboMetadata(BookEntity book, String token) {
+        return mapToKoboMetadata(book, koboUrlBuilder.downloadUrl(token, book.getId()), appSettingService.getAppSettings().getKoboSettings());
+    }
+
+    private KoboBookMetadata mapToKoboMetadata(BookEntity book, String downloadUrl, KoboSettings koboSettings) {
         BookMetadataEntity metadata = book.getMetadata();
 
         KoboBookMetadata.Publisher publisher = KoboBookMetadata.Publisher.builder()
@@ -207,11 +242,8 @@ public class KoboEntitlementService {
                     .build();
         }
 
-        String downloadUrl = koboUrlBuilder.downloadUrl(token, book.getId());
-
         KoboBookFormat bookFormat = KoboBookFormat.EPUB3;
-        KoboSettings koboSettings = appSettingService.getAppSettings().getKoboSettings();
-        
+
         boolean isEpubFile = book.getBookType() == BookFileType.EPUB;
         boolean isCbxFile = book.getBookType() == BookFileType.CBX;
         
@@ -255,6 +287,10 @@ public class KoboEntitlementService {
                 .build();
     }
 
+    private static String expandDownloadUrl(String downloadUrlTemplate, Long bookId) {
+        return UriComponentsBuilder.fromUriString(downloadUrlTemplate).buildAndExpand(bookId).toUriString();
+    }
+
     private OffsetDateTime getCurrentUtc() {
         return OffsetDateTime.now(ZoneOffset.UTC);
     }
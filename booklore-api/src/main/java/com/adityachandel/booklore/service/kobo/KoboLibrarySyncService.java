@@ -1,5 +1,6 @@
 package com.adityachandel.booklore.service.kobo;
 
+import com.adityachandel.booklore.config.AppProperties;
 import com.adityachandel.booklore.model.dto.kobo.KoboHeaders;
 import com.adityachandel.booklore.model.dto.BookLoreUser;
 import com.adityachandel.booklore.model.dto.BookloreSyncToken;
@@ -9,17 +10,23 @@ import com.adityachandel.booklore.model.entity.KoboLibrarySnapshotEntity;
 import com.adityachandel.booklore.model.entity.UserBookProgressEntity;
 import com.adityachandel.booklore.repository.KoboDeletedBookProgressRepository;
 import com.adityachandel.booklore.repository.UserBookProgressRepository;
+import com.adityachandel.booklore.service.user.ReadProgressBuffer;
 import com.adityachandel.booklore.util.RequestUtils;
 import com.adityachandel.booklore.util.kobo.BookloreSyncTokenGenerator;
+import com.adityachandel.booklore.util.kobo.KoboUrlBuilder;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -39,20 +46,34 @@ public class KoboLibrarySyncService {
     private final UserBookProgressRepository userBookProgressRepository;
     private final KoboServerProxy koboServerProxy;
     private final ObjectMapper objectMapper;
+    private final KoboSyncPageSizer pageSizer;
+    private final KoboSyncPrefetcher syncPrefetcher;
+    private final KoboUrlBuilder koboUrlBuilder;
+    private final AppProperties appProperties;
+    private final ReadProgressBuffer readProgressBuffer;
+    private final PlatformTransactionManager transactionManager;
 
-    @Transactional
     public ResponseEntity<?> syncLibrary(BookLoreUser user, String token) {
+        // Flushed before the sync transaction starts, so that its snapshot includes the latest progress
+        readProgressBuffer.flush(user.getId());
+        return new TransactionTemplate(transactionManager).execute(tx -> sync(user, token));
+    }
+
+    private ResponseEntity<?> sync(BookLoreUser user, String token) {
         HttpServletRequest request = RequestUtils.getCurrentRequest();
         BookloreSyncToken syncToken = Optional.ofNullable(tokenGenerator.fromRequestHeaders(request)).orElse(new BookloreSyncToken());
 
         KoboLibrarySnapshotEntity currSnapshot = koboLibrarySnapshotService.findByIdAndUserId(syncToken.getOngoingSyncPointId(), user.getId()).orElseGet(() -> koboLibrarySnapshotService.create(user.getId()));
         Optional<KoboLibrarySnapshotEntity> prevSnapshot = koboLibrarySnapshotService.findByIdAndUserId(syncToken.getLastSuccessfulSyncPointId(), user.getId());
 
+        String deviceKey = KoboSyncPageSizer.deviceKey(user.getId(), request.getHeader(HttpHeaders.USER_AGENT));
+        int pageSize = pageSizer.pageSize(deviceKey);
+
         List<Entitlement> entitlements = new ArrayList<>();
         boolean shouldContinueSync = false;
 
         if (prevSnapshot.isPresent()) {
-            int maxRemaining = 5;
+            int maxRemaining = pageSize;
             List<KoboSnapshotBookEntity> removedAll = new ArrayList<>();
 
             koboLibrarySnapshotService.updateSyncedStatusForExistingBooks(prevSnapshot.get().getId(), currSnapshot.getId());
@@ -79,17 +100,10 @@ public class KoboLibrarySyncService {
                 entitlements.addAll(syncReadingStatesToKobo(user.getId(), currSnapshot.getId()));
             }
         } else {
-            int maxRemaining = 5;
-            List<KoboSnapshotBookEntity> all = new ArrayList<>();
-            while (maxRemaining > 0) {
-                var page = koboLibrarySnapshotService.getUnsyncedBooks(currSnapshot.getId(), PageRequest.of(0, maxRemaining));
-                all.addAll(page.getContent());
-                maxRemaining -= page.getNumberOfElements();
-                shouldContinueSync = page.hasNext();
-                if (!shouldContinueSync || page.getNumberOfElements() == 0) break;
-            }
-            Set<Long> ids = all.stream().map(KoboSnapshotBookEntity::getBookId).collect(Collectors.toSet());
-            entitlements.addAll(entitlementService.generateNewEntitlements(ids, token, false));
+            Page<KoboSnapshotBookEntity> page = koboLibrarySnapshotService.getUnsyncedBooks(currSnapshot.getId(), PageRequest.of(0, pageSize));
+            shouldContinueSync = page.hasNext();
+            List<Long> ids = page.getContent().stream().map(KoboSnapshotBookEntity::getBookId).toList();
+            entitlements.addAll(buildFullSyncPage(user.getId(), currSnapshot.getId(), ids, token, pageSize, shouldContinueSync));
             
             if (!shouldContinueSync) {
                 entitlements.addAll(syncReadingStatesToKobo(user.getId(), currSnapshot.getId()));
@@ -140,10 +154,43 @@ public class KoboLibrarySyncService {
             syncToken.setLastSuccessfulSyncPointId(currSnapshot.getId());
         }
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(KoboHeaders.X_KOBO_SYNC, shouldContinueSync ? "continue" : "")
-                .header(KoboHeaders.X_KOBO_SYNCTOKEN, tokenGenerator.toBase64(syncToken))
-                .body(entitlements);
+                .header(KoboHeaders.X_KOBO_SYNCTOKEN, tokenGenerator.toBase64(syncToken));
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(entitlements);
+            pageSizer.recordResponse(deviceKey, entitlements.size(), body.length);
+            return response.contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to measure Kobo sync response, page size will not adapt: {}", e.getMessage());
+            return response.body(entitlements);
+        }
+    }
+
+    private List<NewEntitlement> buildFullSyncPage(Long userId, String snapshotId, List<Long> bookIds, String token, int pageSize, boolean hasNext) {
+        if (bookIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        boolean prefetch = appProperties.getKoboSync().isPrefetch();
+        String downloadUrlTemplate = koboUrlBuilder.downloadUrlTemplate(token);
+        Map<Long, NewEntitlement> prefetched = prefetch ? syncPrefetcher.take(userId, snapshotId) : Map.of();
+
+        List<NewEntitlement> page = new ArrayList<>(bookIds.size());
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long bookId : bookIds) {
+            NewEntitlement entitlement = prefetched.get(bookId);
+            if (entitlement != null) {
+                page.add(entitlement);
+            } else {
+                missing.add(bookId);
+            }
+        }
+        page.addAll(entitlementService.generateNewEntitlements(userId, missing, downloadUrlTemplate, false));
+
+        if (prefetch && hasNext) {
+            syncPrefetcher.prefetchAfterCommit(userId, snapshotId, downloadUrlTemplate, pageSize);
+        }
+        return page;
     }
 
     private List<ChangedReadingState> syncReadingStatesToKobo(Long userId, String snapshotId) {
@@ -17,10 +17,13 @@ import com.adityachandel.booklore.repository.KoboReadingStateRepository;
 import com.adityachandel.booklore.repository.UserBookProgressRepository;
 import com.adityachandel.booklore.repository.UserRepository;
 import com.adityachandel.booklore.service.hardcover.HardcoverSyncService;
+import com.adityachandel.booklore.service.user.ReadProgressBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.util.List;
@@ -43,10 +46,13 @@ public class KoboReadingStateService {
     private final KoboSettingsService koboSettingsService;
     private final KoboReadingStateBuilder readingStateBuilder;
     private final HardcoverSyncService hardcoverSyncService;
+    private final ReadProgressBuffer readProgressBuffer;
+    private final PlatformTransactionManager transactionManager;
 
-    @Transactional
     public KoboReadingStateResponse saveReadingState(List<KoboReadingState> readingStates) {
-        List<KoboReadingState> koboReadingStates = saveAll(readingStates);
+        BookLoreUser user = authenticationService.getAuthenticatedUser();
+        readProgressBuffer.flush(user.getId());
+        List<KoboReadingState> koboReadingStates = new TransactionTemplate(transactionManager).execute(tx -> saveAll(user, readingStates));
 
         List<KoboReadingStateResponse.UpdateResult> updateResults = koboReadingStates.stream()
                 .map(state -> KoboReadingStateResponse.UpdateResult.builder()
@@ -63,9 +69,7 @@ public class KoboReadingStateService {
                 .build();
     }
 
-    private List<KoboReadingState> saveAll(List<KoboReadingState> dtos) {
-        BookLoreUser user = authenticationService.getAuthenticatedUser();
-        
+    private List<KoboReadingState> saveAll(BookLoreUser user, List<KoboReadingState> dtos) {
         return dtos.stream()
                 .map(dto -> {
                     KoboReadingStateEntity entity = repository.findByEntitlementId(dto.getEntitlementId())
@@ -111,7 +115,8 @@ public class KoboReadingStateService {
         try {
             Long bookId = Long.parseLong(entitlementId);
             BookLoreUser user = authenticationService.getAuthenticatedUser();
-            
+            readProgressBuffer.flush(user.getId());
+
             return progressRepository.findByUserIdAndBookId(user.getId(), bookId)
                     .filter(progress -> progress.getKoboProgressPercent() != null || progress.getKoboLocation() != null)
                     .map(progress -> readingStateBuilder.buildReadingStateFromProgress(entitlementId, progress));
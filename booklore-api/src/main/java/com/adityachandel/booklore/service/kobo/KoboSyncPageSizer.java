@@ -0,0 +1,60 @@
+package com.adityachandel.booklore.service.kobo;
+
+import com.adityachandel.booklore.config.AppProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Chooses how many books a Kobo library sync page carries.
+ * <p>
+ * Each device (user plus User-Agent, so an e-reader and the Kobo app are sized separately) keeps a smoothed
+ * average of the bytes its sync responses spend per entitlement, and pages are sized to land near the configured
+ * payload target. Devices that have not synced yet start at the initial page size. Only the most recently synced
+ * devices are remembered, a device that falls out starts over at the initial page size.
+ */
+@Component
+@RequiredArgsConstructor
+public class KoboSyncPageSizer {
+
+    static final int LEGACY_PAGE_SIZE = 5;
+    static final int MAX_TRACKED_DEVICES = 256;
+    private static final double SMOOTHING = 0.3;
+
+    private final AppProperties appProperties;
+    private final Map<String, Double> bytesPerEntitlementByDevice = Collections.synchronizedMap(new LinkedHashMap<String, Double>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > MAX_TRACKED_DEVICES;
+        }
+    });
+
+    public static String deviceKey(Long userId, String userAgent) {
+        return userId + ":" + (userAgent == null ? "" : userAgent);
+    }
+
+    public int pageSize(String deviceKey) {
+        AppProperties.KoboSync config = appProperties.getKoboSync();
+        if (!config.isAdaptivePaging()) {
+            return LEGACY_PAGE_SIZE;
+        }
+        int min = Math.max(1, config.getMinPageSize());
+        int max = Math.max(min, config.getMaxPageSize());
+        Double bytesPerEntitlement = bytesPerEntitlementByDevice.get(deviceKey);
+        long size = bytesPerEntitlement == null
+                ? config.getInitialPageSize()
+                : (long) (config.getTargetPayloadKb() * 1024L / Math.max(1.0, bytesPerEntitlement));
+        return (int) Math.min(max, Math.max(min, size));
+    }
+
+    public void recordResponse(String deviceKey, int entitlementCount, long payloadBytes) {
+        if (entitlementCount <= 0 || payloadBytes <= 0) {
+            return;
+        }
+        double sample = (double) payloadBytes / entitlementCount;
+        bytesPerEntitlementByDevice.merge(deviceKey, sample, (previous, current) -> previous + SMOOTHING * (current - previous));
+    }
+}
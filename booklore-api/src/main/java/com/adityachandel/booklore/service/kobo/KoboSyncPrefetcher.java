@@ -0,0 +1,103 @@
+package com.adityachandel.booklore.service.kobo;
+
+import com.adityachandel.booklore.model.dto.kobo.NewEntitlement;
+import com.adityachandel.booklore.model.entity.KoboSnapshotBookEntity;
+import com.adityachandel.booklore.repository.KoboSnapshotBookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Builds the next page of a full Kobo library sync in the background while the device is still downloading the
+ * current one.
+ * <p>
+ * Prefetching only reads: books are marked synced when the device actually requests their page, so an abandoned
+ * sync loses nothing. The served page reuses whichever prefetched entitlements match its books and builds the rest.
+ * At most one prefetch is kept per user.
+ */
+@Slf4j
+@Component
+public class KoboSyncPrefetcher {
+
+    private static final long MAX_WAIT_SECONDS = 30;
+
+    private record Prefetch(String snapshotId, CompletableFuture<Map<Long, NewEntitlement>> entitlements) {
+    }
+
+    private final KoboSnapshotBookRepository koboSnapshotBookRepository;
+    private final KoboEntitlementService entitlementService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Executor taskExecutor;
+    private final Map<Long, Prefetch> prefetchesByUser = new ConcurrentHashMap<>();
+
+    public KoboSyncPrefetcher(KoboSnapshotBookRepository koboSnapshotBookRepository,
+                              KoboEntitlementService entitlementService,
+                              PlatformTransactionManager transactionManager,
+                              @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.koboSnapshotBookRepository = koboSnapshotBookRepository;
+        this.entitlementService = entitlementService;
+        this.taskExecutor = taskExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Starts building the next {@code pageSize} unsynced books of {@code snapshotId} once the current transaction
+     * has committed the books just served as synced.
+     */
+    public void prefetchAfterCommit(Long userId, String snapshotId, String downloadUrlTemplate, int pageSize) {
+        Runnable start = () -> prefetchesByUser.put(userId, new Prefetch(snapshotId,
+                CompletableFuture.supplyAsync(() -> build(userId, snapshotId, downloadUrlTemplate, pageSize), taskExecutor)));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    start.run();
+                }
+            });
+        } else {
+            start.run();
+        }
+    }
+
+    /**
+     * @return prefetched entitlements for {@code snapshotId} keyed by book id, or an empty map if none are available
+     */
+    public Map<Long, NewEntitlement> take(Long userId, String snapshotId) {
+        Prefetch prefetch = prefetchesByUser.remove(userId);
+        if (prefetch == null || !prefetch.snapshotId().equals(snapshotId)) {
+            return Map.of();
+        }
+        try {
+            return prefetch.entitlements().get(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Map.of();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Discarding Kobo sync prefetch for user {}: {}", userId, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private Map<Long, NewEntitlement> build(Long userId, String snapshotId, String downloadUrlTemplate, int pageSize) {
+        return readOnlyTransaction.execute(status -> {
+            List<Long> bookIds = koboSnapshotBookRepository.findBySnapshot_IdAndSyncedFalse(snapshotId, PageRequest.of(0, pageSize))
+                    .stream()
+                    .map(KoboSnapshotBookEntity::getBookId)
+                    .toList();
+            Map<Long, NewEntitlement> entitlements = new HashMap<>();
+            for (NewEntitlement entitlement : entitlementService.generateNewEntitlements(userId, bookIds, downloadUrlTemplate, false)) {
+                entitlements.put(Long.valueOf(entitlement.getNewEntitlement().getBookEntitlement().getId()), entitlement);
+            }
+            return entitlements;
+        });
+    }
+}
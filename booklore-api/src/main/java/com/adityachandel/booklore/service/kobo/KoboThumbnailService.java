@@ -1,6 +1,7 @@
 package com.adityachandel.booklore.service.kobo;
 
 import com.adityachandel.booklore.service.book.BookService;
+import com.adityachandel.booklore.service.book.CoverVariantService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
@@ -14,9 +15,17 @@ import org.springframework.stereotype.Service;
 public class KoboThumbnailService {
 
     private final BookService bookService;
-
-    public ResponseEntity<Resource> getThumbnail(Long bookId) {
-        return getThumbnailInternal(bookId);
+    private final CoverVariantService coverVariantService;
+
+    /**
+     * Serves the cover sized to the device's requested box, in greyscale and at the requested JPEG quality when
+     * asked, so e-ink readers do not download and decode full-size colour covers for every tile.
+     */
+    public ResponseEntity<Resource> getThumbnail(Long bookId, int width, int height, Integer quality, boolean greyscale, String ifNoneMatch) {
+        if (!coverVariantService.hasCover(bookId)) {
+            return getThumbnailInternal(bookId);
+        }
+        return coverVariantService.serve(bookId, coverVariantService.variant(width, height, quality, greyscale), ifNoneMatch);
     }
 
     private ResponseEntity<Resource> getThumbnailInternal(Long bookId) {
@@ -35,4 +44,4 @@ public class KoboThumbnailService {
     private boolean isValidImage(Resource image) {
         return image != null && image.exists();
     }
-}
\ No newline at end of file
+}
@@ -12,16 +12,16 @@ import lombok.extern.slf4j.Slf4j;
 
 import com.adityachandel.booklore.config.security.userdetails.KoreaderUserDetails;
 import com.adityachandel.booklore.exception.ApiError;
+import com.adityachandel.booklore.model.ReadProgressUpdate;
 import com.adityachandel.booklore.model.dto.progress.KoreaderProgress;
 import com.adityachandel.booklore.model.entity.BookEntity;
-import com.adityachandel.booklore.model.entity.BookLoreUserEntity;
 import com.adityachandel.booklore.model.entity.KoreaderUserEntity;
 import com.adityachandel.booklore.model.entity.UserBookProgressEntity;
 import com.adityachandel.booklore.model.enums.ReadStatus;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.repository.KoreaderUserRepository;
 import com.adityachandel.booklore.repository.UserBookProgressRepository;
-import com.adityachandel.booklore.repository.UserRepository;
+import com.adityachandel.booklore.service.user.ReadProgressBuffer;
 
 @Slf4j
 @AllArgsConstructor
@@ -30,8 +30,8 @@ public class KoreaderService {
 
     private final UserBookProgressRepository progressRepository;
     private final BookRepository bookRepository;
-    private final UserRepository userRepository;
     private final KoreaderUserRepository koreaderUserRepository;
+    private final ReadProgressBuffer readProgressBuffer;
 
     public ResponseEntity<Map<String, String>> authorizeUser() {
         KoreaderUserDetails authDetails = getAuthDetails();
@@ -45,6 +45,7 @@ public class KoreaderService {
     public KoreaderProgress getProgress(String bookHash) {
         KoreaderUserDetails authDetails = getAuthDetailsWithSyncCheck();
         BookEntity book = findBookByHash(bookHash);
+        readProgressBuffer.flush(authDetails.getBookLoreUserId());
         UserBookProgressEntity progress = findUserProgress(authDetails.getBookLoreUserId(), book.getId());
 
         log.info("getProgress: fetched progress='{}' percentage={} for userId={} bookHash={}",
@@ -68,37 +69,31 @@ public class KoreaderService {
     public void saveProgress(String bookHash, KoreaderProgress koProgress) {
         KoreaderUserDetails authDetails = getAuthDetailsWithSyncCheck();
         BookEntity book = findBookByHash(bookHash);
-        BookLoreUserEntity user = findBookLoreUser(authDetails.getBookLoreUserId());
 
-        UserBookProgressEntity userProgress = getOrCreateUserProgress(user, book);
-        updateProgressData(userProgress, koProgress);
-
-        progressRepository.save(userProgress);
+        readProgressBuffer.record(authDetails.getBookLoreUserId(), book.getId(), toProgressUpdate(koProgress));
 
         log.info("saveProgress: saved progress='{}' percentage={} for userId={} bookHash={}", koProgress.getProgress(), koProgress.getPercentage(), authDetails.getBookLoreUserId(), bookHash);
     }
 
-    private void updateProgressData(UserBookProgressEntity userProgress, KoreaderProgress koProgress) {
-        userProgress.setKoreaderProgress(koProgress.getProgress());
-        userProgress.setKoreaderProgressPercent(koProgress.getPercentage());
-        userProgress.setKoreaderDevice(koProgress.getDevice());
-        userProgress.setKoreaderDeviceId(koProgress.getDevice_id());
-        userProgress.setKoreaderLastSyncTime(Instant.now());
-        userProgress.setLastReadTime(Instant.now());
-
-        updateReadStatus(userProgress, koProgress.getPercentage());
-    }
-
-    private void updateReadStatus(UserBookProgressEntity userProgress, double progressFraction) {
-        double progressPercent = progressFraction * 100.0;
+    private ReadProgressUpdate toProgressUpdate(KoreaderProgress koProgress) {
+        Instant now = Instant.now();
+        ReadProgressUpdate.ReadProgressUpdateBuilder progress = ReadProgressUpdate.builder()
+                .koreaderProgress(koProgress.getProgress())
+                .koreaderProgressPercent(koProgress.getPercentage())
+                .koreaderDevice(koProgress.getDevice())
+                .koreaderDeviceId(koProgress.getDevice_id())
+                .koreaderLastSyncTime(now)
+                .lastReadTime(now);
+
+        double progressPercent = koProgress.getPercentage() * 100.0;
         if (progressPercent >= 99.5) {
-            userProgress.setReadStatus(ReadStatus.READ);
-            userProgress.setDateFinished(Instant.now());
+            progress.readStatus(ReadStatus.READ).dateFinished(now);
         } else if (progressPercent >= 0.25) {
-            userProgress.setReadStatus(ReadStatus.READING);
+            progress.readStatus(ReadStatus.READING);
         } else {
-            userProgress.setReadStatus(ReadStatus.UNREAD);
+            progress.readStatus(ReadStatus.UNREAD);
         }
+        return progress.build();
     }
 
     private KoreaderUserDetails getAuthDetails() {
@@ -137,26 +132,11 @@ public class KoreaderService {
                 .orElseThrow(() -> ApiError.GENERIC_NOT_FOUND.createException("Book not found for hash " + bookHash));
     }
 
-    private BookLoreUserEntity findBookLoreUser(long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> ApiError.GENERIC_NOT_FOUND.createException("User not found with id " + userId));
-    }
-
     private UserBookProgressEntity findUserProgress(long userId, Long bookId) {
         return progressRepository.findByUserIdAndBookId(userId, bookId)
                 .orElseThrow(() -> ApiError.GENERIC_NOT_FOUND.createException("No progress found for user and book"));
     }
 
-    private UserBookProgressEntity getOrCreateUserProgress(BookLoreUserEntity user, BookEntity book) {
-        return progressRepository.findByUserIdAndBookId(user.getId(), book.getId())
-                .orElseGet(() -> {
-                    UserBookProgressEntity newProgress = new UserBookProgressEntity();
-                    newProgress.setUser(user);
-                    newProgress.setBook(book);
-                    return newProgress;
-                });
-    }
-
     private void ensureSyncEnabled(KoreaderUserDetails details) {
         if (!details.isSyncEnabled()) {
             log.warn("Sync is disabled for user '{}'", details.getUsername());
@@ -9,6 +9,7 @@ import com.adityachandel.booklore.model.websocket.Topic;
 import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.ReadingSessionService;
 import com.adityachandel.booklore.util.FileService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -21,6 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -34,6 +36,7 @@ public class BookDeletionService {
     private final BookAdditionalFileRepository bookAdditionalFileRepository;
     private final FileService fileService;
     private final NotificationService notificationService;
+    private final ReadingSessionService readingSessionService;
 
     @PersistenceContext
     private final EntityManager entityManager;
@@ -89,6 +92,7 @@ public class BookDeletionService {
                 log.warn("Failed to clean up files for book ID {}: {}", book.getId(), e.getMessage());
             }
         }
+        readingSessionService.removeBooksFromStatisticsRollups(books.stream().map(BookEntity::getId).toList());
         bookRepository.deleteAll(books);
         entityManager.flush();
         entityManager.clear();
@@ -96,6 +100,19 @@ public class BookDeletionService {
         if (bookIds.size() > 1) log.info("Books removed: {}", bookIds);
     }
 
+    /**
+     * Permanently removes soft-deleted books, all of them or only those deleted before {@code cutoff}.
+     */
+    @Transactional
+    public int purgeSoftDeletedBooks(Instant cutoff) {
+        List<Long> bookIds = cutoff != null ? bookRepository.findSoftDeletedIdsBefore(cutoff) : bookRepository.findAllSoftDeletedIds();
+        if (bookIds.isEmpty()) {
+            return 0;
+        }
+        readingSessionService.removeBooksFromStatisticsRollups(bookIds);
+        return bookRepository.deleteSoftDeletedByIds(bookIds);
+    }
+
     private boolean tryPromoteAlternativeFormatToBook(BookEntity book, List<LibraryFile> libraryFiles) {
         List<BookAdditionalFileEntity> existingAlternativeFormats = findExistingAlternativeFormats(book, libraryFiles);
 
@@ -24,17 +24,27 @@ public class FileAsBookProcessor implements LibraryFileProcessor {
     private final BookEventBroadcaster bookEventBroadcaster;
     private final BookFileProcessorRegistry processorRegistry;
     private final KoboAutoShelfService koboAutoShelfService;
+    private final LibraryScanPipeline scanPipeline;
 
     @Override
     public LibraryScanMode getScanMode() {
         return LibraryScanMode.FILE_AS_BOOK;
     }
 
+    /**
+     * Opens no transaction of its own, every file is imported in its own one. The connection of a transactional
+     * caller is part of the headroom {@link LibraryScanPipeline} keeps free of workers.
+     */
     @Override
-    @Transactional
     public void processLibraryFiles(List<LibraryFile> libraryFiles, LibraryEntity libraryEntity) {
-        for (LibraryFile libraryFile : libraryFiles) {
-            processFileWithErrorHandling(libraryFile);
+        int parallelism = libraryFiles.size() > 1 ? scanPipeline.resolveParallelism(libraryEntity) : 1;
+        if (parallelism > 1) {
+            log.info("Processing {} files of library '{}' with parallelism {}", libraryFiles.size(), libraryEntity.getName(), parallelism);
+            scanPipeline.run(libraryFiles, libraryEntity, parallelism, this::processLibraryFile, this::publishResults);
+        } else {
+            for (LibraryFile libraryFile : libraryFiles) {
+                processFileWithErrorHandling(libraryFile);
+            }
         }
         log.info("Finished processing library '{}'", libraryEntity.getName());
     }
@@ -44,14 +54,28 @@ public class FileAsBookProcessor implements LibraryFileProcessor {
         try {
             FileProcessResult result = processLibraryFile(libraryFile);
             if (result != null) {
-                bookEventBroadcaster.broadcastBookAddEvent(result.getBook());
-                koboAutoShelfService.autoAddBookToKoboShelves(result.getBook().getId());
+                publishResult(result);
             }
         } catch (Exception e) {
             log.error("Failed to process file '{}': {}", libraryFile.getFileName(), e.getMessage());
         }
     }
 
+    private void publishResults(List<FileProcessResult> results) {
+        for (FileProcessResult result : results) {
+            try {
+                publishResult(result);
+            } catch (Exception e) {
+                log.error("Failed to publish book '{}': {}", result.getBook().getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private void publishResult(FileProcessResult result) {
+        bookEventBroadcaster.broadcastBookAddEvent(result.getBook());
+        koboAutoShelfService.autoAddBookToKoboShelves(result.getBook().getId());
+    }
+
     @Transactional
     protected FileProcessResult processLibraryFile(LibraryFile libraryFile) {
         BookFileType type = libraryFile.getBookFileType();
@@ -64,4 +88,4 @@ public class FileAsBookProcessor implements LibraryFileProcessor {
         return processor.processFile(libraryFile);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,369 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.LibraryFileStateEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.model.enums.BookFileExtension;
+import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.repository.LibraryFileStateRepository;
+import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.util.FileUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the persisted per-path file-state index (size, mtime, file key, fingerprint) used to make
+ * rescans incremental. A directory whose mtime matches the index is not listed again: its entries are
+ * taken from the index, since adding, removing or renaming an entry always bumps the parent's mtime.
+ * Editing a file in place does not, so every indexed file is still stat'ed and compared by size, mtime and
+ * file key before its stored fingerprint is reused.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LibraryFileIndexService {
+
+    private static final String CALIBRE_TRASH = ".caltrash";
+    private static final long STALE_DIRECTORY_MTIME = -1L;
+
+    private final LibraryFileStateRepository fileStateRepository;
+    private final BookRepository bookRepository;
+    private final BookAdditionalFileRepository bookAdditionalFileRepository;
+    private final AppProperties appProperties;
+
+    public LibraryScanDiff scan(LibraryEntity libraryEntity, LibraryFileProcessor processor) throws IOException {
+        boolean incremental = appProperties.getLibraryScan().isIncrementalRescan();
+        LibraryScanDiff diff = new LibraryScanDiff(libraryEntity.getId(), incremental);
+        for (LibraryPathEntity pathEntity : libraryEntity.getLibraryPaths()) {
+            scanLibraryPath(libraryEntity, pathEntity, processor.supportsSupplementaryFiles(), diff);
+        }
+        detectMoves(diff);
+        log.info("Indexed library '{}': {} files, {} added, {} removed, {} moved ({} directories listed, {} skipped as unchanged)",
+                libraryEntity.getName(), diff.getCurrentFiles().size(), diff.getAddedFiles().size(), diff.getRemovedFiles().size(),
+                diff.getMoves().size(), diff.getListedDirectories(), diff.getSkippedDirectories());
+        return diff;
+    }
+
+    /**
+     * Persists the index changes of a scan. Call after the new files were processed so fingerprints
+     * computed during processing end up in the index without hashing the files a second time.
+     * Added files that were handed to processing but did not end up as a book or additional file are
+     * kept out of the index, and their directory is marked stale, so the next rescan retries them.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void commit(LibraryScanDiff diff, List<LibraryFile> processedFiles) {
+        Set<LibraryFile> processed = Collections.newSetFromMap(new IdentityHashMap<>());
+        processed.addAll(processedFiles);
+        Map<Long, Set<String>> knownPathsByLibraryPath = new HashMap<>();
+        Set<LibraryFileStateEntity> withheld = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<String> staleDirectories = new HashSet<>();
+
+        for (LibraryScanDiff.AddedFile added : diff.getAddedFiles()) {
+            LibraryFileStateEntity state = added.state();
+            if (state.getFingerprint() == null) {
+                state.setFingerprint(added.libraryFile().getFileHash());
+            }
+            if (processed.contains(added.libraryFile())) {
+                Set<String> known = knownPathsByLibraryPath.computeIfAbsent(state.getLibraryPathId(), this::findKnownPaths);
+                if (!known.contains(state.getRelativePath())) {
+                    withheld.add(state);
+                    staleDirectories.add(state.getLibraryPathId() + ":" + parentOf(state.getRelativePath()));
+                }
+            }
+        }
+        if (!withheld.isEmpty()) {
+            log.info("Keeping {} unprocessed files out of the file index so they are retried on the next rescan", withheld.size());
+            diff.getStatesToSave().removeIf(withheld::contains);
+            diff.getStatesToSave().stream()
+                    .filter(state -> state.isDirectory() && staleDirectories.contains(state.getLibraryPathId() + ":" + state.getRelativePath()))
+                    .forEach(state -> state.setLastModified(STALE_DIRECTORY_MTIME));
+        }
+
+        if (!diff.getStateIdsToDelete().isEmpty()) {
+            fileStateRepository.deleteAllByIdInBatch(diff.getStateIdsToDelete());
+        }
+        if (!diff.getStatesToSave().isEmpty()) {
+            fileStateRepository.saveAll(diff.getStatesToSave());
+        }
+    }
+
+    private Set<String> findKnownPaths(Long libraryPathId) {
+        Set<String> known = new HashSet<>(bookRepository.findRelativePathsByLibraryPathId(libraryPathId));
+        known.addAll(bookAdditionalFileRepository.findRelativePathsByLibraryPathId(libraryPathId));
+        return known;
+    }
+
+    private void scanLibraryPath(LibraryEntity libraryEntity, LibraryPathEntity pathEntity, boolean supportsSupplementaryFiles, LibraryScanDiff diff) throws IOException {
+        Path root = Path.of(pathEntity.getPath());
+        List<LibraryFileStateEntity> priorStates = fileStateRepository.findByLibraryPathId(pathEntity.getId());
+        Map<String, LibraryFileStateEntity> priorByPath = priorStates.stream()
+                .collect(Collectors.toMap(LibraryFileStateEntity::getRelativePath, Function.identity(), (a, b) -> a));
+        Map<String, List<LibraryFileStateEntity>> priorChildren = priorStates.stream()
+                .filter(state -> !state.getRelativePath().isEmpty())
+                .collect(Collectors.groupingBy(state -> parentOf(state.getRelativePath())));
+
+        Set<String> seen = new HashSet<>();
+        Set<Object> visitedDirectoryKeys = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.push("");
+
+        while (!pending.isEmpty()) {
+            String directory = pending.pop();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(resolve(root, directory), BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                if (directory.isEmpty()) throw e;
+                continue;
+            }
+            if (attributes.fileKey() != null && !visitedDirectoryKeys.add(attributes.fileKey())) {
+                log.warn("Skipping directory loop at {}", resolve(root, directory));
+                continue;
+            }
+            seen.add(directory);
+
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            LibraryFileStateEntity priorDirectory = priorByPath.get(directory);
+            if (diff.isIncremental() && priorDirectory != null && priorDirectory.isDirectory() && priorDirectory.getLastModified() == lastModified) {
+                diff.directorySkipped();
+                for (LibraryFileStateEntity child : priorChildren.getOrDefault(directory, List.of())) {
+                    if (child.isDirectory()) {
+                        pending.push(child.getRelativePath());
+                        continue;
+                    }
+                    BasicFileAttributes childAttributes;
+                    try {
+                        childAttributes = Files.readAttributes(resolve(root, child.getRelativePath()), BasicFileAttributes.class);
+                    } catch (IOException e) {
+                        log.warn("Unable to read attributes of {}: {}", resolve(root, child.getRelativePath()), e.getMessage());
+                        continue;
+                    }
+                    if (childAttributes.isRegularFile()) {
+                        seen.add(child.getRelativePath());
+                        indexFile(libraryEntity, pathEntity, child.getRelativePath(), childAttributes, child, supportsSupplementaryFiles, diff);
+                    }
+                }
+                continue;
+            }
+
+            diff.directoryListed();
+            if (priorDirectory != null && !priorDirectory.isDirectory()) {
+                diff.getStateIdsToDelete().add(priorDirectory.getId());
+                if (isTracked(directory, supportsSupplementaryFiles)) {
+                    diff.getRemovedFiles().add(priorDirectory);
+                }
+            }
+            LibraryFileStateEntity directoryState = priorDirectory != null && priorDirectory.isDirectory()
+                    ? priorDirectory
+                    : newState(libraryEntity, pathEntity, directory, true);
+            directoryState.setLastModified(lastModified);
+            diff.getStatesToSave().add(directoryState);
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(resolve(root, directory))) {
+                for (Path entry : entries) {
+                    String name = entry.getFileName().toString();
+                    String relativePath = directory.isEmpty() ? name : directory + "/" + name;
+                    BasicFileAttributes entryAttributes;
+                    try {
+                        entryAttributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                    } catch (IOException e) {
+                        log.warn("Unable to read attributes of {}: {}", entry, e.getMessage());
+                        continue;
+                    }
+                    if (entryAttributes.isDirectory()) {
+                        if (!CALIBRE_TRASH.equals(name)) {
+                            pending.push(relativePath);
+                        }
+                    } else if (entryAttributes.isRegularFile() && !FileUtils.shouldIgnore(entry)) {
+                        seen.add(relativePath);
+                        indexFile(libraryEntity, pathEntity, relativePath, entryAttributes, priorByPath.get(relativePath), supportsSupplementaryFiles, diff);
+                    }
+                }
+            }
+        }
+
+        for (LibraryFileStateEntity state : priorStates) {
+            if (!seen.contains(state.getRelativePath())) {
+                diff.getStateIdsToDelete().add(state.getId());
+                if (!state.isDirectory() && isTracked(state.getRelativePath(), supportsSupplementaryFiles)) {
+                    diff.getRemovedFiles().add(state);
+                }
+            }
+        }
+    }
+
+    private void indexFile(LibraryEntity libraryEntity, LibraryPathEntity pathEntity, String relativePath, BasicFileAttributes attributes,
+                           LibraryFileStateEntity prior, boolean supportsSupplementaryFiles, LibraryScanDiff diff) {
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String fileKey = attributes.fileKey() != null ? attributes.fileKey().toString() : null;
+
+        LibraryFile libraryFile = addCurrentFile(libraryEntity, pathEntity, relativePath, supportsSupplementaryFiles, diff);
+
+        if (prior == null || prior.isDirectory()) {
+            if (prior != null) {
+                diff.getStateIdsToDelete().add(prior.getId());
+            }
+            LibraryFileStateEntity state = newState(libraryEntity, pathEntity, relativePath, false);
+            state.setFileSize(size);
+            state.setLastModified(lastModified);
+            state.setFileKey(fileKey);
+            diff.getStatesToSave().add(state);
+            if (libraryFile != null) {
+                diff.getAddedFiles().add(new LibraryScanDiff.AddedFile(libraryFile, state));
+            }
+            return;
+        }
+
+        boolean changed = !Objects.equals(prior.getFileSize(), size)
+                || !Objects.equals(prior.getLastModified(), lastModified)
+                || !Objects.equals(prior.getFileKey(), fileKey);
+        if (changed) {
+            prior.setFileSize(size);
+            prior.setLastModified(lastModified);
+            prior.setFileKey(fileKey);
+            prior.setFingerprint(null);
+            diff.getStatesToSave().add(prior);
+        } else if (libraryFile != null && prior.getFingerprint() != null) {
+            libraryFile.setFileHash(prior.getFingerprint());
+        }
+    }
+
+    private LibraryFile addCurrentFile(LibraryEntity libraryEntity, LibraryPathEntity pathEntity, String relativePath, boolean supportsSupplementaryFiles, LibraryScanDiff diff) {
+        LibraryFile libraryFile = toLibraryFile(libraryEntity, pathEntity, relativePath);
+        if (libraryFile.getBookFileType() == null && !supportsSupplementaryFiles) {
+            return null;
+        }
+        diff.getCurrentFiles().add(libraryFile);
+        return libraryFile;
+    }
+
+    private static boolean isTracked(String relativePath, boolean supportsSupplementaryFiles) {
+        return supportsSupplementaryFiles || BookFileExtension.fromFileName(nameOf(relativePath)).isPresent();
+    }
+
+    /**
+     * Pairs removed and added files that are the same file under a new name: first by file key (inode),
+     * which survives a rename on the same filesystem, then by size plus partial-content fingerprint.
+     */
+    private void detectMoves(LibraryScanDiff diff) {
+        if (diff.getRemovedFiles().isEmpty() || diff.getAddedFiles().isEmpty()) {
+            return;
+        }
+
+        Map<String, LibraryScanDiff.AddedFile> addedByKey = new HashMap<>();
+        Map<Long, List<LibraryScanDiff.AddedFile>> addedBySize = new HashMap<>();
+        for (LibraryScanDiff.AddedFile added : diff.getAddedFiles()) {
+            if (added.state().getFileKey() != null) {
+                addedByKey.putIfAbsent(added.state().getFileKey(), added);
+            }
+            addedBySize.computeIfAbsent(added.state().getFileSize(), k -> new ArrayList<>()).add(added);
+        }
+
+        Set<LibraryScanDiff.AddedFile> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        Iterator<LibraryFileStateEntity> removedIterator = diff.getRemovedFiles().iterator();
+        while (removedIterator.hasNext()) {
+            LibraryFileStateEntity removed = removedIterator.next();
+            LibraryScanDiff.AddedFile match = null;
+
+            LibraryScanDiff.AddedFile byKey = removed.getFileKey() != null ? addedByKey.get(removed.getFileKey()) : null;
+            if (byKey != null && !matched.contains(byKey) && Objects.equals(byKey.state().getFileSize(), removed.getFileSize())) {
+                match = byKey;
+            }
+
+            if (match == null) {
+                List<LibraryScanDiff.AddedFile> candidates = addedBySize.getOrDefault(removed.getFileSize(), List.of());
+                String removedFingerprint = candidates.isEmpty() ? null : fingerprintOf(removed);
+                if (removedFingerprint != null) {
+                    for (LibraryScanDiff.AddedFile candidate : candidates) {
+                        if (!matched.contains(candidate) && removedFingerprint.equals(fingerprintOf(candidate))) {
+                            match = candidate;
+                            break;
+                        }
+                    }
+                }
+            }
+
+            if (match != null) {
+                matched.add(match);
+                match.state().setFingerprint(removed.getFingerprint() != null ? removed.getFingerprint() : match.state().getFingerprint());
+                match.libraryFile().setFileHash(match.state().getFingerprint());
+                diff.getMoves().add(new LibraryScanDiff.FileMove(removed, match.libraryFile()));
+                removedIterator.remove();
+            }
+        }
+        diff.getAddedFiles().removeIf(matched::contains);
+    }
+
+    private String fingerprintOf(LibraryFileStateEntity removed) {
+        if (removed.getFingerprint() != null) {
+            return removed.getFingerprint();
+        }
+        String relativePath = removed.getRelativePath();
+        return bookRepository.findByLibraryIdAndLibraryPathIdAndFileSubPathAndFileName(removed.getLibraryId(), removed.getLibraryPathId(), parentOf(relativePath), nameOf(relativePath))
+                .map(BookEntity::getCurrentHash)
+                .orElse(null);
+    }
+
+    private String fingerprintOf(LibraryScanDiff.AddedFile added) {
+        if (added.state().getFingerprint() == null) {
+            try {
+                String hash = FileFingerprint.generateHash(added.libraryFile().getFullPath());
+                added.state().setFingerprint(hash);
+                added.libraryFile().setFileHash(hash);
+            } catch (RuntimeException e) {
+                log.warn("Unable to fingerprint {}: {}", added.libraryFile().getFullPath(), e.getMessage());
+                return null;
+            }
+        }
+        return added.state().getFingerprint();
+    }
+
+    private static LibraryFileStateEntity newState(LibraryEntity libraryEntity, LibraryPathEntity pathEntity, String relativePath, boolean directory) {
+        return LibraryFileStateEntity.builder()
+                .libraryId(libraryEntity.getId())
+                .libraryPathId(pathEntity.getId())
+                .relativePath(relativePath)
+                .directory(directory)
+                .build();
+    }
+
+    private static LibraryFile toLibraryFile(LibraryEntity libraryEntity, LibraryPathEntity pathEntity, String relativePath) {
+        String fileName = nameOf(relativePath);
+        return LibraryFile.builder()
+                .libraryEntity(libraryEntity)
+                .libraryPathEntity(pathEntity)
+                .fileSubPath(parentOf(relativePath))
+                .fileName(fileName)
+                .bookFileType(BookFileExtension.fromFileName(fileName).map(BookFileExtension::getType).orElse(null))
+                .build();
+    }
+
+    private static Path resolve(Path root, String relativePath) {
+        return relativePath.isEmpty() ? root : root.resolve(relativePath);
+    }
+
+    private static String parentOf(String relativePath) {
+        int index = relativePath.lastIndexOf('/');
+        return index < 0 ? "" : relativePath.substring(0, index);
+    }
+
+    private static String nameOf(String relativePath) {
+        int index = relativePath.lastIndexOf('/');
+        return index < 0 ? relativePath : relativePath.substring(index + 1);
+    }
+}
@@ -1,13 +1,16 @@
 package com.adityachandel.booklore.service.library;
 
 import com.adityachandel.booklore.exception.ApiError;
+import com.adityachandel.booklore.mapper.BookMapper;
 import com.adityachandel.booklore.model.dto.settings.LibraryFile;
 import com.adityachandel.booklore.model.entity.BookAdditionalFileEntity;
 import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.LibraryFileStateEntity;
 import com.adityachandel.booklore.model.websocket.LogNotification;
 import com.adityachandel.booklore.model.websocket.Topic;
 import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
+import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.task.options.RescanLibraryContext;
@@ -35,7 +38,9 @@ public class LibraryProcessingService {
     private final LibraryFileProcessorRegistry fileProcessorRegistry;
     private final BookRestorationService bookRestorationService;
     private final BookDeletionService bookDeletionService;
-    private final LibraryFileHelper libraryFileHelper;
+    private final LibraryFileIndexService libraryFileIndexService;
+    private final BookRepository bookRepository;
+    private final BookMapper bookMapper;
     @PersistenceContext
     private final EntityManager entityManager;
 
@@ -45,8 +50,9 @@ public class LibraryProcessingService {
         notificationService.sendMessage(Topic.LOG, LogNotification.info("Started processing library: " + libraryEntity.getName()));
         LibraryFileProcessor processor = fileProcessorRegistry.getProcessor(libraryEntity);
         try {
-            List<LibraryFile> libraryFiles = libraryFileHelper.getLibraryFiles(libraryEntity, processor);
-            processor.processLibraryFiles(libraryFiles, libraryEntity);
+            LibraryScanDiff scanDiff = libraryFileIndexService.scan(libraryEntity, processor);
+            processor.processLibraryFiles(scanDiff.getCurrentFiles(), libraryEntity);
+            libraryFileIndexService.commit(scanDiff, scanDiff.getCurrentFiles());
             notificationService.sendMessage(Topic.LOG, LogNotification.info("Finished processing library: " + libraryEntity.getName()));
         } catch (IOException e) {
             log.error("Failed to process library {}: {}", libraryEntity.getName(), e.getMessage(), e);
@@ -60,7 +66,11 @@ public class LibraryProcessingService {
         LibraryEntity libraryEntity = libraryRepository.findById(context.getLibraryId()).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(context.getLibraryId()));
         notificationService.sendMessage(Topic.LOG, LogNotification.info("Started refreshing library: " + libraryEntity.getName()));
         LibraryFileProcessor processor = fileProcessorRegistry.getProcessor(libraryEntity);
-        List<LibraryFile> libraryFiles = libraryFileHelper.getLibraryFiles(libraryEntity, processor);
+        // The index only saves listing unchanged directories, the current files are still diffed against the
+        // books in the database so books deleted in Booklore and other drift are picked up like on a full walk
+        LibraryScanDiff scanDiff = libraryFileIndexService.scan(libraryEntity, processor);
+        List<LibraryFile> libraryFiles = scanDiff.getCurrentFiles();
+        relocateMovedFiles(scanDiff.getMoves(), libraryEntity);
         List<Long> additionalFileIds = detectDeletedAdditionalFiles(libraryFiles, libraryEntity);
         if (!additionalFileIds.isEmpty()) {
             log.info("Detected {} removed additional files in library: {}", additionalFileIds.size(), libraryEntity.getName());
@@ -73,7 +83,9 @@ public class LibraryProcessingService {
         }
         bookRestorationService.restoreDeletedBooks(libraryFiles);
         entityManager.clear();
-        processor.processLibraryFiles(detectNewBookPaths(libraryFiles, libraryEntity), libraryEntity);
+        List<LibraryFile> newFiles = detectNewBookPaths(libraryFiles, libraryEntity);
+        processor.processLibraryFiles(newFiles, libraryEntity);
+        libraryFileIndexService.commit(scanDiff, newFiles);
 
         notificationService.sendMessage(Topic.LOG, LogNotification.info("Finished refreshing library: " + libraryEntity.getName()));
     }
@@ -83,6 +95,53 @@ public class LibraryProcessingService {
         processor.processLibraryFiles(libraryFiles, libraryEntity);
     }
 
+    /**
+     * Points books and additional files at their new location when the file index recognised a rename or
+     * move, so the diff below does not treat them as a deletion plus a new book. Moves that match no known
+     * book are left alone and fall through to the regular new/deleted detection.
+     */
+    protected void relocateMovedFiles(List<LibraryScanDiff.FileMove> moves, LibraryEntity libraryEntity) {
+        for (LibraryScanDiff.FileMove move : moves) {
+            LibraryFileStateEntity from = move.from();
+            LibraryFile to = move.to();
+            String oldSubPath = parentOf(from.getRelativePath());
+            String oldFileName = nameOf(from.getRelativePath());
+
+            Optional<BookEntity> book = bookRepository.findByLibraryIdAndLibraryPathIdAndFileSubPathAndFileName(
+                    libraryEntity.getId(), from.getLibraryPathId(), oldSubPath, oldFileName);
+            if (book.isPresent()) {
+                BookEntity bookEntity = book.get();
+                bookEntity.setLibraryPath(to.getLibraryPathEntity());
+                bookEntity.setFileSubPath(to.getFileSubPath());
+                bookEntity.setFileName(to.getFileName());
+                bookRepository.save(bookEntity);
+                log.info("Detected moved book id={}: '{}' -> '{}'", bookEntity.getId(), from.getRelativePath(), to.getFullPath());
+                notificationService.sendMessage(Topic.BOOK_UPDATE, bookMapper.toBook(bookEntity));
+                continue;
+            }
+
+            if (from.getLibraryPathId().equals(to.getLibraryPathEntity().getId())) {
+                bookAdditionalFileRepository.findByLibraryPath_IdAndFileSubPathAndFileName(from.getLibraryPathId(), oldSubPath, oldFileName)
+                        .ifPresent(additionalFile -> {
+                            additionalFile.setFileSubPath(to.getFileSubPath());
+                            additionalFile.setFileName(to.getFileName());
+                            bookAdditionalFileRepository.save(additionalFile);
+                            log.info("Detected moved additional file id={}: '{}' -> '{}'", additionalFile.getId(), from.getRelativePath(), to.getFullPath());
+                        });
+            }
+        }
+    }
+
+    private static String parentOf(String relativePath) {
+        int index = relativePath.lastIndexOf('/');
+        return index < 0 ? "" : relativePath.substring(0, index);
+    }
+
+    private static String nameOf(String relativePath) {
+        int index = relativePath.lastIndexOf('/');
+        return index < 0 ? relativePath : relativePath.substring(index + 1);
+    }
+
     protected static List<Long> detectDeletedBookIds(List<LibraryFile> libraryFiles, LibraryEntity libraryEntity) {
         Set<Path> currentFullPaths = libraryFiles.stream()
                 .map(LibraryFile::getFullPath)
@@ -0,0 +1,47 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.entity.LibraryFileStateEntity;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of comparing a library's file tree against its persisted file-state index.
+ * {@code currentFiles} is equivalent to what a full {@code Files.walk} would return; the other
+ * lists only describe what changed since the previous scan.
+ */
+@Getter
+public class LibraryScanDiff {
+
+    private final long libraryId;
+    private final boolean incremental;
+    private final List<LibraryFile> currentFiles = new ArrayList<>();
+    private final List<AddedFile> addedFiles = new ArrayList<>();
+    private final List<LibraryFileStateEntity> removedFiles = new ArrayList<>();
+    private final List<FileMove> moves = new ArrayList<>();
+    private final List<LibraryFileStateEntity> statesToSave = new ArrayList<>();
+    private final List<Long> stateIdsToDelete = new ArrayList<>();
+    private int listedDirectories;
+    private int skippedDirectories;
+
+    public LibraryScanDiff(long libraryId, boolean incremental) {
+        this.libraryId = libraryId;
+        this.incremental = incremental;
+    }
+
+    void directoryListed() {
+        listedDirectories++;
+    }
+
+    void directorySkipped() {
+        skippedDirectories++;
+    }
+
+    public record AddedFile(LibraryFile libraryFile, LibraryFileStateEntity state) {
+    }
+
+    public record FileMove(LibraryFileStateEntity from, LibraryFile to) {
+    }
+}
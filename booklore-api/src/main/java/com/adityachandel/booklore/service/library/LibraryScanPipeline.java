@@ -0,0 +1,262 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.FileProcessResult;
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.enums.TaskType;
+import com.adityachandel.booklore.model.websocket.TaskProgressPayload;
+import com.adityachandel.booklore.model.websocket.Topic;
+import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.task.TaskStatus;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded three-stage scan pipeline used for large libraries:
+ * <ol>
+ *     <li><b>read</b> - stat and fingerprint files on an I/O pool</li>
+ *     <li><b>process</b> - cover/metadata extraction and the per-book transaction on a CPU pool</li>
+ *     <li><b>publish</b> - batched websocket broadcasts on the calling thread</li>
+ * </ol>
+ * The number of files in flight is capped so a huge library never gets fingerprinted far ahead of
+ * the processing stage. Publishing stays on the caller so notifications keep the caller's security context.
+ * <p>
+ * Every processing worker holds a pooled connection for its book's transaction, so the parallelism is also capped at
+ * the pool size minus {@code connectionHeadroom}, leaving connections for the caller's own transaction, web requests
+ * and the background writers.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LibraryScanPipeline {
+
+    private static final int IN_FLIGHT_PER_WORKER = 4;
+    private static final int IO_THREADS_PER_WORKER = 2;
+
+    private final AppProperties appProperties;
+    private final NotificationService notificationService;
+    private final DataSource dataSource;
+
+    public int resolveParallelism(LibraryEntity libraryEntity) {
+        AppProperties.LibraryScan config = appProperties.getLibraryScan();
+        Integer configured = libraryEntity.getScanParallelism();
+        int parallelism = configured != null && configured > 0 ? configured : config.getDefaultParallelism();
+        if (parallelism <= 0) {
+            parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        }
+        int cap = Math.max(1, config.getMaxParallelism());
+        if (dataSource instanceof HikariDataSource hikari) {
+            cap = Math.min(cap, Math.max(1, hikari.getMaximumPoolSize() - config.getConnectionHeadroom()));
+        }
+        return Math.min(parallelism, cap);
+    }
+
+    public void run(List<LibraryFile> libraryFiles,
+                    LibraryEntity libraryEntity,
+                    int parallelism,
+                    Function<LibraryFile, FileProcessResult> processStage,
+                    Consumer<List<FileProcessResult>> publishStage) {
+        if (libraryFiles.isEmpty()) {
+            return;
+        }
+
+        AppProperties.LibraryScan config = appProperties.getLibraryScan();
+        int total = libraryFiles.size();
+        String taskId = "library-scan-" + libraryEntity.getId();
+
+        StageStats readStats = new StageStats();
+        StageStats processStats = new StageStats();
+        StageStats publishStats = new StageStats();
+
+        ExecutorService ioPool = Executors.newFixedThreadPool(parallelism * IO_THREADS_PER_WORKER, namedThreads("scan-io-" + libraryEntity.getId()));
+        ExecutorService cpuPool = Executors.newFixedThreadPool(parallelism, namedThreads("scan-cpu-" + libraryEntity.getId()));
+        Semaphore inFlight = new Semaphore(parallelism * IN_FLIGHT_PER_WORKER);
+        BlockingQueue<StageOutcome> completed = new LinkedBlockingQueue<>();
+        List<LibraryFile> retryQueue = new ArrayList<>();
+
+        Thread feeder = Thread.ofVirtual().name("scan-feeder-" + libraryEntity.getId()).start(() -> {
+            for (LibraryFile libraryFile : libraryFiles) {
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                CompletableFuture
+                        .supplyAsync(() -> readStats.time(() -> fingerprint(libraryFile)), ioPool)
+                        .thenApplyAsync(file -> processStats.time(() -> processStage.apply(file)), cpuPool)
+                        .whenComplete((result, error) -> completed.add(new StageOutcome(libraryFile, result, unwrap(error))));
+            }
+        });
+
+        long startedAt = System.nanoTime();
+        int published = 0;
+        int failed = 0;
+        long lastFlush = System.currentTimeMillis();
+        List<FileProcessResult> batch = new ArrayList<>(config.getBatchSize());
+
+        try {
+            while (published < total) {
+                StageOutcome outcome = completed.poll(config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                List<StageOutcome> drained = new ArrayList<>();
+                if (outcome != null) {
+                    drained.add(outcome);
+                    completed.drainTo(drained, config.getBatchSize());
+                }
+                for (StageOutcome o : drained) {
+                    if (o.error() != null) {
+                        if (o.error() instanceof DataIntegrityViolationException) {
+                            // Most likely two workers raced to insert the same author or category; retry serially.
+                            retryQueue.add(o.libraryFile());
+                        } else {
+                            failed++;
+                            log.error("Failed to process file '{}': {}", o.libraryFile().getFileName(), o.error().getMessage());
+                        }
+                    } else if (o.result() != null) {
+                        batch.add(o.result());
+                    }
+                }
+                published += drained.size();
+                inFlight.release(drained.size());
+
+                boolean flushDue = System.currentTimeMillis() - lastFlush >= config.getFlushIntervalMs();
+                if (!batch.isEmpty() && (batch.size() >= config.getBatchSize() || flushDue || published >= total)) {
+                    List<FileProcessResult> toPublish = List.copyOf(batch);
+                    batch.clear();
+                    publishStats.time(() -> {
+                        publishStage.accept(toPublish);
+                        return null;
+                    }, toPublish.size());
+                }
+                if (flushDue || published >= total) {
+                    lastFlush = System.currentTimeMillis();
+                    sendProgress(taskId, libraryEntity, published, total, readStats, processStats, publishStats, TaskStatus.IN_PROGRESS);
+                }
+            }
+
+            for (LibraryFile libraryFile : retryQueue) {
+                try {
+                    FileProcessResult result = processStats.time(() -> processStage.apply(libraryFile));
+                    if (result != null) {
+                        publishStats.time(() -> {
+                            publishStage.accept(List.of(result));
+                            return null;
+                        }, 1);
+                    }
+                } catch (Exception e) {
+                    failed++;
+                    log.error("Failed to process file '{}' on retry: {}", libraryFile.getFileName(), e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Scan pipeline for library '{}' was interrupted after {}/{} files", libraryEntity.getName(), published, total);
+        } finally {
+            feeder.interrupt();
+            ioPool.shutdownNow();
+            cpuPool.shutdownNow();
+        }
+
+        double seconds = Math.max((System.nanoTime() - startedAt) / 1_000_000_000.0, 0.001);
+        log.info("Scan pipeline finished for library '{}': {} files in {} s ({} files/s, parallelism {}, {} failed, {} retried)",
+                libraryEntity.getName(), total, String.format("%.1f", seconds), String.format("%.1f", total / seconds), parallelism, failed, retryQueue.size());
+        sendProgress(taskId, libraryEntity, total, total, readStats, processStats, publishStats, TaskStatus.COMPLETED);
+    }
+
+    private LibraryFile fingerprint(LibraryFile libraryFile) {
+        if (libraryFile.getFileHash() == null) {
+            libraryFile.setFileHash(FileFingerprint.generateHash(libraryFile.getFullPath()));
+        }
+        return libraryFile;
+    }
+
+    private void sendProgress(String taskId, LibraryEntity libraryEntity, int done, int total,
+                              StageStats read, StageStats process, StageStats publish, TaskStatus status) {
+        try {
+            Map<String, Double> throughput = new LinkedHashMap<>();
+            throughput.put("read", read.filesPerSecond());
+            throughput.put("process", process.filesPerSecond());
+            throughput.put("publish", publish.filesPerSecond());
+
+            TaskProgressPayload payload = TaskProgressPayload.builder()
+                    .taskId(taskId)
+                    .taskType(TaskType.SYNC_LIBRARY_FILES)
+                    .message(String.format("Scanning library %s: %d/%d files (%.1f files/s)", libraryEntity.getName(), done, total, process.filesPerSecond()))
+                    .progress(total > 0 ? (done * 100) / total : 100)
+                    .taskStatus(status)
+                    .stageThroughput(throughput)
+                    .build();
+            notificationService.sendMessage(Topic.TASK_PROGRESS, payload);
+        } catch (Exception e) {
+            log.error("Failed to send scan progress for library {}: {}", libraryEntity.getId(), e.getMessage(), e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record StageOutcome(LibraryFile libraryFile, FileProcessResult result, Throwable error) {
+    }
+
+    /**
+     * Counts items per stage. Throughput is reported against wall-clock time since the first item
+     * entered the stage, which is what the user perceives when stages overlap.
+     */
+    static class StageStats {
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong firstStartNanos = new AtomicLong();
+
+        <T> T time(Callable<T> work) {
+            return time(work, 1);
+        }
+
+        <T> T time(Callable<T> work, int count) {
+            firstStartNanos.compareAndSet(0, System.nanoTime());
+            try {
+                return work.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                items.addAndGet(count);
+            }
+        }
+
+        double filesPerSecond() {
+            long start = firstStartNanos.get();
+            if (start == 0) return 0.0;
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            return seconds <= 0 ? 0.0 : Math.round(items.get() / seconds * 10.0) / 10.0;
+        }
+    }
+}
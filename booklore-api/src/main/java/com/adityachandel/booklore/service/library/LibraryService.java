@@ -1,6 +1,7 @@
 package com.adityachandel.booklore.service.library;
 
 import com.adityachandel.booklore.config.security.service.AuthenticationService;
+import com.adityachandel.booklore.config.security.service.PrincipalCache;
 import com.adityachandel.booklore.exception.ApiError;
 import com.adityachandel.booklore.mapper.BookMapper;
 import com.adityachandel.booklore.mapper.LibraryMapper;
@@ -20,6 +21,7 @@ import com.adityachandel.booklore.repository.LibraryPathRepository;
 import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.repository.UserRepository;
 import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.ReadingSessionService;
 import com.adityachandel.booklore.service.monitoring.MonitoringService;
 import com.adityachandel.booklore.task.options.RescanLibraryContext;
 import com.adityachandel.booklore.util.FileService;
@@ -56,6 +58,8 @@ public class LibraryService {
     private final MonitoringService monitoringService;
     private final AuthenticationService authenticationService;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final ReadingSessionService readingSessionService;
 
     @Transactional
     @PostConstruct
@@ -77,6 +81,7 @@ public class LibraryService {
             library.setScanMode(request.getScanMode());
         }
         library.setDefaultBookFormat(request.getDefaultBookFormat());
+        library.setScanParallelism(request.getScanParallelism());
 
         Set<String> currentPaths = library.getLibraryPaths().stream()
                 .map(LibraryPathEntity::getPath)
@@ -118,6 +123,7 @@ public class LibraryService {
         }
 
         LibraryEntity savedLibrary = libraryRepository.save(library);
+        principalCache.invalidateAll();
 
         if (request.isWatch()) {
             monitoringService.registerLibraries(List.of(libraryMapper.toLibrary(savedLibrary)));
@@ -154,6 +160,7 @@ public class LibraryService {
                 .watch(request.isWatch())
                 .scanMode(request.getScanMode() != null ? request.getScanMode() : LibraryScanMode.FILE_AS_BOOK)
                 .defaultBookFormat(request.getDefaultBookFormat())
+                .scanParallelism(request.getScanParallelism())
                 .build();
 
         libraryEntity = libraryRepository.save(libraryEntity);
@@ -219,6 +226,7 @@ public class LibraryService {
         return libraries.stream().map(libraryMapper::toLibrary).toList();
     }
 
+    @Transactional
     public void deleteLibrary(long id) {
         LibraryEntity library = libraryRepository.findById(id).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(id));
         library.getLibraryPaths().forEach(libraryPath -> {
@@ -227,7 +235,9 @@ public class LibraryService {
         });
         Set<Long> bookIds = library.getBookEntities().stream().map(BookEntity::getId).collect(Collectors.toSet());
         fileService.deleteBookCovers(bookIds);
+        readingSessionService.removeBooksFromStatisticsRollups(bookIds);
         libraryRepository.deleteById(id);
+        principalCache.invalidateAll();
         log.info("Library deleted successfully: {}", id);
     }
 
@@ -246,6 +256,8 @@ public class LibraryService {
     public Library setFileNamingPattern(long libraryId, String pattern) {
         LibraryEntity library = libraryRepository.findById(libraryId).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(libraryId));
         library.setFileNamingPattern(pattern);
-        return libraryMapper.toLibrary(libraryRepository.save(library));
+        LibraryEntity savedLibrary = libraryRepository.save(library);
+        principalCache.invalidateAll();
+        return libraryMapper.toLibrary(savedLibrary);
     }
 }
\ No newline at end of file
@@ -9,11 +9,10 @@ import com.adityachandel.booklore.model.dto.settings.MetadataPersistenceSettings
 import com.adityachandel.booklore.model.entity.*;
 import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.model.enums.MetadataReplaceMode;
-import com.adityachandel.booklore.repository.AuthorRepository;
 import com.adityachandel.booklore.repository.BookRepository;
-import com.adityachandel.booklore.repository.CategoryRepository;
 import com.adityachandel.booklore.repository.MoodRepository;
 import com.adityachandel.booklore.repository.TagRepository;
+import com.adityachandel.booklore.service.book.AuthorCategoryResolver;
 import com.adityachandel.booklore.service.file.FileFingerprint;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
 import com.adityachandel.booklore.service.file.FileMoveService;
@@ -41,8 +40,7 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class BookMetadataUpdater {
 
-    private final AuthorRepository authorRepository;
-    private final CategoryRepository categoryRepository;
+    private final AuthorCategoryResolver authorCategoryResolver;
     private final MoodRepository moodRepository;
     private final TagRepository tagRepository;
     private final BookRepository bookRepository;
@@ -211,11 +209,7 @@ public class BookMetadataUpdater {
             return;
         }
 
-        Set<AuthorEntity> newAuthors = authorNames.stream()
-                .filter(name -> name != null && !name.isBlank())
-                .map(name -> authorRepository.findByName(name)
-                        .orElseGet(() -> authorRepository.save(AuthorEntity.builder().name(name).build())))
-                .collect(Collectors.toSet());
+        Set<AuthorEntity> newAuthors = authorCategoryResolver.resolveAuthors(authorNames);
 
         if (newAuthors.isEmpty()) return;
 
@@ -252,11 +246,7 @@ public class BookMetadataUpdater {
             return;
         }
 
-        Set<CategoryEntity> newCategories = categoryNames.stream()
-                .filter(name -> name != null && !name.isBlank())
-                .map(name -> categoryRepository.findByName(name)
-                        .orElseGet(() -> categoryRepository.save(CategoryEntity.builder().name(name).build())))
-                .collect(Collectors.toSet());
+        Set<CategoryEntity> newCategories = authorCategoryResolver.resolveCategories(categoryNames);
 
         if (newCategories.isEmpty()) return;
 
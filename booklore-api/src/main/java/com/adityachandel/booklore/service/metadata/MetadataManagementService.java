@@ -7,6 +7,7 @@ import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.model.enums.MergeMetadataType;
 import com.adityachandel.booklore.repository.*;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.book.AuthorCategoryResolver;
 import com.adityachandel.booklore.service.file.FileFingerprint;
 import com.adityachandel.booklore.service.file.FileMoveService;
 import com.adityachandel.booklore.service.metadata.writer.MetadataWriter;
@@ -34,6 +35,7 @@ public class MetadataManagementService {
     private final MetadataWriterFactory metadataWriterFactory;
     private final FileMoveService fileMoveService;
     private final BookRepository bookRepository;
+    private final AuthorCategoryResolver authorCategoryResolver;
 
 
     @Transactional
@@ -125,6 +127,7 @@ public class MetadataManagementService {
             authorRepository.delete(oldAuthor);
         }
 
+        authorCategoryResolver.invalidateAuthors();
         log.info("Consolidated {} authors into {}: {}", authorsToMerge.size(), targetValues, valuesToMerge);
     }
 
@@ -166,6 +169,7 @@ public class MetadataManagementService {
             categoryRepository.delete(oldCategory);
         }
 
+        authorCategoryResolver.invalidateCategories();
         log.info("Consolidated {} categories into {}: {}", categoriesToMerge.size(), targetValues, valuesToMerge);
     }
 
@@ -361,6 +365,7 @@ public class MetadataManagementService {
             authorRepository.delete(author);
         }
 
+        authorCategoryResolver.invalidateAuthors();
         log.info("Deleted {} authors: {}", authorsToDelete.size(), valuesToDelete);
     }
 
@@ -388,6 +393,7 @@ public class MetadataManagementService {
             categoryRepository.delete(category);
         }
 
+        authorCategoryResolver.invalidateCategories();
         log.info("Deleted {} categories: {}", categoriesToDelete.size(), valuesToDelete);
     }
 
@@ -0,0 +1,211 @@
+package com.adityachandel.booklore.service.metadata;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.enums.MetadataProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One token bucket per {@link MetadataProvider}, shared by every request the parsers make, so concurrent refreshes
+ * and interactive searches together stay under each provider's limit while different providers are queried in
+ * parallel.
+ * <p>
+ * Parsers call {@link #acquire} before a request and {@link #onResponse} after it. A 429 or 503 (or Comicvine's
+ * 420) halves the provider's rate and pauses it for the {@code Retry-After} time or an exponential backoff capped
+ * at {@code app.metadata-refresh.max-backoff-seconds}; successful responses restore the rate step by step.
+ * <p>
+ * Per provider, {@code booklore.metadata.provider.rate} and {@code booklore.metadata.provider.backoff} report the
+ * current limit, {@code booklore.metadata.provider.requests} and {@code booklore.metadata.provider.throttled}
+ * count requests and throttling responses and {@code booklore.metadata.provider.wait} times the wait for a permit.
+ */
+@Slf4j
+@Component
+public class MetadataProviderRateLimiter {
+
+    private static final double DEFAULT_REQUESTS_PER_SECOND = 1.0;
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Successes needed to climb back from a halved rate to the configured one
+    private static final int RECOVERY_STEPS = 20;
+
+    private final Map<MetadataProvider, Bucket> buckets = new EnumMap<>(MetadataProvider.class);
+    // Status of the last response this thread received, -1 while a request is unanswered
+    private final ThreadLocal<Integer> lastStatus = new ThreadLocal<>();
+    private final long maxBackoffNanos;
+
+    public MetadataProviderRateLimiter(AppProperties appProperties, MeterRegistry meterRegistry) {
+        AppProperties.MetadataRefresh config = appProperties.getMetadataRefresh();
+        this.maxBackoffNanos = Math.max(MIN_BACKOFF_NANOS, TimeUnit.SECONDS.toNanos(config.getMaxBackoffSeconds()));
+        for (MetadataProvider provider : MetadataProvider.values()) {
+            double rate = config.getRequestsPerSecond().getOrDefault(provider, DEFAULT_REQUESTS_PER_SECOND);
+            Bucket bucket = new Bucket(rate > 0 ? rate : DEFAULT_REQUESTS_PER_SECOND,
+                    Counter.builder("booklore.metadata.provider.requests").tag("provider", provider.name())
+                            .description("Requests sent to the metadata provider").register(meterRegistry),
+                    Counter.builder("booklore.metadata.provider.throttled").tag("provider", provider.name())
+                            .description("429/503 responses from the metadata provider").register(meterRegistry),
+                    Timer.builder("booklore.metadata.provider.wait").tag("provider", provider.name())
+                            .description("Time requests waited for the provider's rate limit").register(meterRegistry));
+            buckets.put(provider, bucket);
+            Gauge.builder("booklore.metadata.provider.rate", bucket, Bucket::currentRate).tag("provider", provider.name())
+                    .description("Current request rate limit of the metadata provider per second").register(meterRegistry);
+            Gauge.builder("booklore.metadata.provider.backoff", bucket, b -> b.backoffRemainingNanos(System.nanoTime()) / 1e9)
+                    .tag("provider", provider.name())
+                    .description("Seconds until the metadata provider is queried again after throttling").register(meterRegistry);
+        }
+    }
+
+    /**
+     * Blocks until {@code provider} may be sent another request. An interrupt ends the wait early and is left set
+     * for the caller's HTTP client to act on.
+     */
+    public void acquire(MetadataProvider provider) {
+        Bucket bucket = buckets.get(provider);
+        long started = System.nanoTime();
+        try {
+            long wait;
+            while ((wait = bucket.reserve(System.nanoTime())) > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            bucket.waits.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        bucket.requests.increment();
+        lastStatus.set(-1);
+    }
+
+    /**
+     * Adapts the rate of {@code provider} to the status of a response.
+     *
+     * @param retryAfter the {@code Retry-After} header, if any
+     */
+    public void onResponse(MetadataProvider provider, int statusCode, String retryAfter) {
+        lastStatus.set(statusCode);
+        Bucket bucket = buckets.get(provider);
+        if (isThrottled(statusCode)) {
+            bucket.throttled.increment();
+            long backoff = bucket.throttle(System.nanoTime(), parseRetryAfter(retryAfter), maxBackoffNanos);
+            log.warn("{} answered {}, limiting it to {} requests/s and pausing it for {} ms",
+                    provider, statusCode, String.format("%.2f", bucket.currentRate()), TimeUnit.NANOSECONDS.toMillis(backoff));
+        } else if (statusCode >= 200 && statusCode < 400) {
+            bucket.succeed();
+        }
+    }
+
+    /**
+     * Forgets the responses the current thread has seen, see {@link #lastRequestAnswered()}.
+     */
+    public void resetLastStatus() {
+        lastStatus.remove();
+    }
+
+    /**
+     * Whether the last request of the current thread got a definitive answer (2xx or 404) rather than an error,
+     * a throttling response or no response at all. Parsers return an empty result in every one of these cases.
+     */
+    public boolean lastRequestAnswered() {
+        Integer status = lastStatus.get();
+        return status != null && (status == 404 || (status >= 200 && status < 300));
+    }
+
+    double currentRate(MetadataProvider provider) {
+        return buckets.get(provider).currentRate();
+    }
+
+    private static boolean isThrottled(int statusCode) {
+        return statusCode == 429 || statusCode == 503 || statusCode == 420;
+    }
+
+    static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime until = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(until.getZone()), until).toNanos());
+            } catch (DateTimeParseException ignored) {
+                return 0;
+            }
+        }
+    }
+
+    private static final class Bucket {
+
+        private final double configuredRate;
+        private final double capacity;
+        private final Counter requests;
+        private final Counter throttled;
+        private final Timer waits;
+        private double rate;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long blockedUntil = refilledAt;
+        private int consecutiveThrottles;
+
+        private Bucket(double configuredRate, Counter requests, Counter throttled, Timer waits) {
+            this.configuredRate = configuredRate;
+            this.rate = configuredRate;
+            this.capacity = Math.max(1, configuredRate);
+            this.tokens = capacity;
+            this.requests = requests;
+            this.throttled = throttled;
+            this.waits = waits;
+        }
+
+        /**
+         * Takes a permit and returns 0, or returns how long to wait before asking again.
+         */
+        synchronized long reserve(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * rate / 1e9);
+            refilledAt = now;
+            if (now - blockedUntil < 0) {
+                return blockedUntil - now;
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) ((1 - tokens) / rate * 1e9));
+        }
+
+        synchronized long throttle(long now, long retryAfterNanos, long maxBackoffNanos) {
+            consecutiveThrottles++;
+            rate = Math.max(configuredRate / 16, rate / 2);
+            tokens = 0;
+            long exponential = MIN_BACKOFF_NANOS << Math.min(consecutiveThrottles - 1, 20);
+            long backoff = Math.min(maxBackoffNanos, Math.max(retryAfterNanos, exponential));
+            if (now + backoff - blockedUntil > 0) {
+                blockedUntil = now + backoff;
+            }
+            return backoff;
+        }
+
+        synchronized void succeed() {
+            consecutiveThrottles = 0;
+            rate = Math.min(configuredRate, rate + configuredRate / RECOVERY_STEPS);
+        }
+
+        synchronized double currentRate() {
+            return rate;
+        }
+
+        synchronized long backoffRemainingNanos(long now) {
+            return Math.max(0, blockedUntil - now);
+        }
+    }
+}
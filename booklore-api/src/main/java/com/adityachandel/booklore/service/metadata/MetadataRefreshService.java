@@ -1,5 +1,6 @@
 package com.adityachandel.booklore.service.metadata;
 
+import com.adityachandel.booklore.config.AppProperties;
 import com.adityachandel.booklore.config.security.service.AuthenticationService;
 import com.adityachandel.booklore.exception.ApiError;
 import com.adityachandel.booklore.mapper.BookMapper;
@@ -24,10 +25,13 @@ import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.repository.MetadataFetchJobRepository;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.book.AuthorCategoryResolver;
 import com.adityachandel.booklore.service.metadata.parser.BookParser;
 import com.adityachandel.booklore.task.TaskCancellationManager;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -36,7 +40,8 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -60,6 +65,9 @@ public class MetadataRefreshService {
     private final PlatformTransactionManager transactionManager;
     private final AuthenticationService authenticationService;
     private final TaskCancellationManager cancellationManager;
+    private final AppProperties appProperties;
+    private final MeterRegistry meterRegistry;
+    private final AuthorCategoryResolver authorCategoryResolver;
 
 
     public void refreshMetadata(MetadataRefreshRequest request, String jobId) {
@@ -95,79 +103,66 @@ public class MetadataRefreshService {
                     .totalBooksCount(totalBooks)
                     .completedBooks(0)
                     .build();
-            metadataFetchJobRepository.save(task);
-
+            task = metadataFetchJobRepository.save(task);
+
+            Function<BookEntity, MetadataRefreshOptions> optionsResolver = book -> useRequestOptions ? requestRefreshOptions
+                    : isLibraryRefresh ? libraryRefreshOptions
+                    : resolveMetadataRefreshOptions(book.getLibrary().getId(), appSettings);
+            Function<MetadataRefreshOptions, List<MetadataProvider>> providersResolver = options ->
+                    fixedProviders != null ? fixedProviders : prepareProviders(options);
+
+            AppProperties.MetadataRefresh config = appProperties.getMetadataRefresh();
+            int batchSize = Math.max(1, config.getWriteBatchSize());
+            Semaphore inFlight = new Semaphore(Math.max(1, config.getConcurrency()));
+            BlockingQueue<FetchOutcome> fetched = new LinkedBlockingQueue<>();
             TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
             int completedCount = 0;
 
-            for (Long bookId : actualBookIds) {
-                if (cancellationManager.isTaskCancelled(jobId)) {
-                    log.info("RefreshMetadataTask {} was cancelled, stopping execution", jobId);
-                    cancelTask(task);
-                    cancellationManager.clearCancellation(jobId);
-                    return;
-                }
-
-                int finalCompletedCount = completedCount;
-                txTemplate.execute(status -> {
-                    BookEntity book = bookRepository.findAllWithMetadataByIds(Collections.singleton(bookId))
-                            .stream().findFirst()
-                            .orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
+            try (ExecutorService fetchers = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Long> orderedIds = new ArrayList<>(actualBookIds);
+                AtomicReference<Throwable> feederFailure = new AtomicReference<>();
+                Thread feeder = Thread.ofVirtual().name("metadata-refresh-" + jobId).start(() -> {
                     try {
-                        if (book.getMetadata().areAllFieldsLocked()) {
-                            log.info("Skipping locked book: {}", book.getFileName());
-                            sendBatchProgressNotification(jobId, finalCompletedCount, totalBooks, "Skipped locked book: " + book.getMetadata().getTitle(), MetadataFetchTaskStatus.IN_PROGRESS, isReviewMode);
-                            return null;
-                        }
-
-                        MetadataRefreshOptions refreshOptions;
-                        List<MetadataProvider> providers;
-
-                        if (useRequestOptions) {
-                            refreshOptions = requestRefreshOptions;
-                            providers = fixedProviders;
-                        } else if (isLibraryRefresh) {
-                            refreshOptions = libraryRefreshOptions;
-                            providers = fixedProviders;
-                        } else {
-                            refreshOptions = resolveMetadataRefreshOptions(book.getLibrary().getId(), appSettings);
-                            providers = prepareProviders(refreshOptions);
+                        feedBooks(orderedIds, batchSize, inFlight, fetchers, fetched, optionsResolver, providersResolver);
+                    } catch (Throwable t) {
+                        feederFailure.set(t);
+                    }
+                });
+                try {
+                    while (completedCount < totalBooks) {
+                        if (cancellationManager.isTaskCancelled(jobId)) {
+                            log.info("RefreshMetadataTask {} was cancelled, stopping execution", jobId);
+                            feeder.interrupt();
+                            fetchers.shutdownNow();
+                            cancelTask(task);
+                            cancellationManager.clearCancellation(jobId);
+                            return;
                         }
-
-                        reportProgressIfNeeded(task, jobId, finalCompletedCount, totalBooks, book, isReviewMode);
-                        Map<MetadataProvider, BookMetadata> metadataMap = fetchMetadataForBook(providers, book);
-                        if (providers.contains(GoodReads)) {
-                            try {
-                                Thread.sleep(ThreadLocalRandom.current().nextLong(500, 1500));
-                            } catch (InterruptedException e) {
-                                Thread.currentThread().interrupt();
-                                status.setRollbackOnly();
-                                return null;
+                        FetchOutcome first = fetched.poll(1, TimeUnit.SECONDS);
+                        if (first == null) {
+                            Throwable failure = feederFailure.get();
+                            if (failure != null) {
+                                fetchers.shutdownNow();
+                                throw new IllegalStateException("Loading books for metadata refresh failed", failure);
                             }
+                            continue;
                         }
-                        BookMetadata fetched = buildFetchMetadata(book.getId(), refreshOptions, metadataMap);
-
-                        boolean bookReviewMode = Boolean.TRUE.equals(refreshOptions.getReviewBeforeApply());
-                        if (bookReviewMode) {
-                            saveProposal(task, book.getId(), fetched);
-                        } else {
-                            updateBookMetadata(book, fetched, refreshOptions.isRefreshCovers(), refreshOptions.isMergeCategories());
-                        }
-
-                        sendBatchProgressNotification(jobId, finalCompletedCount + 1, totalBooks, "Processed: " + book.getMetadata().getTitle(), MetadataFetchTaskStatus.IN_PROGRESS, bookReviewMode);
-                    } catch (Exception e) {
-                        if (Thread.currentThread().isInterrupted()) {
-                            log.info("Processing interrupted for book: {}", book.getFileName());
-                            status.setRollbackOnly();
-                            return null;
-                        }
-                        log.error("Metadata update failed for book: {}", book.getFileName(), e);
-                        sendBatchProgressNotification(jobId, finalCompletedCount, totalBooks, String.format("Failed to process: %s - %s", book.getMetadata().getTitle(), e.getMessage()), MetadataFetchTaskStatus.ERROR, isReviewMode);
+                        List<FetchOutcome> batch = new ArrayList<>(batchSize);
+                        batch.add(first);
+                        fetched.drainTo(batch, batchSize - 1);
+                        completedCount = writeBatch(task, batch, completedCount, totalBooks, isReviewMode, txTemplate);
+                        inFlight.release(batch.size());
+                        task.setCompletedBooks(completedCount);
+                        task = metadataFetchJobRepository.save(task);
                     }
-                    bookRepository.saveAndFlush(book);
-                    return null;
-                });
-                completedCount++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    feeder.interrupt();
+                    fetchers.shutdownNow();
+                    cancellationManager.clearCancellation(jobId);
+                    log.info("Metadata refresh task {} interrupted", jobId);
+                    return;
+                }
             }
 
             completeTask(task, completedCount, totalBooks, isReviewMode);
@@ -230,12 +225,187 @@ public class MetadataRefreshService {
                 ));
     }
 
-    private void reportProgressIfNeeded(MetadataFetchJobEntity task, String taskId, int completedCount, int total, BookEntity book, boolean isReviewMode) {
-        if (task == null) return;
-        task.setCompletedBooks(completedCount);
-        metadataFetchJobRepository.save(task);
-        String message = String.format("Processing '%s'", book.getMetadata().getTitle());
-        sendBatchProgressNotification(taskId, completedCount, total, message, MetadataFetchTaskStatus.IN_PROGRESS, isReviewMode);
+    /**
+     * Loads the books in chunks and hands them to the fetchers, holding one {@code inFlight} permit per book until
+     * the writer has stored its outcome. Locked and missing books skip the fetch.
+     */
+    private void feedBooks(List<Long> bookIds, int chunkSize, Semaphore inFlight, ExecutorService fetchers, BlockingQueue<FetchOutcome> fetched,
+                           Function<BookEntity, MetadataRefreshOptions> optionsResolver, Function<MetadataRefreshOptions, List<MetadataProvider>> providersResolver) {
+        TransactionTemplate readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setReadOnly(true);
+        for (int from = 0; from < bookIds.size(); from += chunkSize) {
+            List<Long> chunk = bookIds.subList(from, Math.min(bookIds.size(), from + chunkSize));
+            List<FetchOutcome> skipped = new ArrayList<>();
+            List<RefreshItem> items;
+            try {
+                items = readTemplate.execute(status -> loadItems(chunk, optionsResolver, providersResolver));
+            } catch (Exception e) {
+                log.error("Failed to load books {} for metadata refresh", chunk, e);
+                items = List.of();
+                chunk.forEach(id -> skipped.add(new FetchOutcome(new RefreshItem(id, "book " + id, null, null, List.of(), false), null, e)));
+            }
+            for (RefreshItem item : items) {
+                if (item.book() == null) {
+                    skipped.add(new FetchOutcome(item, null, ApiError.BOOK_NOT_FOUND.createException(item.bookId())));
+                } else if (item.locked()) {
+                    skipped.add(new FetchOutcome(item, null, null));
+                }
+            }
+            try {
+                for (FetchOutcome outcome : skipped) {
+                    inFlight.acquire();
+                    fetched.add(outcome);
+                }
+                for (RefreshItem item : items) {
+                    if (item.book() == null || item.locked()) {
+                        continue;
+                    }
+                    inFlight.acquire();
+                    fetchers.submit(() -> fetched.add(fetch(item, fetchers)));
+                }
+            } catch (InterruptedException | RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private List<RefreshItem> loadItems(List<Long> bookIds, Function<BookEntity, MetadataRefreshOptions> optionsResolver,
+                                        Function<MetadataRefreshOptions, List<MetadataProvider>> providersResolver) {
+        Map<Long, BookEntity> books = bookRepository.findAllWithMetadataByIds(new HashSet<>(bookIds)).stream()
+                .collect(Collectors.toMap(BookEntity::getId, Function.identity()));
+        List<RefreshItem> items = new ArrayList<>(bookIds.size());
+        for (Long bookId : bookIds) {
+            BookEntity book = books.get(bookId);
+            if (book == null) {
+                items.add(new RefreshItem(bookId, "book " + bookId, null, null, List.of(), false));
+                continue;
+            }
+            String title = book.getMetadata().getTitle();
+            if (book.getMetadata().areAllFieldsLocked()) {
+                log.info("Skipping locked book: {}", book.getFileName());
+                items.add(new RefreshItem(bookId, title, bookMapper.toBook(book), null, List.of(), true));
+                continue;
+            }
+            MetadataRefreshOptions options = optionsResolver.apply(book);
+            items.add(new RefreshItem(bookId, title, bookMapper.toBook(book), options, providersResolver.apply(options), false));
+        }
+        return items;
+    }
+
+    private FetchOutcome fetch(RefreshItem item, ExecutorService fetchers) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Map<MetadataProvider, Future<BookMetadata>> pending = new EnumMap<>(MetadataProvider.class);
+            for (MetadataProvider provider : item.providers()) {
+                pending.put(provider, fetchers.submit(() -> fetchTopMetadataFromAProvider(provider, item.book())));
+            }
+            Map<MetadataProvider, BookMetadata> metadataMap = new EnumMap<>(MetadataProvider.class);
+            for (Future<BookMetadata> future : pending.values()) {
+                BookMetadata metadata = future.get();
+                if (metadata != null) {
+                    metadataMap.putIfAbsent(metadata.getProvider(), metadata);
+                }
+            }
+            return new FetchOutcome(item, buildFetchMetadata(item.bookId(), item.options(), metadataMap), null);
+        } catch (ExecutionException e) {
+            return new FetchOutcome(item, null, e.getCause() instanceof Exception cause ? cause : e);
+        } catch (Exception e) {
+            return new FetchOutcome(item, null, e);
+        } finally {
+            sample.stop(meterRegistry.timer("booklore.metadata.refresh.fetch"));
+        }
+    }
+
+    /**
+     * Applies the fetched metadata of a batch in one transaction, falling back to one transaction per book if the
+     * batch fails, then stores review proposals and reports every book of the batch.
+     *
+     * @return {@code completedCount} plus the size of the batch
+     */
+    private int writeBatch(MetadataFetchJobEntity task, List<FetchOutcome> batch, int completedCount, int totalBooks, boolean isReviewMode, TransactionTemplate txTemplate) {
+        List<FetchOutcome> toApply = batch.stream()
+                .filter(outcome -> outcome.metadata() != null && !outcome.item().isReviewMode())
+                .toList();
+        Map<Long, Exception> failures = new HashMap<>();
+        if (!toApply.isEmpty()) {
+            try {
+                failures.putAll(Objects.requireNonNull(txTemplate.execute(status -> applyFetched(toApply))));
+            } catch (Exception e) {
+                log.warn("Writing {} refreshed books in one transaction failed, writing them one by one: {}", toApply.size(), e.getMessage());
+                failures.clear();
+                for (FetchOutcome outcome : toApply) {
+                    try {
+                        failures.putAll(Objects.requireNonNull(txTemplate.execute(status -> applyFetched(List.of(outcome)))));
+                    } catch (Exception ex) {
+                        failures.put(outcome.item().bookId(), ex);
+                    }
+                }
+            }
+        }
+
+        int completed = completedCount;
+        for (FetchOutcome outcome : batch) {
+            completed++;
+            RefreshItem item = outcome.item();
+            Exception error = outcome.error() != null ? outcome.error() : failures.get(item.bookId());
+            if (error == null && item.isReviewMode()) {
+                try {
+                    saveProposal(task, item.bookId(), outcome.metadata());
+                } catch (JsonProcessingException e) {
+                    error = e;
+                }
+            }
+            if (item.locked()) {
+                countBook("skipped");
+                sendBatchProgressNotification(task.getTaskId(), completed, totalBooks, "Skipped locked book: " + item.title(), MetadataFetchTaskStatus.IN_PROGRESS, isReviewMode);
+            } else if (error != null) {
+                countBook("failed");
+                log.error("Metadata update failed for book: {}", item.title(), error);
+                sendBatchProgressNotification(task.getTaskId(), completed, totalBooks, String.format("Failed to process: %s - %s", item.title(), error.getMessage()), MetadataFetchTaskStatus.ERROR, isReviewMode);
+            } else {
+                countBook(item.isReviewMode() ? "proposed" : "updated");
+                sendBatchProgressNotification(task.getTaskId(), completed, totalBooks, "Processed: " + item.title(), MetadataFetchTaskStatus.IN_PROGRESS, item.isReviewMode());
+            }
+        }
+        return completed;
+    }
+
+    private Map<Long, Exception> applyFetched(List<FetchOutcome> outcomes) {
+        Set<Long> bookIds = outcomes.stream().map(outcome -> outcome.item().bookId()).collect(Collectors.toSet());
+        Map<Long, BookEntity> books = bookRepository.findAllWithMetadataByIds(bookIds).stream()
+                .collect(Collectors.toMap(BookEntity::getId, Function.identity()));
+        authorCategoryResolver.prefetch(
+                namesOf(outcomes, BookMetadata::getAuthors),
+                namesOf(outcomes, BookMetadata::getCategories));
+        Map<Long, Exception> failures = new HashMap<>();
+        for (FetchOutcome outcome : outcomes) {
+            RefreshItem item = outcome.item();
+            BookEntity book = books.get(item.bookId());
+            if (book == null) {
+                failures.put(item.bookId(), ApiError.BOOK_NOT_FOUND.createException(item.bookId()));
+                continue;
+            }
+            try {
+                updateBookMetadata(book, outcome.metadata(), item.options().isRefreshCovers(), item.options().isMergeCategories());
+                bookRepository.save(book);
+            } catch (Exception e) {
+                failures.put(item.bookId(), e);
+            }
+        }
+        bookRepository.flush();
+        return failures;
+    }
+
+    private static List<String> namesOf(List<FetchOutcome> outcomes, Function<BookMetadata, Set<String>> names) {
+        return outcomes.stream()
+                .map(outcome -> names.apply(outcome.metadata()))
+                .filter(Objects::nonNull)
+                .flatMap(Set::stream)
+                .toList();
+    }
+
+    private void countBook(String outcome) {
+        meterRegistry.counter("booklore.metadata.refresh.books", "outcome", outcome).increment();
     }
 
     private void sendBatchProgressNotification(String taskId, int current, int total, String message, MetadataFetchTaskStatus status, boolean isReview) {
@@ -599,5 +769,14 @@ public class MetadataRefreshService {
             case BOOKS -> request.getBookIds();
         };
     }
-}
 
+    private record RefreshItem(Long bookId, String title, Book book, MetadataRefreshOptions options, List<MetadataProvider> providers, boolean locked) {
+
+        boolean isReviewMode() {
+            return options != null && Boolean.TRUE.equals(options.getReviewBeforeApply());
+        }
+    }
+
+    private record FetchOutcome(RefreshItem item, BookMetadata metadata, Exception error) {
+    }
+}
@@ -0,0 +1,335 @@
+package com.adityachandel.booklore.service.metadata;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.BookMetadata;
+import com.adityachandel.booklore.model.dto.request.FetchMetadataRequest;
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.MetadataProviderSettings;
+import com.adityachandel.booklore.model.dto.settings.MetadataPublicReviewsSettings;
+import com.adityachandel.booklore.model.enums.MetadataProvider;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.metadata.parser.BookParser;
+import com.adityachandel.booklore.service.metadata.parser.ParserUtils;
+import com.adityachandel.booklore.util.BookUtils;
+import com.adityachandel.booklore.util.FileService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Disk cache of metadata provider answers in front of every {@link BookParser}, so refreshes, bookdrop imports and
+ * manual searches over the same books reuse earlier lookups instead of querying the provider again.
+ * <p>
+ * Entries live one file per query under {@code metadata_cache/<provider>/}, keyed by the provider and the
+ * normalised query (ISBN digits, case- and whitespace-folded title and author, ASIN, the cleaned file name when there
+ * is no title and the book's Goodreads id) and by the provider settings that shape its answer (Amazon domain and
+ * cookie, Google language, review downloads), so changing those settings starts from fresh lookups. Found results are kept for {@code app.metadata-cache.ttl-hours} of their
+ * provider and "nothing found" for {@code negative-ttl-hours}; an empty result is only cached when the provider
+ * actually answered, so timeouts and throttling are retried next time. The cache is kept under
+ * {@code max-cache-size-mb} by evicting the least recently used entries, and admins can {@link #clear()} it.
+ * <p>
+ * Lookups are counted in {@code cache.gets} tagged {@code cache=metadata}, the provider and hit or miss.
+ */
+@Slf4j
+@Component
+public class MetadataResponseCache {
+
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final long DEFAULT_TTL_HOURS = 168;
+
+    private final FileService fileService;
+    private final ObjectMapper objectMapper;
+    private final MetadataProviderRateLimiter rateLimiter;
+    private final AppSettingService appSettingService;
+    private final AppProperties.MetadataCache config;
+    private final Map<MetadataProvider, Counter> hits = new EnumMap<>(MetadataProvider.class);
+    private final Map<MetadataProvider, Counter> misses = new EnumMap<>(MetadataProvider.class);
+    private final Counter evictions;
+    private final AtomicLong cacheSizeBytes = new AtomicLong(-1);
+    private final Object evictionLock = new Object();
+
+    public MetadataResponseCache(FileService fileService, ObjectMapper objectMapper, MetadataProviderRateLimiter rateLimiter,
+                                 AppSettingService appSettingService, AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.fileService = fileService;
+        this.objectMapper = objectMapper;
+        this.rateLimiter = rateLimiter;
+        this.appSettingService = appSettingService;
+        this.config = appProperties.getMetadataCache();
+        for (MetadataProvider provider : MetadataProvider.values()) {
+            hits.put(provider, Counter.builder("cache.gets").tag("cache", "metadata").tag("provider", provider.name()).tag("result", "hit")
+                    .description("Metadata lookups answered from the response cache").register(meterRegistry));
+            misses.put(provider, Counter.builder("cache.gets").tag("cache", "metadata").tag("provider", provider.name()).tag("result", "miss")
+                    .description("Metadata lookups sent to the provider").register(meterRegistry));
+        }
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "metadata")
+                .description("Metadata responses evicted to keep the cache under its size limit").register(meterRegistry);
+    }
+
+    /**
+     * {@code parser} behind this cache, or {@code parser} itself when the cache is disabled.
+     */
+    public BookParser wrap(MetadataProvider provider, BookParser parser) {
+        return config.isEnabled() ? new CachingParser(provider, parser) : parser;
+    }
+
+    List<BookMetadata> lookup(MetadataProvider provider, String kind, Book book, FetchMetadataRequest request, Supplier<List<BookMetadata>> loader) {
+        String key = key(provider, kind, book, request, providerSettings(provider));
+        Path path = entryPath(provider, key);
+        List<BookMetadata> cached = read(provider, key, path);
+        if (cached != null) {
+            hits.get(provider).increment();
+            touch(path);
+            return cached;
+        }
+        misses.get(provider).increment();
+        rateLimiter.resetLastStatus();
+        try {
+            List<BookMetadata> results = loader.get();
+            results = results != null ? results : List.of();
+            if (!results.isEmpty() || rateLimiter.lastRequestAnswered()) {
+                write(path, new CachedResponse(key, System.currentTimeMillis(), results));
+            }
+            return results;
+        } finally {
+            rateLimiter.resetLastStatus();
+        }
+    }
+
+    /**
+     * Drops every cached answer.
+     */
+    public void clear() {
+        synchronized (evictionLock) {
+            List<CachedEntry> entries = listEntries();
+            entries.forEach(entry -> delete(entry.path()));
+            cacheSizeBytes.set(0);
+            log.info("Cleared {} metadata cache entries", entries.size());
+        }
+    }
+
+    static String key(MetadataProvider provider, String kind, Book book, FetchMetadataRequest request, String providerSettings) {
+        String title = normalise(request.getTitle());
+        String fileName = title.isEmpty() && book != null ? normalise(BookUtils.cleanFileName(book.getFileName())) : "";
+        String goodreadsId = book != null && book.getMetadata() != null ? normalise(book.getMetadata().getGoodreadsId()) : "";
+        return String.join("|", provider.name(), kind,
+                Objects.toString(ParserUtils.cleanIsbn(request.getIsbn()), ""),
+                title,
+                normalise(request.getAuthor()),
+                normalise(request.getAsin()),
+                fileName,
+                goodreadsId,
+                providerSettings);
+    }
+
+    /**
+     * The current settings that change what the parser of {@code provider} returns. The Amazon cookie only enters as
+     * a digest because keys are stored in the entries.
+     */
+    String providerSettings(MetadataProvider provider) {
+        AppSettings settings = appSettingService.getAppSettings();
+        MetadataProviderSettings providers = settings != null ? settings.getMetadataProviderSettings() : null;
+        String providerOptions = switch (provider) {
+            case Amazon -> providers != null && providers.getAmazon() != null
+                    ? Objects.toString(providers.getAmazon().getDomain(), "") + "," + digest(providers.getAmazon().getCookie())
+                    : "";
+            case Google -> providers != null && providers.getGoogle() != null ? Objects.toString(providers.getGoogle().getLanguage(), "") : "";
+            default -> "";
+        };
+        MetadataPublicReviewsSettings reviews = settings != null ? settings.getMetadataPublicReviewsSettings() : null;
+        String reviewOptions = reviews == null || reviews.getProviders() == null ? "" : reviews.getProviders().stream()
+                .filter(cfg -> cfg.getProvider() == provider && cfg.isEnabled())
+                .findFirst()
+                .map(cfg -> "reviews:" + cfg.getMaxReviews())
+                .orElse("");
+        return providerOptions + ";" + reviewOptions;
+    }
+
+    private static String digest(String value) {
+        return value == null || value.isEmpty() ? "" : HexFormat.of().formatHex(sha256(value), 0, 8);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String normalise(String value) {
+        if (value == null) {
+            return "";
+        }
+        return Normalizer.normalize(value, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    private List<BookMetadata> read(MetadataProvider provider, String key, Path path) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            CachedResponse entry = objectMapper.readValue(path.toFile(), CachedResponse.class);
+            if (!key.equals(entry.key())) {
+                return null;
+            }
+            List<BookMetadata> results = entry.results() != null ? entry.results() : List.of();
+            long ttlHours = results.isEmpty() ? config.getNegativeTtlHours() : config.getTtlHours().getOrDefault(provider, DEFAULT_TTL_HOURS);
+            if (System.currentTimeMillis() - entry.fetchedAt() >= TimeUnit.HOURS.toMillis(ttlHours)) {
+                delete(path);
+                return null;
+            }
+            return results;
+        } catch (IOException e) {
+            log.debug("Discarding unreadable metadata cache entry {}: {}", path, e.getMessage());
+            delete(path);
+            return null;
+        }
+    }
+
+    private void write(Path path, CachedResponse entry) {
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                objectMapper.writeValue(temp.toFile(), entry);
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            recordCachedBytes(Files.size(path));
+        } catch (IOException e) {
+            log.warn("Failed to cache metadata response in {}: {}", path, e.getMessage());
+        }
+    }
+
+    private Path entryPath(MetadataProvider provider, String key) {
+        return Path.of(fileService.getMetadataCachePath(), provider.name(), HexFormat.of().formatHex(sha256(key)) + ENTRY_SUFFIX);
+    }
+
+    private void recordCachedBytes(long bytes) {
+        long maxCacheSizeBytes = config.getMaxCacheSizeMb() * 1024L * 1024L;
+        long current = cacheSizeBytes.get() < 0 ? computeCacheSize() : cacheSizeBytes.addAndGet(bytes);
+        if (current > maxCacheSizeBytes) {
+            evictLeastRecentlyUsed(maxCacheSizeBytes);
+        }
+    }
+
+    private long computeCacheSize() {
+        long total = listEntries().stream().mapToLong(CachedEntry::size).sum();
+        cacheSizeBytes.set(total);
+        return total;
+    }
+
+    private void evictLeastRecentlyUsed(long maxCacheSizeBytes) {
+        synchronized (evictionLock) {
+            List<CachedEntry> entries = listEntries();
+            long total = entries.stream().mapToLong(CachedEntry::size).sum();
+            long target = maxCacheSizeBytes * 9 / 10;
+            entries.sort(Comparator.comparingLong(CachedEntry::lastUsed));
+            for (CachedEntry entry : entries) {
+                if (total <= target) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(entry.path());
+                    total -= entry.size();
+                    evictions.increment();
+                } catch (IOException e) {
+                    log.debug("Failed to evict metadata cache entry {}: {}", entry.path(), e.getMessage());
+                }
+            }
+            cacheSizeBytes.set(total);
+            log.debug("Evicted metadata response cache down to {} bytes", total);
+        }
+    }
+
+    private List<CachedEntry> listEntries() {
+        Path cacheRoot = Path.of(fileService.getMetadataCachePath());
+        if (!Files.isDirectory(cacheRoot)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.walk(cacheRoot)) {
+            return paths
+                    .filter(p -> p.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                    .map(p -> {
+                        try {
+                            return new CachedEntry(p, Files.size(p), Files.getLastModifiedTime(p).toMillis());
+                        } catch (IOException e) {
+                            return null;
+                        }
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to list metadata response cache: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Failed to update last used time of {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Failed to delete metadata cache entry {}: {}", path, e.getMessage());
+        }
+    }
+
+    record CachedResponse(String key, long fetchedAt, List<BookMetadata> results) {
+    }
+
+    private record CachedEntry(Path path, long size, long lastUsed) {
+    }
+
+    private final class CachingParser implements BookParser {
+
+        private final MetadataProvider provider;
+        private final BookParser delegate;
+
+        private CachingParser(MetadataProvider provider, BookParser delegate) {
+            this.provider = provider;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public List<BookMetadata> fetchMetadata(Book book, FetchMetadataRequest fetchMetadataRequest) {
+            return lookup(provider, "list", book, fetchMetadataRequest, () -> delegate.fetchMetadata(book, fetchMetadataRequest));
+        }
+
+        @Override
+        public BookMetadata fetchTopMetadata(Book book, FetchMetadataRequest fetchMetadataRequest) {
+            List<BookMetadata> top = lookup(provider, "top", book, fetchMetadataRequest, () -> {
+                BookMetadata metadata = delegate.fetchTopMetadata(book, fetchMetadataRequest);
+                return metadata != null ? List.of(metadata) : List.of();
+            });
+            return top.isEmpty() ? null : top.getFirst();
+        }
+    }
+}
@@ -6,10 +6,12 @@ import com.adityachandel.booklore.model.dto.BookReview;
 import com.adityachandel.booklore.model.dto.request.FetchMetadataRequest;
 import com.adityachandel.booklore.model.enums.MetadataProvider;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.metadata.MetadataProviderRateLimiter;
 import com.adityachandel.booklore.util.BookUtils;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -70,6 +72,7 @@ public class AmazonBookParser implements BookParser {
     );
 
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
 
     private static class LocaleInfo {
         final String acceptLanguage;
@@ -838,9 +841,14 @@ public class AmazonBookParser implements BookParser {
                 connection.header("cookie", amazonCookie);
             }
 
+            rateLimiter.acquire(MetadataProvider.Amazon);
             Connection.Response response = connection.execute();
+            rateLimiter.onResponse(MetadataProvider.Amazon, response.statusCode(), response.header("Retry-After"));
             return response.parse();
         } catch (IOException e) {
+            if (e instanceof HttpStatusException statusException) {
+                rateLimiter.onResponse(MetadataProvider.Amazon, statusException.getStatusCode(), null);
+            }
             log.error("Error parsing url: {}", url, e);
             throw new RuntimeException(e);
         }
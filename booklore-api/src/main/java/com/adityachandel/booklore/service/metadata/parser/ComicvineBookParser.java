@@ -7,6 +7,7 @@ import com.adityachandel.booklore.model.dto.response.comicvineapi.Comic;
 import com.adityachandel.booklore.model.dto.response.comicvineapi.ComicvineApiResponse;
 import com.adityachandel.booklore.model.enums.MetadataProvider;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.metadata.MetadataProviderRateLimiter;
 import com.adityachandel.booklore.util.BookUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -37,6 +38,7 @@ public class ComicvineBookParser implements BookParser {
 
     private final ObjectMapper objectMapper;
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
     private final HttpClient httpClient = HttpClient.newHttpClient();
 
     @Override
@@ -81,7 +83,9 @@ public class ComicvineBookParser implements BookParser {
                     .GET()
                     .build();
 
+            rateLimiter.acquire(MetadataProvider.Comicvine);
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            rateLimiter.onResponse(MetadataProvider.Comicvine, response.statusCode(), response.headers().firstValue("Retry-After").orElse(null));
 
             if (response.statusCode() == 200) {
                 return parseComicvineApiResponse(response.body());
@@ -176,7 +180,9 @@ public class ComicvineBookParser implements BookParser {
                     .GET()
                     .build();
 
+            rateLimiter.acquire(MetadataProvider.Comicvine);
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            rateLimiter.onResponse(MetadataProvider.Comicvine, response.statusCode(), response.headers().firstValue("Retry-After").orElse(null));
 
             if (response.statusCode() == 200) {
                 ComicvineIssueResponse issueResponse = objectMapper.readValue(response.body(), ComicvineIssueResponse.class);
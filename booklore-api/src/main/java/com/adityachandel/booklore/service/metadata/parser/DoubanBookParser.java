@@ -6,12 +6,14 @@ import com.adityachandel.booklore.model.dto.BookReview;
 import com.adityachandel.booklore.model.dto.request.FetchMetadataRequest;
 import com.adityachandel.booklore.model.enums.MetadataProvider;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.metadata.MetadataProviderRateLimiter;
 import com.adityachandel.booklore.util.BookUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -50,6 +52,7 @@ public class DoubanBookParser implements BookParser {
     // Pattern for yyyy-MM-dd (or yyyy/M/d) date formats
     private static final Pattern DATE_YMD_PATTERN = Pattern.compile("(\\d{4})[-/](\\d{1,2})[-/](\\d{1,2})");
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
 
     @Override
     public BookMetadata fetchTopMetadata(Book book, FetchMetadataRequest fetchMetadataRequest) {
@@ -704,12 +707,17 @@ public class DoubanBookParser implements BookParser {
                     .maxBodySize(0)
                     .followRedirects(true);
 
+            rateLimiter.acquire(MetadataProvider.Douban);
             Connection.Response response = connection.execute();
+            rateLimiter.onResponse(MetadataProvider.Douban, response.statusCode(), response.header("Retry-After"));
 
             // Get the response content
             String html = response.body();
             return Jsoup.parse(html, response.url().toString());
         } catch (IOException e) {
+            if (e instanceof HttpStatusException statusException) {
+                rateLimiter.onResponse(MetadataProvider.Douban, statusException.getStatusCode(), null);
+            }
             log.error("Error parsing url: {}", url, e);
             throw new RuntimeException(e);
         }
@@ -6,11 +6,13 @@ import com.adityachandel.booklore.model.dto.BookReview;
 import com.adityachandel.booklore.model.dto.request.FetchMetadataRequest;
 import com.adityachandel.booklore.model.enums.MetadataProvider;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.metadata.MetadataProviderRateLimiter;
 import com.adityachandel.booklore.util.BookUtils;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.text.similarity.FuzzyScore;
 import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -43,6 +45,7 @@ public class GoodReadsParser implements BookParser {
     // Pattern to extract numeric Goodreads id from book URL like /book/show/12345
     private static final Pattern BOOK_SHOW_ID_PATTERN = Pattern.compile("/book/show/(\\d+)");
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
 
     @Override
     public BookMetadata fetchTopMetadata(Book book, FetchMetadataRequest fetchMetadataRequest) {
@@ -579,6 +582,7 @@ public class GoodReadsParser implements BookParser {
 
     private Document fetchDoc(String url) {
         try {
+            rateLimiter.acquire(MetadataProvider.GoodReads);
             Connection.Response response = Jsoup.connect(url)
                     .header("accept", "text/html, application/json")
                     .header("accept-language", "en-US,en;q=0.9")
@@ -605,8 +609,12 @@ public class GoodReadsParser implements BookParser {
                     .header("x-requested-with", "XMLHttpRequest")
                     .method(Connection.Method.GET)
                     .execute();
+            rateLimiter.onResponse(MetadataProvider.GoodReads, response.statusCode(), response.header("Retry-After"));
             return response.parse();
         } catch (IOException e) {
+            if (e instanceof HttpStatusException statusException) {
+                rateLimiter.onResponse(MetadataProvider.GoodReads, statusException.getStatusCode(), null);
+            }
             log.error("Error parsing url: {}", url, e);
             throw new RuntimeException(e);
         }
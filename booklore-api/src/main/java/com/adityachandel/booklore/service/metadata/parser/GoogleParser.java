@@ -6,6 +6,7 @@ import com.adityachandel.booklore.model.dto.response.GoogleBooksApiResponse;
 import com.adityachandel.booklore.model.dto.request.FetchMetadataRequest;
 import com.adityachandel.booklore.model.enums.MetadataProvider;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.metadata.MetadataProviderRateLimiter;
 import com.adityachandel.booklore.util.BookUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -37,6 +38,7 @@ public class GoogleParser implements BookParser {
     private static final Pattern SPECIAL_CHARACTERS_PATTERN = Pattern.compile("[.,\\-\\[\\]{}()!@#$%^&*_=+|~`<>?/\";:]");
     private final ObjectMapper objectMapper;
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
     private final HttpClient httpClient = HttpClient.newHttpClient();
     private static final String GOOGLE_BOOKS_API_URL = "https://www.googleapis.com/books/v1/volumes";
 
@@ -69,7 +71,9 @@ public class GoogleParser implements BookParser {
                     .GET()
                     .build();
 
+            rateLimiter.acquire(MetadataProvider.Google);
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            rateLimiter.onResponse(MetadataProvider.Google, response.statusCode(), response.headers().firstValue("Retry-After").orElse(null));
 
             if (response.statusCode() == 200) {
                 return parseGoogleBooksApiResponse(response.body());
@@ -98,7 +102,9 @@ public class GoogleParser implements BookParser {
                     .GET()
                     .build();
 
+            rateLimiter.acquire(MetadataProvider.Google);
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            rateLimiter.onResponse(MetadataProvider.Google, response.statusCode(), response.headers().firstValue("Retry-After").orElse(null));
 
             if (response.statusCode() == 200) {
                 return parseGoogleBooksApiResponse(response.body());
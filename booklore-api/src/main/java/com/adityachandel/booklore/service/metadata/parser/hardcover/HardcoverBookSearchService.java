@@ -1,6 +1,8 @@
 package com.adityachandel.booklore.service.metadata.parser.hardcover;
 
+import com.adityachandel.booklore.model.enums.MetadataProvider;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.metadata.MetadataProviderRateLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
@@ -8,6 +10,7 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 
 import java.util.Collections;
 import java.util.List;
@@ -18,10 +21,12 @@ public class HardcoverBookSearchService {
 
     private final RestClient restClient;
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
 
     @Autowired
-    public HardcoverBookSearchService(AppSettingService appSettingService) {
+    public HardcoverBookSearchService(AppSettingService appSettingService, MetadataProviderRateLimiter rateLimiter) {
         this.appSettingService = appSettingService;
+        this.rateLimiter = rateLimiter;
         String apiUrl = "https://api.hardcover.app/v1/graphql";
         this.restClient = RestClient.builder()
                 .baseUrl(apiUrl)
@@ -45,6 +50,7 @@ public class HardcoverBookSearchService {
         body.setVariables(Collections.emptyMap());
 
         try {
+            rateLimiter.acquire(MetadataProvider.Hardcover);
             GraphQLResponse response = restClient.post()
                     .uri("")
                     .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
@@ -52,6 +58,7 @@ public class HardcoverBookSearchService {
                     .body(body)
                     .retrieve()
                     .body(GraphQLResponse.class);
+            rateLimiter.onResponse(MetadataProvider.Hardcover, 200, null);
 
             if (response == null || response.getData() == null || response.getData().getSearch() == null || response.getData().getSearch().getResults() == null) {
                 log.warn("Empty or malformed response from Hardcover API");
@@ -61,6 +68,10 @@ public class HardcoverBookSearchService {
             return response.getData().getSearch().getResults().getHits();
 
         } catch (RestClientException e) {
+            if (e instanceof RestClientResponseException responseException) {
+                rateLimiter.onResponse(MetadataProvider.Hardcover, responseException.getStatusCode().value(),
+                        responseException.getResponseHeaders() != null ? responseException.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER) : null);
+            }
             log.error("Failed to fetch data from Hardcover API, Error: {}", e.getMessage());
             return Collections.emptyList();
         }
@@ -5,9 +5,13 @@ import com.adityachandel.booklore.model.entity.BookMetadataEntity;
 import com.adityachandel.booklore.model.enums.BookFileType;
 import com.github.junrar.Archive;
 import com.github.junrar.rarfile.FileHeader;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
 import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -22,11 +26,13 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.*;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.Locale;
@@ -34,13 +40,19 @@ import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
 @Slf4j
 @Component
 public class CbxMetadataWriter implements MetadataWriter {
 
     private static final Pattern VALID_FILENAME_PATTERN = Pattern.compile("^[\\w./\\\\-]+$");
+    private static final Set<String> STORED_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp", "avif", "jxl");
+
+    private final MeterRegistry meterRegistry;
+
+    public CbxMetadataWriter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
 
     @Override
     public void writeMetadataToFile(File file, BookMetadataEntity metadata, String thumbnailUrl, MetadataClearFlags clearFlags) {
@@ -48,13 +60,6 @@ public class CbxMetadataWriter implements MetadataWriter {
         Path tempDir = null;
         Path tempFile = null;
         boolean writeSucceeded = false;
-        try {
-            // Create a backup next to the source file (temp name, safe to delete later)
-            backup = Files.createTempFile(file.getParentFile().toPath(), "cbx_backup_", ".bak");
-            Files.copy(file.toPath(), backup, StandardCopyOption.REPLACE_EXISTING);
-        } catch (Exception ex) {
-            log.warn("Unable to create backup for {}: {}", file.getAbsolutePath(), ex.getMessage(), ex);
-        }
         try {
             String nameLower = file.getName().toLowerCase(Locale.ROOT);
             boolean isCbz = nameLower.endsWith(".cbz");
@@ -148,39 +153,24 @@ public class CbxMetadataWriter implements MetadataWriter {
             transformer.transform(new DOMSource(doc), new StreamResult(xmlBaos));
             byte[] xmlBytes = xmlBaos.toByteArray();
 
-            // Repack depending on container type; always write to a temp target then atomic move
+            // Repack depending on container type; always write to a temp file next to the target then atomic move.
+            // The original stays untouched until the move, so only the in-place RAR rebuild needs a backup.
+            // Temp files are hidden and carry no book extension, so the file watcher and rescans skip them.
+            Path parent = file.toPath().toAbsolutePath().getParent();
             if (isCbz) {
-                tempFile = Files.createTempFile("cbx_edit", ".cbz");
-                repackZipReplacingComicInfo(file.toPath(), tempFile, xmlBytes);
+                tempFile = Files.createTempFile(parent, ".cbx_edit_", ".tmp");
+                long copiedBytes = rewriteZipReplacingComicInfo(file.toPath(), tempFile, xmlBytes);
                 atomicReplace(tempFile, file.toPath());
                 tempFile = null; // Successfully moved, don't delete in finally
+                recordWrite("cbz", "raw", xmlBytes.length, copiedBytes);
                 writeSucceeded = true;
                 return;
             }
 
             if (isCb7) {
                 // Convert to CBZ with updated ComicInfo.xml
-                tempFile = Files.createTempFile("cbx_edit", ".cbz");
-                try (SevenZFile sevenZ = SevenZFile.builder().setFile(file).get();
-                     ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(tempFile))) {
-                    for (SevenZArchiveEntry e : sevenZ.getEntries()) {
-                        if (e.isDirectory()) continue;
-                        String entryName = e.getName();
-                        if (isComicInfoName(entryName)) continue; // skip old
-                        if (!isSafeEntryName(entryName)) {
-                            log.warn("Skipping unsafe 7z entry name: {}", entryName);
-                            continue;
-                        }
-                        zos.putNextEntry(new ZipEntry(entryName));
-                        try (InputStream is = sevenZ.getInputStream(e)) {
-                            if (is != null) is.transferTo(zos);
-                        }
-                        zos.closeEntry();
-                    }
-                    zos.putNextEntry(new ZipEntry("ComicInfo.xml"));
-                    zos.write(xmlBytes);
-                    zos.closeEntry();
-                }
+                tempFile = Files.createTempFile(parent, ".cbx_edit_", ".tmp");
+                long writtenBytes = convertToZip(file, tempFile, xmlBytes);
                 Path target = file.toPath().resolveSibling(stripExtension(file.getName()) + ".cbz");
                 atomicReplace(tempFile, target);
                 tempFile = null; // Successfully moved, don't delete in finally
@@ -188,6 +178,7 @@ public class CbxMetadataWriter implements MetadataWriter {
                     Files.deleteIfExists(file.toPath());
                 } catch (Exception ignored) {
                 }
+                recordWrite("cb7", "convert", writtenBytes, 0);
                 writeSucceeded = true;
                 return;
             }
@@ -227,14 +218,17 @@ public class CbxMetadataWriter implements MetadataWriter {
                 Path comicInfo = tempDir.resolve("ComicInfo.xml");
                 Files.write(comicInfo, xmlBytes);
 
-                // Rebuild RAR in-place (replace original file)
+                // Rebuild RAR in-place (replace original file), keeping a backup in case rar fails half-way
                 Path targetRar = file.toPath().toAbsolutePath().normalize();
+                backup = Files.createTempFile(targetRar.getParent(), "cbx_backup_", ".bak");
+                Files.copy(targetRar, backup, StandardCopyOption.REPLACE_EXISTING);
                 String rarExec = isSafeExecutable(rarBin) ? rarBin : "rar"; // prefer validated path, then PATH lookup
                 ProcessBuilder pb = new ProcessBuilder(rarExec, "a", "-idq", "-ep1", "-ma5", targetRar.toString(), ".");
                 pb.directory(tempDir.toFile());
                 Process p = pb.start();
                 int code = p.waitFor();
                 if (code == 0) {
+                    recordWrite("cbr", "repack", Files.size(targetRar), 0);
                     writeSucceeded = true;
                     return;
                 } else {
@@ -245,25 +239,8 @@ public class CbxMetadataWriter implements MetadataWriter {
             }
 
             // Fallback: convert the CBR to CBZ containing updated ComicInfo.xml
-            tempFile = Files.createTempFile("cbx_edit", ".cbz");
-            try (Archive archive = new Archive(file);
-                 ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(tempFile))) {
-                for (FileHeader fh : archive.getFileHeaders()) {
-                    if (fh.isDirectory()) continue;
-                    String entryName = fh.getFileName();
-                    if (isComicInfoName(entryName)) continue; // skip old
-                    if (!isSafeEntryName(entryName)) {
-                        log.warn("Skipping unsafe RAR entry name: {}", entryName);
-                        continue;
-                    }
-                    zos.putNextEntry(new ZipEntry(entryName));
-                    archive.extractFile(fh, zos);
-                    zos.closeEntry();
-                }
-                zos.putNextEntry(new ZipEntry("ComicInfo.xml"));
-                zos.write(xmlBytes);
-                zos.closeEntry();
-            }
+            tempFile = Files.createTempFile(parent, ".cbx_edit_", ".tmp");
+            long writtenBytes = convertToZip(file, tempFile, xmlBytes);
             Path target = file.toPath().resolveSibling(stripExtension(file.getName()) + ".cbz");
             atomicReplace(tempFile, target);
             tempFile = null; // Successfully moved, don't delete in finally
@@ -271,6 +248,7 @@ public class CbxMetadataWriter implements MetadataWriter {
                 Files.deleteIfExists(file.toPath());
             } catch (Exception ignored) {
             }
+            recordWrite("cbr", "convert", writtenBytes, 0);
             writeSucceeded = true;
         } catch (Exception e) {
             // Attempt to restore the original file from backup
@@ -405,32 +383,151 @@ public class CbxMetadataWriter implements MetadataWriter {
         return true;
     }
 
-    private void repackZipReplacingComicInfo(Path sourceZip, Path targetZip, byte[] xmlBytes) throws Exception {
-        try (ZipFile zipFile = new ZipFile(sourceZip.toFile());
-             ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(targetZip))) {
-            ZipEntry existing = findComicInfoEntry(zipFile);
-            Enumeration<? extends ZipEntry> entries = zipFile.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry entry = entries.nextElement();
+    /**
+     * Writes {@code sourceZip} to {@code targetZip} with ComicInfo.xml replaced or appended. Every other entry is
+     * copied raw, compressed bytes and all, so the cost of an edit is one sequential copy of the archive rather
+     * than inflating and deflating every page.
+     *
+     * @return compressed bytes copied without re-encoding
+     */
+    private long rewriteZipReplacingComicInfo(Path sourceZip, Path targetZip, byte[] xmlBytes) throws IOException {
+        long copiedBytes = 0;
+        try (org.apache.commons.compress.archivers.zip.ZipFile zipFile = org.apache.commons.compress.archivers.zip.ZipFile.builder().setPath(sourceZip).get();
+             ZipArchiveOutputStream zos = new ZipArchiveOutputStream(targetZip)) {
+            String comicInfoName = null;
+            for (ZipArchiveEntry entry : Collections.list(zipFile.getEntriesInPhysicalOrder())) {
                 String entryName = entry.getName();
-                if (existing != null && entryName.equals(existing.getName())) {
+                if (isComicInfoName(entryName)) {
+                    if (comicInfoName == null) {
+                        comicInfoName = entryName;
+                    }
                     continue; // skip old ComicInfo.xml
                 }
                 if (!isSafeEntryName(entryName)) {
                     log.warn("Skipping unsafe ZIP entry name: {}", entryName);
                     continue;
                 }
-                zos.putNextEntry(new ZipEntry(entryName));
-                try (InputStream is = zipFile.getInputStream(entry)) {
-                    is.transferTo(zos);
-                }
-                zos.closeEntry();
+                zos.addRawArchiveEntry(entry, zipFile.getRawInputStream(entry));
+                copiedBytes += entry.getCompressedSize();
             }
-            String entryName = (existing != null ? existing.getName() : "ComicInfo.xml");
-            zos.putNextEntry(new ZipEntry(entryName));
+            ZipArchiveEntry comicInfo = new ZipArchiveEntry(comicInfoName != null ? comicInfoName : "ComicInfo.xml");
+            comicInfo.setTime(System.currentTimeMillis());
+            zos.putArchiveEntry(comicInfo);
             zos.write(xmlBytes);
-            zos.closeEntry();
+            zos.closeArchiveEntry();
         }
+        return copiedBytes;
+    }
+
+    /**
+     * Re-packs a CB7 or CBR archive as a ZIP at {@code targetZip}. Image pages are stored, since deflating them again
+     * gains almost nothing, and everything else is deflated. With {@code comicInfoXml} the archive's own
+     * ComicInfo.xml is replaced; without it every entry is kept as-is.
+     *
+     * @return bytes written to {@code targetZip}
+     */
+    private long convertToZip(File source, Path targetZip, byte[] comicInfoXml) throws Exception {
+        boolean isCb7 = source.getName().toLowerCase(Locale.ROOT).endsWith(".cb7");
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(targetZip)) {
+            if (isCb7) {
+                try (SevenZFile sevenZ = SevenZFile.builder().setFile(source).get()) {
+                    for (SevenZArchiveEntry e : sevenZ.getEntries()) {
+                        if (e.isDirectory()) continue;
+                        String entryName = e.getName();
+                        if (comicInfoXml != null && isComicInfoName(entryName)) continue; // skip old
+                        if (!isSafeEntryName(entryName)) {
+                            log.warn("Skipping unsafe 7z entry name: {}", entryName);
+                            continue;
+                        }
+                        zos.putArchiveEntry(newConvertedEntry(entryName));
+                        try (InputStream is = sevenZ.getInputStream(e)) {
+                            if (is != null) is.transferTo(zos);
+                        }
+                        zos.closeArchiveEntry();
+                    }
+                }
+            } else {
+                try (Archive archive = new Archive(source)) {
+                    for (FileHeader fh : archive.getFileHeaders()) {
+                        if (fh.isDirectory()) continue;
+                        String entryName = fh.getFileName();
+                        if (comicInfoXml != null && isComicInfoName(entryName)) continue; // skip old
+                        if (!isSafeEntryName(entryName)) {
+                            log.warn("Skipping unsafe RAR entry name: {}", entryName);
+                            continue;
+                        }
+                        zos.putArchiveEntry(newConvertedEntry(entryName));
+                        archive.extractFile(fh, zos);
+                        zos.closeArchiveEntry();
+                    }
+                }
+            }
+            if (comicInfoXml != null) {
+                zos.putArchiveEntry(newConvertedEntry("ComicInfo.xml"));
+                zos.write(comicInfoXml);
+                zos.closeArchiveEntry();
+            }
+            zos.finish();
+            return zos.getBytesWritten();
+        }
+    }
+
+    private static ZipArchiveEntry newConvertedEntry(String entryName) {
+        ZipArchiveEntry entry = new ZipArchiveEntry(entryName.replace('\\', '/'));
+        String lower = entryName.toLowerCase(Locale.ROOT);
+        String extension = lower.substring(lower.lastIndexOf('.') + 1);
+        entry.setMethod(STORED_EXTENSIONS.contains(extension) ? ZipArchiveEntry.STORED : ZipArchiveEntry.DEFLATED);
+        entry.setTime(System.currentTimeMillis());
+        return entry;
+    }
+
+    /**
+     * Converts a CBR or CB7 comic to a CBZ next to it, keeping every entry including ComicInfo.xml, and removes the
+     * original. Later metadata edits on the CBZ only rewrite ComicInfo.xml.
+     *
+     * @return the path of the new CBZ
+     */
+    public Path normalizeToCbz(Path source) throws Exception {
+        String nameLower = source.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (!nameLower.endsWith(".cbr") && !nameLower.endsWith(".cb7")) {
+            throw new IllegalArgumentException("Only CBR and CB7 files can be converted to CBZ: " + source);
+        }
+        Path target = source.resolveSibling(stripExtension(source.getFileName().toString()) + ".cbz");
+        if (Files.exists(target)) {
+            throw new FileAlreadyExistsException(target.toString());
+        }
+        Path tempFile = Files.createTempFile(source.toAbsolutePath().getParent(), ".cbx_normalize_", ".tmp");
+        try {
+            long writtenBytes = convertToZip(source.toFile(), tempFile, null);
+            Files.move(tempFile, target);
+            tempFile = null;
+            Files.delete(source);
+            recordWrite(nameLower.endsWith(".cbr") ? "cbr" : "cb7", "normalize", writtenBytes, 0);
+            return target;
+        } finally {
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    /**
+     * Publishes how much of an archive a write had to re-encode ({@code booklore.metadata.write.rewritten}) versus
+     * copy raw ({@code booklore.metadata.write.copied}), tagged by source format and write mode.
+     */
+    private void recordWrite(String format, String mode, long rewrittenBytes, long copiedBytes) {
+        DistributionSummary.builder("booklore.metadata.write.rewritten")
+                .baseUnit("bytes")
+                .description("Bytes decoded and re-encoded per file metadata write")
+                .tags("format", format, "mode", mode)
+                .register(meterRegistry)
+                .record(rewrittenBytes);
+        DistributionSummary.builder("booklore.metadata.write.copied")
+                .baseUnit("bytes")
+                .description("Compressed bytes copied raw per file metadata write")
+                .tags("format", format, "mode", mode)
+                .register(meterRegistry)
+                .record(copiedBytes);
     }
 
     private static void atomicReplace(Path temp, Path target) throws Exception {
@@ -5,8 +5,9 @@ import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.model.entity.BookMetadataEntity;
 import com.adityachandel.booklore.model.enums.BookFileType;
 import lombok.extern.slf4j.Slf4j;
-import net.lingala.zip4j.ZipFile;
-import net.lingala.zip4j.model.ZipParameters;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
@@ -14,16 +15,14 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -31,164 +30,123 @@ import java.io.InputStream;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.Comparator;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.zip.CRC32;
 
 @Slf4j
 @Component
 public class EpubMetadataWriter implements MetadataWriter {
 
     private static final String OPF_NS = "http://www.idpf.org/2007/opf";
+    private static final String MIMETYPE_ENTRY = "mimetype";
+    private static final String CONTAINER_ENTRY = "META-INF/container.xml";
+    private static final String EPUB_MIMETYPE = "application/epub+zip";
 
     @Override
     public void writeMetadataToFile(File epubFile, BookMetadataEntity metadata, String thumbnailUrl, MetadataClearFlags clear) {
-        File backupFile = new File(epubFile.getParentFile(), epubFile.getName() + ".bak");
         try {
-            Files.copy(epubFile.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException ex) {
-            log.warn("Failed to create backup of EPUB {}: {}", epubFile.getName(), ex.getMessage());
-            return;
-        }
-        Path tempDir = null;
-        try {
-            tempDir = Files.createTempDirectory("epub_edit_" + UUID.randomUUID());
-            try (ZipFile zipFile = new ZipFile(epubFile)) {
-                zipFile.extractAll(tempDir.toString());
-            }
-
-            File opfFile = findOpfFile(tempDir.toFile());
-            if (opfFile == null) {
-                log.warn("Could not locate OPF file in EPUB");
-                return;
-            }
-
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            DocumentBuilder builder = dbf.newDocumentBuilder();
-            Document opfDoc = builder.parse(opfFile);
-
-            NodeList metadataList = opfDoc.getElementsByTagNameNS(OPF_NS, "metadata");
-            Element metadataElement = (Element) metadataList.item(0);
-            final String DC_NS = "http://purl.org/dc/elements/1.1/";
-
-            boolean[] hasChanges = {false};
-            MetadataCopyHelper helper = new MetadataCopyHelper(metadata);
-
-            helper.copyTitle(clear != null && clear.isTitle(), val -> replaceAndTrackChange(opfDoc, metadataElement, "title", DC_NS, val, hasChanges));
-            helper.copyDescription(clear != null && clear.isDescription(), val -> replaceAndTrackChange(opfDoc, metadataElement, "description", DC_NS, val, hasChanges));
-            helper.copyPublisher(clear != null && clear.isPublisher(), val -> replaceAndTrackChange(opfDoc, metadataElement, "publisher", DC_NS, val, hasChanges));
-            helper.copyPublishedDate(clear != null && clear.isPublishedDate(), val -> replaceAndTrackChange(opfDoc, metadataElement, "date", DC_NS, val != null ? val.toString() : null, hasChanges));
-            helper.copyLanguage(clear != null && clear.isLanguage(), val -> replaceAndTrackChange(opfDoc, metadataElement, "language", DC_NS, val, hasChanges));
-
-            helper.copyAuthors(clear != null && clear.isAuthors(), names -> {
-                removeCreatorsByRole(metadataElement, "");
-                removeCreatorsByRole(metadataElement, "aut");
-                if (names != null) {
-                    for (String name : names) {
-                        String[] parts = name.split(" ", 2);
-                        String first = parts.length > 1 ? parts[0] : "";
-                        String last = parts.length > 1 ? parts[1] : parts[0];
-                        String fileAs = last + ", " + first;
-                        metadataElement.appendChild(createCreatorElement(opfDoc, name, fileAs, "aut"));
-                    }
-                }
-                hasChanges[0] = true;
-            });
-
-            helper.copyCategories(clear != null && clear.isCategories(), categories -> {
-                removeElementsByTagNameNS(metadataElement, DC_NS, "subject");
-                if (categories != null) {
-                    for (String cat : categories.stream().map(String::trim).distinct().toList()) {
-                        metadataElement.appendChild(createSubjectElement(opfDoc, cat));
+            boolean written = rewriteEpub(epubFile.toPath(), (opfDoc, opfEntryName, replacements) -> {
+                boolean changed = applyMetadata(opfDoc, metadata, clear);
+                if (StringUtils.isNotBlank(thumbnailUrl)) {
+                    byte[] coverData = loadImage(thumbnailUrl);
+                    if (coverData != null) {
+                        replacements.put(findCoverEntryName(opfDoc, opfEntryName), coverData);
+                        changed = true;
                     }
                 }
-                hasChanges[0] = true;
-            });
-
-            helper.copySeriesName(clear != null && clear.isSeriesName(), val -> replaceMetaElement(metadataElement, opfDoc, "calibre:series", val, hasChanges));
-
-            helper.copySeriesNumber(clear != null && clear.isSeriesNumber(), val -> {
-                String formatted = val != null ? String.format("%.1f", val) : null;
-                replaceMetaElement(metadataElement, opfDoc, "calibre:series_index", formatted, hasChanges);
+                return changed;
             });
-
-            List<String> schemes = List.of("AMAZON", "GOOGLE", "GOODREADS", "HARDCOVER", "ISBN");
-
-            for (String scheme : schemes) {
-
-                boolean clearFlag = clear != null && switch (scheme) {
-                    case "AMAZON" -> clear.isAsin();
-                    case "GOOGLE" -> clear.isGoogleId();
-                    case "COMICVINE" -> clear.isComicvineId();
-                    case "GOODREADS" -> clear.isGoodreadsId();
-                    case "HARDCOVER" -> clear.isHardcoverId();
-                    case "ISBN" -> clear.isIsbn10();
-                    default -> false;
-                };
-
-                switch (scheme) {
-                    case "AMAZON" -> helper.copyAsin(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
-                    case "GOOGLE" -> helper.copyGoogleId(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
-                    case "GOODREADS" -> helper.copyGoodreadsId(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
-                    case "COMICVINE" -> helper.copyComicvineId(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
-                    case "HARDCOVER" -> helper.copyHardcoverId(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
-                    case "ISBN" -> helper.copyIsbn13(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
-                }
-            }
-
-            if (StringUtils.isNotBlank(thumbnailUrl)) {
-                byte[] coverData = loadImage(thumbnailUrl);
-                if (coverData != null) {
-                    applyCoverImageToEpub(tempDir, opfDoc, coverData);
-                    hasChanges[0] = true;
-                }
-            }
-
-            if (hasChanges[0]) {
-                Transformer transformer = TransformerFactory.newInstance().newTransformer();
-                transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-                transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-                transformer.transform(new DOMSource(opfDoc), new StreamResult(opfFile));
-
-                File tempEpub = new File(epubFile.getParentFile(), epubFile.getName() + ".tmp");
-                try (ZipFile tempZipFile = new ZipFile(tempEpub)) {
-                    addFolderContentsToZip(tempZipFile, tempDir.toFile(), tempDir.toFile());
-                }
-
-                if (!epubFile.delete()) throw new IOException("Could not delete original EPUB");
-                if (!tempEpub.renameTo(epubFile)) throw new IOException("Could not rename temp EPUB");
-
+            if (written) {
                 log.info("Metadata updated in EPUB: {}", epubFile.getName());
             } else {
                 log.info("No changes detected. Skipping EPUB write for: {}", epubFile.getName());
             }
         } catch (Exception e) {
             log.warn("Failed to write metadata to EPUB file {}: {}", epubFile.getName(), e.getMessage(), e);
-            if (backupFile.exists()) {
-                try {
-                    Files.copy(backupFile.toPath(), epubFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                    log.info("Restored EPUB from backup: {}", epubFile.getName());
-                } catch (IOException io) {
-                    log.error("Failed to restore EPUB from backup for {}: {}", epubFile.getName(), io.getMessage(), io);
+        }
+    }
+
+    private boolean applyMetadata(Document opfDoc, BookMetadataEntity metadata, MetadataClearFlags clear) {
+        NodeList metadataList = opfDoc.getElementsByTagNameNS(OPF_NS, "metadata");
+        Element metadataElement = (Element) metadataList.item(0);
+        final String DC_NS = "http://purl.org/dc/elements/1.1/";
+
+        boolean[] hasChanges = {false};
+        MetadataCopyHelper helper = new MetadataCopyHelper(metadata);
+
+        helper.copyTitle(clear != null && clear.isTitle(), val -> replaceAndTrackChange(opfDoc, metadataElement, "title", DC_NS, val, hasChanges));
+        helper.copyDescription(clear != null && clear.isDescription(), val -> replaceAndTrackChange(opfDoc, metadataElement, "description", DC_NS, val, hasChanges));
+        helper.copyPublisher(clear != null && clear.isPublisher(), val -> replaceAndTrackChange(opfDoc, metadataElement, "publisher", DC_NS, val, hasChanges));
+        helper.copyPublishedDate(clear != null && clear.isPublishedDate(), val -> replaceAndTrackChange(opfDoc, metadataElement, "date", DC_NS, val != null ? val.toString() : null, hasChanges));
+        helper.copyLanguage(clear != null && clear.isLanguage(), val -> replaceAndTrackChange(opfDoc, metadataElement, "language", DC_NS, val, hasChanges));
+
+        helper.copyAuthors(clear != null && clear.isAuthors(), names -> {
+            removeCreatorsByRole(metadataElement, "");
+            removeCreatorsByRole(metadataElement, "aut");
+            if (names != null) {
+                for (String name : names) {
+                    String[] parts = name.split(" ", 2);
+                    String first = parts.length > 1 ? parts[0] : "";
+                    String last = parts.length > 1 ? parts[1] : parts[0];
+                    String fileAs = last + ", " + first;
+                    metadataElement.appendChild(createCreatorElement(opfDoc, name, fileAs, "aut"));
                 }
             }
-        } finally {
-            if (tempDir != null) {
-                deleteDirectoryRecursively(tempDir);
-            }
-            if (backupFile.exists()) {
-                try {
-                    Files.delete(backupFile.toPath());
-                } catch (IOException ex) {
-                    log.warn("Failed to delete backup for {}: {}", epubFile.getName(), ex.getMessage());
+            hasChanges[0] = true;
+        });
+
+        helper.copyCategories(clear != null && clear.isCategories(), categories -> {
+            removeElementsByTagNameNS(metadataElement, DC_NS, "subject");
+            if (categories != null) {
+                for (String cat : categories.stream().map(String::trim).distinct().toList()) {
+                    metadataElement.appendChild(createSubjectElement(opfDoc, cat));
                 }
             }
+            hasChanges[0] = true;
+        });
+
+        helper.copySeriesName(clear != null && clear.isSeriesName(), val -> replaceMetaElement(metadataElement, opfDoc, "calibre:series", val, hasChanges));
+
+        helper.copySeriesNumber(clear != null && clear.isSeriesNumber(), val -> {
+            String formatted = val != null ? String.format("%.1f", val) : null;
+            replaceMetaElement(metadataElement, opfDoc, "calibre:series_index", formatted, hasChanges);
+        });
+
+        List<String> schemes = List.of("AMAZON", "GOOGLE", "GOODREADS", "HARDCOVER", "ISBN");
+
+        for (String scheme : schemes) {
+
+            boolean clearFlag = clear != null && switch (scheme) {
+                case "AMAZON" -> clear.isAsin();
+                case "GOOGLE" -> clear.isGoogleId();
+                case "COMICVINE" -> clear.isComicvineId();
+                case "GOODREADS" -> clear.isGoodreadsId();
+                case "HARDCOVER" -> clear.isHardcoverId();
+                case "ISBN" -> clear.isIsbn10();
+                default -> false;
+            };
+
+            switch (scheme) {
+                case "AMAZON" -> helper.copyAsin(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
+                case "GOOGLE" -> helper.copyGoogleId(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
+                case "GOODREADS" -> helper.copyGoodreadsId(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
+                case "COMICVINE" -> helper.copyComicvineId(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
+                case "HARDCOVER" -> helper.copyHardcoverId(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
+                case "ISBN" -> helper.copyIsbn13(clearFlag, idValue -> updateIdentifier(metadataElement, opfDoc, scheme, idValue, hasChanges));
+            }
         }
+
+        return hasChanges[0];
     }
 
     private void updateIdentifier(Element metadataElement, Document opfDoc, String scheme, String idValue, boolean[] hasChanges) {
@@ -243,49 +201,16 @@ public class EpubMetadataWriter implements MetadataWriter {
             return;
         }
 
-        Path tempDir = null;
         try {
-            File epubFile = new File(bookEntity.getFullFilePath().toUri());
-            tempDir = Files.createTempDirectory("epub_cover_" + UUID.randomUUID());
-            try (ZipFile zipFile = new ZipFile(epubFile)) {
-                zipFile.extractAll(tempDir.toString());
-            }
-
-            File opfFile = findOpfFile(tempDir.toFile());
-            if (opfFile == null) {
-                log.warn("OPF file not found in EPUB: {}", epubFile.getName());
-                return;
-            }
-
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            DocumentBuilder builder = dbf.newDocumentBuilder();
-            Document opfDoc = builder.parse(opfFile);
-
+            Path epubPath = bookEntity.getFullFilePath();
             byte[] coverData = multipartFile.getBytes();
-            applyCoverImageToEpub(tempDir, opfDoc, coverData);
-
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            transformer.transform(new DOMSource(opfDoc), new StreamResult(opfFile));
-
-            File tempEpub = new File(epubFile.getParentFile(), epubFile.getName() + ".tmp");
-            try (ZipFile tempZipFile = new ZipFile(tempEpub)) {
-                addFolderContentsToZip(tempZipFile, tempDir.toFile(), tempDir.toFile());
-            }
-
-            if (!epubFile.delete()) throw new IOException("Could not delete original EPUB");
-            if (!tempEpub.renameTo(epubFile)) throw new IOException("Could not rename temp EPUB");
-
-            log.info("Cover image updated in EPUB: {}", epubFile.getName());
-
+            rewriteEpub(epubPath, (opfDoc, opfEntryName, replacements) -> {
+                replacements.put(findCoverEntryName(opfDoc, opfEntryName), coverData);
+                return true;
+            });
+            log.info("Cover image updated in EPUB: {}", epubPath.getFileName());
         } catch (Exception e) {
             log.warn("Failed to update EPUB with uploaded cover image: {}", e.getMessage(), e);
-        } finally {
-            if (tempDir != null) {
-                deleteDirectoryRecursively(tempDir);
-            }
         }
     }
 
@@ -295,62 +220,158 @@ public class EpubMetadataWriter implements MetadataWriter {
             log.warn("Cover update via URL failed: empty or null URL.");
             return;
         }
-        Path tempDir = null;
         try {
-            File epubFile = new File(bookEntity.getFullFilePath().toUri());
-            tempDir = Files.createTempDirectory("epub_cover_url_" + UUID.randomUUID());
-            try (ZipFile zipFile = new ZipFile(epubFile)) {
-                zipFile.extractAll(tempDir.toString());
-            }
-
-            File opfFile = findOpfFile(tempDir.toFile());
-            if (opfFile == null) {
-                log.warn("OPF file not found in EPUB: {}", epubFile.getName());
-                return;
-            }
-
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            DocumentBuilder builder = dbf.newDocumentBuilder();
-            Document opfDoc = builder.parse(opfFile);
-
             byte[] coverData = loadImage(url);
             if (coverData == null) {
                 log.warn("Failed to load image from URL: {}", url);
                 return;
             }
 
-            applyCoverImageToEpub(tempDir, opfDoc, coverData);
+            Path epubPath = bookEntity.getFullFilePath();
+            rewriteEpub(epubPath, (opfDoc, opfEntryName, replacements) -> {
+                replacements.put(findCoverEntryName(opfDoc, opfEntryName), coverData);
+                return true;
+            });
+            log.info("Cover image updated in EPUB via URL: {}", epubPath.getFileName());
+        } catch (Exception e) {
+            log.warn("Failed to update EPUB with cover from URL: {}", e.getMessage(), e);
+        }
+    }
 
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            transformer.transform(new DOMSource(opfDoc), new StreamResult(opfFile));
+    @Override
+    public BookFileType getSupportedBookType() {
+        return BookFileType.EPUB;
+    }
 
-            File tempEpub = new File(epubFile.getParentFile(), epubFile.getName() + ".tmp");
-            try (ZipFile tempZipFile = new ZipFile(tempEpub)) {
-                addFolderContentsToZip(tempZipFile, tempDir.toFile(), tempDir.toFile());
-            }
+    /**
+     * Applies {@code edit} to the EPUB's OPF and swaps in the rewritten archive.
+     * <p>
+     * The archive is streamed, not extracted: only the OPF and the entries the edit puts into {@code replacements}
+     * are re-encoded, every other entry is copied raw with its original compressed bytes, and {@code mimetype} is
+     * written first and stored as the OCF spec requires. The result goes to a temp file next to the book that
+     * replaces it atomically, so a failed rewrite leaves the original untouched.
+     *
+     * @return false when the edit reported no changes and the file was not rewritten
+     */
+    private boolean rewriteEpub(Path epubPath, OpfEdit edit) throws Exception {
+        Map<String, byte[]> replacements = new LinkedHashMap<>();
+        Path tempFile = null;
+        try {
+            try (ZipFile zipFile = ZipFile.builder().setPath(epubPath).get()) {
+                String opfEntryName = findOpfEntryName(zipFile);
+                if (opfEntryName == null) {
+                    throw new IOException("Could not locate OPF file in EPUB");
+                }
 
-            if (!epubFile.delete()) throw new IOException("Could not delete original EPUB");
-            if (!tempEpub.renameTo(epubFile)) throw new IOException("Could not rename temp EPUB");
+                Document opfDoc;
+                try (InputStream in = zipFile.getInputStream(zipFile.getEntry(opfEntryName))) {
+                    DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+                    dbf.setNamespaceAware(true);
+                    opfDoc = dbf.newDocumentBuilder().parse(in);
+                }
 
-            log.info("Cover image updated in EPUB via URL: {}", epubFile.getName());
-        } catch (Exception e) {
-            log.warn("Failed to update EPUB with cover from URL: {}", e.getMessage(), e);
+                if (!edit.apply(opfDoc, opfEntryName, replacements)) {
+                    return false;
+                }
+                replacements.put(opfEntryName, serialize(opfDoc));
+
+                tempFile = Files.createTempFile(epubPath.toAbsolutePath().getParent(), "." + epubPath.getFileName(), ".tmp");
+                writeArchive(zipFile, tempFile, replacements);
+            }
+            copyPermissions(epubPath, tempFile);
+            atomicReplace(tempFile, epubPath);
+            return true;
         } finally {
-            if (tempDir != null) {
-                deleteDirectoryRecursively(tempDir);
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
             }
         }
     }
 
-    @Override
-    public BookFileType getSupportedBookType() {
-        return BookFileType.EPUB;
+    private static void writeArchive(ZipFile source, Path target, Map<String, byte[]> replacements) throws IOException {
+        Map<String, byte[]> pending = new LinkedHashMap<>(replacements);
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(target)) {
+            ZipArchiveEntry mimetype = source.getEntry(MIMETYPE_ENTRY);
+            byte[] mimetypeReplacement = pending.remove(MIMETYPE_ENTRY);
+            if (mimetypeReplacement == null && mimetype != null && mimetype.getMethod() == ZipArchiveEntry.STORED) {
+                out.addRawArchiveEntry(mimetype, source.getRawInputStream(mimetype));
+            } else {
+                byte[] data = mimetypeReplacement != null ? mimetypeReplacement
+                        : mimetype != null ? readEntry(source, mimetype)
+                        : EPUB_MIMETYPE.getBytes(StandardCharsets.US_ASCII);
+                writeEntry(out, MIMETYPE_ENTRY, data, ZipArchiveEntry.STORED);
+            }
+
+            for (ZipArchiveEntry entry : Collections.list(source.getEntriesInPhysicalOrder())) {
+                String name = entry.getName();
+                if (MIMETYPE_ENTRY.equals(name)) {
+                    continue;
+                }
+                byte[] replacement = pending.remove(name);
+                if (replacement != null) {
+                    writeEntry(out, name, replacement, ZipArchiveEntry.DEFLATED);
+                } else if (!replacements.containsKey(name)) {
+                    out.addRawArchiveEntry(entry, source.getRawInputStream(entry));
+                }
+            }
+
+            for (Map.Entry<String, byte[]> added : pending.entrySet()) {
+                writeEntry(out, added.getKey(), added.getValue(), ZipArchiveEntry.DEFLATED);
+            }
+        }
+    }
+
+    private static void writeEntry(ZipArchiveOutputStream out, String name, byte[] data, int method) throws IOException {
+        ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        entry.setMethod(method);
+        entry.setTime(System.currentTimeMillis());
+        if (method == ZipArchiveEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        out.putArchiveEntry(entry);
+        out.write(data);
+        out.closeArchiveEntry();
+    }
+
+    private static byte[] readEntry(ZipFile zipFile, ZipArchiveEntry entry) throws IOException {
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] serialize(Document opfDoc) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(opfDoc), new StreamResult(out));
+        return out.toByteArray();
     }
 
-    private void applyCoverImageToEpub(Path tempDir, Document opfDoc, byte[] coverData) throws IOException {
+    private static void copyPermissions(Path source, Path target) {
+        try {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+        } catch (UnsupportedOperationException | IOException e) {
+            log.debug("Could not copy file permissions to {}: {}", target, e.getMessage());
+        }
+    }
+
+    private static void atomicReplace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Returns the archive entry name of the manifest's cover image, resolved against the OPF's directory.
+     */
+    private String findCoverEntryName(Document opfDoc, String opfEntryName) throws IOException {
         NodeList manifestList = opfDoc.getElementsByTagNameNS(OPF_NS, "manifest");
         if (manifestList.getLength() == 0) {
             throw new IOException("No <manifest> element found in OPF document.");
@@ -414,47 +435,43 @@ public class EpubMetadataWriter implements MetadataWriter {
             throw new IOException("Cover item has no href attribute");
         }
 
-        Path opfPath;
-        try {
-            opfPath = findOpfPath(tempDir);
-        } catch (ParserConfigurationException | SAXException e) {
-            throw new IOException("Failed to parse container.xml to locate OPF path", e);
-        }
-
-        Path opfDir = opfPath.getParent();
-        Path coverFilePath = opfDir.resolve(decodedCoverHref).normalize();
-
-        Files.createDirectories(coverFilePath.getParent());
-        Files.write(coverFilePath, coverData);
+        return resolveEntryName(opfEntryName, decodedCoverHref);
     }
 
-    private Path findOpfPath(Path tempDir) throws IOException, ParserConfigurationException, SAXException {
-        Path containerXml = tempDir.resolve("META-INF/container.xml");
-        if (!Files.exists(containerXml)) {
-            throw new IOException("container.xml not found at expected location: " + containerXml);
-        }
-
-        Document containerDoc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(containerXml.toFile());
-        Node rootfile = containerDoc.getElementsByTagName("rootfile").item(0);
-        if (rootfile == null) {
-            throw new IOException("No <rootfile> found in container.xml");
-        }
-
-        String opfPath = ((Element) rootfile).getAttribute("full-path");
-        if (opfPath.isBlank()) {
-            throw new IOException("Missing or empty 'full-path' attribute in <rootfile>");
+    private static String resolveEntryName(String opfEntryName, String href) {
+        int slash = opfEntryName.lastIndexOf('/');
+        String base = slash >= 0 ? opfEntryName.substring(0, slash + 1) : "";
+        Deque<String> segments = new ArrayDeque<>();
+        for (String segment : (base + href).split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment)) {
+                segments.pollLast();
+            } else {
+                segments.addLast(segment);
+            }
         }
-
-        return tempDir.resolve(opfPath).normalize();
+        return String.join("/", segments);
     }
 
-    private File findOpfFile(File rootDir) {
-        File[] matches = rootDir.listFiles(path -> path.isFile() && path.getName().endsWith(".opf"));
-        if (matches != null && matches.length > 0) return matches[0];
-        for (File file : Objects.requireNonNull(rootDir.listFiles())) {
-            if (file.isDirectory()) {
-                File child = findOpfFile(file);
-                if (child != null) return child;
+    private static String findOpfEntryName(ZipFile zipFile) throws Exception {
+        ZipArchiveEntry container = zipFile.getEntry(CONTAINER_ENTRY);
+        if (container != null) {
+            try (InputStream in = zipFile.getInputStream(container)) {
+                Document containerDoc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+                Node rootfile = containerDoc.getElementsByTagName("rootfile").item(0);
+                if (rootfile != null) {
+                    String fullPath = ((Element) rootfile).getAttribute("full-path");
+                    if (!fullPath.isBlank() && zipFile.getEntry(fullPath) != null) {
+                        return fullPath;
+                    }
+                }
+            }
+        }
+        for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
+            if (!entry.isDirectory() && entry.getName().endsWith(".opf")) {
+                return entry.getName();
             }
         }
         return null;
@@ -469,19 +486,6 @@ public class EpubMetadataWriter implements MetadataWriter {
         }
     }
 
-    private void addFolderContentsToZip(ZipFile zipFile, File baseDir, File currentDir) throws IOException {
-        File[] files = Objects.requireNonNull(currentDir.listFiles());
-        for (File file : files) {
-            if (file.isDirectory()) {
-                addFolderContentsToZip(zipFile, baseDir, file);
-            } else {
-                ZipParameters params = new ZipParameters();
-                params.setFileNameInZip(baseDir.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/'));
-                zipFile.addFile(file, params);
-            }
-        }
-    }
-
     private void removeMetaByName(Element metadataElement, String name) {
         NodeList metas = metadataElement.getElementsByTagNameNS("*", "meta");
         for (int i = metas.getLength() - 1; i >= 0; i--) {
@@ -595,19 +599,14 @@ public class EpubMetadataWriter implements MetadataWriter {
         return null;
     }
 
-    private void deleteDirectoryRecursively(Path dir) {
-        try (var pathStream = Files.walk(dir)) {
-            pathStream
-                    .sorted(Comparator.reverseOrder())
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            log.warn("Failed to delete temp file/directory: {}", path, e);
-                        }
-                    });
-        } catch (IOException e) {
-            log.warn("Failed to clean up temporary directory: {}", dir, e);
-        }
+    @FunctionalInterface
+    private interface OpfEdit {
+        /**
+         * Edits the parsed OPF in place and puts any other entries to rewrite, keyed by entry name, into
+         * {@code replacements}.
+         *
+         * @return true when anything changed
+         */
+        boolean apply(Document opfDoc, String opfEntryName, Map<String, byte[]> replacements) throws Exception;
     }
 }
@@ -1,12 +1,16 @@
 package com.adityachandel.booklore.service.metadata.writer;
 
+import com.adityachandel.booklore.config.AppProperties;
 import com.adityachandel.booklore.model.MetadataClearFlags;
 import com.adityachandel.booklore.model.entity.BookMetadataEntity;
 import com.adityachandel.booklore.model.enums.BookFileType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
 import org.apache.pdfbox.pdmodel.PDDocumentInformation;
 import org.apache.pdfbox.pdmodel.common.PDMetadata;
 import org.apache.xmpbox.XMPMetadata;
@@ -27,21 +31,58 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embeds metadata into the PDF Info dictionary and XMP stream.
+ * <p>
+ * By default an edit is written as a PDF incremental update: only the changed Info dictionary, catalog and XMP
+ * stream are appended after the existing {@code %%EOF}, so a metadata change on a large scan costs a few KB of
+ * writes instead of a full rewrite, and existing signatures stay valid. Once the file's cross-reference chain holds
+ * {@code app.pdf-metadata.max-incremental-updates} updates, by any writer, it is compacted with a full save. Encrypted PDFs are always fully saved because removing
+ * their security cannot be expressed as an increment.
+ * <p>
+ * An appended update leaves the sampled blocks {@link com.adityachandel.booklore.service.file.FileFingerprint}
+ * hashes untouched unless the file crosses a sample offset, so a rewritten book usually keeps its hash. Callers
+ * still recompute it after every write.
+ */
 @Slf4j
 @Component
 public class PdfMetadataWriter implements MetadataWriter {
 
+    private static final Pattern PREV_OFFSET = Pattern.compile("/Prev\\s+(\\d+)");
+    private static final Pattern STARTXREF_OFFSET = Pattern.compile("startxref\\s+(\\d+)");
+    private static final String STARTXREF = "startxref";
+    private static final int TAIL_LENGTH = 1024;
+    private static final int DICTIONARY_LENGTH = 4096;
+    private static final int SCAN_CHUNK = 64 * 1024;
+
+    private final AppProperties.PdfMetadata properties;
+    private final MeterRegistry meterRegistry;
+
+    public PdfMetadataWriter(AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.properties = appProperties.getPdfMetadata();
+        this.meterRegistry = meterRegistry;
+    }
+
     @Override
     public void writeMetadataToFile(File file, BookMetadataEntity metadataEntity, String thumbnailUrl, MetadataClearFlags clear) {
         if (!file.exists() || !file.getName().toLowerCase().endsWith(".pdf")) {
@@ -50,6 +91,33 @@ public class PdfMetadataWriter implements MetadataWriter {
         }
 
         Path filePath = file.toPath();
+        long originalLength;
+        byte[] increment;
+        try (PDDocument pdf = Loader.loadPDF(file)) {
+            applyMetadataToDocument(pdf, metadataEntity, clear);
+            if (!canAppendUpdate(pdf, filePath)) {
+                saveFull(pdf, filePath);
+                return;
+            }
+            markForIncrementalUpdate(pdf);
+            originalLength = Files.size(filePath);
+            increment = captureIncrementalUpdate(pdf, originalLength);
+        } catch (Exception e) {
+            log.warn("Failed to write metadata to PDF {}: {}", file.getName(), e.getMessage(), e);
+            return;
+        }
+
+        try {
+            appendIncrementalUpdate(filePath, originalLength, increment);
+            recordWrite("incremental", increment.length);
+            log.info("Appended {} byte metadata update to PDF: {}", increment.length, file.getName());
+        } catch (IOException e) {
+            log.warn("Failed to append metadata update to PDF {}: {}", file.getName(), e.getMessage(), e);
+        }
+    }
+
+    private void saveFull(PDDocument pdf, Path filePath) {
+        String fileName = filePath.getFileName().toString();
         Path backupPath = null;
         boolean backupCreated = false;
         File tempFile = null;
@@ -60,24 +128,25 @@ public class PdfMetadataWriter implements MetadataWriter {
             Files.copy(filePath, backupPath, StandardCopyOption.REPLACE_EXISTING);
             backupCreated = true;
         } catch (IOException e) {
-            log.warn("Could not create PDF temp backup for {}: {}", file.getName(), e.getMessage());
+            log.warn("Could not create PDF temp backup for {}: {}", fileName, e.getMessage());
         }
 
-        try (PDDocument pdf = Loader.loadPDF(file)) {
+        try {
             pdf.setAllSecurityToBeRemoved(true);
-            applyMetadataToDocument(pdf, metadataEntity, clear);
             tempFile = File.createTempFile("pdfmeta-", ".pdf");
             pdf.save(tempFile);
+            long written = tempFile.length();
             Files.move(tempFile.toPath(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            log.info("Successfully embedded metadata into PDF: {}", file.getName());
+            recordWrite("full", written);
+            log.info("Successfully embedded metadata into PDF: {}", fileName);
         } catch (Exception e) {
-            log.warn("Failed to write metadata to PDF {}: {}", file.getName(), e.getMessage(), e);
+            log.warn("Failed to write metadata to PDF {}: {}", fileName, e.getMessage(), e);
             if (backupCreated) {
                 try {
                     Files.copy(backupPath, filePath, StandardCopyOption.REPLACE_EXISTING);
-                    log.info("Restored PDF {} from temp backup after failure", file.getName());
+                    log.info("Restored PDF {} from temp backup after failure", fileName);
                 } catch (IOException ex) {
-                    log.error("Failed to restore PDF temp backup for {}: {}", file.getName(), ex.getMessage(), ex);
+                    log.error("Failed to restore PDF temp backup for {}: {}", fileName, ex.getMessage(), ex);
                 }
             }
         } finally {
@@ -88,9 +157,171 @@ public class PdfMetadataWriter implements MetadataWriter {
                 try {
                     Files.deleteIfExists(backupPath);
                 } catch (IOException e) {
-                    log.warn("Could not delete PDF temp backup for {}: {}", file.getName(), e.getMessage());
+                    log.warn("Could not delete PDF temp backup for {}: {}", fileName, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean canAppendUpdate(PDDocument pdf, Path filePath) throws IOException {
+        if (!properties.isIncrementalSave() || pdf.isEncrypted()) {
+            return false;
+        }
+        int maxUpdates = properties.getMaxIncrementalUpdates();
+        if (maxUpdates <= 0 || countIncrementalUpdates(filePath) < maxUpdates) {
+            return true;
+        }
+        // Compacting would invalidate existing signatures, keep appending instead
+        return !pdf.getSignatureDictionaries().isEmpty();
+    }
+
+    /**
+     * Number of incremental updates appended to the file, i.e. the length of the /Prev chain that starts at the last
+     * {@code startxref}. Both classic trailers and cross-reference streams are followed. A linearized file counts its
+     * first-page cross-reference section as one update. A chain that cannot be followed counts as too long, so the
+     * file gets compacted.
+     */
+    static int countIncrementalUpdates(Path filePath) {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Matcher startxref = STARTXREF_OFFSET.matcher(read(channel, Math.max(0, size - TAIL_LENGTH), TAIL_LENGTH));
+            Long offset = null;
+            while (startxref.find()) {
+                offset = Long.parseLong(startxref.group(1));
+            }
+            if (offset == null) {
+                return Integer.MAX_VALUE;
+            }
+            Set<Long> visited = new HashSet<>();
+            int updates = 0;
+            while (true) {
+                if (offset >= size || !visited.add(offset)) {
+                    return Integer.MAX_VALUE;
+                }
+                Long previous = previousXrefOffset(channel, offset, size);
+                if (previous == null) {
+                    return updates;
                 }
+                updates++;
+                offset = previous;
             }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Unable to follow the cross-reference chain of {}: {}", filePath, e.getMessage());
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static Long previousXrefOffset(FileChannel channel, long offset, long size) throws IOException {
+        long dictionaryStart = offset;
+        String end = "stream";
+        if (read(channel, offset, 64).stripLeading().startsWith("xref")) {
+            dictionaryStart = indexOf(channel, offset, size, "trailer");
+            if (dictionaryStart < 0) {
+                throw new IOException("No trailer after the cross-reference table at " + offset);
+            }
+            end = STARTXREF;
+        }
+        String dictionary = read(channel, dictionaryStart, DICTIONARY_LENGTH);
+        int endIndex = dictionary.indexOf(end);
+        Matcher prev = PREV_OFFSET.matcher(endIndex < 0 ? dictionary : dictionary.substring(0, endIndex));
+        return prev.find() ? Long.parseLong(prev.group(1)) : null;
+    }
+
+    private static long indexOf(FileChannel channel, long from, long size, String keyword) throws IOException {
+        for (long position = from; position < size; position += SCAN_CHUNK - keyword.length()) {
+            int index = read(channel, position, SCAN_CHUNK).indexOf(keyword);
+            if (index >= 0) {
+                return position + index;
+            }
+        }
+        return -1;
+    }
+
+    private static String read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - position)));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static void markForIncrementalUpdate(PDDocument pdf) {
+        pdf.getDocumentInformation().getCOSObject().setNeedToBeUpdated(true);
+        PDDocumentCatalog catalog = pdf.getDocumentCatalog();
+        catalog.getCOSObject().setNeedToBeUpdated(true);
+        PDMetadata metadata = catalog.getMetadata();
+        if (metadata != null) {
+            metadata.getCOSObject().setNeedToBeUpdated(true);
+        }
+    }
+
+    /**
+     * PDFBox writes an incremental save as a copy of the original file followed by the update, so the copied
+     * prefix is discarded here and only the update is kept in memory.
+     */
+    private static byte[] captureIncrementalUpdate(PDDocument pdf, long originalLength) throws IOException {
+        IncrementCapture capture = new IncrementCapture(originalLength);
+        pdf.saveIncremental(capture);
+        if (capture.skipped != originalLength) {
+            throw new IOException("Incremental save did not reproduce the original " + originalLength + " bytes");
+        }
+        return capture.increment.toByteArray();
+    }
+
+    private static void appendIncrementalUpdate(Path filePath, long originalLength, byte[] increment) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.WRITE)) {
+            if (channel.size() != originalLength) {
+                throw new IOException("PDF changed while its metadata update was prepared");
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(increment);
+                long position = originalLength;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                channel.truncate(originalLength);
+                throw e;
+            }
+        }
+    }
+
+    private void recordWrite(String mode, long writtenBytes) {
+        DistributionSummary.builder("booklore.metadata.write.rewritten")
+                .baseUnit("bytes")
+                .description("Bytes decoded and re-encoded per file metadata write")
+                .tags("format", "pdf", "mode", mode)
+                .register(meterRegistry)
+                .record(writtenBytes);
+    }
+
+    private static final class IncrementCapture extends OutputStream {
+
+        private final long prefixLength;
+        private final ByteArrayOutputStream increment = new ByteArrayOutputStream();
+        private long skipped;
+
+        private IncrementCapture(long prefixLength) {
+            this.prefixLength = prefixLength;
+        }
+
+        @Override
+        public void write(int b) {
+            if (skipped < prefixLength) {
+                skipped++;
+            } else {
+                increment.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            int skip = (int) Math.min(len, prefixLength - skipped);
+            skipped += skip;
+            increment.write(b, off + skip, len - skip);
         }
     }
 
@@ -12,6 +12,7 @@ import com.adityachandel.booklore.service.metadata.MetadataMatchService;
 import com.adityachandel.booklore.util.BookUtils;
 import com.adityachandel.booklore.util.FileService;
 import com.adityachandel.booklore.util.FileUtils;
+import com.adityachandel.booklore.util.ImageProcessor;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -43,6 +44,7 @@ public class AppMigrationService {
     private MetadataMatchService metadataMatchService;
     private AppProperties appProperties;
     private FileService fileService;
+    private ImageProcessor imageProcessor;
 
     @Transactional
     public void populateSearchTextOnce() {
@@ -175,48 +177,49 @@ public class AppMigrationService {
 
         try {
             if (Files.exists(thumbsDir)) {
+                List<Path> thumbnails;
                 try (var stream = Files.walk(thumbsDir)) {
-                    stream.filter(Files::isRegularFile)
-                            .forEach(path -> {
-                                BufferedImage originalImage = null;
-                                BufferedImage resized = null;
-                                try {
-                                    // Load original image
-                                    originalImage = ImageIO.read(path.toFile());
-                                    if (originalImage == null) {
-                                        log.warn("Skipping non-image file: {}", path);
-                                        return;
-                                    }
-
-                                    // Extract bookId from folder structure
-                                    Path relative = thumbsDir.relativize(path);       // e.g., "11/f.jpg"
-                                    String bookId = relative.getParent().toString();  // "11"
-
-                                    Path bookDir = imagesDir.resolve(bookId);
-                                    Files.createDirectories(bookDir);
-
-                                    // Copy original to cover.jpg
-                                    Path coverFile = bookDir.resolve("cover.jpg");
-                                    ImageIO.write(originalImage, "jpg", coverFile.toFile());
-
-                                    // Resize and save thumbnail.jpg
-                                    resized = FileService.resizeImage(originalImage, 250, 350);
-                                    Path thumbnailFile = bookDir.resolve("thumbnail.jpg");
-                                    ImageIO.write(resized, "jpg", thumbnailFile.toFile());
-
-                                    log.debug("Processed book {}: cover={} thumbnail={}", bookId, coverFile, thumbnailFile);
-                                } catch (IOException e) {
-                                    log.error("Error processing file {}", path, e);
-                                    throw new UncheckedIOException(e);
-                                } finally {
-                                    if (originalImage != null) {
-                                        originalImage.flush();
-                                    }
-                                    if (resized != null) {
-                                        resized.flush();
-                                    }
-                                }
-                            });
+                    thumbnails = stream.filter(Files::isRegularFile).toList();
+                }
+                int failed = imageProcessor.processAll(thumbnails, path -> {
+                    BufferedImage originalImage = null;
+                    BufferedImage resized = null;
+                    try {
+                        // Load original image
+                        originalImage = ImageIO.read(path.toFile());
+                        if (originalImage == null) {
+                            log.warn("Skipping non-image file: {}", path);
+                            return;
+                        }
+
+                        // Extract bookId from folder structure
+                        Path relative = thumbsDir.relativize(path);       // e.g., "11/f.jpg"
+                        String bookId = relative.getParent().toString();  // "11"
+
+                        Path bookDir = imagesDir.resolve(bookId);
+                        Files.createDirectories(bookDir);
+
+                        // Copy original to cover.jpg
+                        Path coverFile = bookDir.resolve("cover.jpg");
+                        ImageIO.write(originalImage, "jpg", coverFile.toFile());
+
+                        // Resize and save thumbnail.jpg
+                        resized = FileService.resizeImage(originalImage, 250, 350);
+                        Path thumbnailFile = bookDir.resolve("thumbnail.jpg");
+                        ImageIO.write(resized, "jpg", thumbnailFile.toFile());
+
+                        log.debug("Processed book {}: cover={} thumbnail={}", bookId, coverFile, thumbnailFile);
+                    } finally {
+                        if (originalImage != null) {
+                            originalImage.flush();
+                        }
+                        if (resized != null) {
+                            resized.flush();
+                        }
+                    }
+                });
+                if (failed > 0) {
+                    throw new IOException(failed + " of " + thumbnails.size() + " thumbnails could not be migrated");
                 }
 
                 // Delete old thumbs directory
@@ -0,0 +1,223 @@
+package com.adityachandel.booklore.service.monitoring;
+
+import com.adityachandel.booklore.config.AppProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches folders by listing them every {@code app.file-watcher.poll-interval-seconds} and comparing the entries
+ * with the previous listing. Used instead of the {@link WatchService} for folders on NFS and SMB mounts, where
+ * inotify only reports changes made by this host.
+ * <p>
+ * Differences are published as the same {@link FileChangeEvent}s {@link MonitoringTask} produces: new entries
+ * as CREATE, missing ones as DELETE and files whose size or modification time changed as MODIFY.
+ * <p>
+ * A change only shows up once per poll interval, far less often than the watcher's quiet period, so a book still
+ * being copied onto the share would look finished between two listings. New entries are therefore published once
+ * two consecutive listings agree on them: a file must keep its size and modification time, a folder those of every
+ * file below it. An entry that disappears again before that is not reported at all.
+ */
+@Slf4j
+@Component
+public class DirectoryPoller {
+
+    private static final Set<String> NETWORK_FILE_SYSTEMS = Set.of(
+            "nfs", "nfs4", "cifs", "smb3", "smbfs", "9p", "afs", "ceph", "glusterfs", "fuse.glusterfs",
+            "fuse.sshfs", "fuse.rclone", "davfs", "fuse.davfs2");
+    private static final long DIRECTORY = -1L;
+    private static final long UNREADABLE = -2L;
+    // Listing of a folder that could not be read yet, the first successful listing becomes its baseline
+    private static final Map<Path, Long> UNKNOWN = Map.of();
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppProperties.FileWatcher config;
+    private final Map<Path, Map<Path, Long>> listings = new ConcurrentHashMap<>();
+    // New entries not published yet, with their signature in the latest listing
+    private final Map<Path, Long> unsettled = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("directory-poller").daemon().factory());
+
+    public DirectoryPoller(ApplicationEventPublisher eventPublisher, AppProperties appProperties) {
+        this.eventPublisher = eventPublisher;
+        this.config = appProperties.getFileWatcher();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (config.getPolling() == AppProperties.FileWatcher.PollingMode.NEVER) {
+            return;
+        }
+        long interval = Math.max(1, config.getPollIntervalSeconds());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (Exception e) {
+                log.error("Error while polling watched folders", e);
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Whether folders under {@code path} have to be polled, per {@code app.file-watcher.polling}.
+     */
+    public boolean shouldPoll(Path path) {
+        return switch (config.getPolling()) {
+            case ALWAYS -> true;
+            case NEVER -> false;
+            case AUTO -> isNetworkFileSystem(path);
+        };
+    }
+
+    private static boolean isNetworkFileSystem(Path path) {
+        try {
+            String type = Files.getFileStore(path).type();
+            if (NETWORK_FILE_SYSTEMS.contains(type)) {
+                log.info("Folder '{}' is on a {} mount, it will be polled for changes", path, type);
+                return true;
+            }
+        } catch (IOException e) {
+            log.debug("Could not determine the file system of '{}': {}", path, e.getMessage());
+        }
+        return false;
+    }
+
+    public void register(Path directory) {
+        listings.computeIfAbsent(directory, dir -> {
+            try {
+                return list(dir);
+            } catch (IOException e) {
+                log.warn("Failed to list polled folder '{}': {}", dir, e.getMessage());
+                return UNKNOWN;
+            }
+        });
+    }
+
+    public void unregister(Path directory) {
+        listings.remove(directory);
+        unsettled.keySet().removeIf(entry -> directory.equals(entry.getParent()));
+    }
+
+    public boolean isRegistered(Path directory) {
+        return listings.containsKey(directory);
+    }
+
+    void poll() {
+        for (Path directory : listings.keySet()) {
+            Map<Path, Long> previous = listings.get(directory);
+            if (previous == null) {
+                continue;
+            }
+            if (!Files.isDirectory(directory)) {
+                unregister(directory);
+                eventPublisher.publishEvent(new WatchKeyInvalidatedEvent(this, directory));
+                continue;
+            }
+            Map<Path, Long> current;
+            try {
+                current = list(directory);
+            } catch (IOException e) {
+                log.warn("Failed to list polled folder '{}': {}", directory, e.getMessage());
+                continue;
+            }
+            if (!listings.replace(directory, previous, current) || previous == UNKNOWN) {
+                continue;
+            }
+            current.forEach((entry, signature) -> {
+                Long before = previous.get(entry);
+                if (before == null || unsettled.containsKey(entry)) {
+                    settle(entry, signature, directory);
+                } else if (!before.equals(signature)) {
+                    publish(entry, StandardWatchEventKinds.ENTRY_MODIFY, directory);
+                }
+            });
+            previous.keySet().stream()
+                    .filter(entry -> !current.containsKey(entry))
+                    .filter(entry -> unsettled.remove(entry) == null)
+                    .forEach(entry -> publish(entry, StandardWatchEventKinds.ENTRY_DELETE, directory));
+        }
+    }
+
+    /**
+     * Publishes the new {@code entry} as created once it has the same signature as in the previous listing.
+     */
+    private void settle(Path entry, long signature, Path directory) {
+        long current = signature == DIRECTORY ? treeSignature(entry) : signature;
+        Long last = unsettled.put(entry, current);
+        if (last != null && last == current && current != UNREADABLE) {
+            unsettled.remove(entry);
+            publish(entry, StandardWatchEventKinds.ENTRY_CREATE, directory);
+        }
+    }
+
+    private void publish(Path path, WatchEvent.Kind<?> kind, Path directory) {
+        eventPublisher.publishEvent(new FileChangeEvent(this, path, kind, directory));
+    }
+
+    /**
+     * The entries of {@code directory}, each with a signature that changes whenever a file's size or modification
+     * time does. Sub-folders are polled on their own, so their signature is constant, and an entry whose attributes
+     * cannot be read is kept rather than reported as deleted.
+     */
+    private static Map<Path, Long> list(Path directory) throws IOException {
+        Map<Path, Long> entries = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                    entries.put(entry, attributes.isDirectory()
+                            ? DIRECTORY
+                            : attributes.lastModifiedTime().toMillis() * 31 + attributes.size());
+                } catch (IOException e) {
+                    log.debug("Could not read attributes of '{}': {}", entry, e.getMessage());
+                    entries.put(entry, UNREADABLE);
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * A signature of the files below {@code folder} that changes whenever one of them is added, removed or written.
+     */
+    private static long treeSignature(Path folder) {
+        long[] signature = {0};
+        try {
+            Files.walkFileTree(folder, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    signature[0] += (file.hashCode() * 31L + attributes.lastModifiedTime().toMillis()) * 31 + attributes.size();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    signature[0] += file.hashCode() * 31L + UNREADABLE;
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Could not read the contents of '{}': {}", folder, e.getMessage());
+            return UNREADABLE;
+        }
+        return signature[0];
+    }
+}
@@ -24,6 +24,7 @@ public class MonitoringService {
     private final LibraryFileEventProcessor libraryFileEventProcessor;
     private final WatchService watchService;
     private final MonitoringTask monitoringTask;
+    private final DirectoryPoller directoryPoller;
 
     private final BlockingQueue<FileChangeEvent> eventQueue = new LinkedBlockingQueue<>();
     private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
@@ -32,11 +33,14 @@ public class MonitoringService {
     private final Map<Path, WatchKey> registeredWatchKeys = new ConcurrentHashMap<>();
     private final Map<Path, Long> pathToLibraryIdMap = new ConcurrentHashMap<>();
     private final Map<Long, Boolean> libraryWatchStatusMap = new ConcurrentHashMap<>();
+    // Whether a library's folders are polled, decided by the file system of the first folder registered for it
+    private final Map<Long, Boolean> libraryPollingMap = new ConcurrentHashMap<>();
 
-    public MonitoringService(LibraryFileEventProcessor libraryFileEventProcessor, WatchService watchService, MonitoringTask monitoringTask) {
+    public MonitoringService(LibraryFileEventProcessor libraryFileEventProcessor, WatchService watchService, MonitoringTask monitoringTask, DirectoryPoller directoryPoller) {
         this.libraryFileEventProcessor = libraryFileEventProcessor;
         this.watchService = watchService;
         this.monitoringTask = monitoringTask;
+        this.directoryPoller = directoryPoller;
     }
 
     @PostConstruct
@@ -97,17 +101,22 @@ public class MonitoringService {
         }
 
         libraryWatchStatusMap.put(libraryId, false);
+        libraryPollingMap.remove(libraryId);
         log.debug("Unregistered library {} from monitoring", libraryId);
     }
 
     public synchronized boolean registerPath(Path path, Long libraryId) {
         try {
             if (monitoredPaths.add(path)) {
-                WatchKey key = path.register(watchService,
-                        StandardWatchEventKinds.ENTRY_CREATE,
-                        StandardWatchEventKinds.ENTRY_MODIFY,
-                        StandardWatchEventKinds.ENTRY_DELETE);
-                registeredWatchKeys.put(path, key);
+                if (libraryPollingMap.computeIfAbsent(libraryId, id -> directoryPoller.shouldPoll(path))) {
+                    directoryPoller.register(path);
+                } else {
+                    WatchKey key = path.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+                    registeredWatchKeys.put(path, key);
+                }
                 pathToLibraryIdMap.put(path, libraryId);
                 return true;
             }
@@ -125,6 +134,7 @@ public class MonitoringService {
         if (monitoredPaths.remove(path)) {
             WatchKey key = registeredWatchKeys.remove(path);
             if (key != null) key.cancel();
+            directoryPoller.unregister(path);
             pathToLibraryIdMap.remove(path);
             if (logUnregister) {
                 log.debug("Unregistered path: {}", path);
@@ -147,6 +157,13 @@ public class MonitoringService {
         Path fullPath = event.getFilePath();
         WatchEvent.Kind<?> kind = event.getEventKind();
 
+        if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+            // Only used to tell that a new book is still being written, which postpones its import
+            if (isRelevantBookFile(fullPath)) {
+                queueEvent(event, fullPath, kind);
+            }
+            return;
+        }
         if (kind != StandardWatchEventKinds.ENTRY_CREATE && kind != StandardWatchEventKinds.ENTRY_DELETE) return;
 
         boolean isDir = kind == StandardWatchEventKinds.ENTRY_CREATE
@@ -168,6 +185,7 @@ public class MonitoringService {
             pathToLibraryIdMap.remove(invalidPath);
             WatchKey key = registeredWatchKeys.remove(invalidPath);
             if (key != null) key.cancel();
+            directoryPoller.unregister(invalidPath);
         }
     }
 
@@ -338,7 +338,10 @@ public class OpdsBookService {
     private Page<Book> searchByMetadataPageInternal(String text, int page, int size) {
         Pageable pageable = PageRequest.of(Math.max(page, 0), size);
 
-        Page<Long> idPage = bookOpdsRepository.findBookIdsByMetadataSearch(text, pageable);
+        String fullTextQuery = BookUtils.buildFullTextQuery(text);
+        Page<Long> idPage = fullTextQuery != null
+                ? bookOpdsRepository.findBookIdsByFullTextSearch(fullTextQuery, pageable)
+                : bookOpdsRepository.findBookIdsByMetadataSearch(text, pageable);
         if (idPage.isEmpty()) {
             return new PageImpl<>(List.of(), pageable, 0);
         }
@@ -350,7 +353,10 @@ public class OpdsBookService {
     private Page<Book> searchByMetadataInLibrariesPageInternal(String text, Set<Long> libraryIds, int page, int size) {
         Pageable pageable = PageRequest.of(Math.max(page, 0), size);
 
-        Page<Long> idPage = bookOpdsRepository.findBookIdsByMetadataSearchAndLibraryIds(text, libraryIds, pageable);
+        String fullTextQuery = BookUtils.buildFullTextQuery(text);
+        Page<Long> idPage = fullTextQuery != null
+                ? bookOpdsRepository.findBookIdsByFullTextSearchAndLibraryIds(fullTextQuery, libraryIds, pageable)
+                : bookOpdsRepository.findBookIdsByMetadataSearchAndLibraryIds(text, libraryIds, pageable);
         if (idPage.isEmpty()) {
             return new PageImpl<>(List.of(), pageable, 0);
         }
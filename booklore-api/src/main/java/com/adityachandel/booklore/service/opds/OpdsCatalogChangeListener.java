@@ -0,0 +1,122 @@
+package com.adityachandel.booklore.service.opds;
+
+import com.adityachandel.booklore.model.entity.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds {@link OpdsCatalogStamps} from Hibernate's post-write events, so every entity or collection change that can
+ * show up in an OPDS feed is tracked without the services making it having to know about feeds.
+ * <p>
+ * Bulk JPQL and native updates bypass these events, their callers record the change themselves.
+ */
+@Component
+@RequiredArgsConstructor
+public class OpdsCatalogChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final OpdsCatalogStamps catalogStamps;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        entityChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        entityChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        entityChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void collectionChanged(AbstractCollectionEvent event) {
+        Object owner = event.getAffectedOwnerOrNull();
+        if (owner == null) {
+            // The owner is no longer in the session, so there is no telling what the collection belonged to
+            catalogStamps.libraryChanged(null);
+            return;
+        }
+        entityChanged(owner);
+    }
+
+    void entityChanged(Object entity) {
+        switch (entity) {
+            case BookEntity book -> catalogStamps.libraryChanged(book.getLibrary() != null ? book.getLibrary().getId() : null);
+            case BookMetadataEntity metadata -> catalogStamps.libraryChanged(libraryIdOf(metadata));
+            case AuthorEntity ignored -> catalogStamps.libraryChanged(null);
+            case CategoryEntity ignored -> catalogStamps.libraryChanged(null);
+            case BookMetadataAuthorMapping ignored -> catalogStamps.libraryChanged(null);
+            case BookMetadataCategoryMapping ignored -> catalogStamps.libraryChanged(null);
+            case LibraryEntity library -> catalogStamps.libraryChanged(library.getId());
+            case ShelfEntity shelf -> {
+                catalogStamps.shelfChanged(shelf.getId());
+                catalogStamps.userChanged(shelf.getUser() != null ? shelf.getUser().getId() : null);
+            }
+            case MagicShelfEntity ignored -> catalogStamps.magicShelvesChanged();
+            case BookLoreUserEntity user -> catalogStamps.userChanged(user.getId());
+            case UserPermissionsEntity permissions -> catalogStamps.userChanged(permissions.getUser() != null ? permissions.getUser().getId() : null);
+            case OpdsUserV2Entity opdsUser -> catalogStamps.userChanged(opdsUser.getUser() != null ? opdsUser.getUser().getId() : null);
+            case UserBookProgressEntity progress -> catalogStamps.userChanged(progress.getUser() != null ? progress.getUser().getId() : null);
+            case null, default -> {
+            }
+        }
+    }
+
+    /**
+     * The book's library when it is loaded anyway, initializing a proxy in the middle of a flush is not an option.
+     */
+    private Long libraryIdOf(BookMetadataEntity metadata) {
+        if (!Hibernate.isPropertyInitialized(metadata, "book")) {
+            return null;
+        }
+        BookEntity book = metadata.getBook();
+        if (book == null || !Hibernate.isInitialized(book) || book.getLibrary() == null) {
+            return null;
+        }
+        return book.getLibrary().getId();
+    }
+}
@@ -0,0 +1,162 @@
+package com.adityachandel.booklore.service.opds;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modification stamps of what the OPDS feeds are built from, so a feed's validator costs a few map lookups instead of
+ * loading the feed.
+ * <p>
+ * A change bumps the stamp of its {@link Scope} once its transaction commits: a library whenever one of its books,
+ * their metadata or shelf memberships change, a shelf, the magic shelves, or a user whose permissions, libraries,
+ * shelves, OPDS settings or reading progress change (magic shelf rules can match on read status and rating). Stamps come from one strictly increasing millisecond clock, so the latest stamp
+ * among the scopes a feed depends on moves whenever any of them does and doubles as the feed's last modification
+ * time. Changes that cannot cheaply be tied to a library, such as an author rename, bump every library.
+ * <p>
+ * Stamps are kept in memory and start at the application's start time, so after a restart clients fetch each feed
+ * once more.
+ */
+@Service
+public class OpdsCatalogStamps {
+
+    private static final Scope CATALOG = new Scope(Kind.CATALOG, null);
+    private static final Scope EVERY_LIBRARY = new Scope(Kind.LIBRARY, null);
+    private static final Scope MAGIC_SHELVES = new Scope(Kind.MAGIC_SHELVES, null);
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    private final long startedAt = clock.get();
+    private final Map<Scope, Long> stamps = new ConcurrentHashMap<>();
+
+    public enum Kind {
+        CATALOG, LIBRARY, SHELF, MAGIC_SHELVES, USER
+    }
+
+    public record Scope(Kind kind, Long id) {
+
+        /**
+         * Every book of every library, and the list of libraries itself.
+         */
+        public static Scope catalog() {
+            return CATALOG;
+        }
+
+        public static Scope library(Long libraryId) {
+            return new Scope(Kind.LIBRARY, libraryId);
+        }
+
+        public static Scope shelf(Long shelfId) {
+            return new Scope(Kind.SHELF, shelfId);
+        }
+
+        public static Scope magicShelves() {
+            return MAGIC_SHELVES;
+        }
+
+        public static Scope user(Long userId) {
+            return new Scope(Kind.USER, userId);
+        }
+    }
+
+    /**
+     * Records a change of the library's books, or of any library's books when {@code libraryId} is {@code null}.
+     */
+    public void libraryChanged(Long libraryId) {
+        changed(libraryId != null ? Scope.library(libraryId) : EVERY_LIBRARY);
+    }
+
+    public void shelfChanged(Long shelfId) {
+        if (shelfId != null) {
+            changed(Scope.shelf(shelfId));
+        }
+    }
+
+    public void magicShelvesChanged() {
+        changed(MAGIC_SHELVES);
+    }
+
+    public void userChanged(Long userId) {
+        if (userId != null) {
+            changed(Scope.user(userId));
+        }
+    }
+
+    /**
+     * The latest stamp among {@code scopes}, in epoch milliseconds. Scopes that never changed count as changed at
+     * start-up.
+     */
+    public long latest(Scope... scopes) {
+        long latest = startedAt;
+        for (Scope scope : scopes) {
+            latest = Math.max(latest, stampOf(scope));
+            if (scope.kind() == Kind.LIBRARY) {
+                latest = Math.max(latest, stampOf(EVERY_LIBRARY));
+            }
+        }
+        return latest;
+    }
+
+    private long stampOf(Scope scope) {
+        return stamps.getOrDefault(scope, startedAt);
+    }
+
+    private void changed(Scope scope) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(Set.of(scope));
+            return;
+        }
+        transactionScope().add(scope);
+    }
+
+    private void bump(Set<Scope> scopes) {
+        long stamp = clock.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        for (Scope scope : scopes) {
+            stamps.merge(scope, stamp, Math::max);
+            if (scope.kind() == Kind.LIBRARY) {
+                stamps.merge(CATALOG, stamp, Math::max);
+            }
+        }
+    }
+
+    /**
+     * The scopes changed by the current transaction, bumped together once it commits. Readers polling in between
+     * still see the old stamps with the old data, and a rolled back transaction bumps nothing.
+     */
+    private Set<Scope> transactionScope() {
+        @SuppressWarnings("unchecked")
+        Set<Scope> scope = (Set<Scope>) TransactionSynchronizationManager.getResource(this);
+        if (scope != null) {
+            return scope;
+        }
+        Set<Scope> created = new HashSet<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(OpdsCatalogStamps.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(OpdsCatalogStamps.this, created);
+            }
+
+            @Override
+            public void afterCommit() {
+                bump(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(OpdsCatalogStamps.this);
+            }
+        });
+        return created;
+    }
+}
@@ -5,22 +5,43 @@ import com.adityachandel.booklore.config.security.userdetails.OpdsUserDetails;
 import com.adityachandel.booklore.model.dto.Book;
 import com.adityachandel.booklore.model.dto.Library;
 import com.adityachandel.booklore.model.dto.MagicShelf;
+import com.adityachandel.booklore.model.entity.ShelfEntity;
 import com.adityachandel.booklore.model.enums.OpdsSortOrder;
 import com.adityachandel.booklore.service.MagicShelfService;
+import com.adityachandel.booklore.service.opds.OpdsCatalogStamps.Scope;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
-
-import java.time.format.DateTimeFormatter;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
+import static com.adityachandel.booklore.service.opds.OpdsFeedWriter.ACQUISITION_TYPE;
+import static com.adityachandel.booklore.service.opds.OpdsFeedWriter.NAVIGATION_TYPE;
+
+/**
+ * Builds the OPDS feeds. Each feed is written straight to the response as it is produced, and except for the random
+ * surprise feed carries an {@code ETag} and {@code Last-Modified} derived from {@link OpdsCatalogStamps}, so a reader
+ * revalidating an unchanged feed gets a 304 before anything is loaded.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OpdsFeedService {
 
+    public static final String NAVIGATION_MEDIA_TYPE = OpdsFeedWriter.NAVIGATION_TYPE + ";charset=utf-8";
+    public static final String ACQUISITION_MEDIA_TYPE = OpdsFeedWriter.ACQUISITION_TYPE + ";charset=utf-8";
+
     private static final int DEFAULT_PAGE_SIZE = 50;
     private static final int MAX_PAGE_SIZE = 100;
 
@@ -28,297 +49,128 @@ public class OpdsFeedService {
     private final OpdsBookService opdsBookService;
     private final MagicShelfService magicShelfService;
     private final MagicShelfBookService magicShelfBookService;
+    private final OpdsCatalogStamps catalogStamps;
 
-    public String generateRootNavigation(HttpServletRequest request) {
-        var feed = new StringBuilder("""
-                <?xml version="1.0" encoding="UTF-8"?>
-                <feed xmlns="http://www.w3.org/2005/Atom" xmlns:opds="http://opds-spec.org/2010/catalog">
-                  <id>urn:booklore:root</id>
-                  <title>Booklore Catalog</title>
-                  <updated>%s</updated>
-                  <link rel="self" href="/api/v1/opds" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="start" href="/api/v1/opds" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="search" type="application/opensearchdescription+xml" title="Search" href="/api/v1/opds/search.opds"/>
-                """.formatted(now()));
-
-        feed.append("""
-                  <entry>
-                    <title>All Books</title>
-                    <id>urn:booklore:catalog:all</id>
-                    <updated>%s</updated>
-                    <link rel="subsection" href="%s" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                    <content type="text">Browse all available books</content>
-                  </entry>
-                """.formatted(now(), escapeXml("/api/v1/opds/catalog?page=1&size=" + DEFAULT_PAGE_SIZE)));
-
-        feed.append("""
-                  <entry>
-                    <title>Recently Added</title>
-                    <id>urn:booklore:catalog:recent</id>
-                    <updated>%s</updated>
-                    <link rel="subsection" href="%s" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                    <content type="text">Recently added books</content>
-                  </entry>
-                """.formatted(now(), escapeXml("/api/v1/opds/recent?page=1&size=" + DEFAULT_PAGE_SIZE)));
-
-        feed.append("""
-                  <entry>
-                    <title>Libraries</title>
-                    <id>urn:booklore:navigation:libraries</id>
-                    <updated>%s</updated>
-                    <link rel="subsection" href="/api/v1/opds/libraries" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                    <content type="text">Browse books by library</content>
-                  </entry>
-                """.formatted(now()));
-
-        feed.append("""
-                  <entry>
-                    <title>Shelves</title>
-                    <id>urn:booklore:navigation:shelves</id>
-                    <updated>%s</updated>
-                    <link rel="subsection" href="/api/v1/opds/shelves" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                    <content type="text">Browse your personal shelves</content>
-                  </entry>
-                """.formatted(now()));
-
-        feed.append("""
-                  <entry>
-                    <title>Magic Shelves</title>
-                    <id>urn:booklore:navigation:magic-shelves</id>
-                    <updated>%s</updated>
-                    <link rel="subsection" href="/api/v1/opds/magic-shelves" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                    <content type="text">Browse your smart, dynamic shelves</content>
-                  </entry>
-                """.formatted(now()));
-
-        feed.append("""
-                  <entry>
-                    <title>Authors</title>
-                    <id>urn:booklore:navigation:authors</id>
-                    <updated>%s</updated>
-                    <link rel="subsection" href="/api/v1/opds/authors" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                    <content type="text">Browse books by author</content>
-                  </entry>
-                """.formatted(now()));
-
-        feed.append("""
-                  <entry>
-                    <title>Series</title>
-                    <id>urn:booklore:navigation:series</id>
-                    <updated>%s</updated>
-                    <link rel="subsection" href="/api/v1/opds/series" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                    <content type="text">Browse books by series</content>
-                  </entry>
-                """.formatted(now()));
-
-        feed.append("""
-                  <entry>
-                    <title>Surprise Me</title>
-                    <id>urn:booklore:catalog:surprise</id>
-                    <updated>%s</updated>
-                    <link rel="subsection" href="/api/v1/opds/surprise" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                    <content type="text">25 random books from the catalog</content>
-                  </entry>
-                """.formatted(now()));
-
-        feed.append("</feed>");
-        return feed.toString();
+    public void generateRootNavigation(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Instant updated = lastModified();
+        if (isNotModified(request, response, updated)) {
+            return;
+        }
+
+        writeFeed(response, NAVIGATION_MEDIA_TYPE, feed -> {
+            feed.startFeed("urn:booklore:root", "Booklore Catalog", updated, "/api/v1/opds", NAVIGATION_TYPE);
+            feed.navigationEntry("All Books", "urn:booklore:catalog:all", updated,
+                    "/api/v1/opds/catalog?page=1&size=" + DEFAULT_PAGE_SIZE, ACQUISITION_TYPE, "Browse all available books");
+            feed.navigationEntry("Recently Added", "urn:booklore:catalog:recent", updated,
+                    "/api/v1/opds/recent?page=1&size=" + DEFAULT_PAGE_SIZE, ACQUISITION_TYPE, "Recently added books");
+            feed.navigationEntry("Libraries", "urn:booklore:navigation:libraries", updated,
+                    "/api/v1/opds/libraries", NAVIGATION_TYPE, "Browse books by library");
+            feed.navigationEntry("Shelves", "urn:booklore:navigation:shelves", updated,
+                    "/api/v1/opds/shelves", NAVIGATION_TYPE, "Browse your personal shelves");
+            feed.navigationEntry("Magic Shelves", "urn:booklore:navigation:magic-shelves", updated,
+                    "/api/v1/opds/magic-shelves", NAVIGATION_TYPE, "Browse your smart, dynamic shelves");
+            feed.navigationEntry("Authors", "urn:booklore:navigation:authors", updated,
+                    "/api/v1/opds/authors", NAVIGATION_TYPE, "Browse books by author");
+            feed.navigationEntry("Series", "urn:booklore:navigation:series", updated,
+                    "/api/v1/opds/series", NAVIGATION_TYPE, "Browse books by series");
+            feed.navigationEntry("Surprise Me", "urn:booklore:catalog:surprise", updated,
+                    "/api/v1/opds/surprise", ACQUISITION_TYPE, "25 random books from the catalog");
+        });
     }
 
-    public String generateLibrariesNavigation(HttpServletRequest request) {
+    public void generateLibrariesNavigation(HttpServletRequest request, HttpServletResponse response) throws IOException {
         Long userId = getUserId();
-        List<Library> libraries = opdsBookService.getAccessibleLibraries(userId);
-
-        var feed = new StringBuilder("""
-                <?xml version="1.0" encoding="UTF-8"?>
-                <feed xmlns="http://www.w3.org/2005/Atom" xmlns:opds="http://opds-spec.org/2010/catalog">
-                  <id>urn:booklore:navigation:libraries</id>
-                  <title>Libraries</title>
-                  <updated>%s</updated>
-                  <link rel="self" href="/api/v1/opds/libraries" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="start" href="/api/v1/opds" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="search" type="application/opensearchdescription+xml" title="Search" href="/api/v1/opds/search.opds"/>
-                """.formatted(now()));
-
-        for (Library library : libraries) {
-            feed.append("""
-                      <entry>
-                        <title>%s</title>
-                        <id>urn:booklore:library:%d</id>
-                        <updated>%s</updated>
-                        <link rel="subsection" href="%s" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                        <content type="text">%s</content>
-                      </entry>
-                    """.formatted(
-                    escapeXml(library.getName()),
-                    library.getId(),
-                    now(),
-                    escapeXml("/api/v1/opds/catalog?libraryId=" + library.getId()),
-                    escapeXml(library.getName() != null ? library.getName() : "Library collection")
-            ));
+        Instant updated = lastModified(Scope.catalog(), Scope.user(userId));
+        if (isNotModified(request, response, updated)) {
+            return;
         }
 
-        feed.append("</feed>");
-        return feed.toString();
+        List<Library> libraries = opdsBookService.getAccessibleLibraries(userId);
+        writeFeed(response, NAVIGATION_MEDIA_TYPE, feed -> {
+            feed.startFeed("urn:booklore:navigation:libraries", "Libraries", updated, "/api/v1/opds/libraries", NAVIGATION_TYPE);
+            for (Library library : libraries) {
+                feed.navigationEntry(library.getName(), "urn:booklore:library:" + library.getId(), updated,
+                        "/api/v1/opds/catalog?libraryId=" + library.getId(), ACQUISITION_TYPE,
+                        library.getName() != null ? library.getName() : "Library collection");
+            }
+        });
     }
 
-    public String generateShelvesNavigation(HttpServletRequest request) {
+    public void generateShelvesNavigation(HttpServletRequest request, HttpServletResponse response) throws IOException {
         Long userId = getUserId();
+        Instant updated = lastModified(Scope.user(userId));
+        if (isNotModified(request, response, updated)) {
+            return;
+        }
 
-        var feed = new StringBuilder("""
-                <?xml version="1.0" encoding="UTF-8"?>
-                <feed xmlns="http://www.w3.org/2005/Atom" xmlns:opds="http://opds-spec.org/2010/catalog">
-                  <id>urn:booklore:navigation:shelves</id>
-                  <title>Shelves</title>
-                  <updated>%s</updated>
-                  <link rel="self" href="/api/v1/opds/shelves" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="start" href="/api/v1/opds" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="search" type="application/opensearchdescription+xml" title="Search" href="/api/v1/opds/search.opds"/>
-                """.formatted(now()));
-
-        if (userId != null) {
-            var shelves = opdsBookService.getUserShelves(userId);
-
+        List<ShelfEntity> shelves = userId != null ? opdsBookService.getUserShelves(userId) : null;
+        writeFeed(response, NAVIGATION_MEDIA_TYPE, feed -> {
+            feed.startFeed("urn:booklore:navigation:shelves", "Shelves", updated, "/api/v1/opds/shelves", NAVIGATION_TYPE);
             if (shelves != null) {
-                for (var shelf : shelves) {
-                    feed.append("""
-                              <entry>
-                                <title>%s</title>
-                                <id>urn:booklore:shelf:%d</id>
-                                <updated>%s</updated>
-                                <link rel="subsection" href="%s" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                                <content type="text">Personal shelf collection</content>
-                              </entry>
-                            """.formatted(
-                            escapeXml(shelf.getName()),
-                            shelf.getId(),
-                            now(),
-                            escapeXml("/api/v1/opds/catalog?shelfId=" + shelf.getId())
-                    ));
+                for (ShelfEntity shelf : shelves) {
+                    feed.navigationEntry(shelf.getName(), "urn:booklore:shelf:" + shelf.getId(), updated,
+                            "/api/v1/opds/catalog?shelfId=" + shelf.getId(), ACQUISITION_TYPE, "Personal shelf collection");
                 }
             }
-        }
-
-        feed.append("</feed>");
-        return feed.toString();
+        });
     }
 
-    public String generateMagicShelvesNavigation(HttpServletRequest request) {
+    public void generateMagicShelvesNavigation(HttpServletRequest request, HttpServletResponse response) throws IOException {
         Long userId = getUserId();
+        Instant updated = lastModified(Scope.magicShelves(), Scope.user(userId));
+        if (isNotModified(request, response, updated)) {
+            return;
+        }
 
-        var feed = new StringBuilder("""
-                <?xml version="1.0" encoding="UTF-8"?>
-                <feed xmlns="http://www.w3.org/2005/Atom" xmlns:opds="http://opds-spec.org/2010/catalog">
-                  <id>urn:booklore:navigation:magic-shelves</id>
-                  <title>Magic Shelves</title>
-                  <updated>%s</updated>
-                  <link rel="self" href="/api/v1/opds/magic-shelves" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="start" href="/api/v1/opds" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="search" type="application/opensearchdescription+xml" title="Search" href="/api/v1/opds/search.opds"/>
-                """.formatted(now()));
-
-        if (userId != null) {
-            var magicShelves = magicShelfService.getUserShelvesForOpds(userId);
-
+        List<MagicShelf> magicShelves = userId != null ? magicShelfService.getUserShelvesForOpds(userId) : null;
+        writeFeed(response, NAVIGATION_MEDIA_TYPE, feed -> {
+            feed.startFeed("urn:booklore:navigation:magic-shelves", "Magic Shelves", updated, "/api/v1/opds/magic-shelves", NAVIGATION_TYPE);
             if (magicShelves != null) {
-                for (var shelf : magicShelves) {
-                    feed.append("""
-                              <entry>
-                                <title>%s</title>
-                                <id>urn:booklore:magic-shelf:%d</id>
-                                <updated>%s</updated>
-                                <link rel="subsection" href="%s" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                                <content type="text">Smart, dynamic shelf collection</content>
-                              </entry>
-                            """.formatted(
-                            escapeXml(shelf.getName()),
-                            shelf.getId(),
-                            now(),
-                            escapeXml("/api/v1/opds/catalog?magicShelfId=" + shelf.getId())
-                    ));
+                for (MagicShelf shelf : magicShelves) {
+                    feed.navigationEntry(shelf.getName(), "urn:booklore:magic-shelf:" + shelf.getId(), updated,
+                            "/api/v1/opds/catalog?magicShelfId=" + shelf.getId(), ACQUISITION_TYPE, "Smart, dynamic shelf collection");
                 }
             }
-        }
-
-        feed.append("</feed>");
-        return feed.toString();
+        });
     }
 
-    public String generateAuthorsNavigation(HttpServletRequest request) {
+    public void generateAuthorsNavigation(HttpServletRequest request, HttpServletResponse response) throws IOException {
         Long userId = getUserId();
-        List<String> authors = opdsBookService.getDistinctAuthors(userId);
-
-        var feed = new StringBuilder("""
-                <?xml version="1.0" encoding="UTF-8"?>
-                <feed xmlns="http://www.w3.org/2005/Atom" xmlns:opds="http://opds-spec.org/2010/catalog">
-                  <id>urn:booklore:navigation:authors</id>
-                  <title>Authors</title>
-                  <updated>%s</updated>
-                  <link rel="self" href="/api/v1/opds/authors" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="start" href="/api/v1/opds" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="search" type="application/opensearchdescription+xml" title="Search" href="/api/v1/opds/search.opds"/>
-                """.formatted(now()));
-
-        for (String author : authors) {
-            feed.append("""
-                      <entry>
-                        <title>%s</title>
-                        <id>urn:booklore:author:%s</id>
-                        <updated>%s</updated>
-                        <link rel="subsection" href="%s" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                        <content type="text">Books by %s</content>
-                      </entry>
-                    """.formatted(
-                    escapeXml(author),
-                    escapeXml(author),
-                    now(),
-                    escapeXml("/api/v1/opds/catalog?author=" + java.net.URLEncoder.encode(author, java.nio.charset.StandardCharsets.UTF_8)),
-                    escapeXml(author)
-            ));
+        Instant updated = lastModified(Scope.catalog(), Scope.user(userId));
+        if (isNotModified(request, response, updated)) {
+            return;
         }
 
-        feed.append("</feed>");
-        return feed.toString();
+        List<String> authors = opdsBookService.getDistinctAuthors(userId);
+        writeFeed(response, NAVIGATION_MEDIA_TYPE, feed -> {
+            feed.startFeed("urn:booklore:navigation:authors", "Authors", updated, "/api/v1/opds/authors", NAVIGATION_TYPE);
+            for (String author : authors) {
+                feed.navigationEntry(author, "urn:booklore:author:" + author, updated,
+                        "/api/v1/opds/catalog?author=" + URLEncoder.encode(author, StandardCharsets.UTF_8), ACQUISITION_TYPE,
+                        "Books by " + author);
+            }
+        });
     }
 
-    public String generateSeriesNavigation(HttpServletRequest request) {
+    public void generateSeriesNavigation(HttpServletRequest request, HttpServletResponse response) throws IOException {
         Long userId = getUserId();
-        List<String> seriesList = opdsBookService.getDistinctSeries(userId);
-
-        var feed = new StringBuilder("""
-                <?xml version="1.0" encoding="UTF-8"?>
-                <feed xmlns="http://www.w3.org/2005/Atom" xmlns:opds="http://opds-spec.org/2010/catalog">
-                  <id>urn:booklore:navigation:series</id>
-                  <title>Series</title>
-                  <updated>%s</updated>
-                  <link rel="self" href="/api/v1/opds/series" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="start" href="/api/v1/opds" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="search" type="application/opensearchdescription+xml" title="Search" href="/api/v1/opds/search.opds"/>
-                """.formatted(now()));
-
-        for (String series : seriesList) {
-            feed.append("""
-                      <entry>
-                        <title>%s</title>
-                        <id>urn:booklore:series:%s</id>
-                        <updated>%s</updated>
-                        <link rel="subsection" href="%s" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                        <content type="text">Books in the %s series</content>
-                      </entry>
-                    """.formatted(
-                    escapeXml(series),
-                    escapeXml(series),
-                    now(),
-                    escapeXml("/api/v1/opds/catalog?series=" + java.net.URLEncoder.encode(series, java.nio.charset.StandardCharsets.UTF_8)),
-                    escapeXml(series)
-            ));
+        Instant updated = lastModified(Scope.catalog(), Scope.user(userId));
+        if (isNotModified(request, response, updated)) {
+            return;
         }
 
-        feed.append("</feed>");
-        return feed.toString();
+        List<String> seriesList = opdsBookService.getDistinctSeries(userId);
+        writeFeed(response, NAVIGATION_MEDIA_TYPE, feed -> {
+            feed.startFeed("urn:booklore:navigation:series", "Series", updated, "/api/v1/opds/series", NAVIGATION_TYPE);
+            for (String series : seriesList) {
+                feed.navigationEntry(series, "urn:booklore:series:" + series, updated,
+                        "/api/v1/opds/catalog?series=" + URLEncoder.encode(series, StandardCharsets.UTF_8), ACQUISITION_TYPE,
+                        "Books in the " + series + " series");
+            }
+        });
     }
 
-    public String generateCatalogFeed(HttpServletRequest request) {
+    public void generateCatalogFeed(HttpServletRequest request, HttpServletResponse response) throws IOException {
         Long libraryId = parseLongParam(request, "libraryId", null);
         Long shelfId = parseLongParam(request, "shelfId", null);
         Long magicShelfId = parseLongParam(request, "magicShelfId", null);
@@ -330,8 +182,12 @@ public class OpdsFeedService {
 
         Long userId = getUserId();
         OpdsSortOrder sortOrder = getSortOrder();
-        Page<Book> booksPage;
+        Instant updated = lastModified(catalogScopes(userId, libraryId, shelfId, magicShelfId, author, series));
+        if (isNotModified(request, response, updated)) {
+            return;
+        }
 
+        Page<Book> booksPage;
         if (magicShelfId != null) {
             booksPage = magicShelfBookService.getBooksByMagicShelfId(userId, magicShelfId, page - 1, size);
         } else if (author != null && !author.isBlank()) {
@@ -343,97 +199,62 @@ public class OpdsFeedService {
         }
 
         // Apply user's preferred sort order
-        booksPage = opdsBookService.applySortOrder(booksPage, sortOrder);
+        Page<Book> sortedPage = opdsBookService.applySortOrder(booksPage, sortOrder);
 
         String feedTitle = determineFeedTitle(libraryId, shelfId, magicShelfId, author, series);
         String feedId = determineFeedId(libraryId, shelfId, magicShelfId, author, series);
 
-        var feed = new StringBuilder("""
-                <?xml version="1.0" encoding="UTF-8"?>
-                <feed xmlns="http://www.w3.org/2005/Atom" xmlns:dc="http://purl.org/dc/terms/" xmlns:opds="http://opds-spec.org/2010/catalog" xmlns:opensearch="http://a9.com/-/spec/opensearch/1.1/">
-                  <id>%s</id>
-                  <title>%s</title>
-                  <updated>%s</updated>
-                  <opensearch:totalResults>%d</opensearch:totalResults>
-                  <opensearch:startIndex>%d</opensearch:startIndex>
-                  <opensearch:itemsPerPage>%d</opensearch:itemsPerPage>
-                  <link rel="self" href="%s" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                  <link rel="start" href="/api/v1/opds" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="search" type="application/opensearchdescription+xml" title="Search" href="/api/v1/opds/search.opds"/>
-                """.formatted(
-                feedId,
-                escapeXml(feedTitle),
-                now(),
-                booksPage.getTotalElements(),
-                ((page - 1) * size) + 1,
-                size,
-                escapeXml(buildCurrentUrl(request, page, size))
-        ));
-
-        appendPaginationLinks(feed, request, page, booksPage.getTotalPages(), size);
-
-        booksPage.getContent().forEach(book -> appendBookEntry(feed, book));
-
-        feed.append("</feed>");
-        return feed.toString();
+        writeFeed(response, ACQUISITION_MEDIA_TYPE, feed -> {
+            feed.startFeed(feedId, feedTitle, updated, buildCurrentUrl(request, page, size), ACQUISITION_TYPE);
+            feed.openSearch(sortedPage.getTotalElements(), ((long) (page - 1) * size) + 1, size);
+            writePaginationLinks(feed, request, page, sortedPage.getTotalPages(), size);
+            for (Book book : sortedPage.getContent()) {
+                feed.bookEntry(book, updated);
+            }
+        });
     }
 
-    public String generateRecentFeed(HttpServletRequest request) {
+    public void generateRecentFeed(HttpServletRequest request, HttpServletResponse response) throws IOException {
         Long userId = getUserId();
         OpdsSortOrder sortOrder = getSortOrder();
         int page = Math.max(1, parseLongParam(request, "page", 1L).intValue());
         int size = Math.min(parseLongParam(request, "size", (long) DEFAULT_PAGE_SIZE).intValue(), MAX_PAGE_SIZE);
 
+        Instant updated = lastModified(Scope.catalog(), Scope.user(userId));
+        if (isNotModified(request, response, updated)) {
+            return;
+        }
+
         Page<Book> booksPage = opdsBookService.getRecentBooksPage(userId, page - 1, size);
-        
-        // Apply user's preferred sort order
-        booksPage = opdsBookService.applySortOrder(booksPage, sortOrder);
 
-        var feed = new StringBuilder("""
-                <?xml version="1.0" encoding="UTF-8"?>
-                <feed xmlns="http://www.w3.org/2005/Atom" xmlns:dc="http://purl.org/dc/terms/" xmlns:opds="http://opds-spec.org/2010/catalog" xmlns:opensearch="http://a9.com/-/spec/opensearch/1.1/">
-                  <id>urn:booklore:catalog:recent</id>
-                  <title>Recently Added Books</title>
-                  <updated>%s</updated>
-                  <opensearch:totalResults>%d</opensearch:totalResults>
-                  <opensearch:startIndex>%d</opensearch:startIndex>
-                  <opensearch:itemsPerPage>%d</opensearch:itemsPerPage>
-                  <link rel="self" href="%s" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                  <link rel="start" href="/api/v1/opds" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="search" type="application/opensearchdescription+xml" title="Search" href="/api/v1/opds/search.opds"/>
-                """.formatted(now(), booksPage.getTotalElements(), ((page - 1) * size) + 1, size, escapeXml(buildCurrentUrl(request, page, size))));
-
-        appendPaginationLinks(feed, request, page, booksPage.getTotalPages(), size);
-
-        booksPage.getContent().forEach(book -> appendBookEntry(feed, book));
-
-        feed.append("</feed>");
-        return feed.toString();
+        // Apply user's preferred sort order
+        Page<Book> sortedPage = opdsBookService.applySortOrder(booksPage, sortOrder);
+
+        writeFeed(response, ACQUISITION_MEDIA_TYPE, feed -> {
+            feed.startFeed("urn:booklore:catalog:recent", "Recently Added Books", updated, buildCurrentUrl(request, page, size), ACQUISITION_TYPE);
+            feed.openSearch(sortedPage.getTotalElements(), ((long) (page - 1) * size) + 1, size);
+            writePaginationLinks(feed, request, page, sortedPage.getTotalPages(), size);
+            for (Book book : sortedPage.getContent()) {
+                feed.bookEntry(book, updated);
+            }
+        });
     }
 
-    public String generateSurpriseFeed(HttpServletRequest request) {
+    public void generateSurpriseFeed(HttpServletRequest request, HttpServletResponse response) throws IOException {
         Long userId = getUserId();
         int count = 25;
         List<Book> books = opdsBookService.getRandomBooks(userId, count);
-
-        var feed = new StringBuilder("""
-                <?xml version="1.0" encoding="UTF-8"?>
-                <feed xmlns="http://www.w3.org/2005/Atom" xmlns:dc="http://purl.org/dc/terms/" xmlns:opds="http://opds-spec.org/2010/catalog" xmlns:opensearch="http://a9.com/-/spec/opensearch/1.1/">
-                  <id>urn:booklore:catalog:surprise</id>
-                  <title>Surprise Me</title>
-                  <updated>%s</updated>
-                  <opensearch:totalResults>%d</opensearch:totalResults>
-                  <opensearch:startIndex>1</opensearch:startIndex>
-                  <opensearch:itemsPerPage>%d</opensearch:itemsPerPage>
-                  <link rel="self" href="/api/v1/opds/surprise" type="application/atom+xml;profile=opds-catalog;kind=acquisition"/>
-                  <link rel="start" href="/api/v1/opds" type="application/atom+xml;profile=opds-catalog;kind=navigation"/>
-                  <link rel="search" type="application/opensearchdescription+xml" title="Search" href="/api/v1/opds/search.opds"/>
-                """.formatted(now(), books.size(), count));
-
-        books.forEach(book -> appendBookEntry(feed, book));
-
-        feed.append("</feed>");
-        return feed.toString();
+        Instant updated = Instant.now();
+
+        // Random on every request, so there is nothing to revalidate
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        writeFeed(response, ACQUISITION_MEDIA_TYPE, feed -> {
+            feed.startFeed("urn:booklore:catalog:surprise", "Surprise Me", updated, "/api/v1/opds/surprise", ACQUISITION_TYPE);
+            feed.openSearch(books.size(), 1, count);
+            for (Book book : books) {
+                feed.bookEntry(book, updated);
+            }
+        });
     }
 
     public String getOpenSearchDescription() {
@@ -448,26 +269,18 @@ public class OpdsFeedService {
                 """;
     }
 
-    private void appendPaginationLinks(StringBuilder feed, HttpServletRequest request, int currentPage, int totalPages, int size) {
+    private void writePaginationLinks(OpdsFeedWriter feed, HttpServletRequest request, int currentPage, int totalPages, int size) throws XMLStreamException {
         if (totalPages > 0) {
-            feed.append("  <link rel=\"first\" href=\"")
-                    .append(escapeXml(buildPaginationUrl(request, 1, size)))
-                    .append("\" type=\"application/atom+xml;profile=opds-catalog;kind=acquisition\"/>\n");
+            feed.link("first", buildPaginationUrl(request, 1, size), ACQUISITION_TYPE);
         }
         if (currentPage > 1) {
-            feed.append("  <link rel=\"previous\" href=\"")
-                    .append(escapeXml(buildPaginationUrl(request, currentPage - 1, size)))
-                    .append("\" type=\"application/atom+xml;profile=opds-catalog;kind=acquisition\"/>\n");
+            feed.link("previous", buildPaginationUrl(request, currentPage - 1, size), ACQUISITION_TYPE);
         }
         if (currentPage < totalPages) {
-            feed.append("  <link rel=\"next\" href=\"")
-                    .append(escapeXml(buildPaginationUrl(request, currentPage + 1, size)))
-                    .append("\" type=\"application/atom+xml;profile=opds-catalog;kind=acquisition\"/>\n");
+            feed.link("next", buildPaginationUrl(request, currentPage + 1, size), ACQUISITION_TYPE);
         }
         if (totalPages > 0) {
-            feed.append("  <link rel=\"last\" href=\"")
-                    .append(escapeXml(buildPaginationUrl(request, totalPages, size)))
-                    .append("\" type=\"application/atom+xml;profile=opds-catalog;kind=acquisition\"/>\n");
+            feed.link("last", buildPaginationUrl(request, totalPages, size), ACQUISITION_TYPE);
         }
     }
 
@@ -491,76 +304,6 @@ public class OpdsFeedService {
         return buildPaginationUrl(request, page, size);
     }
 
-    private void appendBookEntry(StringBuilder feed, Book book) {
-        feed.append("""
-                  <entry>
-                    <title>%s</title>
-                    <id>urn:booklore:book:%d</id>
-                    <updated>%s</updated>
-                """.formatted(
-                escapeXml(book.getMetadata().getTitle()),
-                book.getId(),
-                book.getAddedOn() != null ? book.getAddedOn() : now()
-        ));
-
-        if (book.getMetadata().getAuthors() != null) {
-            book.getMetadata().getAuthors().forEach(author ->
-                    feed.append("    <author><name>").append(escapeXml(author)).append("</name></author>\n")
-            );
-        }
-
-        appendMetadata(feed, book);
-        appendLinks(feed, book);
-
-        feed.append("  </entry>\n");
-    }
-
-    private void appendMetadata(StringBuilder feed, Book book) {
-        var meta = book.getMetadata();
-        if (meta == null) return;
-
-        if (meta.getPublisher() != null) {
-            feed.append("    <dc:publisher>").append(escapeXml(meta.getPublisher())).append("</dc:publisher>\n");
-        }
-        if (meta.getLanguage() != null) {
-            feed.append("    <dc:language>").append(escapeXml(meta.getLanguage())).append("</dc:language>\n");
-        }
-        if (meta.getCategories() != null) {
-            meta.getCategories().forEach(cat ->
-                    feed.append("    <category term=\"").append(escapeXml(cat)).append("\"/>\n")
-            );
-        }
-        if (meta.getDescription() != null) {
-            feed.append("    <summary>").append(escapeXml(meta.getDescription())).append("</summary>\n");
-        }
-        if (meta.getIsbn10() != null) {
-            feed.append("    <dc:identifier>urn:isbn:").append(escapeXml(meta.getIsbn10())).append("</dc:identifier>\n");
-        }
-        // Series metadata
-        if (meta.getSeriesName() != null) {
-            feed.append("    <meta property=\"belongs-to-collection\" id=\"series\">")
-                    .append(escapeXml(meta.getSeriesName())).append("</meta>\n");
-            if (meta.getSeriesNumber() != null) {
-                feed.append("    <meta property=\"group-position\" refines=\"#series\">")
-                        .append(meta.getSeriesNumber()).append("</meta>\n");
-            }
-        }
-    }
-
-    private void appendLinks(StringBuilder feed, Book book) {
-        String mimeType = "application/" + fileMimeType(book);
-        feed.append("    <link href=\"/api/v1/opds/")
-                .append(book.getId()).append("/download\" rel=\"http://opds-spec.org/acquisition\" type=\"").append(mimeType).append("\"/>\n");
-
-        if (book.getMetadata() != null && book.getMetadata().getCoverUpdatedOn() != null) {
-            String coverUrl = "/api/v1/opds/" + book.getId() + "/cover?" + book.getMetadata().getCoverUpdatedOn();
-            feed.append("    <link rel=\"http://opds-spec.org/image\" href=\"")
-                    .append(escapeXml(coverUrl)).append("\" type=\"image/jpeg\"/>\n");
-            feed.append("    <link rel=\"http://opds-spec.org/image/thumbnail\" href=\"")
-                    .append(escapeXml(coverUrl)).append("\" type=\"image/jpeg\"/>\n");
-        }
-    }
-
     private String determineFeedTitle(Long libraryId, Long shelfId, Long magicShelfId, String author, String series) {
         if (magicShelfId != null) {
             return magicShelfBookService.getMagicShelfName(magicShelfId);
@@ -599,28 +342,53 @@ public class OpdsFeedService {
         return "urn:booklore:catalog";
     }
 
-    private String now() {
-        return DateTimeFormatter.ISO_INSTANT.format(java.time.Instant.now());
+    /**
+     * The scopes a catalog page depends on. A plain library page only changes with its library, anything that can
+     * span libraries with the whole catalog.
+     */
+    private Scope[] catalogScopes(Long userId, Long libraryId, Long shelfId, Long magicShelfId, String author, String series) {
+        List<Scope> scopes = new ArrayList<>();
+        scopes.add(Scope.user(userId));
+        boolean libraryOnly = libraryId != null && shelfId == null && magicShelfId == null
+                && (author == null || author.isBlank()) && (series == null || series.isBlank());
+        scopes.add(libraryOnly ? Scope.library(libraryId) : Scope.catalog());
+        if (shelfId != null) {
+            scopes.add(Scope.shelf(shelfId));
+        }
+        if (magicShelfId != null) {
+            scopes.add(Scope.magicShelves());
+        }
+        return scopes.toArray(Scope[]::new);
+    }
+
+    private Instant lastModified(Scope... scopes) {
+        return Instant.ofEpochMilli(catalogStamps.latest(scopes));
+    }
+
+    /**
+     * Sets the feed's validators and answers a matching conditional request with a 304. The tag also names the user
+     * and their sort order, which decide what the same URL shows.
+     */
+    private boolean isNotModified(HttpServletRequest request, HttpServletResponse response, Instant lastModified) {
+        Long userId = getUserId();
+        String etag = "\"" + (userId != null ? userId : 0) + "-" + getSortOrder() + "-" + Long.toHexString(lastModified.toEpochMilli()) + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return new ServletWebRequest(request, response).checkNotModified(etag, lastModified.toEpochMilli());
     }
 
-    private String fileMimeType(Book book) {
-        if (book == null || book.getBookType() == null) {
-            return "octet-stream";
+    private void writeFeed(HttpServletResponse response, String contentType, FeedBody body) throws IOException {
+        response.setContentType(contentType);
+        try (OpdsFeedWriter feed = new OpdsFeedWriter(response.getOutputStream())) {
+            body.write(feed);
+            feed.endFeed();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to write OPDS feed", e);
         }
-        return switch (book.getBookType()) {
-            case PDF -> "pdf";
-            case EPUB -> "epub+zip";
-            default -> "octet-stream";
-        };
     }
 
-    private String escapeXml(String input) {
-        return input == null ? "" :
-                input.replace("&", "&amp;")
-                        .replace("<", "&lt;")
-                        .replace(">", "&gt;")
-                        .replace("\"", "&quot;")
-                        .replace("'", "&apos;");
+    @FunctionalInterface
+    private interface FeedBody {
+        void write(OpdsFeedWriter feed) throws XMLStreamException;
     }
 
     private Long parseLongParam(HttpServletRequest request, String name, Long defaultValue) {
@@ -0,0 +1,194 @@
+package com.adityachandel.booklore.service.opds;
+
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.BookMetadata;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes an OPDS feed to a stream element by element, so a feed is never held in memory as a whole. Escaping is
+ * left to the underlying {@link XMLStreamWriter}.
+ */
+class OpdsFeedWriter implements AutoCloseable {
+
+    static final String NAVIGATION_TYPE = "application/atom+xml;profile=opds-catalog;kind=navigation";
+    static final String ACQUISITION_TYPE = "application/atom+xml;profile=opds-catalog;kind=acquisition";
+
+    private static final String ATOM_NS = "http://www.w3.org/2005/Atom";
+    private static final String OPDS_NS = "http://opds-spec.org/2010/catalog";
+    private static final String DC_NS = "http://purl.org/dc/terms/";
+    private static final String OPENSEARCH_NS = "http://a9.com/-/spec/opensearch/1.1/";
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private final XMLStreamWriter xml;
+
+    OpdsFeedWriter(OutputStream out) throws XMLStreamException {
+        this.xml = OUTPUT_FACTORY.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+    }
+
+    void startFeed(String id, String title, Instant updated, String selfHref, String selfType) throws XMLStreamException {
+        boolean acquisition = ACQUISITION_TYPE.equals(selfType);
+        xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        xml.writeStartElement("feed");
+        xml.writeDefaultNamespace(ATOM_NS);
+        if (acquisition) {
+            xml.writeNamespace("dc", DC_NS);
+        }
+        xml.writeNamespace("opds", OPDS_NS);
+        if (acquisition) {
+            xml.writeNamespace("opensearch", OPENSEARCH_NS);
+        }
+        element("id", id);
+        element("title", title);
+        element("updated", format(updated));
+        link("self", selfHref, selfType);
+        link("start", "/api/v1/opds", NAVIGATION_TYPE);
+        xml.writeEmptyElement("link");
+        xml.writeAttribute("rel", "search");
+        xml.writeAttribute("type", "application/opensearchdescription+xml");
+        xml.writeAttribute("title", "Search");
+        xml.writeAttribute("href", "/api/v1/opds/search.opds");
+    }
+
+    void openSearch(long totalResults, long startIndex, int itemsPerPage) throws XMLStreamException {
+        xml.writeStartElement("opensearch", "totalResults", OPENSEARCH_NS);
+        xml.writeCharacters(Long.toString(totalResults));
+        xml.writeEndElement();
+        xml.writeStartElement("opensearch", "startIndex", OPENSEARCH_NS);
+        xml.writeCharacters(Long.toString(startIndex));
+        xml.writeEndElement();
+        xml.writeStartElement("opensearch", "itemsPerPage", OPENSEARCH_NS);
+        xml.writeCharacters(Integer.toString(itemsPerPage));
+        xml.writeEndElement();
+    }
+
+    void link(String rel, String href, String type) throws XMLStreamException {
+        xml.writeEmptyElement("link");
+        xml.writeAttribute("rel", rel);
+        xml.writeAttribute("href", href);
+        xml.writeAttribute("type", type);
+    }
+
+    void navigationEntry(String title, String id, Instant updated, String href, String type, String content) throws XMLStreamException {
+        xml.writeStartElement("entry");
+        element("title", title);
+        element("id", id);
+        element("updated", format(updated));
+        link("subsection", href, type);
+        xml.writeStartElement("content");
+        xml.writeAttribute("type", "text");
+        xml.writeCharacters(content);
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    void bookEntry(Book book, Instant updated) throws XMLStreamException {
+        BookMetadata meta = book.getMetadata();
+        xml.writeStartElement("entry");
+        element("title", meta != null ? meta.getTitle() : null);
+        element("id", "urn:booklore:book:" + book.getId());
+        element("updated", format(book.getAddedOn() != null ? book.getAddedOn() : updated));
+
+        if (meta != null) {
+            if (meta.getAuthors() != null) {
+                for (String author : meta.getAuthors()) {
+                    xml.writeStartElement("author");
+                    element("name", author);
+                    xml.writeEndElement();
+                }
+            }
+            bookMetadata(meta);
+        }
+
+        link("http://opds-spec.org/acquisition", "/api/v1/opds/" + book.getId() + "/download", "application/" + fileMimeType(book));
+        if (meta != null && meta.getCoverUpdatedOn() != null) {
+            String coverUrl = "/api/v1/opds/" + book.getId() + "/cover?" + meta.getCoverUpdatedOn();
+            link("http://opds-spec.org/image", coverUrl, "image/jpeg");
+            link("http://opds-spec.org/image/thumbnail", coverUrl, "image/jpeg");
+        }
+        xml.writeEndElement();
+    }
+
+    /**
+     * Closes the feed and flushes it. A feed that failed half way is left unterminated rather than passed off as
+     * complete.
+     */
+    void endFeed() throws XMLStreamException {
+        xml.writeEndDocument();
+        xml.flush();
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        xml.close();
+    }
+
+    private void bookMetadata(BookMetadata meta) throws XMLStreamException {
+        if (meta.getPublisher() != null) {
+            dcElement("publisher", meta.getPublisher());
+        }
+        if (meta.getLanguage() != null) {
+            dcElement("language", meta.getLanguage());
+        }
+        if (meta.getCategories() != null) {
+            for (String category : meta.getCategories()) {
+                xml.writeEmptyElement("category");
+                xml.writeAttribute("term", category);
+            }
+        }
+        if (meta.getDescription() != null) {
+            element("summary", meta.getDescription());
+        }
+        if (meta.getIsbn10() != null) {
+            dcElement("identifier", "urn:isbn:" + meta.getIsbn10());
+        }
+        // Series metadata
+        if (meta.getSeriesName() != null) {
+            xml.writeStartElement("meta");
+            xml.writeAttribute("property", "belongs-to-collection");
+            xml.writeAttribute("id", "series");
+            xml.writeCharacters(meta.getSeriesName());
+            xml.writeEndElement();
+            if (meta.getSeriesNumber() != null) {
+                xml.writeStartElement("meta");
+                xml.writeAttribute("property", "group-position");
+                xml.writeAttribute("refines", "#series");
+                xml.writeCharacters(String.valueOf(meta.getSeriesNumber()));
+                xml.writeEndElement();
+            }
+        }
+    }
+
+    private void element(String name, String text) throws XMLStreamException {
+        xml.writeStartElement(name);
+        xml.writeCharacters(text != null ? text : "");
+        xml.writeEndElement();
+    }
+
+    private void dcElement(String name, String text) throws XMLStreamException {
+        xml.writeStartElement("dc", name, DC_NS);
+        xml.writeCharacters(text);
+        xml.writeEndElement();
+    }
+
+    private static String format(Instant instant) {
+        return DateTimeFormatter.ISO_INSTANT.format(instant);
+    }
+
+    private static String fileMimeType(Book book) {
+        if (book == null || book.getBookType() == null) {
+            return "octet-stream";
+        }
+        return switch (book.getBookType()) {
+            case PDF -> "pdf";
+            case EPUB -> "epub+zip";
+            default -> "octet-stream";
+        };
+    }
+}
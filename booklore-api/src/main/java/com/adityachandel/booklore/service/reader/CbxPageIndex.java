@@ -0,0 +1,222 @@
+package com.adityachandel.booklore.service.reader;
+
+import com.github.junrar.Archive;
+import com.github.junrar.rarfile.FileHeader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact page table for a comic archive, built from the ZIP central directory or the RAR header table.
+ * Pages are streamed straight out of the archive by entry offset, so opening a book costs one header read
+ * regardless of archive size. Archives that cannot be read randomly (solid or encrypted RAR, 7z, unusual ZIP
+ * compression methods) produce an unsupported index and are served from the extraction cache instead.
+ */
+@Slf4j
+final class CbxPageIndex {
+
+    enum Format {ZIP, RAR}
+
+    record Page(String name, long dataOffset, long compressedSize, long size, int method, int headerIndex) {
+    }
+
+    private static final String[] ZIP_ENCODINGS = {"UTF-8", "Shift_JIS", "ISO-8859-1", "CP437", "MS932"};
+
+    private final Path archivePath;
+    private final long lastModified;
+    private final long fileSize;
+    private final Format format;
+    private final List<Page> pages;
+
+    private CbxPageIndex(Path archivePath, long lastModified, long fileSize, Format format, List<Page> pages) {
+        this.archivePath = archivePath;
+        this.lastModified = lastModified;
+        this.fileSize = fileSize;
+        this.format = format;
+        this.pages = pages;
+    }
+
+    static CbxPageIndex build(Path archivePath, Predicate<String> isImage) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(archivePath, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long fileSize = attributes.size();
+        String name = archivePath.getFileName().toString().toLowerCase();
+
+        List<Page> pages = null;
+        Format format = null;
+        if (name.endsWith(".cbz")) {
+            format = Format.ZIP;
+            pages = indexZip(archivePath, isImage);
+        } else if (name.endsWith(".cbr")) {
+            format = Format.RAR;
+            pages = indexRar(archivePath, isImage);
+        }
+        return new CbxPageIndex(archivePath, lastModified, fileSize, format, pages);
+    }
+
+    boolean isSupported() {
+        return pages != null;
+    }
+
+    boolean isCurrent(Path path) {
+        if (!archivePath.equals(path)) {
+            return false;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.lastModifiedTime().toMillis() == lastModified && attributes.size() == fileSize;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    Path getArchivePath() {
+        return archivePath;
+    }
+
+    int getPageCount() {
+        return pages == null ? 0 : pages.size();
+    }
+
+    void streamPage(int pageNumber, OutputStream outputStream) throws IOException {
+        if (pageNumber < 1 || pageNumber > pages.size()) {
+            throw new FileNotFoundException("Page out of range: " + pageNumber);
+        }
+        Page page = pages.get(pageNumber - 1);
+        if (format == Format.ZIP) {
+            streamZipEntry(page, outputStream);
+        } else {
+            streamRarEntry(page, outputStream);
+        }
+    }
+
+    private static List<Page> indexZip(Path path, Predicate<String> isImage) {
+        for (String encoding : ZIP_ENCODINGS) {
+            try (ZipFile zipFile = ZipFile.builder()
+                    .setPath(path)
+                    .setCharset(Charset.forName(encoding))
+                    .setUseUnicodeExtraFields(true)
+                    .get()) {
+                Map<String, Page> byFileName = new HashMap<>();
+                boolean supported = true;
+                for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
+                    if (entry.isDirectory() || !isImage.test(entry.getName())) {
+                        continue;
+                    }
+                    boolean readableMethod = entry.getMethod() == ZipArchiveEntry.STORED || entry.getMethod() == ZipArchiveEntry.DEFLATED;
+                    if (!readableMethod || entry.getGeneralPurposeBit().usesEncryption() || entry.getDataOffset() < 0 || entry.getSize() < 0) {
+                        supported = false;
+                        break;
+                    }
+                    byFileName.put(fileNameOf(entry.getName()), new Page(entry.getName(), entry.getDataOffset(),
+                            entry.getCompressedSize(), entry.getSize(), entry.getMethod(), -1));
+                }
+                if (!supported) {
+                    log.debug("ZIP archive {} uses features that prevent random access, falling back to extraction", path);
+                    return null;
+                }
+                if (!byFileName.isEmpty()) {
+                    return sortedPages(byFileName);
+                }
+            } catch (Exception e) {
+                log.debug("Failed to index ZIP archive {} with encoding {}: {}", path, encoding, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private static List<Page> indexRar(Path path, Predicate<String> isImage) {
+        try (Archive archive = new Archive(path.toFile())) {
+            if (archive.isEncrypted() || archive.getMainHeader().isSolid()) {
+                log.debug("RAR archive {} is solid or encrypted, falling back to extraction", path);
+                return null;
+            }
+            Map<String, Page> byFileName = new HashMap<>();
+            List<FileHeader> headers = archive.getFileHeaders();
+            for (int i = 0; i < headers.size(); i++) {
+                FileHeader header = headers.get(i);
+                if (header.isDirectory() || !isImage.test(header.getFileName())) {
+                    continue;
+                }
+                if (header.isEncrypted()) {
+                    return null;
+                }
+                byFileName.put(fileNameOf(header.getFileName()), new Page(header.getFileName(), -1,
+                        header.getFullPackSize(), header.getFullUnpackSize(), -1, i));
+            }
+            return byFileName.isEmpty() ? null : sortedPages(byFileName);
+        } catch (Exception e) {
+            log.debug("Failed to index RAR archive {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<Page> sortedPages(Map<String, Page> byFileName) {
+        return byFileName.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+
+    private void streamZipEntry(Page page, OutputStream outputStream) throws IOException {
+        try (FileChannel channel = FileChannel.open(archivePath, StandardOpenOption.READ)) {
+            if (page.method() == ZipArchiveEntry.STORED) {
+                var out = Channels.newChannel(outputStream);
+                long position = page.dataOffset();
+                long remaining = page.size();
+                while (remaining > 0) {
+                    long transferred = channel.transferTo(position, remaining, out);
+                    if (transferred <= 0) {
+                        throw new IOException("Unexpected end of archive while reading " + page.name());
+                    }
+                    position += transferred;
+                    remaining -= transferred;
+                }
+                return;
+            }
+            Inflater inflater = new Inflater(true);
+            try (InputStream in = new InflaterInputStream(Channels.newInputStream(channel.position(page.dataOffset())), inflater, 64 * 1024)) {
+                in.transferTo(outputStream);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private void streamRarEntry(Page page, OutputStream outputStream) throws IOException {
+        try (Archive archive = new Archive(archivePath.toFile())) {
+            List<FileHeader> headers = archive.getFileHeaders();
+            FileHeader header = page.headerIndex() < headers.size() ? headers.get(page.headerIndex()) : null;
+            if (header == null || !page.name().equals(header.getFileName())) {
+                throw new IOException("RAR header table changed for " + archivePath);
+            }
+            archive.extractFile(header, outputStream);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to read page from CBR archive", e);
+        }
+    }
+
+    static String fileNameOf(String fullPath) {
+        String normalizedPath = fullPath.replace("\\", "/");
+        int lastSlash = normalizedPath.lastIndexOf('/');
+        return lastSlash >= 0 ? normalizedPath.substring(lastSlash + 1) : normalizedPath;
+    }
+}
@@ -27,9 +27,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -44,16 +48,29 @@ public class CbxReaderService {
     private static final String CBR_EXTENSION = ".cbr";
     private static final String CB7_EXTENSION = ".cb7";
     private static final String[] SUPPORTED_IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".webp"};
+    private static final int MAX_INDEXED_BOOKS = 256;
 
     private final BookRepository bookRepository;
     private final AppSettingService appSettingService;
     private final FileService fileService;
 
+    private final Map<Long, CbxPageIndex> pageIndexes = Collections.synchronizedMap(new LinkedHashMap<Long, CbxPageIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CbxPageIndex> eldest) {
+            return size() > MAX_INDEXED_BOOKS;
+        }
+    });
+
     public List<Integer> getAvailablePages(Long bookId) {
         BookEntity bookEntity = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
         String bookFullPath = FileUtils.getBookFullPath(bookEntity);
 
         Path cbzPath = Path.of(bookFullPath);
+        CbxPageIndex pageIndex = resolvePageIndex(bookId, cbzPath);
+        if (pageIndex != null && pageIndex.isSupported()) {
+            return IntStream.rangeClosed(1, pageIndex.getPageCount()).boxed().collect(Collectors.toList());
+        }
+
         Path cacheDir = Path.of(fileService.getCbxCachePath(), String.valueOf(bookId));
         Path cacheInfoPath = cacheDir.resolve(CACHE_INFO_FILENAME);
 
@@ -90,7 +107,7 @@ public class CbxReaderService {
                     .sorted(Comparator.comparing(Path::getFileName))
                     .toList();
 
-            return java.util.stream.IntStream.rangeClosed(1, imageFiles.size())
+            return IntStream.rangeClosed(1, imageFiles.size())
                     .boxed()
                     .collect(Collectors.toList());
         } catch (IOException e) {
@@ -100,6 +117,17 @@ public class CbxReaderService {
     }
 
     public void streamPageImage(Long bookId, int page, OutputStream outputStream) throws IOException {
+        CbxPageIndex pageIndex = pageIndexes.get(bookId);
+        if (pageIndex == null || !pageIndex.isCurrent(pageIndex.getArchivePath())) {
+            pageIndex = bookRepository.findById(bookId)
+                    .map(book -> resolvePageIndex(bookId, Path.of(FileUtils.getBookFullPath(book))))
+                    .orElse(null);
+        }
+        if (pageIndex != null && pageIndex.isSupported()) {
+            pageIndex.streamPage(page, outputStream);
+            return;
+        }
+
         Path bookDir = Path.of(fileService.getCbxCachePath(), String.valueOf(bookId));
         List<Path> images;
         try (Stream<Path> files = Files.list(bookDir)) {
@@ -120,6 +148,21 @@ public class CbxReaderService {
         }
     }
 
+    private CbxPageIndex resolvePageIndex(Long bookId, Path archivePath) {
+        CbxPageIndex cached = pageIndexes.get(bookId);
+        if (cached != null && cached.isCurrent(archivePath)) {
+            return cached;
+        }
+        try {
+            CbxPageIndex pageIndex = CbxPageIndex.build(archivePath, this::isImageFile);
+            pageIndexes.put(bookId, pageIndex);
+            return pageIndex;
+        } catch (IOException e) {
+            log.warn("Failed to build page index for book {}: {}", bookId, e.getMessage());
+            return null;
+        }
+    }
+
     private void extractCbxArchive(Path cbxPath, Path targetDir) throws IOException {
         String filename = cbxPath.getFileName().toString().toLowerCase();
         if (filename.endsWith(CBZ_EXTENSION)) {
@@ -227,9 +270,7 @@ public class CbxReaderService {
     }
 
     private String extractFileNameFromPath(String fullPath) {
-        String normalizedPath = fullPath.replace("\\", "/");
-        int lastSlash = normalizedPath.lastIndexOf('/');
-        return lastSlash >= 0 ? normalizedPath.substring(lastSlash + 1) : normalizedPath;
+        return CbxPageIndex.fileNameOf(fullPath);
     }
 
     private boolean isImageFile(String name) {
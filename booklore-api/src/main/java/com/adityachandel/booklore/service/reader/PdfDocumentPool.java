@@ -0,0 +1,142 @@
+package com.adityachandel.booklore.service.reader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a hot PDF open between page requests. {@link PDDocument} is not thread safe, so the pool hands out
+ * up to {@code maxDocuments} independently loaded copies of the same file to concurrent renderers.
+ */
+@Slf4j
+final class PdfDocumentPool implements Closeable {
+
+    @FunctionalInterface
+    interface DocumentCallback<T> {
+        T apply(PDDocument document) throws IOException;
+    }
+
+    private final Path path;
+    private final long lastModified;
+    private final long fileSize;
+    private final int maxDocuments;
+    private final int pageCount;
+    private final LinkedBlockingDeque<PDDocument> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger opened = new AtomicInteger();
+    private volatile boolean closed;
+
+    PdfDocumentPool(Path path, int maxDocuments) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        this.path = path;
+        this.lastModified = attributes.lastModifiedTime().toMillis();
+        this.fileSize = attributes.size();
+        this.maxDocuments = Math.max(1, maxDocuments);
+        PDDocument first = Loader.loadPDF(path.toFile());
+        opened.incrementAndGet();
+        this.pageCount = first.getNumberOfPages();
+        idle.add(first);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getLastModified() {
+        return lastModified;
+    }
+
+    int getPageCount() {
+        return pageCount;
+    }
+
+    boolean isCurrent(Path candidate) {
+        if (closed || !path.equals(candidate)) {
+            return false;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(candidate, BasicFileAttributes.class);
+            return attributes.lastModifiedTime().toMillis() == lastModified && attributes.size() == fileSize;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    <T> T withDocument(DocumentCallback<T> callback) throws IOException {
+        PDDocument document = borrow();
+        try {
+            return callback.apply(document);
+        } finally {
+            release(document);
+        }
+    }
+
+    private PDDocument borrow() throws IOException {
+        PDDocument document = idle.pollFirst();
+        if (document != null) {
+            return document;
+        }
+        int current = opened.get();
+        while (current < maxDocuments) {
+            if (opened.compareAndSet(current, current + 1)) {
+                try {
+                    return Loader.loadPDF(path.toFile());
+                } catch (IOException e) {
+                    opened.decrementAndGet();
+                    throw e;
+                }
+            }
+            current = opened.get();
+        }
+        try {
+            while (!closed) {
+                document = idle.pollFirst(250, TimeUnit.MILLISECONDS);
+                if (document != null) {
+                    return document;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + path);
+        }
+        // Evicted while waiting: borrowed copies are closed on release, so use a one-off copy instead
+        return Loader.loadPDF(path.toFile());
+    }
+
+    private void release(PDDocument document) {
+        if (closed) {
+            closeQuietly(document);
+            return;
+        }
+        idle.offerFirst(document);
+        if (closed && idle.remove(document)) {
+            closeQuietly(document);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PDDocument document;
+        while ((document = idle.pollFirst()) != null) {
+            closeQuietly(document);
+        }
+    }
+
+    private void closeQuietly(PDDocument document) {
+        try {
+            document.close();
+        } catch (IOException e) {
+            log.debug("Failed to close PDF {}: {}", path, e.getMessage());
+        }
+    }
+}
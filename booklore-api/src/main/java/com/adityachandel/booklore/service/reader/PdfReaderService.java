@@ -1,15 +1,16 @@
 package com.adityachandel.booklore.service.reader;
 
+import com.adityachandel.booklore.config.AppProperties;
 import com.adityachandel.booklore.exception.ApiError;
 import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
 import com.adityachandel.booklore.util.FileService;
 import com.adityachandel.booklore.util.FileUtils;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.springframework.stereotype.Service;
@@ -18,123 +19,342 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
-import java.util.List;
-import java.util.regex.Pattern;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+/**
+ * Renders PDF pages on demand. The requested page is rendered in the calling thread and a small read-ahead
+ * window is queued on a bounded pool; every render, foreground or background, shares one permit pool sized to
+ * the available cores. Rendered pages are cached one file per page and variant under
+ * {@code pdf_cache/<bookId>/<variant>/}, and the whole cache is kept under the configured PDF cache size by
+ * evicting the least recently served pages.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class PdfReaderService {
 
     private static final String CACHE_INFO_FILENAME = ".cache-info";
-    private static final Pattern NON_DIGIT_PATTERN = Pattern.compile("\\D+");
+    private static final String CACHE_INFO_VERSION = "v2:";
+    private static final int MIN_DPI = 36;
+    private static final int MIN_WIDTH = 100;
+    private static final int READ_AHEAD_QUEUE_SIZE = 64;
 
     private final BookRepository bookRepository;
     private final AppSettingService appSettingService;
     private final FileService fileService;
+    private final AppProperties.PdfRender renderProperties;
+
+    private final Semaphore renderPermits;
+    private final ThreadPoolExecutor readAheadExecutor;
+    private final Map<Long, PdfDocumentPool> openDocuments;
+    private final Map<Path, CompletableFuture<Path>> inFlightRenders = new ConcurrentHashMap<>();
+    private final AtomicLong cacheSizeBytes = new AtomicLong(-1);
+    private final Object evictionLock = new Object();
+
+    public PdfReaderService(BookRepository bookRepository, AppSettingService appSettingService, FileService fileService, AppProperties appProperties) {
+        this.bookRepository = bookRepository;
+        this.appSettingService = appSettingService;
+        this.fileService = fileService;
+        this.renderProperties = appProperties.getPdfRender();
+
+        int parallelism = renderProperties.getParallelism() > 0
+                ? renderProperties.getParallelism()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.renderPermits = new Semaphore(parallelism);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.readAheadExecutor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(READ_AHEAD_QUEUE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-render-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+        this.readAheadExecutor.allowCoreThreadTimeOut(true);
+
+        int maxOpenDocuments = Math.max(1, renderProperties.getOpenDocuments());
+        this.openDocuments = Collections.synchronizedMap(new LinkedHashMap<Long, PdfDocumentPool>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, PdfDocumentPool> eldest) {
+                if (size() > maxOpenDocuments) {
+                    eldest.getValue().close();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
 
     public List<Integer> getAvailablePages(Long bookId) throws IOException {
         BookEntity bookEntity = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
-        String bookFullPath = FileUtils.getBookFullPath(bookEntity);
+        PdfDocumentPool document = openDocument(bookId, Path.of(FileUtils.getBookFullPath(bookEntity)));
+        return IntStream.rangeClosed(1, document.getPageCount()).boxed().collect(Collectors.toList());
+    }
+
+    public void streamPageImage(Long bookId, int page, OutputStream outputStream) throws IOException {
+        streamPageImage(bookId, page, null, null, outputStream);
+    }
+
+    public void streamPageImage(Long bookId, int page, Integer dpi, Integer width, OutputStream outputStream) throws IOException {
+        PdfDocumentPool document = openDocuments.get(bookId);
+        if (document == null || !document.isCurrent(document.getPath())) {
+            BookEntity bookEntity = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
+            document = openDocument(bookId, Path.of(FileUtils.getBookFullPath(bookEntity)));
+        }
+        if (page < 1 || page > document.getPageCount()) {
+            throw new FileNotFoundException("Page not found: " + page);
+        }
+
+        RenderVariant variant = resolveVariant(dpi, width);
+        Path pagePath = renderPage(bookId, document, variant, page);
+        scheduleReadAhead(bookId, document, variant, page);
+
+        InputStream in;
+        try {
+            in = Files.newInputStream(pagePath);
+        } catch (NoSuchFileException e) {
+            // Evicted between render and read, render it once more
+            in = Files.newInputStream(renderPage(bookId, document, variant, page));
+        }
+        try (in) {
+            in.transferTo(outputStream);
+        } catch (IOException e) {
+            log.error("Error streaming page {} of book {}", page, bookId, e);
+            throw new UncheckedIOException("Failed to stream PDF page image for bookId: " + bookId, e);
+        }
+        touch(pagePath);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readAheadExecutor.shutdownNow();
+        synchronized (openDocuments) {
+            openDocuments.values().forEach(PdfDocumentPool::close);
+            openDocuments.clear();
+        }
+    }
+
+    private PdfDocumentPool openDocument(Long bookId, Path pdfPath) throws IOException {
+        PdfDocumentPool existing = openDocuments.get(bookId);
+        if (existing != null && existing.isCurrent(pdfPath)) {
+            return existing;
+        }
+        if (!Files.isReadable(pdfPath)) {
+            throw new FileNotFoundException("PDF file is not readable: " + pdfPath);
+        }
+        PdfDocumentPool document = new PdfDocumentPool(pdfPath, renderProperties.getRenderersPerDocument());
+        validatePageCache(bookId, document);
+        PdfDocumentPool previous = openDocuments.put(bookId, document);
+        if (previous != null && previous != document) {
+            previous.close();
+        }
+        return document;
+    }
 
-        Path pdfPath = Path.of(bookFullPath);
-        Path cacheDir = Path.of(fileService.getPdfCachePath(), String.valueOf(bookId));
+    private void validatePageCache(Long bookId, PdfDocumentPool document) throws IOException {
+        Path cacheDir = bookCacheDir(bookId);
         Path cacheInfoPath = cacheDir.resolve(CACHE_INFO_FILENAME);
-        long maxCacheSizeBytes = appSettingService.getAppSettings().getPdfCacheSizeInMb() * 1024L * 1024L;
-        long estimatedSize = Files.size(pdfPath);
-        if (estimatedSize > maxCacheSizeBytes) {
-            log.warn("Cache skipped: Estimated PDF size {} exceeds max cache size {}", estimatedSize, maxCacheSizeBytes);
-            throw ApiError.CACHE_TOO_LARGE.createException();
+        String expected = CACHE_INFO_VERSION + document.getLastModified();
+        if (Files.exists(cacheInfoPath) && expected.equals(Files.readString(cacheInfoPath).trim())) {
+            return;
+        }
+        log.info("Invalidating cache for PDF book {}", bookId);
+        if (Files.exists(cacheDir)) {
+            FileUtils.deleteDirectoryRecursively(cacheDir);
+            cacheSizeBytes.set(-1);
+        }
+        Files.createDirectories(cacheDir);
+        Files.writeString(cacheInfoPath, expected, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private Path renderPage(Long bookId, PdfDocumentPool document, RenderVariant variant, int page) throws IOException {
+        Path target = bookCacheDir(bookId).resolve(variant.directoryName()).resolve(String.format("%04d.jpg", page));
+        if (Files.exists(target)) {
+            return target;
         }
 
+        CompletableFuture<Path> render = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlightRenders.putIfAbsent(target, render);
+        if (existing != null) {
+            return awaitRender(existing);
+        }
         try {
-            if (needsCacheRefresh(pdfPath, cacheInfoPath)) {
-                log.info("Invalidating cache for PDF book {}", bookId);
-                if (Files.exists(cacheDir)) FileUtils.deleteDirectoryRecursively(cacheDir);
-                Files.createDirectories(cacheDir);
-                extractPdfPages(pdfPath, cacheDir);
-                writeCacheInfo(pdfPath, cacheInfoPath);
+            renderPermits.acquire();
+            try {
+                writePage(document, variant, page - 1, target);
+            } finally {
+                renderPermits.release();
             }
+            render.complete(target);
+            return target;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while rendering page " + page);
+            render.completeExceptionally(interrupted);
+            throw interrupted;
+        } catch (IOException | RuntimeException e) {
+            render.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightRenders.remove(target, render);
+        }
+    }
 
-            try (Stream<Path> stream = Files.list(cacheDir)) {
-                return stream
-                        .filter(p -> p.toString().endsWith(".jpg"))
-                        .sorted()
-                        .map(p -> extractPageNumber(p.getFileName().toString()))
-                        .filter(p -> p != -1)
-                        .collect(Collectors.toList());
+    private void writePage(PdfDocumentPool document, RenderVariant variant, int pageIndex, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+        document.withDocument(pdf -> {
+            PDFRenderer renderer = new PDFRenderer(pdf);
+            BufferedImage image = null;
+            try {
+                if (variant.width() != null) {
+                    PDPage pdPage = pdf.getPage(pageIndex);
+                    PDRectangle cropBox = pdPage.getCropBox();
+                    float pageWidth = pdPage.getRotation() % 180 == 0 ? cropBox.getWidth() : cropBox.getHeight();
+                    image = renderer.renderImage(pageIndex, variant.width() / pageWidth, ImageType.RGB);
+                } else {
+                    image = renderer.renderImageWithDPI(pageIndex, variant.dpi(), ImageType.RGB);
+                }
+                ImageIO.write(image, "JPEG", tempFile.toFile());
+            } finally {
+                if (image != null) {
+                    image.flush(); // Release native resources
+                }
             }
-        } catch (IOException e) {
-            log.error("Failed to extract pages for book {}", bookId, e);
-            throw new UncheckedIOException("Failed to extract pages from PDF for bookId: " + bookId, e);
+            return null;
+        });
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        recordCachedBytes(Files.size(target));
+    }
+
+    private void scheduleReadAhead(Long bookId, PdfDocumentPool document, RenderVariant variant, int page) {
+        int lastPage = Math.min(document.getPageCount(), page + renderProperties.getReadAhead());
+        Path variantDir = bookCacheDir(bookId).resolve(variant.directoryName());
+        for (int next = page + 1; next <= lastPage; next++) {
+            Path target = variantDir.resolve(String.format("%04d.jpg", next));
+            if (inFlightRenders.containsKey(target) || Files.exists(target)) {
+                continue;
+            }
+            int nextPage = next;
+            readAheadExecutor.execute(() -> {
+                try {
+                    renderPage(bookId, document, variant, nextPage);
+                } catch (Exception e) {
+                    log.debug("Read-ahead of page {} for book {} failed: {}", nextPage, bookId, e.getMessage());
+                }
+            });
         }
     }
 
-    public void streamPageImage(Long bookId, int page, OutputStream outputStream) throws IOException {
-        Path pagePath = Path.of(fileService.getPdfCachePath(), String.valueOf(bookId), String.format("%04d.jpg", page));
-        if (!Files.exists(pagePath)) throw new FileNotFoundException("Page not found: " + page);
-        try (InputStream in = Files.newInputStream(pagePath)) {
-            try {
-                in.transferTo(outputStream);
-            } catch (IOException e) {
-                log.error("Error streaming page {} of book {}", page, bookId, e);
-                throw new UncheckedIOException("Failed to stream PDF page image for bookId: " + bookId, e);
+    private RenderVariant resolveVariant(Integer dpi, Integer width) {
+        if (width != null) {
+            return new RenderVariant(null, Math.clamp(width, MIN_WIDTH, renderProperties.getMaxWidth()));
+        }
+        int requestedDpi = dpi != null ? dpi : renderProperties.getDefaultDpi();
+        return new RenderVariant(Math.clamp(requestedDpi, MIN_DPI, renderProperties.getMaxDpi()), null);
+    }
+
+    private Path awaitRender(CompletableFuture<Path> render) throws IOException {
+        try {
+            return render.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for page render");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
             }
+            throw new UncheckedIOException(new IOException("Failed to render PDF page", e.getCause()));
         }
     }
 
-    private void extractPdfPages(Path pdfPath, Path targetDir) throws IOException {
-        if (!Files.isReadable(pdfPath)) {
-            throw new FileNotFoundException("PDF file is not readable: " + pdfPath);
+    private void recordCachedBytes(long bytes) {
+        long maxCacheSizeBytes = appSettingService.getAppSettings().getPdfCacheSizeInMb() * 1024L * 1024L;
+        long current = cacheSizeBytes.get() < 0 ? computeCacheSize() : cacheSizeBytes.addAndGet(bytes);
+        if (current > maxCacheSizeBytes) {
+            evictLeastRecentlyServed(maxCacheSizeBytes);
         }
-        try (PDDocument document = Loader.loadPDF(new File(pdfPath.toFile().toURI()))) {
-            PDFRenderer renderer = new PDFRenderer(document);
-            for (int i = 0; i < document.getNumberOfPages(); i++) {
-                BufferedImage image = null;
+    }
+
+    private long computeCacheSize() {
+        long total = listCachedPages().stream().mapToLong(CachedPage::size).sum();
+        cacheSizeBytes.set(total);
+        return total;
+    }
+
+    private void evictLeastRecentlyServed(long maxCacheSizeBytes) {
+        synchronized (evictionLock) {
+            List<CachedPage> pages = listCachedPages();
+            long total = pages.stream().mapToLong(CachedPage::size).sum();
+            long target = maxCacheSizeBytes * 9 / 10;
+            pages.sort(Comparator.comparingLong(CachedPage::lastServed));
+            for (CachedPage page : pages) {
+                if (total <= target) {
+                    break;
+                }
                 try {
-                    image = renderer.renderImageWithDPI(i, 200, ImageType.RGB);
-                    Path outputFile = targetDir.resolve(String.format("%04d.jpg", i + 1));
-                    ImageIO.write(image, "JPEG", outputFile.toFile());
-                } finally {
-                    if (image != null) {
-                        image.flush(); // Release native resources
-                    }
+                    Files.deleteIfExists(page.path());
+                    total -= page.size();
+                } catch (IOException e) {
+                    log.debug("Failed to evict cached PDF page {}: {}", page.path(), e.getMessage());
                 }
             }
-        } catch (IOException e) {
-            log.error("Failed to render PDF pages from {}", pdfPath, e);
-            throw new UncheckedIOException("Error rendering PDF to images", e);
+            cacheSizeBytes.set(total);
+            log.debug("Evicted PDF page cache down to {} bytes", total);
         }
     }
 
-    private boolean needsCacheRefresh(Path pdfPath, Path cacheInfoPath) throws IOException {
-        if (!Files.exists(cacheInfoPath)) return true;
-
-        long currentLastModified = Files.getLastModifiedTime(pdfPath).toMillis();
-        String recordedTimestamp = Files.readString(cacheInfoPath).trim();
+    private List<CachedPage> listCachedPages() {
+        Path cacheRoot = Path.of(fileService.getPdfCachePath());
+        if (!Files.isDirectory(cacheRoot)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.walk(cacheRoot)) {
+            return paths
+                    .filter(p -> p.getFileName().toString().endsWith(".jpg"))
+                    .map(p -> {
+                        try {
+                            return new CachedPage(p, Files.size(p), Files.getLastModifiedTime(p).toMillis());
+                        } catch (IOException e) {
+                            return null;
+                        }
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to list PDF page cache: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
+    private void touch(Path pagePath) {
         try {
-            long recordedLastModified = Long.parseLong(recordedTimestamp);
-            return recordedLastModified != currentLastModified;
-        } catch (NumberFormatException e) {
-            return true;
+            Files.setLastModifiedTime(pagePath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Failed to update last served time of {}: {}", pagePath, e.getMessage());
         }
     }
 
-    private void writeCacheInfo(Path pdfPath, Path cacheInfoPath) throws IOException {
-        long lastModified = Files.getLastModifiedTime(pdfPath).toMillis();
-        Files.writeString(cacheInfoPath, String.valueOf(lastModified), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    private Path bookCacheDir(Long bookId) {
+        return Path.of(fileService.getPdfCachePath(), String.valueOf(bookId));
     }
 
-    private int extractPageNumber(String filename) {
-        try {
-            return Integer.parseInt(NON_DIGIT_PATTERN.matcher(filename).replaceAll(""));
-        } catch (Exception e) {
-            return -1;
+    record RenderVariant(Integer dpi, Integer width) {
+        String directoryName() {
+            return width != null ? "w" + width : "dpi" + dpi;
         }
     }
+
+    private record CachedPage(Path path, long size, long lastServed) {
+    }
 }
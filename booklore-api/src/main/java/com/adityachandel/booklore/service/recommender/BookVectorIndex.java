@@ -0,0 +1,339 @@
+package com.adityachandel.booklore.service.recommender;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory nearest-neighbour index over book embeddings.
+ * <p>
+ * Vectors live in one flat {@code float[]} matrix (row-major, {@link BookVectorService#VECTOR_DIMENSION} floats per
+ * row). Candidate rows come from random-hyperplane LSH tables probed with the query's bucket plus every bucket one
+ * bit away. Candidates are then scored exactly into a primitive top-k heap. Small indexes, and queries whose
+ * buckets are too sparse, fall back to an exact scan split into per-core chunks with one heap per chunk.
+ * <p>
+ * Rows are updated in place as embeddings change, so the index survives between recommendation runs and only
+ * books whose {@code embeddingUpdatedAt} moved have to be reloaded.
+ */
+@Component
+public class BookVectorIndex {
+
+    private static final int DIMENSION = BookVectorService.VECTOR_DIMENSION;
+    private static final int TABLES = 12;
+    private static final int BITS = 11;
+    private static final int BUCKETS = 1 << BITS;
+    private static final int EXACT_SCAN_THRESHOLD = 4096;
+    private static final int MIN_CANDIDATES_PER_RESULT = 4;
+    private static final int PARALLEL_SCAN_CHUNK = 16_384;
+    private static final long HYPERPLANE_SEED = 0x5EED_B00CL;
+
+    private final float[] hyperplanes = new float[TABLES * BITS * DIMENSION];
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> rowsByBookId = new HashMap<>();
+    private final int[][][] buckets = new int[TABLES][BUCKETS][];
+    private final int[][] bucketSizes = new int[TABLES][BUCKETS];
+
+    private float[] vectors = new float[0];
+    private long[] bookIds = new long[0];
+    private long[] versions = new long[0];
+    private String[] seriesKeys = new String[0];
+    private int[] signatures = new int[0];
+    private boolean[] live = new boolean[0];
+    private int[] freeRows = new int[0];
+    private int freeCount;
+    private int rowCount;
+
+    public BookVectorIndex() {
+        Random random = new Random(HYPERPLANE_SEED);
+        for (int i = 0; i < hyperplanes.length; i++) {
+            hyperplanes[i] = (float) random.nextGaussian();
+        }
+    }
+
+    public record Neighbour(long bookId, double score) {
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowsByBookId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long bookId) {
+        lock.readLock().lock();
+        try {
+            return rowsByBookId.containsKey(bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true when the index already holds the embedding version stamped with {@code embeddingUpdatedAt}
+     */
+    public boolean isCurrent(long bookId, Instant embeddingUpdatedAt) {
+        lock.readLock().lock();
+        try {
+            Integer row = rowsByBookId.get(bookId);
+            return row != null && versions[row] == versionOf(embeddingUpdatedAt);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void upsert(long bookId, float[] vector, String seriesName, Instant embeddingUpdatedAt) {
+        if (vector.length != DIMENSION) {
+            throw new IllegalArgumentException("Expected a " + DIMENSION + "-dimensional vector, got " + vector.length);
+        }
+        lock.writeLock().lock();
+        try {
+            Integer existing = rowsByBookId.get(bookId);
+            int row;
+            if (existing != null) {
+                row = existing;
+                removeFromBuckets(row);
+            } else {
+                row = allocateRow();
+                rowsByBookId.put(bookId, row);
+            }
+            System.arraycopy(vector, 0, vectors, row * DIMENSION, DIMENSION);
+            bookIds[row] = bookId;
+            versions[row] = versionOf(embeddingUpdatedAt);
+            seriesKeys[row] = seriesName == null ? null : seriesName.toLowerCase();
+            live[row] = true;
+            for (int table = 0; table < TABLES; table++) {
+                int signature = signature(vectors, row * DIMENSION, table);
+                signatures[row * TABLES + table] = signature;
+                addToBucket(table, signature, row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowsByBookId.remove(bookId);
+            if (row != null) {
+                removeFromBuckets(row);
+                live[row] = false;
+                seriesKeys[row] = null;
+                if (freeCount == freeRows.length) {
+                    freeRows = Arrays.copyOf(freeRows, Math.max(16, freeRows.length * 2));
+                }
+                freeRows[freeCount++] = row;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every book that is not in {@code bookIdsToKeep}, e.g. books deleted since the previous run.
+     */
+    public void retainOnly(Set<Long> bookIdsToKeep) {
+        List<Long> stale;
+        lock.readLock().lock();
+        try {
+            stale = rowsByBookId.keySet().stream().filter(id -> !bookIdsToKeep.contains(id)).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        stale.forEach(this::remove);
+    }
+
+    /**
+     * Approximate top-{@code k} most similar books to an indexed book, excluding the book itself and other books
+     * of the same series, keeping only scores above {@code minScore}.
+     */
+    public List<Neighbour> findNearest(long bookId, int k, double minScore) {
+        lock.readLock().lock();
+        try {
+            Integer row = rowsByBookId.get(bookId);
+            if (row == null || k <= 0) {
+                return List.of();
+            }
+            if (rowsByBookId.size() <= EXACT_SCAN_THRESHOLD) {
+                return exactSearch(row, k, minScore);
+            }
+
+            BitSet seen = new BitSet(rowCount);
+            TopKHeap heap = new TopKHeap(k);
+            int candidates = 0;
+            for (int table = 0; table < TABLES; table++) {
+                int signature = signatures[row * TABLES + table];
+                candidates += probe(table, signature, row, minScore, seen, heap);
+                for (int bit = 0; bit < BITS; bit++) {
+                    candidates += probe(table, signature ^ (1 << bit), row, minScore, seen, heap);
+                }
+            }
+            if (candidates < k * MIN_CANDIDATES_PER_RESULT) {
+                return exactSearch(row, k, minScore);
+            }
+            return toNeighbours(heap);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Exact top-{@code k} by scanning every row; used for small indexes, sparse buckets and as the recall baseline.
+     */
+    public List<Neighbour> findNearestExact(long bookId, int k, double minScore) {
+        lock.readLock().lock();
+        try {
+            Integer row = rowsByBookId.get(bookId);
+            return row == null || k <= 0 ? List.of() : exactSearch(row, k, minScore);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Neighbour> exactSearch(int queryRow, int k, double minScore) {
+        int chunks = (rowCount + PARALLEL_SCAN_CHUNK - 1) / PARALLEL_SCAN_CHUNK;
+        if (chunks <= 1) {
+            TopKHeap heap = new TopKHeap(k);
+            scanRange(queryRow, 0, rowCount, minScore, heap);
+            return toNeighbours(heap);
+        }
+        TopKHeap merged = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    TopKHeap heap = new TopKHeap(k);
+                    scanRange(queryRow, chunk * PARALLEL_SCAN_CHUNK, Math.min(rowCount, (chunk + 1) * PARALLEL_SCAN_CHUNK), minScore, heap);
+                    return heap;
+                })
+                .reduce((left, right) -> {
+                    left.merge(right);
+                    return left;
+                })
+                .orElseThrow();
+        return toNeighbours(merged);
+    }
+
+    private void scanRange(int queryRow, int from, int to, double minScore, TopKHeap heap) {
+        for (int candidate = from; candidate < to; candidate++) {
+            offerCandidate(queryRow, candidate, minScore, heap);
+        }
+    }
+
+    private int probe(int table, int signature, int queryRow, double minScore, BitSet seen, TopKHeap heap) {
+        int[] rows = buckets[table][signature];
+        int size = bucketSizes[table][signature];
+        int fresh = 0;
+        for (int i = 0; i < size; i++) {
+            int candidate = rows[i];
+            if (!seen.get(candidate)) {
+                seen.set(candidate);
+                fresh++;
+                offerCandidate(queryRow, candidate, minScore, heap);
+            }
+        }
+        return fresh;
+    }
+
+    private void offerCandidate(int queryRow, int candidate, double minScore, TopKHeap heap) {
+        if (candidate == queryRow || !live[candidate]) {
+            return;
+        }
+        String querySeries = seriesKeys[queryRow];
+        if (querySeries != null && querySeries.equals(seriesKeys[candidate])) {
+            return;
+        }
+        float score = dot(queryRow * DIMENSION, candidate * DIMENSION);
+        if (score > minScore) {
+            heap.offer(candidate, score);
+        }
+    }
+
+    private float dot(int offsetA, int offsetB) {
+        float sum = 0f;
+        for (int i = 0; i < DIMENSION; i++) {
+            sum += vectors[offsetA + i] * vectors[offsetB + i];
+        }
+        return sum;
+    }
+
+    private int signature(float[] source, int offset, int table) {
+        int signature = 0;
+        int planeBase = table * BITS * DIMENSION;
+        for (int bit = 0; bit < BITS; bit++) {
+            int plane = planeBase + bit * DIMENSION;
+            float projection = 0f;
+            for (int i = 0; i < DIMENSION; i++) {
+                projection += source[offset + i] * hyperplanes[plane + i];
+            }
+            if (projection >= 0) {
+                signature |= 1 << bit;
+            }
+        }
+        return signature;
+    }
+
+    private List<Neighbour> toNeighbours(TopKHeap heap) {
+        int count = heap.size();
+        int[] rows = new int[count];
+        float[] scores = new float[count];
+        heap.drainDescending(rows, scores);
+        List<Neighbour> neighbours = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            neighbours.add(new Neighbour(bookIds[rows[i]], scores[i]));
+        }
+        return neighbours;
+    }
+
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowCount == bookIds.length) {
+            int capacity = Math.max(1024, bookIds.length + (bookIds.length >> 1));
+            vectors = Arrays.copyOf(vectors, capacity * DIMENSION);
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            seriesKeys = Arrays.copyOf(seriesKeys, capacity);
+            signatures = Arrays.copyOf(signatures, capacity * TABLES);
+            live = Arrays.copyOf(live, capacity);
+        }
+        return rowCount++;
+    }
+
+    private void addToBucket(int table, int signature, int row) {
+        int[] rows = buckets[table][signature];
+        int size = bucketSizes[table][signature];
+        if (rows == null) {
+            rows = new int[4];
+        } else if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+        }
+        rows[size] = row;
+        buckets[table][signature] = rows;
+        bucketSizes[table][signature] = size + 1;
+    }
+
+    private void removeFromBuckets(int row) {
+        for (int table = 0; table < TABLES; table++) {
+            int signature = signatures[row * TABLES + table];
+            int[] rows = buckets[table][signature];
+            int size = bucketSizes[table][signature];
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == row) {
+                    rows[i] = rows[size - 1];
+                    bucketSizes[table][signature] = size - 1;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static long versionOf(Instant embeddingUpdatedAt) {
+        return embeddingUpdatedAt == null ? Long.MIN_VALUE : embeddingUpdatedAt.toEpochMilli();
+    }
+}
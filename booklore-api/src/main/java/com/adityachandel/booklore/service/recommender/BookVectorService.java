@@ -21,7 +21,7 @@ import java.util.stream.Collectors;
 public class BookVectorService {
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final int VECTOR_DIMENSION = 128;
+    public static final int VECTOR_DIMENSION = 128;
     private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
     private static final Pattern NON_ALPHANUMERIC_EXCEPT_SPACE_PATTERN = Pattern.compile("[^a-z0-9\\s]");
 
@@ -120,6 +120,17 @@ public class BookVectorService {
         }
     }
 
+    public float[] toFloatVector(double[] vector) {
+        if (vector == null || vector.length != VECTOR_DIMENSION) {
+            return null;
+        }
+        float[] result = new float[VECTOR_DIMENSION];
+        for (int i = 0; i < VECTOR_DIMENSION; i++) {
+            result[i] = (float) vector[i];
+        }
+        return result;
+    }
+
     public double cosineSimilarity(double[] v1, double[] v2) {
         if (v1 == null || v2 == null || v1.length != v2.length) {
             return 0.0;
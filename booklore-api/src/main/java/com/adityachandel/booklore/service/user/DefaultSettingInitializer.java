@@ -1,5 +1,6 @@
 package com.adityachandel.booklore.service.user;
 
+import com.adityachandel.booklore.config.security.service.PrincipalCache;
 import com.adityachandel.booklore.model.dto.BookLoreUser;
 import com.adityachandel.booklore.model.dto.settings.UserSettingKey;
 import com.adityachandel.booklore.model.entity.BookLoreUserEntity;
@@ -24,6 +25,7 @@ public class DefaultSettingInitializer {
     private final UserRepository userRepository;
     private final ObjectMapper objectMapper;
     private final DefaultUserSettingsProvider settingsProvider;
+    private final PrincipalCache principalCache;
     private static final Set<Long> initializedUsers = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
     @Transactional
@@ -39,6 +41,7 @@ public class DefaultSettingInitializer {
             }
             patchPerBookSetting(user);
             userRepository.save(user);
+            principalCache.invalidate(bookLoreUser.getId());
             initializedUsers.add(bookLoreUser.getId());
         }
     }
@@ -0,0 +1,201 @@
+package com.adityachandel.booklore.service.user;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.ReadProgressUpdate;
+import com.adityachandel.booklore.repository.UserBookProgressRepository;
+import com.adityachandel.booklore.service.opds.OpdsCatalogStamps;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Write-behind buffer for reading progress.
+ * <p>
+ * Page turns in the web reader and KOReader pushes only {@link #record} their update. Updates of the same user and
+ * book are merged in memory, so however many arrive in between, each pair costs one upsert when the buffer is
+ * flushed: every {@code flushIntervalMs}, early once {@code maxPendingEntries} pairs are waiting, and on shutdown.
+ * A flush writes all pairs in one transaction and falls back to one transaction per pair if that fails, so a book
+ * deleted in the meantime cannot hold back everyone else's progress.
+ * <p>
+ * Anything that reads progress, or modifies it with a read-modify-write, calls {@link #flush(Long)} for the user
+ * before opening its own transaction. That is a no-op unless the user has updates waiting or being written, and
+ * gives them read-your-writes consistency.
+ */
+@Slf4j
+@Service
+public class ReadProgressBuffer {
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final UserBookProgressRepository progressRepository;
+    private final OpdsCatalogStamps catalogStamps;
+    private final TransactionTemplate writeTransaction;
+    private final boolean enabled;
+    private final int maxPendingEntries;
+    private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+    private final Set<Key> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService executor;
+    private final Counter recorded;
+    private final Counter written;
+    private final Counter dropped;
+
+    public ReadProgressBuffer(UserBookProgressRepository progressRepository, OpdsCatalogStamps catalogStamps,
+                              PlatformTransactionManager transactionManager, AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.progressRepository = progressRepository;
+        this.catalogStamps = catalogStamps;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        // Flushes triggered from a read must commit on their own, whatever the caller's transaction does
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AppProperties.ProgressBuffer config = appProperties.getProgressBuffer();
+        this.enabled = config.isEnabled();
+        this.maxPendingEntries = Math.max(1, config.getMaxPendingEntries());
+        long flushIntervalMs = Math.max(1, config.getFlushIntervalMs());
+        this.executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("read-progress-flush").daemon().factory());
+        if (enabled) {
+            this.executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        this.recorded = Counter.builder("progress.buffer.updates").tag("result", "recorded")
+                .description("Progress updates received from readers").register(meterRegistry);
+        this.written = Counter.builder("progress.buffer.updates").tag("result", "written")
+                .description("Coalesced progress updates written to the database").register(meterRegistry);
+        this.dropped = Counter.builder("progress.buffer.updates").tag("result", "dropped")
+                .description("Progress updates given up after repeated write failures").register(meterRegistry);
+        Gauge.builder("progress.buffer.pending", pending, Map::size)
+                .description("User and book pairs with progress waiting to be written").register(meterRegistry);
+    }
+
+    /**
+     * Queues {@code update} for the user's progress on the book, merged over any update still waiting for it.
+     */
+    public void record(Long userId, Long bookId, ReadProgressUpdate update) {
+        Key key = new Key(userId, bookId);
+        pending.merge(key, new Pending(update, 0), Pending::then);
+        recorded.increment();
+        if (!enabled) {
+            flush(key::equals);
+        } else if (pending.size() >= maxPendingEntries && flushRequested.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    /**
+     * Writes the updates waiting for {@code userId}, or waits for a flush already writing them, so that the caller
+     * reads what the user last sent. Call it outside of any transaction: the write commits on its own connection,
+     * and a snapshot taken before it would not see it.
+     */
+    public void flush(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        // A draining flush marks keys in flight before taking them out of pending, so checking in this order
+        // cannot miss an update that is still being written
+        Predicate<Key> ofUser = key -> key.userId().equals(userId);
+        if (pending.keySet().stream().noneMatch(ofUser) && inFlight.stream().noneMatch(ofUser)) {
+            return;
+        }
+        flush(ofUser);
+    }
+
+    public void flush() {
+        flush(key -> true);
+    }
+
+    private void flush(Predicate<Key> selector) {
+        synchronized (flushLock) {
+            Map<Key, Pending> drained = new HashMap<>();
+            for (Key key : pending.keySet()) {
+                if (selector.test(key)) {
+                    inFlight.add(key);
+                    Pending entry = pending.remove(key);
+                    if (entry != null) {
+                        drained.put(key, entry);
+                    } else {
+                        inFlight.remove(key);
+                    }
+                }
+            }
+            if (drained.isEmpty()) {
+                return;
+            }
+
+            try {
+                writeTransaction.executeWithoutResult(status -> drained.forEach(this::write));
+                written.increment(drained.size());
+            } catch (RuntimeException e) {
+                log.warn("Failed to write {} buffered progress updates at once, retrying one by one: {}", drained.size(), e.getMessage());
+                drained.forEach(this::writeAlone);
+            } finally {
+                inFlight.removeAll(drained.keySet());
+            }
+        }
+    }
+
+    private void write(Key key, Pending entry) {
+        progressRepository.upsert(key.userId(), key.bookId(), entry.update());
+        // The native upsert bypasses the Hibernate events OPDS feeds are stamped from
+        catalogStamps.userChanged(key.userId());
+    }
+
+    private void writeAlone(Key key, Pending entry) {
+        try {
+            writeTransaction.executeWithoutResult(status -> write(key, entry));
+            written.increment();
+        } catch (RuntimeException e) {
+            int attempts = entry.failedAttempts() + 1;
+            if (attempts >= MAX_WRITE_ATTEMPTS) {
+                log.error("Dropping progress of user {} for book {} after {} failed writes: {}", key.userId(), key.bookId(), attempts, e.getMessage());
+                dropped.increment();
+                return;
+            }
+            log.warn("Failed to write progress of user {} for book {}, will retry: {}", key.userId(), key.bookId(), e.getMessage());
+            // Anything recorded since the drain is newer and stays on top
+            pending.merge(key, new Pending(entry.update(), attempts), (newer, retry) -> retry.then(newer));
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush buffered reading progress: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        flushQuietly();
+    }
+
+    private record Key(Long userId, Long bookId) {
+    }
+
+    private record Pending(ReadProgressUpdate update, int failedAttempts) {
+
+        Pending then(Pending newer) {
+            return new Pending(update.then(newer.update()), Math.max(failedAttempts, newer.failedAttempts()));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.adityachandel.booklore.service.user;
 
 import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.config.security.service.PrincipalCache;
 import com.adityachandel.booklore.exception.ApiError;
 import com.adityachandel.booklore.model.dto.UserCreateRequest;
 import com.adityachandel.booklore.model.dto.request.InitialUserRequest;
@@ -31,6 +32,7 @@ public class UserProvisioningService {
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     private final UserDefaultsService userDefaultsService;
     private final AppSettingService appSettingService;
+    private final PrincipalCache principalCache;
 
     public boolean isInitialUserAlreadyProvisioned() {
         return userRepository.count() > 0;
@@ -241,6 +243,7 @@ public class UserProvisioningService {
         BookLoreUserEntity save = userRepository.save(user);
         userDefaultsService.addDefaultShelves(save);
         userDefaultsService.addDefaultSettings(save);
+        principalCache.invalidate(save.getId());
         return save;
     }
 }
@@ -1,6 +1,7 @@
 package com.adityachandel.booklore.service.user;
 
 import com.adityachandel.booklore.config.security.service.AuthenticationService;
+import com.adityachandel.booklore.config.security.service.PrincipalCache;
 import com.adityachandel.booklore.exception.ApiError;
 import com.adityachandel.booklore.mapper.custom.BookLoreUserTransformer;
 import com.adityachandel.booklore.model.dto.BookLoreUser;
@@ -32,6 +33,7 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final ObjectMapper objectMapper;
     private final BookLoreUserTransformer bookLoreUserTransformer;
+    private final PrincipalCache principalCache;
 
     public List<BookLoreUser> getBookLoreUsers() {
         return userRepository.findAll()
@@ -72,6 +74,7 @@ public class UserService {
         }
 
         userRepository.save(user);
+        principalCache.invalidate(id);
         return bookLoreUserTransformer.toDTO(user);
     }
 
@@ -86,6 +89,7 @@ public class UserService {
             throw ApiError.SELF_DELETION_NOT_ALLOWED.createException();
         }
         userRepository.delete(userToDelete);
+        principalCache.invalidate(id);
     }
 
     public BookLoreUser getBookLoreUser(Long id) {
@@ -122,6 +126,7 @@ public class UserService {
         bookLoreUserEntity.setDefaultPassword(false);
         bookLoreUserEntity.setPasswordHash(passwordEncoder.encode(changePasswordRequest.getNewPassword()));
         userRepository.save(bookLoreUserEntity);
+        principalCache.invalidate(bookLoreUserEntity.getId());
     }
 
     public void changeUserPassword(ChangeUserPasswordRequest request) {
@@ -131,6 +136,7 @@ public class UserService {
         }
         userEntity.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(userEntity);
+        principalCache.invalidate(userEntity.getId());
     }
 
     public void updateUserSetting(Long userId, UpdateUserSettingRequest request) {
@@ -174,6 +180,7 @@ public class UserService {
         }
 
         userRepository.save(user);
+        principalCache.invalidate(userId);
     }
 
     private boolean meetsMinimumPasswordRequirements(String password) {
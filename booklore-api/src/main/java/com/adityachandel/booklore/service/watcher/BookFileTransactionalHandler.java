@@ -2,7 +2,6 @@ package com.adityachandel.booklore.service.watcher;
 
 import com.adityachandel.booklore.exception.ApiError;
 import com.adityachandel.booklore.model.dto.settings.LibraryFile;
-import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.model.entity.LibraryEntity;
 import com.adityachandel.booklore.model.entity.LibraryPathEntity;
 import com.adityachandel.booklore.model.enums.BookFileExtension;
@@ -18,8 +17,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 
 import static com.adityachandel.booklore.model.enums.PermissionType.ADMIN;
@@ -35,19 +34,37 @@ public class BookFileTransactionalHandler {
     private final NotificationService notificationService;
     private final LibraryRepository libraryRepository;
 
+    /**
+     * Imports new book files of one library through the library scan, which processes them in parallel.
+     * Files that cannot be mapped to a library path or book type are skipped.
+     */
     @Transactional()
-    public void handleNewBookFile(long libraryId, Path path) {
+    public void handleNewBookFiles(long libraryId, List<Path> paths) {
         LibraryEntity libraryEntity = libraryRepository.findById(libraryId).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(libraryId));
+        String description = paths.size() == 1 ? "file: " + paths.getFirst() : paths.size() + " new files in library: " + libraryEntity.getName();
 
-        String filePath = path.toString();
-        String fileName = path.getFileName().toString();
-        String libraryPath = bookFilePersistenceService.findMatchingLibraryPath(libraryEntity, path);
+        notificationService.sendMessageToPermissions(Topic.LOG, LogNotification.info("Started processing " + description), Set.of(ADMIN, MANAGE_LIBRARY));
 
-        notificationService.sendMessageToPermissions(Topic.LOG, LogNotification.info("Started processing file: " + filePath), Set.of(ADMIN, MANAGE_LIBRARY));
+        List<LibraryFile> libraryFiles = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            try {
+                libraryFiles.add(toLibraryFile(libraryEntity, path));
+            } catch (Exception e) {
+                log.warn("[SKIP] Cannot import '{}': {}", path, e.getMessage());
+            }
+        }
+        libraryProcessingService.processLibraryFiles(libraryFiles, libraryEntity);
+
+        notificationService.sendMessageToPermissions(Topic.LOG, LogNotification.info("Finished processing " + description), Set.of(ADMIN, MANAGE_LIBRARY));
+        log.info("[CREATE] Completed processing for {} files in library '{}'", libraryFiles.size(), libraryEntity.getName());
+    }
 
+    private LibraryFile toLibraryFile(LibraryEntity libraryEntity, Path path) {
+        String fileName = path.getFileName().toString();
+        String libraryPath = bookFilePersistenceService.findMatchingLibraryPath(libraryEntity, path);
         LibraryPathEntity libraryPathEntity = bookFilePersistenceService.getLibraryPathEntityForFile(libraryEntity, libraryPath);
 
-        LibraryFile libraryFile = LibraryFile.builder()
+        return LibraryFile.builder()
                 .libraryEntity(libraryEntity)
                 .libraryPathEntity(libraryPathEntity)
                 .fileSubPath(FileUtils.getRelativeSubPath(libraryPathEntity.getPath(), path))
@@ -56,10 +73,5 @@ public class BookFileTransactionalHandler {
                         .map(BookFileExtension::getType)
                         .orElseThrow(() -> new IllegalArgumentException("Unsupported book file type: " + fileName)))
                 .build();
-
-        libraryProcessingService.processLibraryFiles(List.of(libraryFile), libraryEntity);
-
-        notificationService.sendMessageToPermissions(Topic.LOG, LogNotification.info("Finished processing file: " + filePath), Set.of(ADMIN, MANAGE_LIBRARY));
-        log.info("[CREATE] Completed processing for file '{}'", filePath);
     }
 }
@@ -1,6 +1,6 @@
 package com.adityachandel.booklore.service.watcher;
 
-import com.adityachandel.booklore.exception.ApiError;
+import com.adityachandel.booklore.config.AppProperties;
 import com.adityachandel.booklore.model.entity.LibraryEntity;
 import com.adityachandel.booklore.model.entity.LibraryPathEntity;
 import com.adityachandel.booklore.model.enums.BookFileExtension;
@@ -10,115 +10,166 @@ import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.service.file.FileFingerprint;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.util.FileUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.file.*;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.*;
 
+/**
+ * Applies file watcher events to the libraries.
+ * <p>
+ * Events are coalesced per path until the path has been quiet for {@code app.file-watcher.quiet-period-ms}. A book
+ * that is still being copied keeps producing MODIFY events and is imported once the copy is done; a file created
+ * and removed again, or removed and put back as editors and our metadata writers do, produces nothing. Settled
+ * paths are grouped by library and new books are handed to the library scan in batches of
+ * {@code app.file-watcher.max-batch-size}, so a folder of 2,000 books is imported in parallel instead of as 2,000
+ * serial transactions.
+ * <p>
+ * {@code booklore.watcher.pending} reports the paths waiting to settle and {@code booklore.watcher.event.lag} the
+ * time from a path's first event until it is dispatched.
+ */
 @Slf4j
 @Service
-@AllArgsConstructor
 public class LibraryFileEventProcessor {
 
-    private static final long DEBOUNCE_MS = 500L;
-
-    private final BlockingQueue<FileEvent> eventQueue = new LinkedBlockingQueue<>();
     private final LibraryRepository libraryRepository;
     private final BookFileTransactionalHandler bookFileTransactionalHandler;
     private final BookFilePersistenceService bookFilePersistenceService;
     private final NotificationService notificationService;
 
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private final ConcurrentMap<Path, ScheduledFuture<?>> pendingDeletes = new ConcurrentHashMap<>();
+    private final long quietPeriodNanos;
+    private final int maxBatchSize;
+    private final ConcurrentMap<Path, PendingPath> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("file-events").daemon().factory());
+    private final Timer eventLag;
+    private final Counter coalescedEvents;
+
+    public LibraryFileEventProcessor(LibraryRepository libraryRepository,
+                                     BookFileTransactionalHandler bookFileTransactionalHandler,
+                                     BookFilePersistenceService bookFilePersistenceService,
+                                     NotificationService notificationService,
+                                     AppProperties appProperties,
+                                     MeterRegistry meterRegistry) {
+        this.libraryRepository = libraryRepository;
+        this.bookFileTransactionalHandler = bookFileTransactionalHandler;
+        this.bookFilePersistenceService = bookFilePersistenceService;
+        this.notificationService = notificationService;
+        AppProperties.FileWatcher config = appProperties.getFileWatcher();
+        this.quietPeriodNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getQuietPeriodMs()));
+        this.maxBatchSize = Math.max(1, config.getMaxBatchSize());
+
+        Gauge.builder("booklore.watcher.pending", pending, Map::size)
+                .description("Watched paths waiting for their events to settle").register(meterRegistry);
+        this.eventLag = Timer.builder("booklore.watcher.event.lag")
+                .description("Time from the first event of a path until it is dispatched").register(meterRegistry);
+        this.coalescedEvents = Counter.builder("booklore.watcher.events.coalesced")
+                .description("Watcher events merged into an event already pending for the same path").register(meterRegistry);
+    }
 
     @PostConstruct
     public void init() {
-        Thread.ofVirtual().start(() -> {
-            log.info("LibraryFileEventProcessor virtual thread started.");
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    handleEvent(eventQueue.take());
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.warn("LibraryFileEventProcessor virtual thread interrupted.");
-                } catch (Exception e) {
-                    log.error("Error while processing file event", e);
-                }
+        long intervalMs = Math.max(50, TimeUnit.NANOSECONDS.toMillis(quietPeriodNanos) / 4);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush(System.nanoTime());
+            } catch (Exception e) {
+                log.error("Error while processing file events", e);
             }
-        });
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("LibraryFileEventProcessor started, quiet period {} ms", TimeUnit.NANOSECONDS.toMillis(quietPeriodNanos));
     }
 
     public void processFile(WatchEvent.Kind<?> eventKind, long libraryId, String libraryPath, String filePath) {
         Path path = Paths.get(filePath).toAbsolutePath().normalize();
+        long now = System.nanoTime();
+        pending.compute(path, (p, current) -> {
+            if (current != null) {
+                coalescedEvents.increment();
+            }
+            return PendingPath.merge(current, eventKind, libraryId, now);
+        });
+    }
 
-        if (eventKind == StandardWatchEventKinds.ENTRY_DELETE) {
-            // Schedule DELETE after debounce
-            ScheduledFuture<?> existing = pendingDeletes.put(path, scheduler.schedule(() -> {
-                eventQueue.offer(new FileEvent(eventKind, libraryId, libraryPath, filePath));
-                pendingDeletes.remove(path);
-            }, DEBOUNCE_MS, TimeUnit.MILLISECONDS));
-
-            if (existing != null) existing.cancel(false);
-        } else if (eventKind == StandardWatchEventKinds.ENTRY_CREATE) {
-            // If a DELETE is pending for this path, cancel both DELETE and CREATE
-            ScheduledFuture<?> pendingDelete = pendingDeletes.remove(path);
-            if (pendingDelete != null) {
-                pendingDelete.cancel(false);
-                log.debug("[DEBOUNCE] CREATE ignored because pending DELETE exists for '{}'", path);
-                return;
+    /**
+     * Dispatches every path that has been quiet for the quiet period as of {@code now}.
+     */
+    void flush(long now) {
+        Map<Long, Batch> batches = new LinkedHashMap<>();
+        for (Map.Entry<Path, PendingPath> entry : pending.entrySet()) {
+            PendingPath event = entry.getValue();
+            if (now - event.lastSeenNanos() < quietPeriodNanos || !pending.remove(entry.getKey(), event)) {
+                continue;
             }
-            // Otherwise process CREATE immediately
-            eventQueue.offer(new FileEvent(eventKind, libraryId, libraryPath, filePath));
-        } else {
-            // Other events
-            eventQueue.offer(new FileEvent(eventKind, libraryId, libraryPath, filePath));
+            eventLag.record(now - event.firstSeenNanos(), TimeUnit.NANOSECONDS);
+            WatchEvent.Kind<?> kind = event.netEffect();
+            if (kind == null) {
+                log.debug("[COALESCED] No net change for '{}'", entry.getKey());
+                continue;
+            }
+            Batch batch = batches.computeIfAbsent(event.libraryId(), id -> new Batch());
+            (kind == StandardWatchEventKinds.ENTRY_CREATE ? batch.created : batch.deleted).add(entry.getKey());
         }
+        batches.forEach(this::dispatch);
     }
 
-    private void handleEvent(FileEvent event) {
-        Path path = Paths.get(event.filePath()).toAbsolutePath().normalize();
-        String fileName = path.getFileName().toString();
-        log.info("[PROCESS] '{}' event for '{}'", event.eventKind().name(), fileName);
-
-        LibraryEntity library = libraryRepository.findById(event.libraryId())
-                .orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(event.libraryId()));
-
-        if (library.getLibraryPaths().stream().noneMatch(lp -> path.startsWith(lp.getPath()))) {
-            log.warn("[SKIP] Path outside of library: '{}'", path);
+    private void dispatch(long libraryId, Batch batch) {
+        LibraryEntity library = libraryRepository.findById(libraryId).orElse(null);
+        if (library == null) {
+            log.warn("[SKIP] Library {} not found, dropping events for {} paths", libraryId, batch.created.size() + batch.deleted.size());
             return;
         }
 
-        if (isFolder(path)) {
-            switch (event.eventKind().name()) {
-                case "ENTRY_CREATE" -> handleFolderCreate(library, path);
-                case "ENTRY_DELETE" -> handleFolderDelete(library, path);
-                default -> log.warn("[SKIP] Folder event '{}' ignored for '{}'", event.eventKind().name(), fileName);
+        for (Path path : batch.deleted) {
+            if (isOutsideLibrary(library, path)) {
+                continue;
+            }
+            if (isFolder(path)) {
+                handleFolderDelete(library, path);
+            } else if (isBookFile(path.getFileName().toString())) {
+                handleFileDelete(library, path);
             }
-            return;
         }
 
-        if (!isBookFile(fileName)) {
-            log.debug("[SKIP] Ignored non-book file '{}'", fileName);
-            return;
+        // Sorted so books of one folder are imported together, and deduplicated against folder walks
+        Set<Path> newFiles = new TreeSet<>();
+        for (Path path : batch.created) {
+            if (isOutsideLibrary(library, path)) {
+                continue;
+            }
+            if (Files.isDirectory(path)) {
+                collectFolderBooks(path, newFiles);
+            } else if (Files.isRegularFile(path) && isBookFile(path.getFileName().toString())) {
+                log.info("[FILE_CREATE] '{}'", path);
+                newFiles.add(path);
+            }
         }
-
-        switch (event.eventKind().name()) {
-            case "ENTRY_CREATE" -> handleFileCreate(library, path);
-            case "ENTRY_DELETE" -> handleFileDelete(library, path);
-            default -> log.debug("[SKIP] File event '{}' ignored for '{}'", event.eventKind().name(), fileName);
+        List<Path> files = List.copyOf(newFiles);
+        for (int from = 0; from < files.size(); from += maxBatchSize) {
+            List<Path> chunk = files.subList(from, Math.min(files.size(), from + maxBatchSize));
+            try {
+                bookFileTransactionalHandler.handleNewBookFiles(library.getId(), chunk);
+            } catch (Exception e) {
+                log.warn("[ERROR] Processing {} new files in library '{}': {}", chunk.size(), library.getName(), e.getMessage());
+            }
         }
     }
 
-    private void handleFileCreate(LibraryEntity library, Path path) {
-        log.info("[FILE_CREATE] '{}'", path);
-        bookFileTransactionalHandler.handleNewBookFile(library.getId(), path);
+    private boolean isOutsideLibrary(LibraryEntity library, Path path) {
+        if (library.getLibraryPaths().stream().noneMatch(lp -> path.startsWith(lp.getPath()))) {
+            log.warn("[SKIP] Path outside of library: '{}'", path);
+            return true;
+        }
+        return false;
     }
 
     private void handleFileDelete(LibraryEntity library, Path path) {
@@ -145,18 +196,12 @@ public class LibraryFileEventProcessor {
         }
     }
 
-    private void handleFolderCreate(LibraryEntity library, Path folderPath) {
+    private void collectFolderBooks(Path folderPath, Set<Path> newFiles) {
         log.info("[FOLDER_CREATE] '{}'", folderPath);
         try (var stream = Files.walk(folderPath)) {
             stream.filter(Files::isRegularFile)
                     .filter(p -> isBookFile(p.getFileName().toString()))
-                    .forEach(p -> {
-                        try {
-                            bookFileTransactionalHandler.handleNewBookFile(library.getId(), p);
-                        } catch (Exception e) {
-                            log.warn("[ERROR] Processing file '{}': {}", p, e.getMessage());
-                        }
-                    });
+                    .forEach(newFiles::add);
         } catch (IOException e) {
             log.warn("[ERROR] Walking folder '{}': {}", folderPath, e.getMessage());
         }
@@ -190,6 +235,34 @@ public class LibraryFileEventProcessor {
         log.info("Shutting down LibraryFileEventProcessor...");
     }
 
-    public record FileEvent(WatchEvent.Kind<?> eventKind, long libraryId, String libraryPath, String filePath) {
+    private static final class Batch {
+        private final List<Path> created = new ArrayList<>();
+        private final List<Path> deleted = new ArrayList<>();
+    }
+
+    /**
+     * What is known about a path since its first pending event: whether it existed before that event and whether
+     * it exists after the latest one.
+     */
+    record PendingPath(long libraryId, boolean existedBefore, boolean exists, long firstSeenNanos, long lastSeenNanos) {
+
+        static PendingPath merge(PendingPath current, WatchEvent.Kind<?> kind, long libraryId, long now) {
+            if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+                // A modification only postpones a pending event, existing books are not re-imported on every write
+                return current == null ? null : new PendingPath(current.libraryId, current.existedBefore, current.exists, current.firstSeenNanos, now);
+            }
+            boolean exists = kind == StandardWatchEventKinds.ENTRY_CREATE;
+            if (current == null) {
+                return new PendingPath(libraryId, !exists, exists, now, now);
+            }
+            return new PendingPath(libraryId, current.existedBefore, exists, current.firstSeenNanos, now);
+        }
+
+        WatchEvent.Kind<?> netEffect() {
+            if (exists == existedBefore) {
+                return null;
+            }
+            return exists ? StandardWatchEventKinds.ENTRY_CREATE : StandardWatchEventKinds.ENTRY_DELETE;
+        }
     }
-}
\ No newline at end of file
+}
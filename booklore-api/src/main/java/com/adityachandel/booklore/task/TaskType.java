@@ -67,6 +67,30 @@ public enum TaskType {
             true,
             "Refresh Metadata",
             "Updates metadata information for your selected books."
+    ),
+    CONVERT_CBX_TO_CBZ(
+            false,
+            true,
+            true,
+            false,
+            "Convert Comics to CBZ",
+            "Converts CBR and CB7 comics to CBZ once, so later metadata edits only rewrite ComicInfo.xml instead of the whole archive."
+    ),
+    REBUILD_READING_STATISTICS(
+            false,
+            false,
+            true,
+            false,
+            "Rebuild Reading Statistics",
+            "Recalculates the reading statistics dashboard from your recorded reading sessions."
+    ),
+    PRECONVERT_KOBO_BOOKS(
+            false,
+            true,
+            true,
+            false,
+            "Pre-convert Kobo Books",
+            "Converts the books on Kobo shelves to Kepub or EPUB ahead of time, so Kobo syncs download them without waiting for a conversion."
     );
 
     @Getter
@@ -1,15 +1,20 @@
 package com.adityachandel.booklore.task.tasks;
 
+import com.adityachandel.booklore.convertor.BookRecommendationIdsListConverter;
+import com.adityachandel.booklore.model.dto.BookEmbeddingStateDto;
+import com.adityachandel.booklore.model.dto.BookEmbeddingVectorDto;
 import com.adityachandel.booklore.model.dto.BookRecommendationLite;
+import com.adityachandel.booklore.model.dto.BookSimilarBooksDto;
 import com.adityachandel.booklore.model.dto.request.TaskCreateRequest;
 import com.adityachandel.booklore.model.dto.response.TaskCreateResponse;
 import com.adityachandel.booklore.model.entity.BookEntity;
-import com.adityachandel.booklore.model.entity.BookMetadataEntity;
 import com.adityachandel.booklore.model.enums.TaskType;
 import com.adityachandel.booklore.model.websocket.TaskProgressPayload;
 import com.adityachandel.booklore.model.websocket.Topic;
-import com.adityachandel.booklore.service.book.BookQueryService;
+import com.adityachandel.booklore.repository.BookMetadataRepository;
+import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.recommender.BookVectorIndex;
 import com.adityachandel.booklore.service.recommender.BookVectorService;
 import com.adityachandel.booklore.task.TaskStatus;
 import lombok.RequiredArgsConstructor;
@@ -18,19 +23,33 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Keeps {@code similar_books_json} up to date without comparing every book against every other book.
+ * <p>
+ * Embeddings are regenerated in batches and only written when they change. The {@link BookVectorIndex} is then
+ * refreshed for books whose {@code embeddingUpdatedAt} moved, and neighbours are recomputed only for books whose
+ * embedding is newer than their recommendations, plus the books that now sit next to them in vector space and the
+ * books whose recommendations still list a changed or deleted book.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class BookRecommendationUpdaterTask implements Task {
 
-    private final BookQueryService bookQueryService;
+    private final BookRepository bookRepository;
+    private final BookMetadataRepository bookMetadataRepository;
     private final BookVectorService vectorService;
+    private final BookVectorIndex vectorIndex;
     private final NotificationService notificationService;
 
     private static final int RECOMMENDATION_LIMIT = 25;
+    private static final double MIN_SIMILARITY = 0.1;
+    private static final int BATCH_SIZE = 500;
     private static final long MIN_NOTIFICATION_INTERVAL_MS = 250;
+    private static final BookRecommendationIdsListConverter RECOMMENDATION_CONVERTER = new BookRecommendationIdsListConverter();
 
     @Override
     public TaskCreateResponse execute(TaskCreateRequest request) {
@@ -47,104 +66,171 @@ public class BookRecommendationUpdaterTask implements Task {
 
         lastNotificationTime = sendTaskProgressNotification(taskId, 0, "Starting book recommendation update", TaskStatus.IN_PROGRESS, lastNotificationTime, true);
 
-        List<BookEntity> allBooks = bookQueryService.getAllFullBookEntities();
-        int totalBooks = allBooks.size();
+        List<BookEmbeddingStateDto> states = bookRepository.findAllEmbeddingStates();
+        int totalBooks = states.size();
 
         lastNotificationTime = sendTaskProgressNotification(taskId, 5, String.format("Loaded %d books, generating embeddings...", totalBooks), TaskStatus.IN_PROGRESS, lastNotificationTime, false);
 
-        Map<Long, double[]> embeddings = new HashMap<>();
-        List<BookEntity> booksToUpdate = new ArrayList<>();
-
+        List<Long> allBookIds = states.stream().map(BookEmbeddingStateDto::getId).toList();
+        int changedEmbeddings = 0;
         int embeddingProgress = 0;
-        for (BookEntity book : allBooks) {
-            double[] embedding = vectorService.generateEmbedding(book);
-            embeddings.put(book.getId(), embedding);
-
-            if (book.getMetadata() != null) {
-                String embeddingJson = vectorService.serializeVector(embedding);
-                if (!Objects.equals(book.getMetadata().getEmbeddingVector(), embeddingJson)) {
-                    book.getMetadata().setEmbeddingVector(embeddingJson);
-                    book.getMetadata().setEmbeddingUpdatedAt(Instant.now());
+        for (List<Long> batch : partition(allBookIds)) {
+            for (BookEntity book : bookRepository.findBooksForEmbedding(batch)) {
+                if (book.getMetadata() == null) continue;
+                try {
+                    String embeddingJson = vectorService.serializeVector(vectorService.generateEmbedding(book));
+                    if (embeddingJson != null && !Objects.equals(book.getMetadata().getEmbeddingVector(), embeddingJson)) {
+                        bookMetadataRepository.updateEmbedding(book.getId(), embeddingJson, Instant.now());
+                        changedEmbeddings++;
+                    }
+                } catch (Exception e) {
+                    log.error("{}: Error generating embedding for book ID {}", getTaskType(), book.getId(), e);
                 }
             }
+            embeddingProgress += batch.size();
+            int progress = 5 + (embeddingProgress * 30 / totalBooks);
+            lastNotificationTime = sendTaskProgressNotification(taskId, progress,
+                    String.format("Generated embeddings: %d/%d books", embeddingProgress, totalBooks),
+                    TaskStatus.IN_PROGRESS, lastNotificationTime, false);
+        }
 
-            embeddingProgress++;
-            if (embeddingProgress % 10 == 0 || embeddingProgress == totalBooks) {
-                int progress = 5 + (embeddingProgress * 30 / totalBooks);
-                lastNotificationTime = sendTaskProgressNotification(taskId, progress,
-                        String.format("Generated embeddings: %d/%d books", embeddingProgress, totalBooks),
-                        TaskStatus.IN_PROGRESS, lastNotificationTime, false);
-            }
+        if (changedEmbeddings > 0) {
+            states = bookRepository.findAllEmbeddingStates();
         }
 
-        lastNotificationTime = sendTaskProgressNotification(taskId, 35, "Computing book similarities...", TaskStatus.IN_PROGRESS, lastNotificationTime, false);
+        lastNotificationTime = sendTaskProgressNotification(taskId, 35, String.format("%d embeddings changed, updating vector index...", changedEmbeddings), TaskStatus.IN_PROGRESS, lastNotificationTime, false);
 
-        int processedBooks = 0;
-        for (BookEntity targetBook : allBooks) {
-            try {
-                double[] targetVector = embeddings.get(targetBook.getId());
-                if (targetVector == null) continue;
-
-                String targetSeries = Optional.ofNullable(targetBook.getMetadata())
-                        .map(BookMetadataEntity::getSeriesName)
-                        .map(String::toLowerCase)
-                        .orElse(null);
-
-                List<BookVectorService.ScoredBook> candidates = allBooks.stream()
-                        .filter(candidate -> !candidate.getId().equals(targetBook.getId()))
-                        .filter(candidate -> {
-                            String candidateSeries = Optional.ofNullable(candidate.getMetadata())
-                                    .map(BookMetadataEntity::getSeriesName)
-                                    .map(String::toLowerCase)
-                                    .orElse(null);
-                            return targetSeries == null || !targetSeries.equals(candidateSeries);
-                        })
-                        .map(candidate -> {
-                            double[] candidateVector = embeddings.get(candidate.getId());
-                            double similarity = vectorService.cosineSimilarity(targetVector, candidateVector);
-                            return new BookVectorService.ScoredBook(candidate.getId(), similarity);
-                        })
-                        .filter(scored -> scored.getScore() > 0.1)
-                        .collect(Collectors.toList());
-
-                List<BookVectorService.ScoredBook> topSimilar = vectorService.findTopKSimilar(
-                        targetVector,
-                        candidates,
-                        RECOMMENDATION_LIMIT
-                );
-
-                Set<BookRecommendationLite> recommendations = topSimilar.stream()
-                        .map(scored -> new BookRecommendationLite(scored.getBookId(), scored.getScore()))
-                        .collect(Collectors.toSet());
-
-                targetBook.setSimilarBooksJson(recommendations);
-                booksToUpdate.add(targetBook);
+        int reindexed = refreshIndex(states);
 
-            } catch (Exception e) {
-                log.error("{}: Error updating similar books for book ID {}", getTaskType(), targetBook.getId(), e);
-            }
+        List<Long> dirtyBookIds = states.stream()
+                .filter(state -> state.getEmbeddingUpdatedAt() != null)
+                .filter(state -> state.getSimilarBooksUpdatedAt() == null || state.getSimilarBooksUpdatedAt().isBefore(state.getEmbeddingUpdatedAt()))
+                .map(BookEmbeddingStateDto::getId)
+                .toList();
+        List<Long> affectedBookIds = collectAffectedBooks(dirtyBookIds, states);
 
-            processedBooks++;
-            if (processedBooks % 10 == 0 || processedBooks == totalBooks) {
-                int progress = 35 + (processedBooks * 50 / totalBooks);
-                lastNotificationTime = sendTaskProgressNotification(taskId, progress,
-                        String.format("Computing similarities: %d/%d books", processedBooks, totalBooks),
-                        TaskStatus.IN_PROGRESS, lastNotificationTime, false);
-            }
-        }
+        log.info("{}: {} embeddings changed, {} index rows refreshed, {} books dirty, {} books to recompute",
+                getTaskType(), changedEmbeddings, reindexed, dirtyBookIds.size(), affectedBookIds.size());
+        lastNotificationTime = sendTaskProgressNotification(taskId, 50, String.format("Computing book similarities for %d books...", affectedBookIds.size()), TaskStatus.IN_PROGRESS, lastNotificationTime, false);
 
-        lastNotificationTime = sendTaskProgressNotification(taskId, 85, String.format("Saving recommendations for %d books...", booksToUpdate.size()), TaskStatus.IN_PROGRESS, lastNotificationTime, false);
+        int processedBooks = 0;
+        for (List<Long> batch : partition(affectedBookIds)) {
+            Map<Long, String> recommendations = batch.parallelStream()
+                    .collect(Collectors.toMap(Function.identity(), this::computeRecommendationsJson));
+            Instant updatedAt = Instant.now();
+            recommendations.forEach((bookId, json) -> {
+                try {
+                    bookRepository.updateSimilarBooks(bookId, json, updatedAt);
+                } catch (Exception e) {
+                    log.error("{}: Error updating similar books for book ID {}", getTaskType(), bookId, e);
+                }
+            });
 
-        bookQueryService.saveAll(booksToUpdate);
+            processedBooks += batch.size();
+            int progress = 50 + (processedBooks * 45 / affectedBookIds.size());
+            lastNotificationTime = sendTaskProgressNotification(taskId, progress,
+                    String.format("Computing similarities: %d/%d books", processedBooks, affectedBookIds.size()),
+                    TaskStatus.IN_PROGRESS, lastNotificationTime, false);
+        }
 
         long endTime = System.currentTimeMillis();
         log.info("{}: Task completed. Duration: {} ms", getTaskType(), endTime - startTime);
 
-        sendTaskProgressNotification(taskId, 100, String.format("Updated recommendations for %d books in %d ms", totalBooks, endTime - startTime), TaskStatus.COMPLETED, lastNotificationTime, true);
+        sendTaskProgressNotification(taskId, 100, String.format("Updated recommendations for %d of %d books in %d ms", affectedBookIds.size(), totalBooks, endTime - startTime), TaskStatus.COMPLETED, lastNotificationTime, true);
 
         return builder.build();
     }
 
+    private int refreshIndex(List<BookEmbeddingStateDto> states) {
+        vectorIndex.retainOnly(states.stream().map(BookEmbeddingStateDto::getId).collect(Collectors.toSet()));
+
+        List<BookEmbeddingStateDto> stale = new ArrayList<>();
+        for (BookEmbeddingStateDto state : states) {
+            if (state.getEmbeddingUpdatedAt() == null) {
+                vectorIndex.remove(state.getId());
+            } else if (!vectorIndex.isCurrent(state.getId(), state.getEmbeddingUpdatedAt())) {
+                stale.add(state);
+            }
+        }
+
+        for (List<BookEmbeddingStateDto> batch : partition(stale)) {
+            Map<Long, String> vectors = bookMetadataRepository.findEmbeddingVectorsByBookIds(batch.stream().map(BookEmbeddingStateDto::getId).toList())
+                    .stream()
+                    .filter(dto -> dto.getEmbeddingVector() != null)
+                    .collect(Collectors.toMap(BookEmbeddingVectorDto::getBookId, BookEmbeddingVectorDto::getEmbeddingVector));
+            for (BookEmbeddingStateDto state : batch) {
+                float[] vector = vectorService.toFloatVector(vectorService.deserializeVector(vectors.get(state.getId())));
+                if (vector == null) {
+                    vectorIndex.remove(state.getId());
+                } else {
+                    vectorIndex.upsert(state.getId(), vector, state.getSeriesName(), state.getEmbeddingUpdatedAt());
+                }
+            }
+        }
+        return stale.size();
+    }
+
+    /**
+     * Dirty books, their current neighbours, whose top-k lists may now include (or rank) a changed book differently,
+     * and the books whose stored recommendations still point at a dirty book or at one that left the index, e.g.
+     * because it was deleted. Falls back to every book once the incremental set stops being meaningfully smaller.
+     */
+    private List<Long> collectAffectedBooks(List<Long> dirtyBookIds, List<BookEmbeddingStateDto> states) {
+        if (dirtyBookIds.size() * 2 >= states.size()) {
+            return states.stream().map(BookEmbeddingStateDto::getId).toList();
+        }
+        Set<Long> affected = new LinkedHashSet<>(dirtyBookIds);
+        dirtyBookIds.parallelStream()
+                .flatMap(bookId -> vectorIndex.findNearest(bookId, RECOMMENDATION_LIMIT, MIN_SIMILARITY).stream())
+                .map(BookVectorIndex.Neighbour::bookId)
+                .collect(Collectors.toSet())
+                .forEach(affected::add);
+        affected.addAll(findBooksReferencingStale(new HashSet<>(dirtyBookIds), states, affected));
+        if (affected.size() * 2 >= states.size()) {
+            return states.stream().map(BookEmbeddingStateDto::getId).toList();
+        }
+        return new ArrayList<>(affected);
+    }
+
+    private Set<Long> findBooksReferencingStale(Set<Long> dirtyBookIds, List<BookEmbeddingStateDto> states, Set<Long> alreadyAffected) {
+        List<Long> candidates = states.stream()
+                .filter(state -> state.getSimilarBooksUpdatedAt() != null)
+                .map(BookEmbeddingStateDto::getId)
+                .filter(bookId -> !alreadyAffected.contains(bookId))
+                .toList();
+        Set<Long> referencing = new HashSet<>();
+        for (List<Long> batch : partition(candidates)) {
+            for (BookSimilarBooksDto dto : bookRepository.findSimilarBooksJsonByIds(batch)) {
+                try {
+                    boolean stale = RECOMMENDATION_CONVERTER.convertToEntityAttribute(dto.getSimilarBooksJson()).stream()
+                            .mapToLong(BookRecommendationLite::getB)
+                            .anyMatch(bookId -> dirtyBookIds.contains(bookId) || !vectorIndex.contains(bookId));
+                    if (stale) {
+                        referencing.add(dto.getBookId());
+                    }
+                } catch (RuntimeException e) {
+                    referencing.add(dto.getBookId());
+                }
+            }
+        }
+        return referencing;
+    }
+
+    private String computeRecommendationsJson(Long bookId) {
+        Set<BookRecommendationLite> recommendations = vectorIndex.findNearest(bookId, RECOMMENDATION_LIMIT, MIN_SIMILARITY).stream()
+                .map(neighbour -> new BookRecommendationLite(neighbour.bookId(), neighbour.score()))
+                .collect(Collectors.toSet());
+        return RECOMMENDATION_CONVERTER.convertToDatabaseColumn(recommendations);
+    }
+
+    private static <T> List<List<T>> partition(List<T> items) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += BATCH_SIZE) {
+            batches.add(items.subList(i, Math.min(items.size(), i + BATCH_SIZE)));
+        }
+        return batches;
+    }
+
     private long sendTaskProgressNotification(String taskId, int progress, String message, TaskStatus taskStatus, long lastNotificationTime, boolean force) {
         long currentTime = System.currentTimeMillis();
 
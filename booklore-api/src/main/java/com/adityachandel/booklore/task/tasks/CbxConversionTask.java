@@ -0,0 +1,145 @@
+package com.adityachandel.booklore.task.tasks;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.request.TaskCreateRequest;
+import com.adityachandel.booklore.model.dto.response.TaskCreateResponse;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.enums.TaskType;
+import com.adityachandel.booklore.model.websocket.TaskProgressPayload;
+import com.adityachandel.booklore.model.websocket.Topic;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.service.metadata.writer.CbxMetadataWriter;
+import com.adityachandel.booklore.service.monitoring.MonitoringRegistrationService;
+import com.adityachandel.booklore.service.opds.OpdsCatalogStamps;
+import com.adityachandel.booklore.task.TaskCancellationManager;
+import com.adityachandel.booklore.task.TaskStatus;
+import com.adityachandel.booklore.util.FileUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Converts CBR and CB7 comics to CBZ so metadata edits can take the raw-copy path in {@link CbxMetadataWriter}
+ * instead of unpacking and repacking the whole archive every time.
+ * <p>
+ * Books are grouped by folder and folders are converted on a fixed pool of {@code app.cbx-conversion.parallelism}
+ * workers. A monitored folder is unregistered while its books are converted so the watcher does not see the
+ * rename as one book deleted and another added.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CbxConversionTask implements Task {
+
+    private static final long MIN_NOTIFICATION_INTERVAL_MS = 250;
+
+    private final BookRepository bookRepository;
+    private final CbxMetadataWriter cbxMetadataWriter;
+    private final MonitoringRegistrationService monitoringRegistrationService;
+    private final NotificationService notificationService;
+    private final OpdsCatalogStamps opdsCatalogStamps;
+    private final TaskCancellationManager cancellationManager;
+    private final AppProperties appProperties;
+
+    @Override
+    public TaskCreateResponse execute(TaskCreateRequest request) {
+        TaskCreateResponse.TaskCreateResponseBuilder builder = TaskCreateResponse.builder()
+                .taskId(request.getTaskId())
+                .taskType(TaskType.CONVERT_CBX_TO_CBZ);
+        String taskId = request.getTaskId();
+
+        long startTime = System.currentTimeMillis();
+        log.info("{}: Task started", getTaskType());
+
+        Map<Path, List<BookEntity>> booksByFolder = bookRepository.findAllCbrAndCb7Books().stream()
+                .collect(Collectors.groupingBy(book -> book.getFullFilePath().getParent(), LinkedHashMap::new, Collectors.toList()));
+        int totalBooks = booksByFolder.values().stream().mapToInt(List::size).sum();
+        sendProgress(taskId, 0, String.format("Converting %d comics to CBZ", totalBooks), TaskStatus.IN_PROGRESS, new AtomicLong(), true);
+
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger converted = new AtomicInteger();
+        AtomicLong lastNotificationTime = new AtomicLong();
+        int parallelism = Math.max(1, appProperties.getCbxConversion().getParallelism());
+        try (ExecutorService workers = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("cbx-convert-", 0).factory())) {
+            booksByFolder.forEach((folder, books) -> workers.submit(() -> {
+                if (cancellationManager.isTaskCancelled(taskId)) {
+                    return;
+                }
+                converted.addAndGet(convertFolder(folder, books));
+                int done = processed.addAndGet(books.size());
+                sendProgress(taskId, done * 100 / Math.max(1, totalBooks),
+                        String.format("Converted %d/%d comics", done, totalBooks), TaskStatus.IN_PROGRESS, lastNotificationTime, false);
+            }));
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        log.info("{}: Task completed. Converted {} of {} comics in {} ms", getTaskType(), converted.get(), totalBooks, duration);
+        sendProgress(taskId, 100, String.format("Converted %d of %d comics to CBZ in %d ms", converted.get(), totalBooks, duration),
+                TaskStatus.COMPLETED, lastNotificationTime, true);
+        return builder.build();
+    }
+
+    private int convertFolder(Path folder, List<BookEntity> books) {
+        Long libraryId = books.getFirst().getLibraryPath().getLibrary().getId();
+        boolean monitored = monitoringRegistrationService.isPathMonitored(folder);
+        if (monitored) {
+            monitoringRegistrationService.unregisterSpecificPath(folder);
+        }
+        int converted = 0;
+        try {
+            for (BookEntity book : books) {
+                try {
+                    Path cbz = cbxMetadataWriter.normalizeToCbz(book.getFullFilePath());
+                    bookRepository.updateFileNameHashAndSize(book.getId(), cbz.getFileName().toString(),
+                            FileFingerprint.generateHash(cbz), FileUtils.getFileSizeInKb(cbz));
+                    opdsCatalogStamps.libraryChanged(libraryId);
+                    converted++;
+                } catch (Exception e) {
+                    log.warn("{}: Failed to convert book ID {} ({}) to CBZ: {}", getTaskType(), book.getId(), book.getFileName(), e.getMessage());
+                }
+            }
+        } finally {
+            if (monitored) {
+                monitoringRegistrationService.registerSpecificPath(folder, libraryId);
+            }
+        }
+        return converted;
+    }
+
+    private void sendProgress(String taskId, int progress, String message, TaskStatus taskStatus, AtomicLong lastNotificationTime, boolean force) {
+        long now = System.currentTimeMillis();
+        long last = lastNotificationTime.get();
+        if (!force && (now - last < MIN_NOTIFICATION_INTERVAL_MS || !lastNotificationTime.compareAndSet(last, now))) {
+            return;
+        }
+        lastNotificationTime.set(now);
+        try {
+            notificationService.sendMessage(Topic.TASK_PROGRESS, TaskProgressPayload.builder()
+                    .taskId(taskId)
+                    .taskType(TaskType.CONVERT_CBX_TO_CBZ)
+                    .message(message)
+                    .progress(progress)
+                    .taskStatus(taskStatus)
+                    .build());
+        } catch (Exception e) {
+            log.error("Failed to send task progress notification for taskId={}: {}", taskId, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public TaskType getTaskType() {
+        return TaskType.CONVERT_CBX_TO_CBZ;
+    }
+}
@@ -0,0 +1,136 @@
+package com.adityachandel.booklore.task.tasks;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.request.TaskCreateRequest;
+import com.adityachandel.booklore.model.dto.response.TaskCreateResponse;
+import com.adityachandel.booklore.model.dto.settings.KoboSettings;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.enums.ShelfType;
+import com.adityachandel.booklore.model.enums.TaskType;
+import com.adityachandel.booklore.model.websocket.TaskProgressPayload;
+import com.adityachandel.booklore.model.websocket.Topic;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.kobo.KoboConversionCache;
+import com.adityachandel.booklore.task.TaskCancellationManager;
+import com.adityachandel.booklore.task.TaskStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills the {@link KoboConversionCache} for every book on a Kobo shelf, so the next sync downloads finished Kepub
+ * and EPUB files. Books whose conversion is already cached are only looked up; books the Kobo settings do not
+ * convert are skipped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KoboPreconversionTask implements Task {
+
+    private static final int LOAD_BATCH_SIZE = 100;
+    private static final long MIN_NOTIFICATION_INTERVAL_MS = 250;
+
+    private final BookRepository bookRepository;
+    private final KoboConversionCache koboConversionCache;
+    private final AppSettingService appSettingService;
+    private final NotificationService notificationService;
+    private final TaskCancellationManager cancellationManager;
+    private final AppProperties appProperties;
+
+    @Override
+    public TaskCreateResponse execute(TaskCreateRequest request) {
+        TaskCreateResponse.TaskCreateResponseBuilder builder = TaskCreateResponse.builder()
+                .taskId(request.getTaskId())
+                .taskType(getTaskType());
+        String taskId = request.getTaskId();
+
+        long startTime = System.currentTimeMillis();
+        log.info("{}: Task started", getTaskType());
+
+        KoboSettings koboSettings = appSettingService.getAppSettings().getKoboSettings();
+        if (koboSettings == null || (!koboSettings.isConvertToKepub() && !koboSettings.isConvertCbxToEpub())) {
+            log.info("{}: Kobo conversions are disabled, nothing to do", getTaskType());
+            sendProgress(taskId, 100, "Kobo conversions are disabled in the Kobo settings", TaskStatus.COMPLETED, new AtomicLong(), true);
+            return builder.status(TaskStatus.COMPLETED).build();
+        }
+
+        List<Long> bookIds = bookRepository.findEpubAndCbxIdsOnShelvesNamed(ShelfType.KOBO.getName());
+        int totalBooks = bookIds.size();
+        sendProgress(taskId, 0, String.format("Converting %d books on Kobo shelves", totalBooks), TaskStatus.IN_PROGRESS, new AtomicLong(), true);
+
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong lastNotificationTime = new AtomicLong();
+        int parallelism = Math.max(1, appProperties.getConversionCache().getParallelism());
+        try (ExecutorService workers = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("kobo-preconvert-", 0).factory())) {
+            for (int from = 0; from < totalBooks && !cancellationManager.isTaskCancelled(taskId); from += LOAD_BATCH_SIZE) {
+                List<BookEntity> books = bookRepository.findAllForKoboConversionByIds(bookIds.subList(from, Math.min(totalBooks, from + LOAD_BATCH_SIZE)));
+                for (BookEntity book : books) {
+                    workers.submit(() -> {
+                        if (cancellationManager.isTaskCancelled(taskId)) {
+                            return;
+                        }
+                        if (!preconvert(book, koboSettings)) {
+                            failed.incrementAndGet();
+                        }
+                        int done = processed.incrementAndGet();
+                        sendProgress(taskId, done * 100 / Math.max(1, totalBooks),
+                                String.format("Converted %d/%d books", done, totalBooks), TaskStatus.IN_PROGRESS, lastNotificationTime, false);
+                    });
+                }
+            }
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        log.info("{}: Task completed. Processed {} of {} books ({} failed) in {} ms", getTaskType(), processed.get(), totalBooks, failed.get(), duration);
+        sendProgress(taskId, 100, String.format("Prepared %d of %d Kobo books in %d ms", processed.get() - failed.get(), totalBooks, duration),
+                TaskStatus.COMPLETED, lastNotificationTime, true);
+        return builder.status(TaskStatus.COMPLETED).build();
+    }
+
+    private boolean preconvert(BookEntity book, KoboSettings koboSettings) {
+        if (!koboConversionCache.needsConversion(book, koboSettings)) {
+            return true;
+        }
+        try {
+            koboConversionCache.prepare(book, koboSettings);
+            return true;
+        } catch (Exception e) {
+            log.warn("{}: Failed to convert book ID {} ({}): {}", getTaskType(), book.getId(), book.getFileName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void sendProgress(String taskId, int progress, String message, TaskStatus taskStatus, AtomicLong lastNotificationTime, boolean force) {
+        long now = System.currentTimeMillis();
+        long last = lastNotificationTime.get();
+        if (!force && (now - last < MIN_NOTIFICATION_INTERVAL_MS || !lastNotificationTime.compareAndSet(last, now))) {
+            return;
+        }
+        lastNotificationTime.set(now);
+        try {
+            notificationService.sendMessage(Topic.TASK_PROGRESS, TaskProgressPayload.builder()
+                    .taskId(taskId)
+                    .taskType(getTaskType())
+                    .message(message)
+                    .progress(progress)
+                    .taskStatus(taskStatus)
+                    .build());
+        } catch (Exception e) {
+            log.error("Failed to send task progress notification for taskId={}: {}", taskId, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public TaskType getTaskType() {
+        return TaskType.PRECONVERT_KOBO_BOOKS;
+    }
+}
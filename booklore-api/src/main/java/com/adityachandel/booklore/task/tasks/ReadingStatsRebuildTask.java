@@ -0,0 +1,59 @@
+package com.adityachandel.booklore.task.tasks;
+
+import com.adityachandel.booklore.model.dto.request.TaskCreateRequest;
+import com.adityachandel.booklore.model.dto.response.TaskCreateResponse;
+import com.adityachandel.booklore.model.enums.TaskType;
+import com.adityachandel.booklore.repository.UserRepository;
+import com.adityachandel.booklore.service.ReadingSessionService;
+import com.adityachandel.booklore.task.TaskStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Recomputes the reading statistics rollups from the recorded sessions, one user per transaction. Recording a
+ * session keeps the rollups current; this corrects them after sessions disappear with a deleted book.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReadingStatsRebuildTask implements Task {
+
+    private final UserRepository userRepository;
+    private final ReadingSessionService readingSessionService;
+
+    @Override
+    public TaskCreateResponse execute(TaskCreateRequest request) {
+        TaskCreateResponse.TaskCreateResponseBuilder builder = TaskCreateResponse.builder()
+                .taskId(UUID.randomUUID().toString())
+                .taskType(getTaskType());
+
+        long startTime = System.currentTimeMillis();
+        log.info("{}: Task started", getTaskType());
+
+        try {
+            List<Long> userIds = userRepository.findAllIds();
+            for (Long userId : userIds) {
+                readingSessionService.rebuildStatisticsRollups(userId);
+            }
+            log.info("{}: Rebuilt reading statistics for {} users", getTaskType(), userIds.size());
+            builder.status(TaskStatus.COMPLETED);
+        } catch (Exception e) {
+            log.error("{}: Error rebuilding reading statistics", getTaskType(), e);
+            builder.status(TaskStatus.FAILED);
+        }
+
+        long endTime = System.currentTimeMillis();
+        log.info("{}: Task completed. Duration: {} ms", getTaskType(), endTime - startTime);
+
+        return builder.build();
+    }
+
+    @Override
+    public TaskType getTaskType() {
+        return TaskType.REBUILD_READING_STATISTICS;
+    }
+}
@@ -4,6 +4,7 @@ import com.adityachandel.booklore.model.entity.AuthorEntity;
 import com.adityachandel.booklore.model.entity.BookMetadataEntity;
 import lombok.experimental.UtilityClass;
 
+import java.util.Set;
 import java.util.regex.Pattern;
 
 @UtilityClass
@@ -13,6 +14,13 @@ public class BookUtils {
     private static final Pattern SPECIAL_CHARACTERS_PATTERN = Pattern.compile("[!@$%^&*_=|~`<>?/\"]");
     private static final Pattern DIACRITICAL_MARKS_PATTERN = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
     private static final Pattern PARENTHESIS_PATTERN = Pattern.compile("\\s?\\([^()]*\\)");
+    private static final Pattern NON_WORD_PATTERN = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Mirrors innodb_ft_min_token_size and the default InnoDB stopword list; such tokens are never indexed.
+    private static final int FULL_TEXT_MIN_TOKEN_LENGTH = 3;
+    private static final Set<String> FULL_TEXT_STOPWORDS = Set.of(
+            "about", "are", "com", "for", "from", "how", "that", "the", "this", "was",
+            "what", "when", "where", "who", "will", "with", "und", "www");
 
     public static String buildSearchText(BookMetadataEntity e) {
         if (e == null) return null;
@@ -54,6 +62,27 @@ public class BookUtils {
         return s.toLowerCase();
     }
 
+    /**
+     * Turns a search term normalised with {@link #normalizeForSearch(String)} into a MariaDB boolean-mode
+     * full-text expression requiring every word as a prefix, e.g. {@code "stephen kin"} becomes
+     * {@code "+stephen* +kin*"}. Words the full-text index cannot see are dropped; returns {@code null}
+     * when nothing indexable is left, in which case callers fall back to a substring search.
+     */
+    public static String buildFullTextQuery(String normalizedTerm) {
+        if (normalizedTerm == null || normalizedTerm.isBlank()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(normalizedTerm.length() + 16);
+        for (String token : NON_WORD_PATTERN.split(normalizedTerm)) {
+            if (token.length() < FULL_TEXT_MIN_TOKEN_LENGTH || FULL_TEXT_STOPWORDS.contains(token)) {
+                continue;
+            }
+            if (!sb.isEmpty()) sb.append(' ');
+            sb.append('+').append(token).append('*');
+        }
+        return sb.isEmpty() ? null : sb.toString();
+    }
+
     public static String cleanFileName(String fileName) {
         String name = fileName;
         if (name == null) {
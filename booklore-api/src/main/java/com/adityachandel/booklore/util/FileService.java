@@ -6,6 +6,7 @@ import com.adityachandel.booklore.model.dto.settings.CoverCroppingSettings;
 import com.adityachandel.booklore.model.entity.BookMetadataEntity;
 import com.adityachandel.booklore.repository.BookMetadataRepository;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.opds.OpdsCatalogStamps;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
@@ -20,7 +21,6 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -43,6 +43,7 @@ public class FileService {
     private final RestTemplate restTemplate;
     private final AppSettingService appSettingService;
     private final BookMetadataRepository bookMetadataRepository;
+    private final OpdsCatalogStamps opdsCatalogStamps;
 
     private static final double TARGET_COVER_ASPECT_RATIO = 1.5;
     private static final int SMART_CROP_COLOR_TOLERANCE = 30;
@@ -111,6 +112,18 @@ public class FileService {
         return Paths.get(appProperties.getPathConfig(), "pdf_cache").toString();
     }
 
+    public String getCoverVariantCachePath() {
+        return Paths.get(appProperties.getPathConfig(), "cover_variant_cache").toString();
+    }
+
+    public String getMetadataCachePath() {
+        return Paths.get(appProperties.getPathConfig(), "metadata_cache").toString();
+    }
+
+    public String getConversionCachePath() {
+        return Paths.get(appProperties.getPathConfig(), "conversion_cache").toString();
+    }
+
     public String getTempBookdropCoverImagePath(long bookdropFileId) {
         return Paths.get(appProperties.getPathConfig(), "bookdrop_temp", bookdropFileId + ".jpg").toString();
     }
@@ -145,12 +158,14 @@ public class FileService {
     // ========================================
 
     public static BufferedImage resizeImage(BufferedImage originalImage, int width, int height) {
-        Image tmp = originalImage.getScaledInstance(width, height, Image.SCALE_SMOOTH);
-        BufferedImage resizedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = resizedImage.createGraphics();
-        g2d.drawImage(tmp, 0, 0, null);
-        g2d.dispose();
-        return resizedImage;
+        return ImageProcessor.scale(originalImage, width, height);
+    }
+
+    /**
+     * Decodes a cover, subsampling sources far larger than the stored cover so they are never fully decoded.
+     */
+    public static BufferedImage readCoverImage(InputStream inputStream) throws IOException {
+        return ImageProcessor.read(inputStream, MAX_ORIGINAL_WIDTH, MAX_ORIGINAL_HEIGHT);
     }
 
     public static void saveImage(byte[] imageData, String filePath) throws IOException {
@@ -216,7 +231,7 @@ public class FileService {
             validateCoverFile(file);
             BufferedImage originalImage;
             try (InputStream inputStream = file.getInputStream()) {
-                originalImage = ImageIO.read(inputStream);
+                originalImage = readCoverImage(inputStream);
             }
             if (originalImage == null) {
                 throw ApiError.IMAGE_NOT_FOUND.createException();
@@ -237,7 +252,7 @@ public class FileService {
         try {
             BufferedImage originalImage;
             try (InputStream inputStream = new java.io.ByteArrayInputStream(imageBytes)) {
-                originalImage = ImageIO.read(inputStream);
+                originalImage = readCoverImage(inputStream);
             }
             if (originalImage == null) {
                 throw ApiError.IMAGE_NOT_FOUND.createException();
@@ -270,9 +285,8 @@ public class FileService {
     }
 
     public boolean saveCoverImages(BufferedImage coverImage, long bookId) throws IOException {
-        BufferedImage rgbImage = null;
-        BufferedImage cropped = null;
-        BufferedImage resized = null;
+        BufferedImage opaque = null;
+        BufferedImage cover = null;
         BufferedImage thumb = null;
         try {
             String folderPath = getImagesFolder(bookId);
@@ -281,55 +295,37 @@ public class FileService {
                 throw new IOException("Failed to create directory: " + folder.getAbsolutePath());
             }
 
-            rgbImage = new BufferedImage(
-                    coverImage.getWidth(),
-                    coverImage.getHeight(),
-                    BufferedImage.TYPE_INT_RGB
-            );
-            Graphics2D g = rgbImage.createGraphics();
-            g.drawImage(coverImage, 0, 0, Color.WHITE, null);
-            g.dispose();
+            // Only transparent covers need flattening before cropping looks at their pixels, the RGB conversion of
+            // anything else happens in the same pass as the resize.
             // Note: coverImage is not flushed here - caller is responsible for its lifecycle
-
-            cropped = applyCoverCropping(rgbImage);
-            if (cropped != rgbImage) {
-                rgbImage.flush();
-                rgbImage = cropped;
-            }
+            opaque = coverImage.getColorModel().hasAlpha()
+                    ? ImageProcessor.scale(coverImage, coverImage.getWidth(), coverImage.getHeight())
+                    : coverImage;
+            BufferedImage cropped = applyCoverCropping(opaque);
 
             // Resize original image if too large to prevent OOM
-            double scale = Math.min(
-                    (double) MAX_ORIGINAL_WIDTH / rgbImage.getWidth(),
-                    (double) MAX_ORIGINAL_HEIGHT / rgbImage.getHeight()
-            );
-            if (scale < 1.0) {
-                resized = resizeImage(rgbImage, (int) (rgbImage.getWidth() * scale), (int) (rgbImage.getHeight() * scale));
-                rgbImage.flush(); // Release resources of the original large image
-                rgbImage = resized;
-            }
+            cover = ImageProcessor.scaleToFit(cropped, MAX_ORIGINAL_WIDTH, MAX_ORIGINAL_HEIGHT);
 
             File originalFile = new File(folder, COVER_FILENAME);
-            boolean originalSaved = ImageIO.write(rgbImage, IMAGE_FORMAT, originalFile);
+            boolean originalSaved = ImageIO.write(cover, IMAGE_FORMAT, originalFile);
 
-            thumb = resizeImage(rgbImage, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT);
+            thumb = resizeImage(cover, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT);
             File thumbnailFile = new File(folder, THUMBNAIL_FILENAME);
             boolean thumbnailSaved = ImageIO.write(thumb, IMAGE_FORMAT, thumbnailFile);
 
             if (originalSaved && thumbnailSaved) {
                 bookMetadataRepository.updateCoverTimestamp(bookId, Instant.now());
+                // The timestamp is part of the cover links in OPDS feeds
+                opdsCatalogStamps.libraryChanged(null);
             }
             return originalSaved && thumbnailSaved;
         } finally {
-            // Cleanup resources created within this method
-            // Note: cropped/resized may equal rgbImage after reassignment, avoid double-flush
-            if (rgbImage != null) {
-                rgbImage.flush();
-            }
-            if (cropped != null && cropped != rgbImage) {
-                cropped.flush();
+            // Cleanup resources created within this method, cropped is a view of opaque
+            if (opaque != null && opaque != coverImage) {
+                opaque.flush();
             }
-            if (resized != null && resized != rgbImage) {
-                resized.flush();
+            if (cover != null) {
+                cover.flush();
             }
             if (thumb != null) {
                 thumb.flush();
@@ -447,26 +443,29 @@ public class FileService {
 
     public void deleteBookCovers(Set<Long> bookIds) {
         for (Long bookId : bookIds) {
-            String bookCoverFolder = getImagesFolder(bookId);
-            Path folderPath = Paths.get(bookCoverFolder);
-            try {
-                if (Files.exists(folderPath) && Files.isDirectory(folderPath)) {
-                    try (Stream<Path> walk = Files.walk(folderPath)) {
-                        walk.sorted(Comparator.reverseOrder())
-                                .forEach(path -> {
-                                    try {
-                                        Files.delete(path);
-                                    } catch (IOException e) {
-                                        log.error("Failed to delete file: {} - {}", path, e.getMessage());
-                                    }
-                                });
-                    }
+            deleteFolder(Paths.get(getImagesFolder(bookId)));
+            deleteFolder(Paths.get(getCoverVariantCachePath(), String.valueOf(bookId)));
+        }
+        log.info("Deleted {} book covers", bookIds.size());
+    }
+
+    private void deleteFolder(Path folderPath) {
+        try {
+            if (Files.exists(folderPath) && Files.isDirectory(folderPath)) {
+                try (Stream<Path> walk = Files.walk(folderPath)) {
+                    walk.sorted(Comparator.reverseOrder())
+                            .forEach(path -> {
+                                try {
+                                    Files.delete(path);
+                                } catch (IOException e) {
+                                    log.error("Failed to delete file: {} - {}", path, e.getMessage());
+                                }
+                            });
                 }
-            } catch (IOException e) {
-                log.error("Error processing folder: {} - {}", folderPath, e.getMessage());
             }
+        } catch (IOException e) {
+            log.error("Error processing folder: {} - {}", folderPath, e.getMessage());
         }
-        log.info("Deleted {} book covers", bookIds.size());
     }
 
     // ========================================
@@ -57,6 +57,17 @@ public class KoboUrlBuilder {
                 .toUriString();
     }
 
+    /**
+     * Download URL with an unexpanded {@code {bookId}} segment, so a sync page resolves the base URL once and can be
+     * built off the request thread.
+     */
+    public String downloadUrlTemplate(String token) {
+        return baseBuilder()
+                .pathSegment("api", "kobo", token, "v1", "books", "{bookId}", "download")
+                .build()
+                .toUriString();
+    }
+
     public String imageUrlTemplate(String token) {
         return baseBuilder()
                 .pathSegment("api", "kobo", token, "v1", "books", "{ImageId}", "thumbnail", "{Width}", "{Height}", "false", "image.jpg")
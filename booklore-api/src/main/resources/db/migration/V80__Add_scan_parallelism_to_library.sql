@@ -0,0 +1,2 @@
+ALTER TABLE library
+    ADD COLUMN IF NOT EXISTS scan_parallelism INT NULL;
@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS library_file_state
+(
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    library_id      BIGINT        NOT NULL,
+    library_path_id BIGINT        NOT NULL,
+    relative_path   VARCHAR(2048) NOT NULL,
+    is_directory    BOOLEAN       NOT NULL DEFAULT FALSE,
+    file_size       BIGINT        NULL,
+    last_modified   BIGINT        NOT NULL,
+    file_key        VARCHAR(255)  NULL,
+    fingerprint     VARCHAR(128)  NULL,
+    updated_at      DATETIME      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_library_file_state_library FOREIGN KEY (library_id) REFERENCES library (id) ON DELETE CASCADE,
+    CONSTRAINT fk_library_file_state_path FOREIGN KEY (library_path_id) REFERENCES library_path (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_library_file_state_path ON library_file_state (library_path_id);
@@ -0,0 +1 @@
+CREATE FULLTEXT INDEX IF NOT EXISTS ft_book_metadata_search_text ON book_metadata (search_text);
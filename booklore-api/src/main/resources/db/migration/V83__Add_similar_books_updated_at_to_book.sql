@@ -0,0 +1 @@
+ALTER TABLE book ADD COLUMN IF NOT EXISTS similar_books_updated_at DATETIME;
@@ -0,0 +1,51 @@
+CREATE TABLE IF NOT EXISTS reading_session_daily_stats
+(
+    user_id                 BIGINT NOT NULL,
+    stat_date               DATE   NOT NULL,
+    session_count           INT    NOT NULL DEFAULT 0,
+    speed_session_count     INT    NOT NULL DEFAULT 0,
+    progress_per_minute_sum DOUBLE NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, stat_date),
+    CONSTRAINT fk_reading_session_daily_stats_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS reading_session_hourly_stats
+(
+    user_id                BIGINT NOT NULL,
+    stat_date              DATE   NOT NULL,
+    stat_hour              INT    NOT NULL,
+    session_count          INT    NOT NULL DEFAULT 0,
+    total_duration_seconds BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, stat_date, stat_hour),
+    CONSTRAINT fk_reading_session_hourly_stats_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS reading_session_book_stats
+(
+    user_id                BIGINT NOT NULL,
+    book_id                BIGINT NOT NULL,
+    session_count          INT    NOT NULL DEFAULT 0,
+    total_duration_seconds BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, book_id),
+    CONSTRAINT fk_reading_session_book_stats_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_reading_session_book_stats_book FOREIGN KEY (book_id) REFERENCES book (id) ON DELETE CASCADE
+);
+
+INSERT IGNORE INTO reading_session_daily_stats (user_id, stat_date, session_count, speed_session_count, progress_per_minute_sum)
+SELECT user_id,
+       DATE(created_at),
+       COUNT(*),
+       SUM(duration_seconds > 0 AND progress_delta > 0),
+       SUM(IF(duration_seconds > 0 AND progress_delta > 0, progress_delta / (duration_seconds / 60.0), 0))
+FROM reading_sessions
+GROUP BY user_id, DATE(created_at);
+
+INSERT IGNORE INTO reading_session_hourly_stats (user_id, stat_date, stat_hour, session_count, total_duration_seconds)
+SELECT user_id, DATE(start_time), HOUR(start_time), COUNT(*), SUM(duration_seconds)
+FROM reading_sessions
+GROUP BY user_id, DATE(start_time), HOUR(start_time);
+
+INSERT IGNORE INTO reading_session_book_stats (user_id, book_id, session_count, total_duration_seconds)
+SELECT user_id, book_id, COUNT(*), SUM(duration_seconds)
+FROM reading_sessions
+GROUP BY user_id, book_id;
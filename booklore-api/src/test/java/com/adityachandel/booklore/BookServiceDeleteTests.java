@@ -3,9 +3,11 @@ package com.adityachandel.booklore;
 import com.adityachandel.booklore.config.security.service.AuthenticationService;
 import com.adityachandel.booklore.mapper.BookMapper;
 import com.adityachandel.booklore.repository.*;
+import com.adityachandel.booklore.service.ReadingSessionService;
 import com.adityachandel.booklore.service.book.BookDownloadService;
 import com.adityachandel.booklore.service.book.BookQueryService;
 import com.adityachandel.booklore.service.book.BookService;
+import com.adityachandel.booklore.service.user.ReadProgressBuffer;
 import com.adityachandel.booklore.service.user.UserProgressService;
 import com.adityachandel.booklore.service.monitoring.MonitoringRegistrationService;
 import com.adityachandel.booklore.service.kobo.KoboReadingStateService;
@@ -16,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.io.File;
 import java.io.IOException;
@@ -52,6 +55,9 @@ class BookServiceDeleteTests {
         BookDownloadService bookDownloadService = Mockito.mock(BookDownloadService.class);
         MonitoringRegistrationService monitoringRegistrationService = Mockito.mock(MonitoringRegistrationService.class);
         KoboReadingStateService koboReadingStateService = Mockito.mock(KoboReadingStateService.class);
+        ReadProgressBuffer readProgressBuffer = Mockito.mock(ReadProgressBuffer.class);
+        ReadingSessionService readingSessionService = Mockito.mock(ReadingSessionService.class);
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
 
         bookService = new BookService(
                 bookRepository,
@@ -69,7 +75,10 @@ class BookServiceDeleteTests {
                 userProgressService,
                 bookDownloadService,
                 monitoringRegistrationService,
-                koboReadingStateService
+                koboReadingStateService,
+                readProgressBuffer,
+                readingSessionService,
+                transactionManager
         );
     }
 
@@ -0,0 +1,136 @@
+package com.adityachandel.booklore.config.security.service;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.BookLoreUser;
+import com.adityachandel.booklore.service.event.UserChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrincipalCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger loads;
+    private Function<Long, BookLoreUser> loader;
+    private List<Object> events;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+        events = new ArrayList<>();
+        loader = id -> {
+            loads.incrementAndGet();
+            return BookLoreUser.builder().id(id).username("user" + id).build();
+        };
+    }
+
+    private PrincipalCache cache(int maxEntries, long ttlSeconds) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getPrincipalCache().setMaxEntries(maxEntries);
+        appProperties.getPrincipalCache().setTtlSeconds(ttlSeconds);
+        return new PrincipalCache(appProperties, meterRegistry, events::add);
+    }
+
+    private double counter(String name, String result) {
+        return meterRegistry.get(name).tag("cache", "principal").tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    void secondLookupIsServedFromCache() {
+        PrincipalCache cache = cache(16, 60);
+
+        BookLoreUser first = cache.get(1L, loader);
+        BookLoreUser second = cache.get(1L, loader);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(counter("cache.gets", "miss")).isEqualTo(1);
+        assertThat(counter("cache.gets", "hit")).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        PrincipalCache cache = cache(16, 60);
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+
+        cache.invalidate(1L);
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+
+        assertThat(loads).hasValue(3);
+        assertThat(events).singleElement().isInstanceOfSatisfying(UserChangedEvent.class,
+                event -> assertThat(event.getUserId()).isEqualTo(1L));
+    }
+
+    @Test
+    void invalidateAllForcesReloadOfEveryUser() {
+        PrincipalCache cache = cache(16, 60);
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+
+        cache.invalidateAll();
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotStored() {
+        PrincipalCache cache = cache(16, 60);
+
+        cache.get(1L, id -> {
+            cache.invalidate(id);
+            return loader.apply(id);
+        });
+        cache.get(1L, loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        PrincipalCache cache = cache(2, 60);
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(1L, loader);
+        cache.get(3L, loader);
+
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+
+        assertThat(loads).hasValue(4);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "principal").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void zeroTtlDisablesCaching() {
+        PrincipalCache cache = cache(16, 0);
+
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+
+        assertThat(loads).hasValue(2);
+        assertThat(counter("cache.gets", "hit")).isZero();
+    }
+
+    @Test
+    void zeroMaxEntriesDisablesCaching() {
+        PrincipalCache cache = cache(0, 60);
+
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -42,6 +42,8 @@ class MetadataControllerTest {
     private BookRepository bookRepository;
     @Mock
     private MetadataManagementService metadataManagementService;
+    @Mock
+    private MetadataResponseCache metadataResponseCache;
 
     @InjectMocks
     private MetadataController metadataController;
@@ -1,15 +1,22 @@
 package com.adityachandel.booklore.service;
 
+import com.adityachandel.booklore.mapper.KoboReadingStateMapper;
 import com.adityachandel.booklore.model.dto.kobo.KoboBookMetadata;
+import com.adityachandel.booklore.model.dto.kobo.NewEntitlement;
 import com.adityachandel.booklore.model.dto.settings.KoboSettings;
 import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.model.entity.BookMetadataEntity;
+import com.adityachandel.booklore.model.entity.KoboReadingStateEntity;
+import com.adityachandel.booklore.model.entity.UserBookProgressEntity;
 import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.model.enums.KoboBookFormat;
+import com.adityachandel.booklore.repository.KoboReadingStateRepository;
+import com.adityachandel.booklore.repository.UserBookProgressRepository;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
 import com.adityachandel.booklore.service.book.BookQueryService;
 import com.adityachandel.booklore.service.kobo.KoboCompatibilityService;
 import com.adityachandel.booklore.service.kobo.KoboEntitlementService;
+import com.adityachandel.booklore.service.kobo.KoboReadingStateBuilder;
 import com.adityachandel.booklore.util.kobo.KoboUrlBuilder;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -38,6 +45,18 @@ class KoboEntitlementServiceTest {
     @Mock
     private KoboCompatibilityService koboCompatibilityService;
 
+    @Mock
+    private UserBookProgressRepository progressRepository;
+
+    @Mock
+    private KoboReadingStateRepository readingStateRepository;
+
+    @Mock
+    private KoboReadingStateMapper readingStateMapper;
+
+    @Mock
+    private KoboReadingStateBuilder readingStateBuilder;
+
     @InjectMocks
     private KoboEntitlementService koboEntitlementService;
 
@@ -85,6 +104,34 @@ class KoboEntitlementServiceTest {
         assertEquals(KoboBookFormat.EPUB3.toString(), result.getDownloadUrls().getFirst().getFormat());
     }
 
+    @Test
+    void generateNewEntitlements_shouldLoadReadingStatesAndProgressOncePerPage() {
+        BookEntity first = createCbxBookEntity(1L);
+        BookEntity second = createCbxBookEntity(2L);
+        KoboReadingStateEntity readingState = new KoboReadingStateEntity();
+        readingState.setEntitlementId("1");
+        UserBookProgressEntity progress = new UserBookProgressEntity();
+        progress.setBook(second);
+
+        when(bookQueryService.findAllForKoboSyncByIds(List.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(koboCompatibilityService.isBookSupportedForKobo(any(BookEntity.class))).thenReturn(true);
+        when(appSettingService.getAppSettings()).thenReturn(createAppSettingsWithKoboSettings());
+        when(readingStateRepository.findByEntitlementIdIn(Set.of("1", "2"))).thenReturn(List.of(readingState));
+        when(progressRepository.findByUserIdAndBookIdIn(7L, Set.of(1L, 2L))).thenReturn(List.of(progress));
+
+        List<NewEntitlement> result = koboEntitlementService.generateNewEntitlements(
+                7L, List.of(1L, 2L), "http://test.com/api/kobo/t/v1/books/{bookId}/download", false);
+
+        assertEquals(2, result.size());
+        assertEquals("http://test.com/api/kobo/t/v1/books/2/download",
+                result.get(1).getNewEntitlement().getBookMetadata().getDownloadUrls().getFirst().getUrl());
+        verify(readingStateRepository).findByEntitlementIdIn(anySet());
+        verify(progressRepository).findByUserIdAndBookIdIn(anyLong(), anySet());
+        verify(readingStateRepository, never()).findByEntitlementId(anyString());
+        verify(progressRepository, never()).findByUserIdAndBookId(anyLong(), anyLong());
+        verifyNoInteractions(koboUrlBuilder);
+    }
+
     private BookEntity createCbxBookEntity(Long id) {
         BookEntity book = new BookEntity();
         book.setId(id);
@@ -18,6 +18,7 @@ import com.adityachandel.booklore.service.hardcover.HardcoverSyncService;
 import com.adityachandel.booklore.service.kobo.KoboReadingStateBuilder;
 import com.adityachandel.booklore.service.kobo.KoboReadingStateService;
 import com.adityachandel.booklore.service.kobo.KoboSettingsService;
+import com.adityachandel.booklore.service.user.ReadProgressBuffer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -29,6 +30,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.Instant;
 import java.util.List;
@@ -61,6 +63,10 @@ class KoboStatusSyncProtectionTest {
 
     @Mock
     private HardcoverSyncService hardcoverSyncService;
+    @Mock
+    private ReadProgressBuffer readProgressBuffer;
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private KoboReadingStateService service;
@@ -2,19 +2,21 @@ package com.adityachandel.booklore.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 
 import com.adityachandel.booklore.config.security.userdetails.KoreaderUserDetails;
 import com.adityachandel.booklore.exception.APIException;
+import com.adityachandel.booklore.model.ReadProgressUpdate;
 import com.adityachandel.booklore.model.dto.progress.KoreaderProgress;
 import com.adityachandel.booklore.model.entity.BookEntity;
-import com.adityachandel.booklore.model.entity.BookLoreUserEntity;
 import com.adityachandel.booklore.model.entity.UserBookProgressEntity;
+import com.adityachandel.booklore.model.enums.ReadStatus;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.repository.UserBookProgressRepository;
-import com.adityachandel.booklore.repository.UserRepository;
 import com.adityachandel.booklore.repository.KoreaderUserRepository;
 import com.adityachandel.booklore.service.koreader.KoreaderService;
+import com.adityachandel.booklore.service.user.ReadProgressBuffer;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
@@ -38,9 +40,9 @@ class KoreaderServiceTest {
     @Mock
     BookRepository bookRepo;
     @Mock
-    UserRepository userRepo;
-    @Mock
     KoreaderUserRepository koreaderUserRepo;
+    @Mock
+    ReadProgressBuffer readProgressBuffer;
 
     @InjectMocks
     KoreaderService service;
@@ -180,51 +182,61 @@ class KoreaderServiceTest {
     }
 
     @Test
-    void saveProgress_createsNew() {
+    void saveProgress_recordsUpdateInBuffer() {
         when(details.isSyncEnabled()).thenReturn(true);
         var book = new BookEntity();
         book.setId(7L);
         when(bookRepo.findByCurrentHash("h")).thenReturn(Optional.of(book));
-        var user = new BookLoreUserEntity();
-        user.setId(42L);
-        when(userRepo.findById(42L)).thenReturn(Optional.of(user));
-        when(progressRepo.findByUserIdAndBookId(42L, 7L))
-                .thenReturn(Optional.empty());
 
         var dto = KoreaderProgress.builder()
                 .document("h").progress("x").percentage(0.6F).device("d").device_id("id").build();
         service.saveProgress("h", dto);
 
-        ArgumentCaptor<UserBookProgressEntity> cap = ArgumentCaptor.forClass(UserBookProgressEntity.class);
-        verify(progressRepo).save(cap.capture());
+        ArgumentCaptor<ReadProgressUpdate> cap = ArgumentCaptor.forClass(ReadProgressUpdate.class);
+        verify(readProgressBuffer).record(eq(42L), eq(7L), cap.capture());
         var saved = cap.getValue();
         assertEquals("x", saved.getKoreaderProgress());
         assertEquals(0.6F, saved.getKoreaderProgressPercent());
         assertEquals("d", saved.getKoreaderDevice());
         assertEquals("id", saved.getKoreaderDeviceId());
         assertEquals(Instant.class, saved.getKoreaderLastSyncTime().getClass());
+        assertEquals(ReadStatus.READING, saved.getReadStatus());
+        assertNull(saved.getDateFinished());
+        verifyNoInteractions(progressRepo);
     }
 
     @Test
-    void saveProgress_updatesExisting() {
+    void saveProgress_finishedBook_setsReadStatusAndDateFinished() {
         when(details.isSyncEnabled()).thenReturn(true);
         var book = new BookEntity();
         book.setId(8L);
         when(bookRepo.findByCurrentHash("h")).thenReturn(Optional.of(book));
-        var user = new BookLoreUserEntity();
-        user.setId(42L);
-        when(userRepo.findById(42L)).thenReturn(Optional.of(user));
-        var existing = new UserBookProgressEntity();
-        when(progressRepo.findByUserIdAndBookId(42L, 8L))
-                .thenReturn(Optional.of(existing));
 
         var dto = KoreaderProgress.builder()
-                .document("h").progress("y").percentage(0.4F).device("d").device_id("id").build();
+                .document("h").progress("y").percentage(1.0F).device("d").device_id("id").build();
         service.saveProgress("h", dto);
 
-        verify(progressRepo).save(existing);
-        assertEquals("y", existing.getKoreaderProgress());
-        assertEquals(0.4F, existing.getKoreaderProgressPercent());
+        ArgumentCaptor<ReadProgressUpdate> cap = ArgumentCaptor.forClass(ReadProgressUpdate.class);
+        verify(readProgressBuffer).record(eq(42L), eq(8L), cap.capture());
+        assertEquals(ReadStatus.READ, cap.getValue().getReadStatus());
+        assertNotNull(cap.getValue().getDateFinished());
+    }
+
+    @Test
+    void getProgress_flushesBufferedUpdatesFirst() {
+        when(details.isSyncEnabled()).thenReturn(true);
+        var book = new BookEntity();
+        book.setId(9L);
+        when(bookRepo.findByCurrentHash("h")).thenReturn(Optional.of(book));
+        var progress = new UserBookProgressEntity();
+        progress.setKoreaderProgress("p");
+        when(progressRepo.findByUserIdAndBookId(42L, 9L)).thenReturn(Optional.of(progress));
+
+        service.getProgress("h");
+
+        InOrder inOrder = inOrder(readProgressBuffer, progressRepo);
+        inOrder.verify(readProgressBuffer).flush(42L);
+        inOrder.verify(progressRepo).findByUserIdAndBookId(42L, 9L);
     }
 
     @Test
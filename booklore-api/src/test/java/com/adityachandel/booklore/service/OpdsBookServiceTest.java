@@ -194,6 +194,26 @@ class OpdsBookServiceTest {
         opdsBookService.getBooksPage(details.getOpdsUserV2().getUserId(), "q", 1L, 2L, 0, 10);
     }
 
+    @Test
+    void getBooksPage_searchWithIndexableWords_usesFullTextIndex() {
+        BookLoreUserEntity entity = mock(BookLoreUserEntity.class);
+        var permissionsEntity = mock(com.adityachandel.booklore.model.entity.UserPermissionsEntity.class);
+        when(permissionsEntity.isPermissionAdmin()).thenReturn(true);
+        when(entity.getPermissions()).thenReturn(permissionsEntity);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(entity));
+        BookLoreUser user = mock(BookLoreUser.class);
+        BookLoreUser.UserPermissions perms = mock(BookLoreUser.UserPermissions.class);
+        when(bookLoreUserTransformer.toDTO(entity)).thenReturn(user);
+        when(user.getPermissions()).thenReturn(perms);
+        when(perms.isAdmin()).thenReturn(true);
+        when(bookOpdsRepository.findBookIdsByFullTextSearch(anyString(), any())).thenReturn(Page.empty());
+
+        opdsBookService.getBooksPage(1L, "Stéphen King", null, null, 0, 10);
+
+        verify(bookOpdsRepository).findBookIdsByFullTextSearch(eq("+stephen* +king*"), any());
+        verify(bookOpdsRepository, never()).findBookIdsByMetadataSearch(anyString(), any());
+    }
+
     @Test
     void getRecentBooksPage_returnsRecentBooks_forLegacyUser() {
         OpdsUserDetails details = legacyUserDetails();
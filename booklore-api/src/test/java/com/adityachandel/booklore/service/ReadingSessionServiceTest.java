@@ -0,0 +1,44 @@
+package com.adityachandel.booklore.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadingSessionServiceTest {
+
+    @Test
+    void weekZeroCoversTheDaysBeforeTheFirstSunday() {
+        // 2025-01-01 is a Wednesday, the first Sunday is 2025-01-05
+        assertThat(ReadingSessionService.weekRange(2025, 1, 0)).hasValueSatisfying(range -> assertRange(range, "2025-01-01", "2025-01-05"));
+        assertThat(ReadingSessionService.weekRange(2025, 1, 1)).hasValueSatisfying(range -> assertRange(range, "2025-01-05", "2025-01-12"));
+    }
+
+    @Test
+    void weekIsClippedToTheRequestedMonth() {
+        // Week 4 of 2025 runs from Sunday 2025-01-26 to Saturday 2025-02-01
+        assertThat(ReadingSessionService.weekRange(2025, 1, 4)).hasValueSatisfying(range -> assertRange(range, "2025-01-26", "2025-02-01"));
+        assertThat(ReadingSessionService.weekRange(2025, 2, 4)).hasValueSatisfying(range -> assertRange(range, "2025-02-01", "2025-02-02"));
+    }
+
+    @Test
+    void weekOutsideTheMonthOrOutOfRangeIsEmpty() {
+        assertThat(ReadingSessionService.weekRange(2025, 1, 6)).isEmpty();
+        assertThat(ReadingSessionService.weekRange(2025, 13, 1)).isEmpty();
+        assertThat(ReadingSessionService.weekRange(2025, 1, -1)).isEmpty();
+    }
+
+    @Test
+    void yearStartingOnSundayHasNoWeekZero() {
+        // 2023-01-01 is a Sunday
+        assertThat(ReadingSessionService.weekRange(2023, 1, 0)).isEqualTo(Optional.empty());
+        assertThat(ReadingSessionService.weekRange(2023, 1, 1)).hasValueSatisfying(range -> assertRange(range, "2023-01-01", "2023-01-08"));
+    }
+
+    private static void assertRange(Instant[] range, String from, String to) {
+        assertThat(range[0]).isEqualTo(Instant.parse(from + "T00:00:00Z"));
+        assertThat(range[1]).isEqualTo(Instant.parse(to + "T00:00:00Z"));
+    }
+}
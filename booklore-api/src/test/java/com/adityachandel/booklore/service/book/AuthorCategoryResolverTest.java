@@ -0,0 +1,192 @@
+package com.adityachandel.booklore.service.book;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.entity.AuthorEntity;
+import com.adityachandel.booklore.model.entity.CategoryEntity;
+import com.adityachandel.booklore.repository.AuthorRepository;
+import com.adityachandel.booklore.repository.CategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AuthorCategoryResolverTest {
+
+    private AuthorRepository authorRepository;
+    private CategoryRepository categoryRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private AuthorCategoryResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        authorRepository = mock(AuthorRepository.class);
+        categoryRepository = mock(CategoryRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        resolver = new AuthorCategoryResolver(authorRepository, categoryRepository, new ObjectMapper(), new AppProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    private static void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    private static void endTransaction(int status) {
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        }
+        TransactionSynchronizationUtils.triggerAfterCompletion(status);
+        TransactionSynchronizationManager.clear();
+    }
+
+    private static AuthorEntity author(long id, String name) {
+        return AuthorEntity.builder().id(id).name(name).build();
+    }
+
+    private double gets(String cache, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    void resolveAuthors_looksUpNamesInOneQuery_andServesThemFromCacheAfterwards() {
+        AuthorEntity tolkien = author(1L, "J.R.R. Tolkien");
+        AuthorEntity leGuin = author(2L, "Ursula K. Le Guin");
+        when(authorRepository.findAllByNameIn(anyCollection())).thenReturn(List.of(tolkien, leGuin));
+        when(authorRepository.getReferenceById(1L)).thenReturn(tolkien);
+        when(authorRepository.getReferenceById(2L)).thenReturn(leGuin);
+
+        Set<AuthorEntity> first = resolver.resolveAuthors(List.of("J.R.R. Tolkien", "Ursula K. Le Guin"));
+        Set<AuthorEntity> second = resolver.resolveAuthors(List.of("J.R.R. Tolkien", "Ursula K. Le Guin"));
+
+        assertThat(first).containsExactlyInAnyOrder(tolkien, leGuin);
+        assertThat(second).containsExactlyInAnyOrder(tolkien, leGuin);
+        verify(authorRepository, times(1)).findAllByNameIn(anyCollection());
+        verify(authorRepository, never()).findAllById(anyCollection());
+        verify(authorRepository, never()).insertMissingNames(anyString());
+        assertThat(gets("authors", "miss")).isEqualTo(2.0);
+        assertThat(gets("authors", "hit")).isEqualTo(2.0);
+    }
+
+    @Test
+    void resolveAuthors_createsMissingNamesWithOneUpsert() {
+        AuthorEntity existing = author(1L, "Existing");
+        AuthorEntity created = author(2L, "Newcomer");
+        when(authorRepository.findAllByNameIn(anyCollection()))
+                .thenReturn(List.of(existing))
+                .thenReturn(List.of(existing, created));
+
+        Set<AuthorEntity> authors = resolver.resolveAuthors(List.of("Existing", "Newcomer"));
+
+        assertThat(authors).containsExactlyInAnyOrder(existing, created);
+        verify(authorRepository).insertMissingNames("[\"Newcomer\"]");
+        verify(authorRepository, never()).save(any());
+    }
+
+    @Test
+    void prefetch_neverCreatesRows() {
+        when(authorRepository.findAllByNameIn(anyCollection())).thenReturn(List.of());
+        when(categoryRepository.findAllByNameIn(anyCollection())).thenReturn(List.of());
+
+        resolver.prefetch(List.of("Unknown Author"), List.of("Unknown Category"));
+
+        verify(authorRepository, never()).insertMissingNames(anyString());
+        verify(categoryRepository, never()).insertMissingNames(anyString());
+    }
+
+    @Test
+    void resolveCategories_treatsCaseAndWhitespaceVariantsAsOneName() {
+        CategoryEntity fantasy = CategoryEntity.builder().id(7L).name("Fantasy").build();
+        when(categoryRepository.findAllByNameIn(anyCollection())).thenReturn(List.of(fantasy));
+
+        Set<CategoryEntity> categories = resolver.resolveCategories(List.of("Fantasy", "fantasy ", "", "  "));
+
+        assertThat(categories).containsExactly(fantasy);
+        verify(categoryRepository).findAllByNameIn(List.of("Fantasy"));
+    }
+
+    @Test
+    void invalidateAuthors_forgetsCachedIds() {
+        AuthorEntity tolkien = author(1L, "J.R.R. Tolkien");
+        when(authorRepository.findAllByNameIn(anyCollection())).thenReturn(List.of(tolkien));
+
+        resolver.resolveAuthors(List.of("J.R.R. Tolkien"));
+        resolver.invalidateAuthors();
+        resolver.resolveAuthors(List.of("J.R.R. Tolkien"));
+
+        verify(authorRepository, times(2)).findAllByNameIn(anyCollection());
+        verify(authorRepository, never()).getReferenceById(any());
+    }
+
+    @Test
+    void resolveAuthors_looksUpAgainByName_afterInvalidatingARename() {
+        AuthorEntity original = author(1L, "Tolkien");
+        AuthorEntity recreated = author(3L, "Tolkien");
+        when(authorRepository.findAllByNameIn(anyCollection()))
+                .thenReturn(List.of(original))
+                .thenReturn(List.of(recreated));
+
+        resolver.resolveAuthors(List.of("Tolkien"));
+        resolver.invalidateAuthors();
+        Set<AuthorEntity> authors = resolver.resolveAuthors(List.of("Tolkien"));
+
+        assertThat(authors).containsExactly(recreated);
+        verify(authorRepository, times(2)).findAllByNameIn(anyCollection());
+        verify(authorRepository, never()).getReferenceById(any());
+    }
+
+    @Test
+    void resolveAuthors_doesNotCacheNamesInsertedByARolledBackTransaction() {
+        AuthorEntity inserted = author(5L, "Newcomer");
+        AuthorEntity reinserted = author(6L, "Newcomer");
+        when(authorRepository.findAllByNameIn(anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(inserted))
+                .thenReturn(List.of())
+                .thenReturn(List.of(reinserted));
+
+        beginTransaction();
+        resolver.resolveAuthors(List.of("Newcomer"));
+        endTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        Set<AuthorEntity> authors = resolver.resolveAuthors(List.of("Newcomer"));
+
+        assertThat(authors).containsExactly(reinserted);
+        verify(authorRepository, times(2)).insertMissingNames("[\"Newcomer\"]");
+        verify(authorRepository, never()).getReferenceById(any());
+    }
+
+    @Test
+    void resolveAuthors_cachesNamesInsertedByATransactionOnceItCommits() {
+        AuthorEntity inserted = author(5L, "Newcomer");
+        when(authorRepository.findAllByNameIn(anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(inserted));
+        when(authorRepository.getReferenceById(5L)).thenReturn(inserted);
+
+        beginTransaction();
+        resolver.resolveAuthors(List.of("Newcomer"));
+        endTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        Set<AuthorEntity> authors = resolver.resolveAuthors(List.of("Newcomer"));
+
+        assertThat(authors).containsExactly(inserted);
+        verify(authorRepository, times(2)).findAllByNameIn(anyCollection());
+        verify(authorRepository).getReferenceById(5L);
+    }
+}
@@ -0,0 +1,112 @@
+package com.adityachandel.booklore.service.book;
+
+import com.adityachandel.booklore.config.security.service.AuthenticationService;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.BookLoreUser;
+import com.adityachandel.booklore.model.dto.Library;
+import com.adityachandel.booklore.model.dto.Shelf;
+import com.adityachandel.booklore.model.entity.UserBookProgressEntity;
+import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.model.enums.ReadStatus;
+import com.adityachandel.booklore.repository.BookSummaryRepository;
+import com.adityachandel.booklore.service.user.ReadProgressBuffer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookListServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private BookSummaryRepository bookSummaryRepository;
+    private AuthenticationService authenticationService;
+    private ReadProgressBuffer readProgressBuffer;
+    private BookListService bookListService;
+
+    @BeforeEach
+    void setUp() {
+        bookSummaryRepository = mock(BookSummaryRepository.class);
+        authenticationService = mock(AuthenticationService.class);
+        readProgressBuffer = mock(ReadProgressBuffer.class);
+        bookListService = new BookListService(bookSummaryRepository, authenticationService, objectMapper, readProgressBuffer);
+        when(authenticationService.getAuthenticatedUser()).thenReturn(user(true));
+        when(bookSummaryRepository.findProgressByBookIds(anyLong(), anyCollection())).thenReturn(Map.of());
+        when(bookSummaryRepository.findShelvesByBookIds(anyCollection(), anyLong())).thenReturn(Map.of());
+    }
+
+    @Test
+    void writeBooks_withoutLimit_streamsEveryChunk() throws Exception {
+        when(bookSummaryRepository.findBooks(isNull(), eq(0L), eq(BookListService.CHUNK_SIZE), eq(false)))
+                .thenReturn(books(1, BookListService.CHUNK_SIZE));
+        when(bookSummaryRepository.findBooks(isNull(), eq((long) BookListService.CHUNK_SIZE), eq(BookListService.CHUNK_SIZE), eq(false)))
+                .thenReturn(books(BookListService.CHUNK_SIZE + 1, 2));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        bookListService.writeBooks(false, null, null, response);
+
+        JsonNode json = objectMapper.readTree(response.getContentAsByteArray());
+        assertThat(json.size()).isEqualTo(BookListService.CHUNK_SIZE + 2);
+        assertThat(json.get(0).get("id").asLong()).isEqualTo(1);
+        assertThat(json.get(BookListService.CHUNK_SIZE + 1).get("id").asLong()).isEqualTo(BookListService.CHUNK_SIZE + 2);
+        assertThat(response.getHeader(BookListService.NEXT_CURSOR_HEADER)).isNull();
+        verify(bookSummaryRepository, times(2)).findBooks(isNull(), anyLong(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    void writeBooks_withLimit_returnsPageAndNextCursor() throws Exception {
+        when(bookSummaryRepository.findBooks(isNull(), eq(10L), eq(3), eq(true))).thenReturn(books(11, 3));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        bookListService.writeBooks(true, 10L, 2, response);
+
+        JsonNode json = objectMapper.readTree(response.getContentAsByteArray());
+        assertThat(json.size()).isEqualTo(2);
+        assertThat(response.getHeader(BookListService.NEXT_CURSOR_HEADER)).isEqualTo("12");
+    }
+
+    @Test
+    void writeBooks_forNonAdmin_restrictsToAssignedLibrariesAndAddsUserState() throws Exception {
+        when(authenticationService.getAuthenticatedUser()).thenReturn(user(false));
+        when(bookSummaryRepository.findBooks(eq(Set.of(5L)), eq(0L), eq(11), eq(false))).thenReturn(books(1, 1));
+        when(bookSummaryRepository.findProgressByBookIds(7L, Set.of(1L))).thenReturn(Map.of(1L, UserBookProgressEntity.builder()
+                .readStatus(ReadStatus.READING)
+                .epubProgressPercent(42f)
+                .build()));
+        when(bookSummaryRepository.findShelvesByBookIds(Set.of(1L), 7L)).thenReturn(Map.of(1L, Set.of(Shelf.builder().id(3L).name("Favourites").userId(7L).build())));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        bookListService.writeBooks(false, null, 10, response);
+
+        JsonNode book = objectMapper.readTree(response.getContentAsByteArray()).get(0);
+        assertThat(book.get("readStatus").asText()).isEqualTo("READING");
+        assertThat(book.get("epubProgress").get("percentage").floatValue()).isEqualTo(42f);
+        assertThat(book.get("shelves").get(0).get("name").asText()).isEqualTo("Favourites");
+        verify(readProgressBuffer).flush(7L);
+    }
+
+    private static List<Book> books(long firstId, int count) {
+        return LongStream.range(firstId, firstId + count)
+                .mapToObj(id -> Book.builder().id(id).bookType(BookFileType.EPUB).build())
+                .toList();
+    }
+
+    private static BookLoreUser user(boolean admin) {
+        BookLoreUser.UserPermissions permissions = new BookLoreUser.UserPermissions();
+        permissions.setAdmin(admin);
+        return BookLoreUser.builder()
+                .id(7L)
+                .permissions(permissions)
+                .assignedLibraries(List.of(Library.builder().id(5L).build()))
+                .build();
+    }
+}
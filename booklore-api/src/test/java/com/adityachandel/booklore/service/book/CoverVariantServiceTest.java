@@ -0,0 +1,129 @@
+package com.adityachandel.booklore.service.book;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.util.FileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoverVariantServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path coverFile;
+    private Path cacheDir;
+    private CoverVariantService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        coverFile = tempDir.resolve("images/1/cover.jpg");
+        cacheDir = tempDir.resolve("cover_variant_cache");
+        Files.createDirectories(coverFile.getParent());
+        writeCover(800, 1200, 0xFF3366);
+
+        FileService fileService = mock(FileService.class);
+        when(fileService.getCoverFile(1L)).thenReturn(coverFile.toString());
+        when(fileService.getCoverFile(2L)).thenReturn(tempDir.resolve("images/2/cover.jpg").toString());
+        when(fileService.getCoverVariantCachePath()).thenReturn(cacheDir.toString());
+        service = new CoverVariantService(fileService, new AppProperties());
+    }
+
+    private void writeCover(int width, int height, int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+        ImageIO.write(image, "JPEG", coverFile.toFile());
+    }
+
+    private static BufferedImage body(ResponseEntity<Resource> response) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(response.getBody().getContentAsByteArray()));
+    }
+
+    @Test
+    void scalesCoverToFitRequestedBox() throws IOException {
+        ResponseEntity<Resource> response = service.serve(1L, service.variant(300, 300, null, false), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        BufferedImage image = body(response);
+        assertThat(image.getWidth()).isEqualTo(200);
+        assertThat(image.getHeight()).isEqualTo(300);
+        assertThat(response.getHeaders().getETag()).startsWith("\"1-");
+    }
+
+    @Test
+    void neverUpscales() throws IOException {
+        BufferedImage image = body(service.serve(1L, service.variant(1600, 2400, 90, false), null));
+
+        assertThat(image.getWidth()).isEqualTo(800);
+        assertThat(image.getHeight()).isEqualTo(1200);
+    }
+
+    @Test
+    void greyscaleVariantHasSingleBand() throws IOException {
+        BufferedImage image = body(service.serve(1L, service.variant(200, 300, 60, true), null));
+
+        assertThat(image.getRaster().getNumBands()).isEqualTo(1);
+        int luma = image.getRaster().getSample(100, 150, 0);
+        assertThat(luma).isBetween(95, 140);
+    }
+
+    @Test
+    void matchingETagIsAnsweredWithoutBody() {
+        CoverVariantService.Variant variant = service.variant(200, 300, null, true);
+        String etag = service.serve(1L, variant, null).getHeaders().getETag();
+
+        ResponseEntity<Resource> revalidated = service.serve(1L, variant, "W/\"other\", " + etag);
+
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(revalidated.getBody()).isNull();
+    }
+
+    @Test
+    void variantsAreCachedAndRetiredWhenCoverChanges() throws IOException {
+        CoverVariantService.Variant variant = service.variant(200, 300, null, false);
+        String firstETag = service.serve(1L, variant, null).getHeaders().getETag();
+        service.serve(1L, variant, null);
+        assertThat(cachedFiles()).hasSize(1);
+
+        writeCover(400, 400, 0x00FF00);
+        Files.setLastModifiedTime(coverFile, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        ResponseEntity<Resource> response = service.serve(1L, variant, firstETag);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(firstETag);
+        assertThat(body(response).getWidth()).isEqualTo(200);
+        assertThat(cachedFiles()).hasSize(1);
+    }
+
+    @Test
+    void missingCoverIsNotFound() {
+        assertThat(service.hasCover(2L)).isFalse();
+        assertThat(service.serve(2L, service.variant(200, 300, null, false), null).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private long cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
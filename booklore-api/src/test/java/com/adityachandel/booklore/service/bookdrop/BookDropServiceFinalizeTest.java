@@ -6,6 +6,7 @@ import com.adityachandel.booklore.model.dto.response.BookdropFinalizeResult;
 import com.adityachandel.booklore.repository.BookdropFileRepository;
 import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.book.AuthorCategoryResolver;
 import com.adityachandel.booklore.service.file.FileMovingHelper;
 import com.adityachandel.booklore.service.monitoring.MonitoringRegistrationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -41,6 +42,8 @@ class BookDropServiceFinalizeTest {
     private AppProperties appProperties;
     @Mock
     private BookdropNotificationService bookdropNotificationService;
+    @Mock
+    private AuthorCategoryResolver authorCategoryResolver;
 
     @InjectMocks
     private BookDropService bookDropService;
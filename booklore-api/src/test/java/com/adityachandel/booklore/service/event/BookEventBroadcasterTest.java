@@ -0,0 +1,104 @@
+package com.adityachandel.booklore.service.event;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.websocket.LogNotification;
+import com.adityachandel.booklore.model.websocket.Topic;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookEventBroadcasterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpMessagingTemplate messagingTemplate;
+    private EventRecipientIndex recipientIndex;
+    private BookEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        recipientIndex = mock(EventRecipientIndex.class);
+        when(recipientIndex.usersForLibrary(1L)).thenReturn(Set.of("admin", "alice"));
+        when(recipientIndex.usersForLibrary(2L)).thenReturn(Set.of("admin"));
+
+        AppProperties appProperties = new AppProperties();
+        appProperties.getEventFanout().setFlushIntervalMs(60_000);
+        appProperties.getEventFanout().setMaxBatchSize(3);
+        appProperties.getEventFanout().setMaxPendingBooks(1000);
+        broadcaster = new BookEventBroadcaster(messagingTemplate, recipientIndex, objectMapper, appProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    private static Book book(long id, long libraryId) {
+        return Book.builder().id(id).libraryId(libraryId).fileName("book" + id + ".epub").build();
+    }
+
+    @Test
+    void coalescesBooksIntoOneMessagePerRecipient() {
+        broadcaster.broadcastBookAddEvent(book(1, 1));
+        broadcaster.broadcastBookAddEvent(book(2, 2));
+        verifyNoInteractions(messagingTemplate);
+
+        broadcaster.flush();
+
+        ArgumentCaptor<String> adminPayload = ArgumentCaptor.forClass(String.class);
+        verify(messagingTemplate).convertAndSendToUser(eq("admin"), eq(Topic.BOOKS_ADD.getPath()), adminPayload.capture());
+        assertThat(ids(adminPayload.getValue())).containsExactly(1L, 2L);
+
+        ArgumentCaptor<String> alicePayload = ArgumentCaptor.forClass(String.class);
+        verify(messagingTemplate).convertAndSendToUser(eq("alice"), eq(Topic.BOOKS_ADD.getPath()), alicePayload.capture());
+        assertThat(ids(alicePayload.getValue())).containsExactly(1L);
+
+        verify(messagingTemplate, times(2)).convertAndSendToUser(anyString(), eq(Topic.LOG.getPath()), any(LogNotification.class));
+        verify(recipientIndex, times(1)).usersForLibrary(1L);
+    }
+
+    @Test
+    void splitsLargeBatchesByMaxBatchSize() {
+        for (long id = 1; id <= 7; id++) {
+            broadcaster.broadcastBookAddEvent(book(id, 2));
+        }
+        broadcaster.flush();
+
+        ArgumentCaptor<String> payloads = ArgumentCaptor.forClass(String.class);
+        verify(messagingTemplate, atLeast(1)).convertAndSendToUser(eq("admin"), eq(Topic.BOOKS_ADD.getPath()), payloads.capture());
+        List<Integer> sizes = payloads.getAllValues().stream().map(payload -> ids(payload).size()).toList();
+        assertThat(sizes).allMatch(size -> size <= 3);
+        assertThat(sizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(7);
+    }
+
+    @Test
+    void flushWithNothingPendingSendsNothing() {
+        broadcaster.flush();
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    private List<Long> ids(String payload) {
+        try {
+            List<Long> ids = new ArrayList<>();
+            objectMapper.readTree(payload).forEach(node -> ids.add(node.get("id").asLong()));
+            return ids;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
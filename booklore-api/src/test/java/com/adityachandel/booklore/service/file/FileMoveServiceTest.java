@@ -10,6 +10,7 @@ import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.service.monitoring.MonitoringRegistrationService;
+import com.adityachandel.booklore.service.opds.OpdsCatalogStamps;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -49,6 +50,8 @@ class FileMoveServiceTest {
     private NotificationService notificationService;
     @Mock
     private EntityManager entityManager;
+    @Mock
+    private OpdsCatalogStamps opdsCatalogStamps;
 
     @InjectMocks
     private FileMoveService fileMoveService;
@@ -134,6 +134,36 @@ class CbxConversionServiceTest {
         verifyPageOrderInEpub(epubFile, 5);
     }
 
+    @Test
+    void convertCbxToEpub_WithPagesStoredOutOfOrder_ShouldOrderPagesByFileName() throws IOException, TemplateException, RarException {
+        File cbzFile = Files.createFile(tempDir.resolve("shuffled-comic.cbz")).toFile();
+        byte[][] jpegs = new byte[3][];
+        try (ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(new FileOutputStream(cbzFile))) {
+            for (int i : new int[]{2, 0, 1}) {
+                ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+                ImageIO.write(createTestImage("Page " + (i + 1), Color.WHITE), "jpg", jpeg);
+                jpegs[i] = jpeg.toByteArray();
+                zipOut.putArchiveEntry(new ZipArchiveEntry(String.format("pages/page%02d.jpg", i + 1)));
+                zipOut.write(jpegs[i]);
+                zipOut.closeArchiveEntry();
+            }
+        }
+
+        File epubFile = cbxConversionService.convertCbxToEpub(cbzFile, tempDir.toFile(), testBookEntity, 85);
+
+        verifyPageOrderInEpub(epubFile, 3);
+        try (ZipFile zipFile = ZipFile.builder().setFile(epubFile).get()) {
+            for (int i = 0; i < 3; i++) {
+                try (InputStream page = zipFile.getInputStream(zipFile.getEntry(String.format("OEBPS/Images/page-%04d.jpg", i + 1)))) {
+                    assertThat(page.readAllBytes()).isEqualTo(jpegs[i]);
+                }
+            }
+            try (InputStream cover = zipFile.getInputStream(zipFile.getEntry("OEBPS/Images/cover.jpg"))) {
+                assertThat(cover.readAllBytes()).isEqualTo(jpegs[0]);
+            }
+        }
+    }
+
     private File createTestCbzFile() throws IOException {
         File cbzFile = Files.createFile(tempDir.resolve("test-comic.cbz")).toFile();
         
@@ -0,0 +1,154 @@
+package com.adityachandel.booklore.service.kobo;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.settings.KoboSettings;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.util.FileService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+class KoboConversionCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private KepubConversionService kepubConversionService;
+    private AppProperties appProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private KoboConversionCache cache;
+    private KoboSettings settings;
+    private int outputSize = 16;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(tempDir.resolve("library"));
+        kepubConversionService = mock(KepubConversionService.class);
+        when(kepubConversionService.converterVersion()).thenReturn("kepubify-linux-64bit-1");
+        when(kepubConversionService.convertEpubToKepub(any(), any(), anyBoolean())).thenAnswer(invocation -> {
+            File epub = invocation.getArgument(0);
+            File dir = invocation.getArgument(1);
+            Path output = dir.toPath().resolve(epub.getName().replace(".epub", ".kepub.epub"));
+            Files.write(output, new byte[outputSize]);
+            return output.toFile();
+        });
+        FileService fileService = mock(FileService.class);
+        when(fileService.getConversionCachePath()).thenReturn(tempDir.resolve("conversion_cache").toString());
+        appProperties = new AppProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new KoboConversionCache(kepubConversionService, mock(CbxConversionService.class), fileService, appProperties, meterRegistry);
+        settings = KoboSettings.builder().convertToKepub(true).conversionLimitInMb(100).build();
+    }
+
+    private BookEntity epub(String fileName, String hash) throws Exception {
+        Files.write(tempDir.resolve("library").resolve(fileName), new byte[]{1, 2, 3});
+        return BookEntity.builder()
+                .id(1L)
+                .fileName(fileName)
+                .fileSubPath("")
+                .bookType(BookFileType.EPUB)
+                .fileSizeKb(1L)
+                .currentHash(hash)
+                .libraryPath(LibraryPathEntity.builder().path(tempDir.resolve("library").toString()).build())
+                .build();
+    }
+
+    private File download(BookEntity book) throws Exception {
+        try (KoboConversionCache.Lease lease = cache.resolve(book, settings)) {
+            return lease.file();
+        }
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "conversion").tag("result", result).counter().count();
+    }
+
+    @Test
+    void secondDownload_reusesConversion() throws Exception {
+        BookEntity book = epub("book.epub", "hash-1");
+
+        File first = download(book);
+        File second = download(book);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.getName()).isEqualTo("book.kepub.epub");
+        assertThat(second).exists();
+        verify(kepubConversionService, times(1)).convertEpubToKepub(any(), any(), anyBoolean());
+        assertThat(gets("hit")).isEqualTo(1.0);
+        assertThat(gets("miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void changedBookOrSettings_convertAgain() throws Exception {
+        cache.prepare(epub("book.epub", "hash-1"), settings);
+        cache.prepare(epub("book.epub", "hash-2"), settings);
+        settings.setForceEnableHyphenation(true);
+        cache.prepare(epub("book.epub", "hash-2"), settings);
+
+        verify(kepubConversionService, times(3)).convertEpubToKepub(any(), any(), anyBoolean());
+    }
+
+    @Test
+    void conversionDisabled_returnsBookFile() throws Exception {
+        settings.setConvertToKepub(false);
+        BookEntity book = epub("book.epub", "hash-1");
+
+        File file = download(book);
+
+        assertThat(file.toPath()).isEqualTo(tempDir.resolve("library/book.epub"));
+        assertThat(cache.needsConversion(book, settings)).isFalse();
+        verifyNoInteractions(kepubConversionService);
+    }
+
+    @Test
+    void bookAboveConversionLimit_isNotConverted() throws Exception {
+        settings.setConversionLimitInMb(0);
+
+        assertThat(cache.needsConversion(epub("book.epub", "hash-1"), settings)).isFalse();
+    }
+
+    @Test
+    void exceedingSizeLimit_evictsLeastRecentlyDownloaded() throws Exception {
+        appProperties.getConversionCache().setMaxCacheSizeMb(1);
+        outputSize = 700 * 1024;
+
+        File first = download(epub("a.epub", "hash-a"));
+        Files.setLastModifiedTime(first.toPath(), FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        File second = download(epub("b.epub", "hash-b"));
+
+        assertThat(first).doesNotExist();
+        assertThat(second).exists();
+    }
+
+    @Test
+    void conversionBeingStreamed_isNotEvicted() throws Exception {
+        appProperties.getConversionCache().setMaxCacheSizeMb(1);
+        outputSize = 700 * 1024;
+
+        File first;
+        try (KoboConversionCache.Lease streaming = cache.resolve(epub("a.epub", "hash-a"), settings)) {
+            first = streaming.file();
+            Files.setLastModifiedTime(first.toPath(), FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+            download(epub("b.epub", "hash-b"));
+
+            assertThat(first).exists();
+        }
+        File third = download(epub("c.epub", "hash-c"));
+
+        assertThat(first).doesNotExist();
+        assertThat(third).exists();
+    }
+}
@@ -0,0 +1,82 @@
+package com.adityachandel.booklore.service.kobo;
+
+import com.adityachandel.booklore.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KoboSyncPageSizerTest {
+
+    private AppProperties appProperties;
+    private KoboSyncPageSizer pageSizer;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getKoboSync().setInitialPageSize(100);
+        appProperties.getKoboSync().setMinPageSize(5);
+        appProperties.getKoboSync().setMaxPageSize(500);
+        appProperties.getKoboSync().setTargetPayloadKb(1024);
+        pageSizer = new KoboSyncPageSizer(appProperties);
+    }
+
+    @Test
+    void unknownDeviceStartsAtInitialPageSize() {
+        assertThat(pageSizer.pageSize(KoboSyncPageSizer.deviceKey(1L, "Kobo Touch"))).isEqualTo(100);
+    }
+
+    @Test
+    void pageSizeFollowsObservedPayloadPerEntitlement() {
+        String device = KoboSyncPageSizer.deviceKey(1L, "Kobo Touch");
+
+        pageSizer.recordResponse(device, 100, 100 * 4096L);
+
+        assertThat(pageSizer.pageSize(device)).isEqualTo(256);
+    }
+
+    @Test
+    void pageSizeIsClampedToConfiguredBounds() {
+        String smallBooks = KoboSyncPageSizer.deviceKey(1L, "Kobo Touch");
+        String hugeBooks = KoboSyncPageSizer.deviceKey(1L, "Kobo Android");
+
+        pageSizer.recordResponse(smallBooks, 100, 100 * 100L);
+        pageSizer.recordResponse(hugeBooks, 1, 10 * 1024 * 1024L);
+
+        assertThat(pageSizer.pageSize(smallBooks)).isEqualTo(500);
+        assertThat(pageSizer.pageSize(hugeBooks)).isEqualTo(5);
+    }
+
+    @Test
+    void devicesAreSizedIndependently() {
+        String reader = KoboSyncPageSizer.deviceKey(1L, "Kobo Touch");
+        String otherUser = KoboSyncPageSizer.deviceKey(2L, "Kobo Touch");
+
+        pageSizer.recordResponse(reader, 10, 10 * 8192L);
+
+        assertThat(pageSizer.pageSize(reader)).isEqualTo(128);
+        assertThat(pageSizer.pageSize(otherUser)).isEqualTo(100);
+    }
+
+    @Test
+    void legacyModeKeepsFixedPageSize() {
+        appProperties.getKoboSync().setAdaptivePaging(false);
+        String device = KoboSyncPageSizer.deviceKey(1L, "Kobo Touch");
+        pageSizer.recordResponse(device, 100, 100 * 100L);
+
+        assertThat(pageSizer.pageSize(device)).isEqualTo(KoboSyncPageSizer.LEGACY_PAGE_SIZE);
+    }
+
+    @Test
+    void leastRecentlySyncedDevicesAreForgottenBeyondTheLimit() {
+        String first = KoboSyncPageSizer.deviceKey(0L, "Kobo Touch");
+        pageSizer.recordResponse(first, 10, 10 * 8192L);
+
+        for (long userId = 1; userId <= KoboSyncPageSizer.MAX_TRACKED_DEVICES; userId++) {
+            pageSizer.recordResponse(KoboSyncPageSizer.deviceKey(userId, "Kobo Touch"), 10, 10 * 8192L);
+        }
+
+        assertThat(pageSizer.pageSize(first)).isEqualTo(100);
+        assertThat(pageSizer.pageSize(KoboSyncPageSizer.deviceKey(1L, "Kobo Touch"))).isEqualTo(128);
+    }
+}
@@ -33,6 +33,9 @@ class FileAsBookProcessorTest {
     @Mock
     private BookFileProcessor bookFileProcessor;
 
+    @Mock
+    private LibraryScanPipeline scanPipeline;
+
     @InjectMocks
     private FileAsBookProcessor fileAsBookProcessor;
 
@@ -365,4 +368,28 @@ class FileAsBookProcessorTest {
         // Then
         verify(bookEventBroadcaster, times(4)).broadcastBookAddEvent(any(Book.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void processLibraryFiles_shouldDelegateToPipelineWhenParallelismAboveOne() {
+        // Given
+        LibraryEntity libraryEntity = new LibraryEntity();
+        libraryEntity.setScanParallelism(4);
+        LibraryPathEntity libraryPathEntity = new LibraryPathEntity();
+        libraryPathEntity.setPath("/library/path");
+
+        List<LibraryFile> libraryFiles = List.of(
+                LibraryFile.builder().libraryEntity(libraryEntity).libraryPathEntity(libraryPathEntity)
+                        .fileName("a.epub").fileSubPath("books").bookFileType(BookFileType.EPUB).build(),
+                LibraryFile.builder().libraryEntity(libraryEntity).libraryPathEntity(libraryPathEntity)
+                        .fileName("b.epub").fileSubPath("books").bookFileType(BookFileType.EPUB).build());
+
+        when(scanPipeline.resolveParallelism(libraryEntity)).thenReturn(4);
+
+        // When
+        fileAsBookProcessor.processLibraryFiles(libraryFiles, libraryEntity);
+
+        // Then
+        verify(scanPipeline).run(eq(libraryFiles), eq(libraryEntity), eq(4), any(), any());
+        verify(processorRegistry, never()).getProcessorOrThrow(any());
+    }
+}
@@ -0,0 +1,194 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.LibraryFileStateEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.repository.LibraryFileStateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LibraryFileIndexServiceTest {
+
+    @TempDir
+    Path libraryRoot;
+
+    private final Map<Long, LibraryFileStateEntity> storedStates = new LinkedHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+
+    private BookRepository bookRepository;
+    private LibraryFileIndexService indexService;
+    private LibraryFileProcessor processor;
+    private LibraryEntity libraryEntity;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        LibraryFileStateRepository stateRepository = mock(LibraryFileStateRepository.class);
+        when(stateRepository.findByLibraryPathId(anyLong())).thenAnswer(inv -> storedStates.values().stream()
+                .map(LibraryFileIndexServiceTest::copy)
+                .toList());
+        when(stateRepository.saveAll(anyIterable())).thenAnswer(inv -> {
+            for (LibraryFileStateEntity state : (Iterable<LibraryFileStateEntity>) inv.getArgument(0)) {
+                if (state.getId() == null) {
+                    state.setId(idSequence.incrementAndGet());
+                }
+                storedStates.put(state.getId(), copy(state));
+            }
+            return List.of();
+        });
+        doAnswer(inv -> {
+            ((Iterable<Long>) inv.getArgument(0)).forEach(storedStates::remove);
+            return null;
+        }).when(stateRepository).deleteAllByIdInBatch(anyIterable());
+
+        bookRepository = mock(BookRepository.class);
+        BookAdditionalFileRepository additionalFileRepository = mock(BookAdditionalFileRepository.class);
+        when(bookRepository.findRelativePathsByLibraryPathId(anyLong())).thenAnswer(inv -> storedStates.values().stream()
+                .map(LibraryFileStateEntity::getRelativePath)
+                .collect(Collectors.toSet()));
+        when(additionalFileRepository.findRelativePathsByLibraryPathId(anyLong())).thenReturn(Set.of());
+
+        indexService = new LibraryFileIndexService(stateRepository, bookRepository, additionalFileRepository, new AppProperties());
+        processor = mock(LibraryFileProcessor.class);
+
+        LibraryPathEntity pathEntity = LibraryPathEntity.builder().id(10L).path(libraryRoot.toString()).build();
+        libraryEntity = LibraryEntity.builder().id(1L).name("Test").libraryPaths(List.of(pathEntity)).build();
+    }
+
+    @Test
+    void firstScan_reportsEveryBookAsAdded() throws IOException {
+        writeFile("a.epub", "alpha");
+        writeFile("series/b.pdf", "beta");
+        writeFile("series/cover.jpg", "not a book");
+
+        LibraryScanDiff diff = indexService.scan(libraryEntity, processor);
+
+        assertThat(diff.getCurrentFiles()).extracting(LibraryFile::getFileName).containsExactlyInAnyOrder("a.epub", "b.pdf");
+        assertThat(diff.getAddedFiles()).hasSize(2);
+        assertThat(diff.getRemovedFiles()).isEmpty();
+        assertThat(diff.getCurrentFiles()).filteredOn(f -> f.getFileName().equals("b.pdf"))
+                .singleElement().extracting(LibraryFile::getFileSubPath).isEqualTo("series");
+    }
+
+    @Test
+    void rescanOfUnchangedTree_skipsDirectoriesAndReportsNoChanges() throws IOException {
+        writeFile("a.epub", "alpha");
+        writeFile("series/b.pdf", "beta");
+        LibraryScanDiff first = indexService.scan(libraryEntity, processor);
+        indexService.commit(first, List.of());
+
+        LibraryScanDiff second = indexService.scan(libraryEntity, processor);
+
+        assertThat(second.getAddedFiles()).isEmpty();
+        assertThat(second.getRemovedFiles()).isEmpty();
+        assertThat(second.getMoves()).isEmpty();
+        assertThat(second.getListedDirectories()).isZero();
+        assertThat(second.getSkippedDirectories()).isEqualTo(2);
+        assertThat(second.getCurrentFiles()).extracting(LibraryFile::getFileName).containsExactlyInAnyOrder("a.epub", "b.pdf");
+    }
+
+    @Test
+    void fileEditedInPlace_losesItsFingerprint_althoughItsDirectoryIsSkipped() throws IOException {
+        writeFile("series/a.epub", "alpha");
+        writeFile("series/b.epub", "beta");
+        LibraryScanDiff first = indexService.scan(libraryEntity, processor);
+        first.getCurrentFiles().forEach(file -> file.setFileHash("fingerprint-" + file.getFileName()));
+        indexService.commit(first, List.of());
+
+        Path directory = libraryRoot.resolve("series");
+        FileTime directoryModified = Files.getLastModifiedTime(directory);
+        Files.writeString(libraryRoot.resolve("series/a.epub"), "alpha, appended in place");
+        Files.setLastModifiedTime(directory, directoryModified);
+
+        LibraryScanDiff second = indexService.scan(libraryEntity, processor);
+
+        assertThat(second.getListedDirectories()).isZero();
+        assertThat(second.getCurrentFiles()).extracting(LibraryFile::getFileName, LibraryFile::getFileHash)
+                .containsExactlyInAnyOrder(tuple("a.epub", null), tuple("b.epub", "fingerprint-b.epub"));
+        assertThat(second.getStatesToSave()).extracting(LibraryFileStateEntity::getRelativePath).containsExactly("series/a.epub");
+    }
+
+    @Test
+    void renameIntoAnotherDirectory_isReportedAsMove() throws IOException {
+        writeFile("inbox/book.epub", "content that moves");
+        writeFile("keep.epub", "other");
+        indexService.commit(indexService.scan(libraryEntity, processor), List.of());
+
+        Files.createDirectories(libraryRoot.resolve("sorted"));
+        Files.move(libraryRoot.resolve("inbox/book.epub"), libraryRoot.resolve("sorted/renamed.epub"));
+
+        LibraryScanDiff diff = indexService.scan(libraryEntity, processor);
+
+        assertThat(diff.getAddedFiles()).isEmpty();
+        assertThat(diff.getRemovedFiles()).isEmpty();
+        assertThat(diff.getMoves()).singleElement().satisfies(move -> {
+            assertThat(move.from().getRelativePath()).isEqualTo("inbox/book.epub");
+            assertThat(move.to().getFileSubPath()).isEqualTo("sorted");
+            assertThat(move.to().getFileName()).isEqualTo("renamed.epub");
+        });
+    }
+
+    @Test
+    void deletedFile_isReportedAsRemoved() throws IOException {
+        writeFile("a.epub", "alpha");
+        writeFile("b.epub", "beta");
+        indexService.commit(indexService.scan(libraryEntity, processor), List.of());
+
+        Files.delete(libraryRoot.resolve("b.epub"));
+        LibraryScanDiff diff = indexService.scan(libraryEntity, processor);
+
+        assertThat(diff.getRemovedFiles()).extracting(LibraryFileStateEntity::getRelativePath).containsExactly("b.epub");
+        assertThat(diff.getCurrentFiles()).extracting(LibraryFile::getFileName).containsExactly("a.epub");
+    }
+
+    @Test
+    void commit_keepsFailedFilesOutOfIndexSoTheyAreRetried() throws IOException {
+        writeFile("broken.epub", "broken");
+        LibraryScanDiff first = indexService.scan(libraryEntity, processor);
+        when(bookRepository.findRelativePathsByLibraryPathId(anyLong())).thenReturn(Set.of());
+        indexService.commit(first, first.getCurrentFiles());
+
+        LibraryScanDiff second = indexService.scan(libraryEntity, processor);
+
+        assertThat(second.getAddedFiles()).extracting(added -> added.libraryFile().getFileName()).containsExactly("broken.epub");
+        assertThat(second.getListedDirectories()).isEqualTo(1);
+    }
+
+    private void writeFile(String relativePath, String content) throws IOException {
+        Path file = libraryRoot.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private static LibraryFileStateEntity copy(LibraryFileStateEntity state) {
+        return LibraryFileStateEntity.builder()
+                .id(state.getId())
+                .libraryId(state.getLibraryId())
+                .libraryPathId(state.getLibraryPathId())
+                .relativePath(state.getRelativePath())
+                .directory(state.isDirectory())
+                .fileSize(state.getFileSize())
+                .lastModified(state.getLastModified())
+                .fileKey(state.getFileKey())
+                .fingerprint(state.getFingerprint())
+                .build();
+    }
+}
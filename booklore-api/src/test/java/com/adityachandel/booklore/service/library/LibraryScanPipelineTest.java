@@ -0,0 +1,152 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.FileProcessResult;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.model.enums.FileProcessStatus;
+import com.adityachandel.booklore.model.websocket.TaskProgressPayload;
+import com.adityachandel.booklore.model.websocket.Topic;
+import com.adityachandel.booklore.service.NotificationService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LibraryScanPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AppProperties appProperties;
+    private NotificationService notificationService;
+    private LibraryScanPipeline pipeline;
+    private LibraryEntity libraryEntity;
+    private LibraryPathEntity libraryPathEntity;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getLibraryScan().setBatchSize(5);
+        appProperties.getLibraryScan().setFlushIntervalMs(50);
+        notificationService = mock(NotificationService.class);
+        pipeline = new LibraryScanPipeline(appProperties, notificationService, mock(DataSource.class));
+
+        libraryEntity = LibraryEntity.builder().id(1L).name("Test").build();
+        libraryPathEntity = LibraryPathEntity.builder().id(1L).path(tempDir.toString()).build();
+    }
+
+    @Test
+    void resolveParallelism_prefersLibrarySettingAndCapsAtMax() {
+        appProperties.getLibraryScan().setMaxParallelism(6);
+
+        libraryEntity.setScanParallelism(3);
+        assertThat(pipeline.resolveParallelism(libraryEntity)).isEqualTo(3);
+
+        libraryEntity.setScanParallelism(64);
+        assertThat(pipeline.resolveParallelism(libraryEntity)).isEqualTo(6);
+
+        libraryEntity.setScanParallelism(null);
+        appProperties.getLibraryScan().setDefaultParallelism(2);
+        assertThat(pipeline.resolveParallelism(libraryEntity)).isEqualTo(2);
+    }
+
+    @Test
+    void resolveParallelism_leavesConnectionHeadroomInThePool() {
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        when(dataSource.getMaximumPoolSize()).thenReturn(10);
+        pipeline = new LibraryScanPipeline(appProperties, notificationService, dataSource);
+
+        libraryEntity.setScanParallelism(8);
+        assertThat(pipeline.resolveParallelism(libraryEntity)).isEqualTo(6);
+
+        when(dataSource.getMaximumPoolSize()).thenReturn(3);
+        assertThat(pipeline.resolveParallelism(libraryEntity)).isEqualTo(1);
+    }
+
+    @Test
+    void run_processesAndPublishesEveryFileExactlyOnce() throws IOException {
+        List<LibraryFile> files = createFiles(37);
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        List<FileProcessResult> published = Collections.synchronizedList(new ArrayList<>());
+
+        pipeline.run(files, libraryEntity, 4, file -> {
+            assertThat(file.getFileHash()).isNotNull();
+            processed.add(file.getFileName());
+            return new FileProcessResult(Book.builder().fileName(file.getFileName()).build(), FileProcessStatus.NEW);
+        }, published::addAll);
+
+        assertThat(processed).hasSize(37);
+        assertThat(published).hasSize(37);
+        assertThat(published).extracting(r -> r.getBook().getFileName()).doesNotHaveDuplicates();
+
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(notificationService, atLeastOnce()).sendMessage(eq(Topic.TASK_PROGRESS), payloads.capture());
+        TaskProgressPayload last = (TaskProgressPayload) payloads.getValue();
+        assertThat(last.getProgress()).isEqualTo(100);
+        assertThat(last.getStageThroughput()).containsKeys("read", "process", "publish");
+    }
+
+    @Test
+    void run_retriesIntegrityViolationsSeriallyAndSkipsOtherFailures() throws IOException {
+        List<LibraryFile> files = createFiles(3);
+        AtomicInteger racyAttempts = new AtomicInteger();
+        List<FileProcessResult> published = Collections.synchronizedList(new ArrayList<>());
+
+        pipeline.run(files, libraryEntity, 2, file -> {
+            if (file.getFileName().equals("book-0.epub") && racyAttempts.getAndIncrement() == 0) {
+                throw new DataIntegrityViolationException("duplicate author");
+            }
+            if (file.getFileName().equals("book-1.epub")) {
+                throw new IllegalStateException("corrupt");
+            }
+            return new FileProcessResult(Book.builder().fileName(file.getFileName()).build(), FileProcessStatus.NEW);
+        }, published::addAll);
+
+        assertThat(racyAttempts.get()).isEqualTo(2);
+        assertThat(published).extracting(r -> r.getBook().getFileName())
+                .containsExactlyInAnyOrder("book-0.epub", "book-2.epub");
+    }
+
+    @Test
+    void run_withEmptyList_doesNothing() {
+        pipeline.run(List.of(), libraryEntity, 4, file -> null, results -> {
+        });
+
+        verify(notificationService, never()).sendMessage(any(), any());
+    }
+
+    private List<LibraryFile> createFiles(int count) throws IOException {
+        List<LibraryFile> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String name = "book-" + i + ".epub";
+            Files.write(tempDir.resolve(name), ("content-" + i).getBytes());
+            files.add(LibraryFile.builder()
+                    .libraryEntity(libraryEntity)
+                    .libraryPathEntity(libraryPathEntity)
+                    .fileSubPath("")
+                    .fileName(name)
+                    .bookFileType(BookFileType.EPUB)
+                    .build());
+        }
+        return files;
+    }
+}
@@ -12,6 +12,7 @@ import com.adityachandel.booklore.model.entity.TagEntity;
 import com.adityachandel.booklore.model.enums.MetadataReplaceMode;
 import com.adityachandel.booklore.repository.*;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.book.AuthorCategoryResolver;
 import com.adityachandel.booklore.service.file.FileMoveService;
 import com.adityachandel.booklore.service.metadata.writer.MetadataWriterFactory;
 import com.adityachandel.booklore.util.FileService;
@@ -44,6 +45,7 @@ class BookMetadataUpdaterTest {
     @Mock private MetadataWriterFactory metadataWriterFactory;
     @Mock private BookReviewUpdateService bookReviewUpdateService;
     @Mock private FileMoveService fileMoveService;
+    @Mock private AuthorCategoryResolver authorCategoryResolver;
 
     @InjectMocks
     private BookMetadataUpdater bookMetadataUpdater;
@@ -4,6 +4,7 @@ import com.adityachandel.booklore.model.entity.*;
 import com.adityachandel.booklore.model.enums.MergeMetadataType;
 import com.adityachandel.booklore.repository.*;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.book.AuthorCategoryResolver;
 import com.adityachandel.booklore.service.metadata.writer.MetadataWriterFactory;
 import com.adityachandel.booklore.model.dto.settings.AppSettings;
 import com.adityachandel.booklore.model.dto.settings.MetadataPersistenceSettings;
@@ -43,6 +44,8 @@ class MetadataManagementServiceTest {
     AppSettingService appSettingService;
     @Mock
     MetadataWriterFactory metadataWriterFactory;
+    @Mock
+    AuthorCategoryResolver authorCategoryResolver;
 
     @InjectMocks
     MetadataManagementService service;
@@ -93,6 +96,7 @@ class MetadataManagementServiceTest {
         assertThat(saved).containsExactly(metadata);
 
         verify(authorRepository).delete(oldAuthor);
+        verify(authorCategoryResolver).invalidateAuthors();
     }
 
     @Test
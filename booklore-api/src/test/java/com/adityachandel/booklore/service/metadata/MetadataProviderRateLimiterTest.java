@@ -0,0 +1,115 @@
+package com.adityachandel.booklore.service.metadata;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.enums.MetadataProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MetadataProviderRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MetadataProviderRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getMetadataRefresh().getRequestsPerSecond().put(MetadataProvider.Google, 4.0);
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new MetadataProviderRateLimiter(appProperties, meterRegistry);
+    }
+
+    @Test
+    void throttlingResponse_halvesRateAndPausesProvider() {
+        rateLimiter.onResponse(MetadataProvider.Google, 429, null);
+
+        assertThat(rateLimiter.currentRate(MetadataProvider.Google)).isEqualTo(2.0);
+        assertThat(meterRegistry.get("booklore.metadata.provider.backoff").tag("provider", "Google").gauge().value())
+                .isGreaterThan(0.5);
+        assertThat(meterRegistry.get("booklore.metadata.provider.throttled").tag("provider", "Google").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void repeatedThrottling_neverDropsBelowSixteenthOfConfiguredRate() {
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.onResponse(MetadataProvider.Google, 503, "0");
+        }
+
+        assertThat(rateLimiter.currentRate(MetadataProvider.Google)).isEqualTo(0.25);
+    }
+
+    @Test
+    void successfulResponses_restoreConfiguredRateGradually() {
+        rateLimiter.onResponse(MetadataProvider.Google, 429, "0");
+
+        rateLimiter.onResponse(MetadataProvider.Google, 200, null);
+        assertThat(rateLimiter.currentRate(MetadataProvider.Google)).isCloseTo(2.2, within(1e-9));
+
+        for (int i = 0; i < 30; i++) {
+            rateLimiter.onResponse(MetadataProvider.Google, 200, null);
+        }
+        assertThat(rateLimiter.currentRate(MetadataProvider.Google)).isEqualTo(4.0);
+    }
+
+    @Test
+    void otherErrors_leaveRateUnchanged() {
+        rateLimiter.onResponse(MetadataProvider.Google, 404, null);
+        rateLimiter.onResponse(MetadataProvider.Google, 500, null);
+
+        assertThat(rateLimiter.currentRate(MetadataProvider.Google)).isEqualTo(4.0);
+    }
+
+    @Test
+    void throttlingOneProvider_doesNotAffectOthers() {
+        rateLimiter.onResponse(MetadataProvider.Google, 429, null);
+
+        assertThat(rateLimiter.currentRate(MetadataProvider.Hardcover)).isEqualTo(1.0);
+    }
+
+    @Test
+    void acquire_withinBurst_doesNotWait() {
+        long started = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.acquire(MetadataProvider.Google);
+        }
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(200);
+        assertThat(meterRegistry.get("booklore.metadata.provider.requests").tag("provider", "Google").counter().count())
+                .isEqualTo(4.0);
+    }
+
+    @Test
+    void lastRequestAnswered_tellsAnswersFromFailures() {
+        rateLimiter.acquire(MetadataProvider.Google);
+        assertThat(rateLimiter.lastRequestAnswered()).isFalse();
+
+        rateLimiter.onResponse(MetadataProvider.Google, 404, null);
+        assertThat(rateLimiter.lastRequestAnswered()).isTrue();
+
+        rateLimiter.onResponse(MetadataProvider.Google, 429, "0");
+        assertThat(rateLimiter.lastRequestAnswered()).isFalse();
+
+        rateLimiter.resetLastStatus();
+        assertThat(rateLimiter.lastRequestAnswered()).isFalse();
+    }
+
+    @Test
+    void parseRetryAfter_acceptsSecondsAndHttpDates() {
+        assertThat(MetadataProviderRateLimiter.parseRetryAfter("30")).isEqualTo(TimeUnit.SECONDS.toNanos(30));
+        assertThat(MetadataProviderRateLimiter.parseRetryAfter(null)).isZero();
+        assertThat(MetadataProviderRateLimiter.parseRetryAfter("soon")).isZero();
+
+        String inOneMinute = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(1));
+        assertThat(MetadataProviderRateLimiter.parseRetryAfter(inOneMinute))
+                .isBetween(TimeUnit.SECONDS.toNanos(55), TimeUnit.SECONDS.toNanos(61));
+    }
+}
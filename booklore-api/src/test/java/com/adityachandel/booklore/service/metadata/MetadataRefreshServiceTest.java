@@ -0,0 +1,224 @@
+package com.adityachandel.booklore.service.metadata;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.config.security.service.AuthenticationService;
+import com.adityachandel.booklore.mapper.BookMapper;
+import com.adityachandel.booklore.model.MetadataUpdateContext;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.BookMetadata;
+import com.adityachandel.booklore.model.dto.request.MetadataRefreshOptions;
+import com.adityachandel.booklore.model.dto.request.MetadataRefreshRequest;
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.BookMetadataEntity;
+import com.adityachandel.booklore.model.entity.MetadataFetchJobEntity;
+import com.adityachandel.booklore.model.enums.MetadataFetchTaskStatus;
+import com.adityachandel.booklore.model.enums.MetadataProvider;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.repository.LibraryRepository;
+import com.adityachandel.booklore.repository.MetadataFetchJobRepository;
+import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.book.AuthorCategoryResolver;
+import com.adityachandel.booklore.service.metadata.parser.BookParser;
+import com.adityachandel.booklore.task.TaskCancellationManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+@Timeout(30)
+class MetadataRefreshServiceTest {
+
+    private static final String JOB_ID = "job-1";
+
+    private MetadataFetchJobRepository metadataFetchJobRepository;
+    private BookMapper bookMapper;
+    private BookMetadataUpdater bookMetadataUpdater;
+    private BookRepository bookRepository;
+    private PlatformTransactionManager transactionManager;
+    private BookParser googleParser;
+    private TaskCancellationManager cancellationManager;
+    private AppProperties appProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private MetadataRefreshService service;
+
+    private final Map<Long, BookEntity> books = new HashMap<>();
+    private final AtomicReference<MetadataFetchJobEntity> savedJob = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        metadataFetchJobRepository = mock(MetadataFetchJobRepository.class);
+        bookMapper = mock(BookMapper.class);
+        bookMetadataUpdater = mock(BookMetadataUpdater.class);
+        bookRepository = mock(BookRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        googleParser = mock(BookParser.class);
+        cancellationManager = new TaskCancellationManager();
+        appProperties = new AppProperties();
+        meterRegistry = new SimpleMeterRegistry();
+
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenReturn(new AppSettings());
+        when(metadataFetchJobRepository.save(any())).thenAnswer(invocation -> {
+            MetadataFetchJobEntity job = invocation.getArgument(0);
+            savedJob.set(job);
+            return job;
+        });
+        when(bookRepository.findAllWithMetadataByIds(anySet())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(books::get).filter(Objects::nonNull).toList();
+        });
+        when(bookMapper.toBook(any(BookEntity.class))).thenAnswer(invocation -> {
+            BookEntity entity = invocation.getArgument(0);
+            return Book.builder()
+                    .id(entity.getId())
+                    .metadata(BookMetadata.builder().title(entity.getMetadata().getTitle()).build())
+                    .build();
+        });
+        when(googleParser.fetchTopMetadata(any(), any())).thenAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            return BookMetadata.builder().provider(MetadataProvider.Google).title("Fetched " + book.getId()).build();
+        });
+
+        Map<MetadataProvider, BookParser> parserMap = new EnumMap<>(MetadataProvider.class);
+        parserMap.put(MetadataProvider.Google, googleParser);
+        service = new MetadataRefreshService(
+                mock(LibraryRepository.class),
+                metadataFetchJobRepository,
+                bookMapper,
+                bookMetadataUpdater,
+                mock(NotificationService.class),
+                appSettingService,
+                parserMap,
+                new ObjectMapper(),
+                bookRepository,
+                transactionManager,
+                mock(AuthenticationService.class),
+                cancellationManager,
+                appProperties,
+                meterRegistry,
+                mock(AuthorCategoryResolver.class));
+    }
+
+    @Test
+    void refreshMetadata_appliesEveryFetchedBook() {
+        addBooks(1L, 2L, 3L, 4L, 5L);
+        appProperties.getMetadataRefresh().setWriteBatchSize(2);
+
+        service.refreshMetadata(request(1L, 2L, 3L, 4L, 5L), JOB_ID);
+
+        verify(googleParser, times(5)).fetchTopMetadata(any(), any());
+        verify(bookMetadataUpdater, times(5)).setBookMetadata(any(MetadataUpdateContext.class));
+        assertThat(savedJob.get().getStatus()).isEqualTo(MetadataFetchTaskStatus.COMPLETED);
+        assertThat(savedJob.get().getCompletedBooks()).isEqualTo(5);
+        assertThat(bookCount("updated")).isEqualTo(5);
+    }
+
+    @Test
+    void feedBooks_skipsLockedBooksAndReportsMissingOnes() {
+        addBooks(1L);
+        BookMetadataEntity lockedMetadata = mock(BookMetadataEntity.class);
+        when(lockedMetadata.getTitle()).thenReturn("Locked");
+        when(lockedMetadata.areAllFieldsLocked()).thenReturn(true);
+        books.put(2L, BookEntity.builder().id(2L).fileName("locked.epub").metadata(lockedMetadata).build());
+
+        service.refreshMetadata(request(1L, 2L, 3L), JOB_ID);
+
+        verify(googleParser, times(1)).fetchTopMetadata(any(), any());
+        assertThat(bookCount("updated")).isEqualTo(1);
+        assertThat(bookCount("skipped")).isEqualTo(1);
+        assertThat(bookCount("failed")).isEqualTo(1);
+        assertThat(savedJob.get().getStatus()).isEqualTo(MetadataFetchTaskStatus.COMPLETED);
+        assertThat(savedJob.get().getCompletedBooks()).isEqualTo(3);
+    }
+
+    @Test
+    void writeBatch_retriesBookByBookWhenTheBatchTransactionFails() {
+        addBooks(1L, 2L, 3L);
+        appProperties.getMetadataRefresh().setWriteBatchSize(3);
+        doThrow(new IllegalStateException("deadlock")).doNothing().when(bookRepository).flush();
+
+        service.refreshMetadata(request(1L, 2L, 3L), JOB_ID);
+
+        verify(transactionManager).rollback(any());
+        assertThat(bookCount("updated")).isEqualTo(3);
+        assertThat(bookCount("failed")).isZero();
+        assertThat(savedJob.get().getCompletedBooks()).isEqualTo(3);
+    }
+
+    @Test
+    void writeBatch_reportsBooksThatAlsoFailOnTheirOwn() {
+        addBooks(1L, 2L);
+        doThrow(new IllegalStateException("constraint violation")).when(bookRepository).flush();
+
+        service.refreshMetadata(request(1L, 2L), JOB_ID);
+
+        assertThat(bookCount("failed")).isEqualTo(2);
+        assertThat(bookCount("updated")).isZero();
+        assertThat(savedJob.get().getStatus()).isEqualTo(MetadataFetchTaskStatus.COMPLETED);
+        assertThat(savedJob.get().getCompletedBooks()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshMetadata_stopsWhenCancelled() {
+        addBooks(1L, 2L);
+        cancellationManager.cancelTask(JOB_ID);
+
+        service.refreshMetadata(request(1L, 2L), JOB_ID);
+
+        verify(bookMetadataUpdater, never()).setBookMetadata(any(MetadataUpdateContext.class));
+        assertThat(savedJob.get().getStatus()).isEqualTo(MetadataFetchTaskStatus.CANCELLED);
+        assertThat(cancellationManager.isTaskCancelled(JOB_ID)).isFalse();
+    }
+
+    @Test
+    void refreshMetadata_failsInsteadOfWaitingWhenTheFeederDies() {
+        addBooks(1L, 2L);
+        doThrow(new Error("mapper failed")).when(bookMapper).toBook(any(BookEntity.class));
+
+        assertThatThrownBy(() -> service.refreshMetadata(request(1L, 2L), JOB_ID))
+                .isInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("mapper failed");
+        assertThat(cancellationManager.isTaskCancelled(JOB_ID)).isFalse();
+    }
+
+    private void addBooks(Long... ids) {
+        for (Long id : ids) {
+            BookMetadataEntity metadata = new BookMetadataEntity();
+            metadata.setTitle("Book " + id);
+            books.put(id, BookEntity.builder().id(id).fileName(id + ".epub").metadata(metadata).build());
+        }
+    }
+
+    private double bookCount(String outcome) {
+        Counter counter = meterRegistry.find("booklore.metadata.refresh.books").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static MetadataRefreshRequest request(Long... bookIds) {
+        MetadataRefreshOptions.FieldProvider google = MetadataRefreshOptions.FieldProvider.builder().p1(MetadataProvider.Google).build();
+        MetadataRefreshOptions options = MetadataRefreshOptions.builder()
+                .reviewBeforeApply(false)
+                .fieldOptions(MetadataRefreshOptions.FieldOptions.builder().title(google).build())
+                .enabledFields(MetadataRefreshOptions.EnabledFields.builder().title(true).build())
+                .build();
+        return MetadataRefreshRequest.builder()
+                .refreshType(MetadataRefreshRequest.RefreshType.BOOKS)
+                .bookIds(new LinkedHashSet<>(List.of(bookIds)))
+                .refreshOptions(options)
+                .build();
+    }
+}
@@ -0,0 +1,196 @@
+package com.adityachandel.booklore.service.metadata;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.BookMetadata;
+import com.adityachandel.booklore.model.dto.request.FetchMetadataRequest;
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.MetadataProviderSettings;
+import com.adityachandel.booklore.model.dto.settings.MetadataPublicReviewsSettings;
+import com.adityachandel.booklore.model.enums.MetadataProvider;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.metadata.parser.BookParser;
+import com.adityachandel.booklore.util.FileService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MetadataResponseCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AppProperties appProperties;
+    private AppSettings appSettings;
+    private MetadataProviderRateLimiter rateLimiter;
+    private SimpleMeterRegistry meterRegistry;
+    private BookParser delegate;
+    private BookParser parser;
+    private MetadataResponseCache cache;
+    private final Book book = Book.builder().fileName("The Hobbit.epub").build();
+
+    @BeforeEach
+    void setUp() {
+        FileService fileService = mock(FileService.class);
+        when(fileService.getMetadataCachePath()).thenReturn(tempDir.resolve("metadata_cache").toString());
+        appProperties = new AppProperties();
+        rateLimiter = mock(MetadataProviderRateLimiter.class);
+        meterRegistry = new SimpleMeterRegistry();
+        delegate = mock(BookParser.class);
+        appSettings = new AppSettings();
+        appSettings.setMetadataProviderSettings(new MetadataProviderSettings());
+        appSettings.getMetadataProviderSettings().setGoogle(new MetadataProviderSettings.Google());
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenAnswer(invocation -> appSettings);
+        cache = new MetadataResponseCache(fileService, new ObjectMapper().findAndRegisterModules(),
+                rateLimiter, appSettingService, appProperties, meterRegistry);
+        parser = cache.wrap(MetadataProvider.Google, delegate);
+    }
+
+    private static FetchMetadataRequest request(String title, String author) {
+        return FetchMetadataRequest.builder().title(title).author(author).build();
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("provider", "Google").tag("result", result).counter().count();
+    }
+
+    @Test
+    void repeatedLookup_isServedFromCache() {
+        when(delegate.fetchTopMetadata(any(), any())).thenReturn(BookMetadata.builder().title("The Hobbit").googleId("g1").build());
+
+        parser.fetchTopMetadata(book, request("The Hobbit", "Tolkien"));
+        BookMetadata second = parser.fetchTopMetadata(book, request("The Hobbit", "Tolkien"));
+
+        assertThat(second.getGoogleId()).isEqualTo("g1");
+        verify(delegate, times(1)).fetchTopMetadata(any(), any());
+        assertThat(gets("hit")).isEqualTo(1.0);
+        assertThat(gets("miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void queriesDifferingOnlyInCaseAndWhitespace_shareAnEntry() {
+        when(delegate.fetchMetadata(any(), any())).thenReturn(List.of(BookMetadata.builder().title("The Hobbit").build()));
+
+        parser.fetchMetadata(book, request("The Hobbit", "J.R.R. Tolkien"));
+        List<BookMetadata> second = parser.fetchMetadata(book, request("  the   HOBBIT ", "j.r.r. tolkien"));
+
+        assertThat(second).hasSize(1);
+        verify(delegate, times(1)).fetchMetadata(any(), any());
+    }
+
+    @Test
+    void differentQueries_doNotShareEntries() {
+        when(delegate.fetchMetadata(any(), any())).thenReturn(List.of(BookMetadata.builder().title("x").build()));
+
+        parser.fetchMetadata(book, request("The Hobbit", null));
+        parser.fetchMetadata(book, request("The Silmarillion", null));
+
+        verify(delegate, times(2)).fetchMetadata(any(), any());
+    }
+
+    @Test
+    void emptyAnswer_isCachedWhenProviderAnswered() {
+        when(delegate.fetchMetadata(any(), any())).thenReturn(List.of());
+        when(rateLimiter.lastRequestAnswered()).thenReturn(true);
+
+        parser.fetchMetadata(book, request("Unknown Book", null));
+        List<BookMetadata> second = parser.fetchMetadata(book, request("Unknown Book", null));
+
+        assertThat(second).isEmpty();
+        verify(delegate, times(1)).fetchMetadata(any(), any());
+    }
+
+    @Test
+    void emptyResultOfFailedRequest_isNotCached() {
+        when(delegate.fetchMetadata(any(), any())).thenReturn(List.of());
+        when(rateLimiter.lastRequestAnswered()).thenReturn(false);
+
+        parser.fetchMetadata(book, request("Unknown Book", null));
+        parser.fetchMetadata(book, request("Unknown Book", null));
+
+        verify(delegate, times(2)).fetchMetadata(any(), any());
+    }
+
+    @Test
+    void expiredEntry_isFetchedAgain() {
+        appProperties.getMetadataCache().setNegativeTtlHours(0);
+        when(delegate.fetchTopMetadata(any(), any())).thenReturn(null);
+        when(rateLimiter.lastRequestAnswered()).thenReturn(true);
+
+        parser.fetchTopMetadata(book, request("Unknown Book", null));
+        parser.fetchTopMetadata(book, request("Unknown Book", null));
+
+        verify(delegate, times(2)).fetchTopMetadata(any(), any());
+    }
+
+    @Test
+    void disabledCache_returnsParserItself() {
+        appProperties.getMetadataCache().setEnabled(false);
+        MetadataResponseCache cache = new MetadataResponseCache(mock(FileService.class), new ObjectMapper(), rateLimiter,
+                mock(AppSettingService.class), appProperties, new SimpleMeterRegistry());
+
+        assertThat(cache.wrap(MetadataProvider.Google, delegate)).isSameAs(delegate);
+    }
+
+    @Test
+    void key_usesFileNameOnlyWithoutTitle() {
+        String withTitle = MetadataResponseCache.key(MetadataProvider.Google, "top", book, request("Farmer Giles", null), "");
+        String withoutTitle = MetadataResponseCache.key(MetadataProvider.Google, "top", book, request(null, null), "");
+
+        assertThat(withTitle).doesNotContain("hobbit");
+        assertThat(withoutTitle).contains("hobbit");
+    }
+
+    @Test
+    void changedProviderSettings_doNotReuseEntries() {
+        when(delegate.fetchTopMetadata(any(), any())).thenReturn(BookMetadata.builder().title("The Hobbit").build());
+
+        appSettings.getMetadataProviderSettings().getGoogle().setLanguage("en");
+        parser.fetchTopMetadata(book, request("The Hobbit", null));
+        appSettings.getMetadataProviderSettings().getGoogle().setLanguage("de");
+        parser.fetchTopMetadata(book, request("The Hobbit", null));
+        appSettings.getMetadataProviderSettings().getGoogle().setLanguage("en");
+        parser.fetchTopMetadata(book, request("The Hobbit", null));
+
+        verify(delegate, times(2)).fetchTopMetadata(any(), any());
+    }
+
+    @Test
+    void providerSettings_includeReviewDownloadsAndOnlyACookieDigest() {
+        MetadataProviderSettings.Amazon amazon = new MetadataProviderSettings.Amazon();
+        amazon.setDomain("de");
+        amazon.setCookie("session-token=secret");
+        appSettings.getMetadataProviderSettings().setAmazon(amazon);
+        String withoutReviews = cache.providerSettings(MetadataProvider.Amazon);
+        appSettings.setMetadataPublicReviewsSettings(MetadataPublicReviewsSettings.builder()
+                .providers(Set.of(MetadataPublicReviewsSettings.ReviewProviderConfig.builder()
+                        .provider(MetadataProvider.Amazon).enabled(true).maxReviews(5).build()))
+                .build());
+
+        assertThat(withoutReviews).startsWith("de,").doesNotContain("secret");
+        assertThat(cache.providerSettings(MetadataProvider.Amazon)).isNotEqualTo(withoutReviews);
+        assertThat(cache.providerSettings(MetadataProvider.GoodReads)).isEqualTo(";");
+    }
+
+    @Test
+    void clear_dropsCachedEntries() {
+        when(delegate.fetchTopMetadata(any(), any())).thenReturn(BookMetadata.builder().title("The Hobbit").build());
+
+        parser.fetchTopMetadata(book, request("The Hobbit", null));
+        cache.clear();
+        parser.fetchTopMetadata(book, request("The Hobbit", null));
+
+        verify(delegate, times(2)).fetchTopMetadata(any(), any());
+    }
+}
@@ -5,6 +5,10 @@ import com.adityachandel.booklore.model.entity.AuthorEntity;
 import com.adityachandel.booklore.model.entity.BookMetadataEntity;
 import com.adityachandel.booklore.model.entity.CategoryEntity;
 import com.adityachandel.booklore.model.enums.BookFileType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,11 +36,13 @@ import static org.junit.jupiter.api.Assertions.*;
 class CbxMetadataWriterTest {
 
     private CbxMetadataWriter writer;
+    private SimpleMeterRegistry meterRegistry;
     private Path tempDir;
 
     @BeforeEach
     void setup() throws Exception {
-        writer = new CbxMetadataWriter();
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new CbxMetadataWriter(meterRegistry);
         tempDir = Files.createTempDirectory("cbx_writer_test_");
     }
 
@@ -173,6 +179,69 @@ class CbxMetadataWriterTest {
         }
     }
 
+    @Test
+    void writeMetadataToFile_cbz_copiesPagesRawAndRecordsRewrittenBytes() throws Exception {
+        Path out = tempDir.resolve("raw.cbz");
+        byte[] page = new byte[64 * 1024];
+        new java.util.Random(3).nextBytes(page);
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(out.toFile()))) {
+            put(zos, "001.jpg", page);
+            put(zos, "ComicInfo.xml", "<ComicInfo><Title>Old</Title></ComicInfo>".getBytes(StandardCharsets.UTF_8));
+            put(zos, "002.jpg", page);
+        }
+        byte[] rawPageBefore = rawEntry(out, "002.jpg");
+
+        BookMetadataEntity meta = new BookMetadataEntity();
+        meta.setTitle("New Title");
+        writer.writeMetadataToFile(out.toFile(), meta, null, new MetadataClearFlags());
+
+        assertArrayEquals(rawPageBefore, rawEntry(out, "002.jpg"));
+        try (ZipFile zip = new ZipFile(out.toFile())) {
+            assertEquals("New Title", text(parseXml(zip.getInputStream(zip.getEntry("ComicInfo.xml"))), "Title"));
+            assertEquals(3, zip.size());
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "no temp or backup files should be left next to the comic");
+        }
+
+        DistributionSummary rewritten = meterRegistry.get("booklore.metadata.write.rewritten").tags("format", "cbz", "mode", "raw").summary();
+        DistributionSummary copied = meterRegistry.get("booklore.metadata.write.copied").tags("format", "cbz", "mode", "raw").summary();
+        assertEquals(1, rewritten.count());
+        assertTrue(rewritten.totalAmount() < 1024, "only ComicInfo.xml should be re-encoded");
+        assertTrue(copied.totalAmount() > 2 * 60 * 1024, "both pages should be copied raw");
+    }
+
+    @Test
+    void normalizeToCbz_cb7_keepsEntriesAndStoresPages() throws Exception {
+        Path cb7 = tempDir.resolve("comic.cb7");
+        try (SevenZOutputFile sevenZ = new SevenZOutputFile(cb7.toFile())) {
+            for (String name : new String[]{"001.jpg", "ComicInfo.xml"}) {
+                SevenZArchiveEntry entry = sevenZ.createArchiveEntry(new File(name), name);
+                sevenZ.putArchiveEntry(entry);
+                sevenZ.write(name.endsWith(".xml")
+                        ? "<ComicInfo><Title>Kept</Title></ComicInfo>".getBytes(StandardCharsets.UTF_8)
+                        : new byte[]{1, 2, 3});
+                sevenZ.closeArchiveEntry();
+            }
+        }
+
+        Path cbz = writer.normalizeToCbz(cb7);
+
+        assertEquals(tempDir.resolve("comic.cbz"), cbz);
+        assertFalse(Files.exists(cb7));
+        try (ZipFile zip = new ZipFile(cbz.toFile())) {
+            assertEquals(ZipEntry.STORED, zip.getEntry("001.jpg").getMethod());
+            assertEquals("Kept", text(parseXml(zip.getInputStream(zip.getEntry("ComicInfo.xml"))), "Title"));
+        }
+    }
+
+    private static byte[] rawEntry(Path zipPath, String name) throws Exception {
+        try (org.apache.commons.compress.archivers.zip.ZipFile zip = org.apache.commons.compress.archivers.zip.ZipFile.builder().setPath(zipPath).get();
+             InputStream in = zip.getRawInputStream(zip.getEntry(name))) {
+            return in.readAllBytes();
+        }
+    }
+
     // ------------- helpers -------------
 
     private static File createCbz(Path path, String[] imageNames) throws Exception {
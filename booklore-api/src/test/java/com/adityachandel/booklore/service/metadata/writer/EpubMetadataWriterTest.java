@@ -5,6 +5,7 @@ import com.adityachandel.booklore.model.entity.AuthorEntity;
 import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.model.entity.BookMetadataEntity;
 import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -22,6 +23,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -88,6 +93,86 @@ class EpubMetadataWriterTest {
         }
     }
 
+    @Nested
+    @DisplayName("Streaming rewrite Tests")
+    class StreamingRewriteTests {
+
+        @Test
+        @DisplayName("Should copy untouched entries raw and store mimetype first")
+        void writeMetadata_copiesUntouchedEntriesRaw() throws IOException {
+            File epubFile = tempDir.resolve("test.epub").toFile();
+            Files.write(epubFile.toPath(), createEpubWithUnicodeCoverHref());
+            Map<String, byte[]> rawBefore = readRawEntries(epubFile);
+
+            writer.writeMetadataToFile(epubFile, metadata, null, new MetadataClearFlags());
+
+            try (org.apache.commons.compress.archivers.zip.ZipFile zip = org.apache.commons.compress.archivers.zip.ZipFile.builder().setFile(epubFile).get()) {
+                List<ZipArchiveEntry> entries = Collections.list(zip.getEntriesInPhysicalOrder());
+                assertEquals("mimetype", entries.getFirst().getName());
+                assertEquals(ZipArchiveEntry.STORED, entries.getFirst().getMethod());
+                assertEquals(rawBefore.keySet(), entries.stream().map(ZipArchiveEntry::getName).collect(Collectors.toSet()));
+            }
+            Map<String, byte[]> rawAfter = readRawEntries(epubFile);
+            assertArrayEquals(rawBefore.get("OEBPS/index.html"), rawAfter.get("OEBPS/index.html"));
+            assertArrayEquals(rawBefore.get("OEBPS/toc.ncx"), rawAfter.get("OEBPS/toc.ncx"));
+            assertArrayEquals(rawBefore.get("META-INF/container.xml"), rawAfter.get("META-INF/container.xml"));
+            assertTrue(readEntry(epubFile, "OEBPS/content.opf").contains("Test Book"));
+            try (var siblings = Files.list(tempDir)) {
+                assertEquals(List.of(epubFile.toPath()), siblings.toList());
+            }
+        }
+
+        @Test
+        @DisplayName("Should replace only the cover entry when uploading a cover")
+        void replaceCoverImageFromUpload_rewritesCoverEntry() throws IOException {
+            File epubFile = tempDir.resolve("test.epub").toFile();
+            Files.write(epubFile.toPath(), createEpubWithUnicodeCoverHref());
+            Map<String, byte[]> rawBefore = readRawEntries(epubFile);
+            byte[] newCover = {1, 2, 3, 4, 5};
+
+            writer.replaceCoverImageFromUpload(bookEntity, new MockMultipartFile("cover.png", "cover.png", "image/png", newCover));
+
+            try (ZipFile zf = new ZipFile(epubFile)) {
+                try (InputStream is = zf.getInputStream(zf.getEntry("OEBPS/coverá.png"))) {
+                    assertArrayEquals(newCover, is.readAllBytes());
+                }
+            }
+            assertArrayEquals(rawBefore.get("OEBPS/index.html"), readRawEntries(epubFile).get("OEBPS/index.html"));
+        }
+
+        @Test
+        @DisplayName("Should leave the file untouched when nothing changes")
+        void writeMetadata_withoutChanges_doesNotRewrite() throws IOException {
+            File epubFile = tempDir.resolve("test.epub").toFile();
+            Files.write(epubFile.toPath(), createEpubWithUnicodeCoverHref());
+            writer.writeMetadataToFile(epubFile, metadata, null, new MetadataClearFlags());
+            byte[] afterFirstWrite = Files.readAllBytes(epubFile.toPath());
+
+            BookMetadataEntity unchanged = new BookMetadataEntity();
+            writer.writeMetadataToFile(epubFile, unchanged, null, new MetadataClearFlags());
+
+            assertArrayEquals(afterFirstWrite, Files.readAllBytes(epubFile.toPath()));
+        }
+
+        private Map<String, byte[]> readRawEntries(File epubFile) throws IOException {
+            Map<String, byte[]> raw = new HashMap<>();
+            try (org.apache.commons.compress.archivers.zip.ZipFile zip = org.apache.commons.compress.archivers.zip.ZipFile.builder().setFile(epubFile).get()) {
+                for (ZipArchiveEntry entry : Collections.list(zip.getEntries())) {
+                    try (InputStream in = zip.getRawInputStream(entry)) {
+                        raw.put(entry.getName(), in.readAllBytes());
+                    }
+                }
+            }
+            return raw;
+        }
+
+        private String readEntry(File epubFile, String name) throws IOException {
+            try (ZipFile zf = new ZipFile(epubFile); InputStream is = zf.getInputStream(zf.getEntry(name))) {
+                return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
     @Nested
     @DisplayName("URL Decoding Tests")
     class UrlDecodingTests {
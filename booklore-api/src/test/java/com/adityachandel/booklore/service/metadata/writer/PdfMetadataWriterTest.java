@@ -0,0 +1,119 @@
+package com.adityachandel.booklore.service.metadata.writer;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.entity.AuthorEntity;
+import com.adityachandel.booklore.model.entity.BookMetadataEntity;
+import com.adityachandel.booklore.service.file.FileFingerprint;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
+import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfMetadataWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AppProperties appProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private PdfMetadataWriter writer;
+    private BookMetadataEntity metadata;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new PdfMetadataWriter(appProperties, meterRegistry);
+        metadata = new BookMetadataEntity();
+        metadata.setTitle("Incremental Title");
+        AuthorEntity author = new AuthorEntity();
+        author.setName("Test Author");
+        metadata.setAuthors(Collections.singleton(author));
+    }
+
+    @Test
+    void writeMetadataToFile_appendsUpdateAfterOriginalBytes() throws IOException {
+        Path pdf = createPdf("book.pdf", 40, false);
+        byte[] original = Files.readAllBytes(pdf);
+
+        writer.writeMetadataToFile(pdf.toFile(), metadata, null, null);
+
+        byte[] updated = Files.readAllBytes(pdf);
+        assertThat(updated.length).isGreaterThan(original.length);
+        assertThat(Arrays.copyOf(updated, original.length)).isEqualTo(original);
+        try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+            assertThat(document.getDocumentInformation().getTitle()).isEqualTo("Incremental Title");
+            assertThat(document.getDocumentInformation().getAuthor()).isEqualTo("Test Author");
+            assertThat(document.getNumberOfPages()).isEqualTo(40);
+            assertThat(document.getDocumentInformation().getMetadataKeys()).noneMatch(key -> key.startsWith("Booklore"));
+        }
+        DistributionSummary written = meterRegistry.find("booklore.metadata.write.rewritten").tag("mode", "incremental").summary();
+        assertThat(written).isNotNull();
+        assertThat(written.totalAmount()).isEqualTo(updated.length - original.length);
+    }
+
+    @Test
+    void writeMetadataToFile_compactsAfterMaxIncrementalUpdates() throws IOException {
+        appProperties.getPdfMetadata().setMaxIncrementalUpdates(2);
+        Path pdf = createPdf("compact.pdf", 5, false);
+
+        for (int i = 1; i <= 2; i++) {
+            metadata.setTitle("Revision " + i);
+            writer.writeMetadataToFile(pdf.toFile(), metadata, null, null);
+            assertThat(PdfMetadataWriter.countIncrementalUpdates(pdf)).isEqualTo(i);
+        }
+        metadata.setTitle("Compacted");
+        writer.writeMetadataToFile(pdf.toFile(), metadata, null, null);
+
+        assertThat(PdfMetadataWriter.countIncrementalUpdates(pdf)).isZero();
+        assertThat(meterRegistry.find("booklore.metadata.write.rewritten").tag("mode", "full").summary().count()).isEqualTo(1);
+        try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+            assertThat(document.getDocumentInformation().getTitle()).isEqualTo("Compacted");
+        }
+        assertThat(FileFingerprint.generateHash(pdf)).isNotBlank();
+    }
+
+    @Test
+    void writeMetadataToFile_encryptedPdfIsFullySavedWithoutSecurity() throws IOException {
+        Path pdf = createPdf("encrypted.pdf", 2, true);
+
+        writer.writeMetadataToFile(pdf.toFile(), metadata, null, null);
+
+        try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+            assertThat(document.isEncrypted()).isFalse();
+            assertThat(document.getDocumentInformation().getTitle()).isEqualTo("Incremental Title");
+        }
+        assertThat(meterRegistry.find("booklore.metadata.write.rewritten").tag("mode", "incremental").summary()).isNull();
+    }
+
+    private Path createPdf(String name, int pages, boolean encrypted) throws IOException {
+        Path path = tempDir.resolve(name);
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                document.addPage(new PDPage());
+            }
+            document.getDocumentInformation().setTitle("Original");
+            if (encrypted) {
+                StandardProtectionPolicy policy = new StandardProtectionPolicy("owner", "", new AccessPermission());
+                policy.setEncryptionKeyLength(128);
+                document.protect(policy);
+            }
+            document.save(path.toFile());
+        }
+        return path;
+    }
+}
@@ -0,0 +1,140 @@
+package com.adityachandel.booklore.service.monitoring;
+
+import com.adityachandel.booklore.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DirectoryPollerTest {
+
+    @TempDir
+    Path folder;
+
+    private ApplicationEventPublisher eventPublisher;
+    private AppProperties appProperties;
+    private DirectoryPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        appProperties = new AppProperties();
+        poller = new DirectoryPoller(eventPublisher, appProperties);
+    }
+
+    @Test
+    void registrationListsTheFolderWithoutPublishingExistingEntries() throws Exception {
+        Files.writeString(folder.resolve("existing.epub"), "x");
+
+        poller.register(folder);
+        poller.poll();
+
+        assertThat(poller.isRegistered(folder)).isTrue();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void changesSinceTheLastListingArePublished() throws Exception {
+        Path kept = Files.writeString(folder.resolve("kept.epub"), "x");
+        Path removed = Files.writeString(folder.resolve("removed.pdf"), "x");
+        poller.register(folder);
+
+        Path added = Files.writeString(folder.resolve("added.cbz"), "x");
+        Files.writeString(kept, "longer content");
+        Files.delete(removed);
+        poller.poll();
+        poller.poll();
+
+        ArgumentCaptor<FileChangeEvent> captor = ArgumentCaptor.forClass(FileChangeEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(captor.capture());
+        Map<Path, WatchEvent.Kind<?>> events = captor.getAllValues().stream()
+                .collect(Collectors.toMap(FileChangeEvent::getFilePath, FileChangeEvent::getEventKind));
+        assertThat(events).containsOnly(
+                Map.entry(added, StandardWatchEventKinds.ENTRY_CREATE),
+                Map.entry(kept, StandardWatchEventKinds.ENTRY_MODIFY),
+                Map.entry(removed, StandardWatchEventKinds.ENTRY_DELETE));
+        assertThat(captor.getAllValues()).allMatch(event -> event.getWatchedFolder().equals(folder));
+
+        poller.poll();
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void newFileIsPublishedOnceTwoListingsAgreeOnIt() throws Exception {
+        poller.register(folder);
+
+        Path copied = Files.writeString(folder.resolve("copied.epub"), "x");
+        poller.poll();
+        Files.writeString(copied, "more of the book");
+        poller.poll();
+        verifyNoInteractions(eventPublisher);
+
+        poller.poll();
+        ArgumentCaptor<FileChangeEvent> captor = ArgumentCaptor.forClass(FileChangeEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getFilePath()).isEqualTo(copied);
+        assertThat(captor.getValue().getEventKind()).isEqualTo(StandardWatchEventKinds.ENTRY_CREATE);
+    }
+
+    @Test
+    void newFolderIsPublishedOnceTheFilesBelowItStopChanging() throws Exception {
+        poller.register(folder);
+
+        Path sub = Files.createDirectories(folder.resolve("series"));
+        poller.poll();
+        Files.writeString(Files.createDirectories(sub.resolve("volume")).resolve("book.cbz"), "x");
+        poller.poll();
+        verifyNoInteractions(eventPublisher);
+
+        poller.poll();
+        ArgumentCaptor<FileChangeEvent> captor = ArgumentCaptor.forClass(FileChangeEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getFilePath()).isEqualTo(sub);
+        assertThat(captor.getValue().getEventKind()).isEqualTo(StandardWatchEventKinds.ENTRY_CREATE);
+    }
+
+    @Test
+    void entryRemovedBeforeItSettledIsNotPublished() throws Exception {
+        poller.register(folder);
+
+        Path partial = Files.writeString(folder.resolve("partial.pdf"), "x");
+        poller.poll();
+        Files.delete(partial);
+        poller.poll();
+        poller.poll();
+
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void removedFolderIsReportedAsInvalidAndDropped() throws Exception {
+        Path sub = Files.createDirectories(folder.resolve("sub"));
+        poller.register(sub);
+        Files.delete(sub);
+
+        poller.poll();
+
+        verify(eventPublisher).publishEvent(any(WatchKeyInvalidatedEvent.class));
+        assertThat(poller.isRegistered(sub)).isFalse();
+    }
+
+    @Test
+    void pollingModeDecidesWhetherToPoll() {
+        appProperties.getFileWatcher().setPolling(AppProperties.FileWatcher.PollingMode.ALWAYS);
+        assertThat(poller.shouldPoll(folder)).isTrue();
+        appProperties.getFileWatcher().setPolling(AppProperties.FileWatcher.PollingMode.NEVER);
+        assertThat(poller.shouldPoll(folder)).isFalse();
+    }
+}
@@ -27,13 +27,15 @@ class MonitoringServiceTest {
     LibraryFileEventProcessor processor;
     MonitoringTask monitoringTask;
     WatchService watchService;
+    DirectoryPoller directoryPoller;
 
     @BeforeEach
     void setup() throws Exception {
         processor = mock(LibraryFileEventProcessor.class);
         monitoringTask = mock(MonitoringTask.class);
+        directoryPoller = mock(DirectoryPoller.class);
         watchService = FileSystems.getDefault().newWatchService();
-        service = Mockito.spy(new MonitoringService(processor, watchService, monitoringTask));
+        service = Mockito.spy(new MonitoringService(processor, watchService, monitoringTask, directoryPoller));
     }
 
     @AfterEach
@@ -285,4 +287,52 @@ class MonitoringServiceTest {
         Map<Path, WatchKey> keys = (Map<Path, WatchKey>) keysField.get(service);
         assertTrue(keys.containsKey(dir));
     }
+
+    @Test
+    void registerPath_onPolledFileSystem_registersWithPollerInsteadOfWatchService() throws Exception {
+        Path dir = tmp.resolve("nfsdir");
+        Files.createDirectories(dir);
+        when(directoryPoller.shouldPoll(dir)).thenReturn(true);
+
+        assertTrue(service.registerPath(dir, 66L));
+        verify(directoryPoller).register(dir);
+
+        Field keysField = MonitoringService.class.getDeclaredField("registeredWatchKeys");
+        keysField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<Path, WatchKey> keys = (Map<Path, WatchKey>) keysField.get(service);
+        assertFalse(keys.containsKey(dir));
+
+        service.unregisterPath(dir);
+        verify(directoryPoller).unregister(dir);
+    }
+
+    @Test
+    void handleFileChangeEvent_modifyOfBookFile_isForwarded() throws Exception {
+        Path watched = tmp.resolve("wf-modify");
+        Files.createDirectories(watched);
+        Path book = Files.writeString(watched.resolve("book.epub"), "x");
+        Path notes = Files.writeString(watched.resolve("notes.txt"), "x");
+
+        Field pathToLibraryField = MonitoringService.class.getDeclaredField("pathToLibraryIdMap");
+        pathToLibraryField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<Path,Long> map = (Map<Path,Long>) pathToLibraryField.get(service);
+        map.put(watched, 8L);
+
+        java.lang.reflect.Method startMethod = MonitoringService.class.getDeclaredMethod("startProcessingThread");
+        startMethod.setAccessible(true);
+        startMethod.invoke(service);
+
+        for (Path path : List.of(book, notes)) {
+            FileChangeEvent ev = mock(FileChangeEvent.class);
+            when(ev.getFilePath()).thenReturn(path);
+            doReturn(StandardWatchEventKinds.ENTRY_MODIFY).when(ev).getEventKind();
+            when(ev.getWatchedFolder()).thenReturn(watched);
+            service.handleFileChangeEvent(ev);
+        }
+
+        verify(processor, timeout(2_000)).processFile(eq(StandardWatchEventKinds.ENTRY_MODIFY), eq(8L), eq(watched.toString()), eq(book.toString()));
+        verify(processor, never()).processFile(any(), anyLong(), anyString(), eq(notes.toString()));
+    }
 }
@@ -0,0 +1,122 @@
+package com.adityachandel.booklore.service.opds;
+
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.BookLoreUserEntity;
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.ShelfEntity;
+import com.adityachandel.booklore.model.entity.UserBookProgressEntity;
+import com.adityachandel.booklore.service.opds.OpdsCatalogStamps.Scope;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class OpdsCatalogStampsTest {
+
+    private OpdsCatalogStamps stamps;
+
+    @BeforeEach
+    void setUp() {
+        stamps = new OpdsCatalogStamps();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(stamps);
+    }
+
+    @Test
+    void libraryChange_movesThatLibraryAndTheCatalog_only() {
+        long library1 = stamps.latest(Scope.library(1L));
+        long library2 = stamps.latest(Scope.library(2L));
+        long catalog = stamps.latest(Scope.catalog());
+
+        stamps.libraryChanged(1L);
+
+        assertThat(stamps.latest(Scope.library(1L))).isGreaterThan(library1);
+        assertThat(stamps.latest(Scope.catalog())).isGreaterThan(catalog);
+        assertThat(stamps.latest(Scope.library(2L))).isEqualTo(library2);
+        assertThat(stamps.latest(Scope.user(7L))).isEqualTo(library2);
+    }
+
+    @Test
+    void changeOfUnknownLibrary_movesEveryLibrary() {
+        long before = stamps.latest(Scope.library(2L));
+
+        stamps.libraryChanged(null);
+
+        assertThat(stamps.latest(Scope.library(2L))).isGreaterThan(before);
+        assertThat(stamps.latest(Scope.catalog())).isEqualTo(stamps.latest(Scope.library(2L)));
+    }
+
+    @Test
+    void consecutiveChanges_alwaysGetNewerStamps() {
+        stamps.userChanged(7L);
+        long first = stamps.latest(Scope.user(7L));
+        stamps.userChanged(7L);
+
+        assertThat(stamps.latest(Scope.user(7L))).isGreaterThan(first);
+    }
+
+    @Test
+    void changeInTransaction_isAppliedOnCommit() {
+        long before = stamps.latest(Scope.shelf(5L));
+        TransactionSynchronizationManager.initSynchronization();
+
+        stamps.shelfChanged(5L);
+        assertThat(stamps.latest(Scope.shelf(5L))).isEqualTo(before);
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(stamps.latest(Scope.shelf(5L))).isGreaterThan(before);
+    }
+
+    @Test
+    void changeInRolledBackTransaction_isDropped() {
+        long before = stamps.latest(Scope.magicShelves());
+        TransactionSynchronizationManager.initSynchronization();
+
+        stamps.magicShelvesChanged();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(stamps.latest(Scope.magicShelves())).isEqualTo(before);
+        assertThat(TransactionSynchronizationManager.getResource(stamps)).isNull();
+    }
+
+    @Test
+    void changeListener_mapsEntitiesToTheirScopes() {
+        OpdsCatalogChangeListener listener = new OpdsCatalogChangeListener(mock(EntityManagerFactory.class), stamps);
+        LibraryEntity library = new LibraryEntity();
+        library.setId(3L);
+        BookEntity book = new BookEntity();
+        book.setLibrary(library);
+        BookLoreUserEntity owner = new BookLoreUserEntity();
+        owner.setId(9L);
+        ShelfEntity shelf = ShelfEntity.builder().id(4L).user(owner).build();
+        BookLoreUserEntity reader = new BookLoreUserEntity();
+        reader.setId(11L);
+        UserBookProgressEntity progress = new UserBookProgressEntity();
+        progress.setUser(reader);
+        long library4 = stamps.latest(Scope.library(4L));
+
+        listener.entityChanged(book);
+        listener.entityChanged(shelf);
+        listener.entityChanged(progress);
+        listener.entityChanged("not an entity");
+
+        assertThat(stamps.latest(Scope.library(3L))).isGreaterThan(library4);
+        assertThat(stamps.latest(Scope.library(4L))).isEqualTo(library4);
+        assertThat(stamps.latest(Scope.shelf(4L))).isGreaterThan(library4);
+        assertThat(stamps.latest(Scope.user(9L))).isGreaterThan(library4);
+        assertThat(stamps.latest(Scope.user(11L))).isGreaterThan(library4);
+    }
+}
@@ -16,7 +16,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
@@ -34,8 +41,9 @@ class OpdsFeedServiceTest {
     private OpdsBookService opdsBookService;
     private MagicShelfService magicShelfService;
     private MagicShelfBookService magicShelfBookService;
+    private OpdsCatalogStamps catalogStamps;
     private OpdsFeedService opdsFeedService;
-    private HttpServletRequest request;
+    private MockHttpServletRequest request;
 
     @BeforeEach
     void setUp() {
@@ -43,8 +51,24 @@ class OpdsFeedServiceTest {
         opdsBookService = mock(OpdsBookService.class);
         magicShelfService = mock(MagicShelfService.class);
         magicShelfBookService = mock(MagicShelfBookService.class);
-        opdsFeedService = new OpdsFeedService(authenticationService, opdsBookService, magicShelfService, magicShelfBookService);
-        request = mock(HttpServletRequest.class);
+        catalogStamps = new OpdsCatalogStamps();
+        opdsFeedService = new OpdsFeedService(authenticationService, opdsBookService, magicShelfService, magicShelfBookService, catalogStamps);
+        request = new MockHttpServletRequest("GET", "/api/v1/opds");
+    }
+
+    @FunctionalInterface
+    private interface Feed {
+        void write(HttpServletRequest request, MockHttpServletResponse response) throws IOException;
+    }
+
+    private MockHttpServletResponse fetch(Feed feed) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        feed.write(request, response);
+        return response;
+    }
+
+    private String xml(Feed feed) throws IOException {
+        return fetch(feed).getContentAsString();
     }
 
     private OpdsUserDetails mockAuthenticatedUser() {
@@ -58,8 +82,8 @@ class OpdsFeedServiceTest {
     }
 
     @Test
-    void generateRootNavigation_shouldContainAllSections() {
-        String xml = opdsFeedService.generateRootNavigation(request);
+    void generateRootNavigation_shouldContainAllSections() throws IOException {
+        String xml = xml(opdsFeedService::generateRootNavigation);
         assertThat(xml).contains("All Books");
         assertThat(xml).contains("Recently Added");
         assertThat(xml).contains("Libraries");
@@ -71,13 +95,13 @@ class OpdsFeedServiceTest {
     }
 
     @Test
-    void generateLibrariesNavigation_shouldListLibraries() {
+    void generateLibrariesNavigation_shouldListLibraries() throws IOException {
         mockAuthenticatedUser();
 
         Library lib = Library.builder().id(1L).name("Test Library").watch(false).build();
         when(opdsBookService.getAccessibleLibraries(TEST_USER_ID)).thenReturn(List.of(lib));
 
-        String xml = opdsFeedService.generateLibrariesNavigation(request);
+        String xml = xml(opdsFeedService::generateLibrariesNavigation);
         assertThat(xml).contains("Test Library");
         assertThat(xml).contains("urn:booklore:library:1");
         assertThat(xml).contains("</feed>");
@@ -85,22 +109,22 @@ class OpdsFeedServiceTest {
     }
 
     @Test
-    void generateLibrariesNavigation_shouldHandleNoLibraries() {
+    void generateLibrariesNavigation_shouldHandleNoLibraries() throws IOException {
         mockAuthenticatedUser();
         when(opdsBookService.getAccessibleLibraries(TEST_USER_ID)).thenReturn(Collections.emptyList());
 
-        String xml = opdsFeedService.generateLibrariesNavigation(request);
+        String xml = xml(opdsFeedService::generateLibrariesNavigation);
         assertThat(xml).contains("</feed>");
     }
 
     @Test
-    void generateShelvesNavigation_shouldListShelves() {
+    void generateShelvesNavigation_shouldListShelves() throws IOException {
         mockAuthenticatedUser();
 
         ShelfEntity shelfEntity = ShelfEntity.builder().id(5L).name("Favorites").build();
         when(opdsBookService.getUserShelves(TEST_USER_ID)).thenReturn(Collections.singletonList(shelfEntity));
 
-        String xml = opdsFeedService.generateShelvesNavigation(request);
+        String xml = xml(opdsFeedService::generateShelvesNavigation);
         assertThat(xml).contains("Favorites");
         assertThat(xml).contains("urn:booklore:shelf:5");
         assertThat(xml).contains("</feed>");
@@ -108,34 +132,27 @@ class OpdsFeedServiceTest {
     }
 
     @Test
-    void generateShelvesNavigation_shouldHandleNoShelves() {
+    void generateShelvesNavigation_shouldHandleNoShelves() throws IOException {
         mockAuthenticatedUser();
         when(opdsBookService.getUserShelves(TEST_USER_ID)).thenReturn(Collections.emptyList());
 
-        String xml = opdsFeedService.generateShelvesNavigation(request);
+        String xml = xml(opdsFeedService::generateShelvesNavigation);
         assertThat(xml).contains("</feed>");
     }
 
     @Test
-    void generateShelvesNavigation_shouldHandleNullUserDetails() {
+    void generateShelvesNavigation_shouldHandleNullUserDetails() throws IOException {
         when(authenticationService.getOpdsUser()).thenReturn(null);
-        String xml = opdsFeedService.generateShelvesNavigation(request);
+        String xml = xml(opdsFeedService::generateShelvesNavigation);
         assertThat(xml).contains("</feed>");
         verify(opdsBookService, never()).getUserShelves(any());
     }
 
     @Test
-    void generateCatalogFeed_shouldReturnFeedWithBooks() {
+    void generateCatalogFeed_shouldReturnFeedWithBooks() throws IOException {
         mockAuthenticatedUser();
 
-        when(request.getParameter("libraryId")).thenReturn(null);
-        when(request.getParameter("shelfId")).thenReturn(null);
-        when(request.getParameter("magicShelfId")).thenReturn(null);
-        when(request.getParameter("q")).thenReturn(null);
-        when(request.getParameter("page")).thenReturn(null);
-        when(request.getParameter("size")).thenReturn(null);
-        when(request.getRequestURI()).thenReturn("/api/v1/opds/catalog");
-        when(request.getQueryString()).thenReturn(null);
+        request.setRequestURI("/api/v1/opds/catalog");
 
         Book book = Book.builder()
                 .id(10L)
@@ -156,7 +173,7 @@ class OpdsFeedServiceTest {
         when(opdsBookService.getBooksPage(eq(TEST_USER_ID), any(), any(), any(), eq(0), eq(50))).thenReturn(page);
         when(opdsBookService.applySortOrder(any(), any())).thenReturn(page);
 
-        String xml = opdsFeedService.generateCatalogFeed(request);
+        String xml = xml(opdsFeedService::generateCatalogFeed);
         assertThat(xml).contains("Book Title");
         assertThat(xml).contains("Author A");
         assertThat(xml).contains("Publisher X");
@@ -167,29 +184,24 @@ class OpdsFeedServiceTest {
     }
 
     @Test
-    void generateCatalogFeed_shouldHandleEmptyPage() {
+    void generateCatalogFeed_shouldHandleEmptyPage() throws IOException {
         mockAuthenticatedUser();
 
-        when(request.getParameter(anyString())).thenReturn(null);
-        when(request.getRequestURI()).thenReturn("/api/v1/opds/catalog");
-        when(request.getQueryString()).thenReturn(null);
+        request.setRequestURI("/api/v1/opds/catalog");
 
         Page<Book> page = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 50), 0);
         when(opdsBookService.getBooksPage(any(), any(), any(), any(), anyInt(), anyInt())).thenReturn(page);
         when(opdsBookService.applySortOrder(any(), any())).thenReturn(page);
 
-        String xml = opdsFeedService.generateCatalogFeed(request);
+        String xml = xml(opdsFeedService::generateCatalogFeed);
         assertThat(xml).contains("</feed>");
     }
 
     @Test
-    void generateRecentFeed_shouldReturnFeedWithBooks() {
+    void generateRecentFeed_shouldReturnFeedWithBooks() throws IOException {
         mockAuthenticatedUser();
 
-        when(request.getParameter("page")).thenReturn(null);
-        when(request.getParameter("size")).thenReturn(null);
-        when(request.getRequestURI()).thenReturn("/api/v1/opds/recent");
-        when(request.getQueryString()).thenReturn(null);
+        request.setRequestURI("/api/v1/opds/recent");
 
         Book book = Book.builder()
                 .id(11L)
@@ -202,7 +214,7 @@ class OpdsFeedServiceTest {
         when(opdsBookService.getRecentBooksPage(eq(TEST_USER_ID), eq(0), eq(50))).thenReturn(page);
         when(opdsBookService.applySortOrder(any(), any())).thenReturn(page);
 
-        String xml = opdsFeedService.generateRecentFeed(request);
+        String xml = xml(opdsFeedService::generateRecentFeed);
         assertThat(xml).contains("Recent Book");
         assertThat(xml).contains("application/pdf");
         assertThat(xml).contains("</feed>");
@@ -210,23 +222,21 @@ class OpdsFeedServiceTest {
     }
 
     @Test
-    void generateRecentFeed_shouldHandleEmptyPage() {
+    void generateRecentFeed_shouldHandleEmptyPage() throws IOException {
         mockAuthenticatedUser();
 
-        when(request.getParameter(anyString())).thenReturn(null);
-        when(request.getRequestURI()).thenReturn("/api/v1/opds/recent");
-        when(request.getQueryString()).thenReturn(null);
+        request.setRequestURI("/api/v1/opds/recent");
 
         Page<Book> page = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 50), 0);
         when(opdsBookService.getRecentBooksPage(any(), anyInt(), anyInt())).thenReturn(page);
         when(opdsBookService.applySortOrder(any(), any())).thenReturn(page);
 
-        String xml = opdsFeedService.generateRecentFeed(request);
+        String xml = xml(opdsFeedService::generateRecentFeed);
         assertThat(xml).contains("</feed>");
     }
 
     @Test
-    void generateSurpriseFeed_shouldReturnFeedWithBooks() {
+    void generateSurpriseFeed_shouldReturnFeedWithBooks() throws IOException {
         mockAuthenticatedUser();
 
         Book book = Book.builder()
@@ -238,7 +248,7 @@ class OpdsFeedServiceTest {
 
         when(opdsBookService.getRandomBooks(TEST_USER_ID, 25)).thenReturn(List.of(book));
 
-        String xml = opdsFeedService.generateSurpriseFeed(request);
+        String xml = xml(opdsFeedService::generateSurpriseFeed);
         assertThat(xml).contains("Surprise Book");
         assertThat(xml).contains("urn:booklore:book:12");
         assertThat(xml).contains("</feed>");
@@ -246,11 +256,11 @@ class OpdsFeedServiceTest {
     }
 
     @Test
-    void generateSurpriseFeed_shouldHandleNoBooks() {
+    void generateSurpriseFeed_shouldHandleNoBooks() throws IOException {
         mockAuthenticatedUser();
         when(opdsBookService.getRandomBooks(TEST_USER_ID, 25)).thenReturn(Collections.emptyList());
 
-        String xml = opdsFeedService.generateSurpriseFeed(request);
+        String xml = xml(opdsFeedService::generateSurpriseFeed);
         assertThat(xml).contains("</feed>");
     }
 
@@ -263,13 +273,85 @@ class OpdsFeedServiceTest {
     }
 
     @Test
-    void escapeXml_shouldEscapeSpecialCharacters() throws Exception {
-        var method = OpdsFeedService.class.getDeclaredMethod("escapeXml", String.class);
-        method.setAccessible(true);
-        String input = "a&b<c>d\"e'f";
-        String expected = "a&amp;b&lt;c&gt;d&quot;e&apos;f";
-        String result = (String) method.invoke(opdsFeedService, input);
-        assertThat(result).isEqualTo(expected);
+    void generateLibrariesNavigation_shouldEscapeSpecialCharacters() throws Exception {
+        mockAuthenticatedUser();
+        String name = "a&b<c>d\"e'f";
+        Library lib = Library.builder().id(1L).name(name).watch(false).build();
+        when(opdsBookService.getAccessibleLibraries(TEST_USER_ID)).thenReturn(List.of(lib));
+
+        String xml = xml(opdsFeedService::generateLibrariesNavigation);
+
+        assertThat(xml).contains("a&amp;b&lt;c");
+        var document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        assertThat(document.getElementsByTagName("title").item(1).getTextContent()).isEqualTo(name);
+    }
+
+    @Test
+    void generateCatalogFeed_withMatchingETag_returnsNotModifiedWithoutLoadingBooks() throws IOException {
+        mockAuthenticatedUser();
+        request.setRequestURI("/api/v1/opds/catalog");
+        Page<Book> page = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 50), 0);
+        when(opdsBookService.getBooksPage(any(), any(), any(), any(), anyInt(), anyInt())).thenReturn(page);
+        when(opdsBookService.applySortOrder(any(), any())).thenReturn(page);
+
+        MockHttpServletResponse first = fetch(opdsFeedService::generateCatalogFeed);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        assertThat(first.getHeader(HttpHeaders.LAST_MODIFIED)).isNotNull();
+        clearInvocations(opdsBookService);
+
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse second = fetch(opdsFeedService::generateCatalogFeed);
+
+        assertThat(second.getStatus()).isEqualTo(304);
+        assertThat(second.getContentAsByteArray()).isEmpty();
+        verifyNoInteractions(opdsBookService);
+    }
+
+    @Test
+    void generateCatalogFeed_afterLibraryChange_sendsFeedAgain() throws IOException {
+        mockAuthenticatedUser();
+        request.setRequestURI("/api/v1/opds/catalog");
+        Page<Book> page = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 50), 0);
+        when(opdsBookService.getBooksPage(any(), any(), any(), any(), anyInt(), anyInt())).thenReturn(page);
+        when(opdsBookService.applySortOrder(any(), any())).thenReturn(page);
+
+        String etag = fetch(opdsFeedService::generateCatalogFeed).getHeader(HttpHeaders.ETAG);
+        catalogStamps.libraryChanged(3L);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse response = fetch(opdsFeedService::generateCatalogFeed);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        assertThat(response.getContentAsString()).contains("</feed>");
+    }
+
+    @Test
+    void generateCatalogFeed_forOneLibrary_ignoresChangesToOtherLibraries() throws IOException {
+        mockAuthenticatedUser();
+        request.setRequestURI("/api/v1/opds/catalog");
+        request.setParameter("libraryId", "1");
+        Page<Book> page = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 50), 0);
+        when(opdsBookService.getBooksPage(any(), any(), any(), any(), anyInt(), anyInt())).thenReturn(page);
+        when(opdsBookService.applySortOrder(any(), any())).thenReturn(page);
+
+        String etag = fetch(opdsFeedService::generateCatalogFeed).getHeader(HttpHeaders.ETAG);
+        catalogStamps.libraryChanged(2L);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+        assertThat(fetch(opdsFeedService::generateCatalogFeed).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void generateSurpriseFeed_isNeverRevalidated() throws IOException {
+        mockAuthenticatedUser();
+        when(opdsBookService.getRandomBooks(TEST_USER_ID, 25)).thenReturn(Collections.emptyList());
+
+        MockHttpServletResponse response = fetch(opdsFeedService::generateSurpriseFeed);
+
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-store");
     }
 
     @Test
@@ -277,9 +359,8 @@ class OpdsFeedServiceTest {
         var method = OpdsFeedService.class.getDeclaredMethod("parseLongParam", HttpServletRequest.class, String.class, Long.class);
         method.setAccessible(true);
 
-        when(request.getParameter("valid")).thenReturn("123");
-        when(request.getParameter("invalid")).thenReturn("abc");
-        when(request.getParameter("missing")).thenReturn(null);
+        request.setParameter("valid", "123");
+        request.setParameter("invalid", "abc");
 
         Long valid = (Long) method.invoke(opdsFeedService, request, "valid", 42L);
         Long invalid = (Long) method.invoke(opdsFeedService, request, "invalid", 42L);
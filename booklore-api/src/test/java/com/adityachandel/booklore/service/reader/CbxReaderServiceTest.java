@@ -0,0 +1,147 @@
+package com.adityachandel.booklore.service.reader;
+
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.util.FileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class CbxReaderServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private BookRepository bookRepository;
+    private AppSettingService appSettingService;
+    private FileService fileService;
+    private CbxReaderService cbxReaderService;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        appSettingService = mock(AppSettingService.class);
+        fileService = mock(FileService.class);
+        when(fileService.getCbxCachePath()).thenReturn(tempDir.resolve("cbx_cache").toString());
+        cbxReaderService = new CbxReaderService(bookRepository, appSettingService, fileService);
+    }
+
+    @Test
+    void getAvailablePages_forCbz_usesPageIndexWithoutExtracting() throws IOException {
+        Path archive = createCbz("comic.cbz");
+        mockBook(1L, archive);
+
+        assertThat(cbxReaderService.getAvailablePages(1L)).containsExactly(1, 2, 3);
+
+        assertThat(tempDir.resolve("cbx_cache")).doesNotExist();
+        verifyNoInteractions(appSettingService);
+    }
+
+    @Test
+    void streamPageImage_readsStoredAndDeflatedEntriesInFileNameOrder() throws IOException {
+        Path archive = createCbz("comic.cbz");
+        mockBook(1L, archive);
+        cbxReaderService.getAvailablePages(1L);
+
+        assertThat(readPage(1L, 1)).isEqualTo("page-a");
+        assertThat(readPage(1L, 2)).isEqualTo("page-b".repeat(500));
+        assertThat(readPage(1L, 3)).isEqualTo("page-c");
+    }
+
+    @Test
+    void streamPageImage_withoutPriorPageListing_loadsIndexOnDemand() throws IOException {
+        Path archive = createCbz("comic.cbz");
+        mockBook(1L, archive);
+
+        assertThat(readPage(1L, 3)).isEqualTo("page-c");
+    }
+
+    @Test
+    void streamPageImage_afterArchiveChanges_rebuildsIndex() throws IOException {
+        Path archive = createCbz("comic.cbz");
+        mockBook(1L, archive);
+        cbxReaderService.getAvailablePages(1L);
+
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            addDeflated(zip, "only.png", "replacement");
+        }
+        Files.setLastModifiedTime(archive, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        assertThat(cbxReaderService.getAvailablePages(1L)).containsExactly(1);
+        assertThat(readPage(1L, 1)).isEqualTo("replacement");
+    }
+
+    @Test
+    void streamPageImage_outOfRange_throws() throws IOException {
+        Path archive = createCbz("comic.cbz");
+        mockBook(1L, archive);
+        cbxReaderService.getAvailablePages(1L);
+
+        assertThatThrownBy(() -> readPage(1L, 4)).isInstanceOf(FileNotFoundException.class);
+    }
+
+    private String readPage(long bookId, int page) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cbxReaderService.streamPageImage(bookId, page, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void mockBook(long bookId, Path archive) {
+        BookEntity book = BookEntity.builder()
+                .id(bookId)
+                .libraryPath(LibraryPathEntity.builder().path(archive.getParent().toString()).build())
+                .fileSubPath("")
+                .fileName(archive.getFileName().toString())
+                .build();
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+    }
+
+    private Path createCbz(String name) throws IOException {
+        Path archive = tempDir.resolve(name);
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            addDeflated(zip, "pages/c.jpg", "page-c");
+            addStored(zip, "pages/a.jpg", "page-a");
+            addDeflated(zip, "ComicInfo.xml", "<ComicInfo/>");
+            addDeflated(zip, "b.webp", "page-b".repeat(500));
+        }
+        return archive;
+    }
+
+    private static void addDeflated(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static void addStored(ZipOutputStream zip, String name, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        entry.setCompressedSize(bytes.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(bytes);
+        zip.closeEntry();
+    }
+}
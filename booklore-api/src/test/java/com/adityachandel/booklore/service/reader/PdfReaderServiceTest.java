@@ -0,0 +1,128 @@
+package com.adityachandel.booklore.service.reader;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.util.FileService;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PdfReaderServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path cacheRoot;
+    private PdfReaderService pdfReaderService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cacheRoot = tempDir.resolve("pdf_cache");
+        Path pdf = tempDir.resolve("book.pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < 6; i++) {
+                document.addPage(new PDPage(PDRectangle.A6));
+            }
+            document.save(pdf.toFile());
+        }
+
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(BookEntity.builder()
+                .id(1L)
+                .libraryPath(LibraryPathEntity.builder().path(tempDir.toString()).build())
+                .fileSubPath("")
+                .fileName("book.pdf")
+                .build()));
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder().pdfCacheSizeInMb(64).build());
+        FileService fileService = mock(FileService.class);
+        when(fileService.getPdfCachePath()).thenReturn(cacheRoot.toString());
+
+        AppProperties appProperties = new AppProperties();
+        appProperties.getPdfRender().setParallelism(2);
+        appProperties.getPdfRender().setReadAhead(2);
+        appProperties.getPdfRender().setDefaultDpi(72);
+        pdfReaderService = new PdfReaderService(bookRepository, appSettingService, fileService, appProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pdfReaderService.shutdown();
+    }
+
+    @Test
+    void getAvailablePages_doesNotRenderAnything() throws IOException {
+        assertThat(pdfReaderService.getAvailablePages(1L)).containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(renderedPages()).isZero();
+    }
+
+    @Test
+    void streamPageImage_rendersRequestedPageAndReadsAhead() throws Exception {
+        BufferedImage image = readImage(1, null, null);
+
+        assertThat(image).isNotNull();
+        assertThat(Files.exists(cacheRoot.resolve("1/dpi72/0001.jpg"))).isTrue();
+        awaitFile(cacheRoot.resolve("1/dpi72/0003.jpg"));
+        assertThat(Files.exists(cacheRoot.resolve("1/dpi72/0004.jpg"))).isFalse();
+    }
+
+    @Test
+    void streamPageImage_withWidth_rendersScaledVariant() throws IOException {
+        BufferedImage image = readImage(2, null, 240);
+
+        assertThat(image.getWidth()).isEqualTo(240);
+        assertThat(Files.exists(cacheRoot.resolve("1/w240/0002.jpg"))).isTrue();
+    }
+
+    @Test
+    void streamPageImage_outOfRange_throws() {
+        assertThatThrownBy(() -> readImage(7, null, null)).isInstanceOf(FileNotFoundException.class);
+    }
+
+    private BufferedImage readImage(int page, Integer dpi, Integer width) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdfReaderService.streamPageImage(1L, page, dpi, width, out);
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private long renderedPages() throws IOException {
+        if (!Files.exists(cacheRoot)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(cacheRoot)) {
+            return files.filter(p -> p.toString().endsWith(".jpg")).count();
+        }
+    }
+
+    private static void awaitFile(Path path) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!Files.exists(path) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(path).exists();
+    }
+}
@@ -0,0 +1,114 @@
+package com.adityachandel.booklore.service.recommender;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookVectorIndexTest {
+
+    private static final int DIMENSION = BookVectorService.VECTOR_DIMENSION;
+    private static final Instant VERSION = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void findNearest_excludesSelfSameSeriesAndLowScores() {
+        BookVectorIndex index = new BookVectorIndex();
+        index.upsert(1, axis(0, 1, 0.0f), "Discworld", VERSION);
+        index.upsert(2, axis(0, 1, 0.1f), "discworld", VERSION);
+        index.upsert(3, axis(0, 1, 0.2f), null, VERSION);
+        index.upsert(4, axis(0, 1, 0.5f), "Other", VERSION);
+        index.upsert(5, axis(1, 2, 0.0f), null, VERSION);
+
+        List<BookVectorIndex.Neighbour> neighbours = index.findNearest(1, 10, 0.1);
+
+        assertThat(neighbours).extracting(BookVectorIndex.Neighbour::bookId).containsExactly(3L, 4L);
+        assertThat(neighbours.get(0).score()).isGreaterThan(neighbours.get(1).score());
+    }
+
+    @Test
+    void upsertAndRemove_updateNeighboursIncrementally() {
+        BookVectorIndex index = new BookVectorIndex();
+        index.upsert(1, axis(0, 1, 0.0f), null, VERSION);
+        index.upsert(2, axis(0, 1, 0.1f), null, VERSION);
+        index.upsert(3, axis(5, 6, 0.0f), null, VERSION);
+
+        assertThat(index.findNearest(1, 1, 0.1)).extracting(BookVectorIndex.Neighbour::bookId).containsExactly(2L);
+
+        Instant changed = VERSION.plusSeconds(60);
+        index.upsert(2, axis(5, 6, 0.1f), null, changed);
+        assertThat(index.isCurrent(2, VERSION)).isFalse();
+        assertThat(index.isCurrent(2, changed)).isTrue();
+        assertThat(index.findNearest(1, 1, 0.1)).isEmpty();
+        assertThat(index.findNearest(3, 1, 0.1)).extracting(BookVectorIndex.Neighbour::bookId).containsExactly(2L);
+
+        index.retainOnly(Set.of(1L, 3L));
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.findNearest(3, 5, 0.1)).isEmpty();
+
+        index.upsert(4, axis(5, 6, 0.2f), null, VERSION);
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.findNearest(3, 5, 0.1)).extracting(BookVectorIndex.Neighbour::bookId).containsExactly(4L);
+    }
+
+    @Test
+    void findNearest_onLargeIndex_recallsExactNeighbours() {
+        int books = 20_000;
+        BookVectorIndex index = clusteredIndex(books, new Random(7));
+        Random random = new Random(11);
+
+        double recall = 0;
+        int queries = 100;
+        for (int i = 0; i < queries; i++) {
+            long bookId = random.nextInt(books);
+            Set<Long> exact = new HashSet<>();
+            index.findNearestExact(bookId, 25, 0.1).forEach(n -> exact.add(n.bookId()));
+            long hits = index.findNearest(bookId, 25, 0.1).stream().filter(n -> exact.contains(n.bookId())).count();
+            recall += (double) hits / exact.size();
+        }
+
+        assertThat(recall / queries).isGreaterThan(0.9);
+    }
+
+    static BookVectorIndex clusteredIndex(int books, Random random) {
+        float[][] centres = new float[Math.max(1, books / 100)][DIMENSION];
+        for (float[] centre : centres) {
+            for (int i = 0; i < DIMENSION; i++) {
+                centre[i] = (float) random.nextGaussian();
+            }
+        }
+        BookVectorIndex index = new BookVectorIndex();
+        for (int id = 0; id < books; id++) {
+            float[] centre = centres[random.nextInt(centres.length)];
+            float[] vector = new float[DIMENSION];
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] = centre[i] + 0.5f * (float) random.nextGaussian();
+            }
+            index.upsert(id, normalize(vector), null, VERSION);
+        }
+        return index;
+    }
+
+    private static float[] axis(int first, int second, float mix) {
+        float[] vector = new float[DIMENSION];
+        vector[first] = 1 - mix;
+        vector[second] = mix;
+        return normalize(vector);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,174 @@
+package com.adityachandel.booklore.service.user;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.ReadProgressUpdate;
+import com.adityachandel.booklore.model.enums.ReadStatus;
+import com.adityachandel.booklore.repository.UserBookProgressRepository;
+import com.adityachandel.booklore.service.opds.OpdsCatalogStamps;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReadProgressBufferTest {
+
+    private UserBookProgressRepository progressRepository;
+    private OpdsCatalogStamps catalogStamps;
+    private AppProperties appProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private ReadProgressBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        progressRepository = mock(UserBookProgressRepository.class);
+        catalogStamps = mock(OpdsCatalogStamps.class);
+        appProperties = new AppProperties();
+        appProperties.getProgressBuffer().setFlushIntervalMs(60_000);
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = newBuffer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.shutdown();
+    }
+
+    private ReadProgressBuffer newBuffer() {
+        return new ReadProgressBuffer(progressRepository, catalogStamps, mock(PlatformTransactionManager.class), appProperties, meterRegistry);
+    }
+
+    private double updates(String result) {
+        return meterRegistry.get("progress.buffer.updates").tag("result", result).counter().count();
+    }
+
+    @Test
+    void record_coalescesUpdatesOfTheSameBook_untilFlushed() {
+        Instant finished = Instant.parse("2025-01-01T00:00:00Z");
+        buffer.record(1L, 10L, ReadProgressUpdate.builder().epubProgress("cfi-1").epubProgressPercent(10f).readStatus(ReadStatus.READING).build());
+        buffer.record(1L, 10L, ReadProgressUpdate.builder().epubProgress("cfi-2").epubProgressPercent(99.9f).readStatus(ReadStatus.READ).build());
+        buffer.record(1L, 10L, ReadProgressUpdate.builder().dateFinished(finished).build());
+
+        verifyNoInteractions(progressRepository);
+        buffer.flush();
+
+        ArgumentCaptor<ReadProgressUpdate> captor = ArgumentCaptor.forClass(ReadProgressUpdate.class);
+        verify(progressRepository, times(1)).upsert(eq(1L), eq(10L), captor.capture());
+        ReadProgressUpdate written = captor.getValue();
+        assertThat(written.getEpubProgress()).isEqualTo("cfi-2");
+        assertThat(written.getEpubProgressPercent()).isEqualTo(99.9f);
+        assertThat(written.getReadStatus()).isEqualTo(ReadStatus.READ);
+        assertThat(written.getDateFinished()).isEqualTo(finished);
+        assertThat(updates("recorded")).isEqualTo(3.0);
+        assertThat(updates("written")).isEqualTo(1.0);
+    }
+
+    @Test
+    void flushForUser_onlyWritesThatUsersUpdates() {
+        buffer.record(1L, 10L, ReadProgressUpdate.builder().pdfProgress(3).build());
+        buffer.record(2L, 10L, ReadProgressUpdate.builder().pdfProgress(7).build());
+
+        buffer.flush(1L);
+
+        verify(progressRepository).upsert(eq(1L), eq(10L), any());
+        verify(progressRepository, never()).upsert(eq(2L), any(), any());
+        verify(catalogStamps).userChanged(1L);
+        verify(catalogStamps, never()).userChanged(2L);
+
+        buffer.flush();
+        verify(progressRepository).upsert(eq(2L), eq(10L), any());
+    }
+
+    @Test
+    void flushForUser_withNothingPending_doesNotTouchTheDatabase() {
+        buffer.record(2L, 10L, ReadProgressUpdate.builder().pdfProgress(7).build());
+
+        buffer.flush(1L);
+
+        verifyNoInteractions(progressRepository);
+    }
+
+    @Test
+    void flushForUser_waitsForAFlushAlreadyWritingTheirUpdates() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return null;
+        }).when(progressRepository).upsert(eq(1L), eq(10L), any());
+        buffer.record(1L, 10L, ReadProgressUpdate.builder().pdfProgress(3).build());
+
+        Thread scheduledFlush = Thread.ofPlatform().start(buffer::flush);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> read = CompletableFuture.runAsync(() -> buffer.flush(1L));
+
+        assertThatThrownBy(() -> read.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        release.countDown();
+        read.get(5, TimeUnit.SECONDS);
+        scheduledFlush.join();
+        verify(progressRepository, times(1)).upsert(eq(1L), eq(10L), any());
+    }
+
+    @Test
+    void failedWrite_isRetriedOnTheNextFlush_underNewerUpdates() {
+        doThrow(new CannotAcquireLockException("deadlock"))
+                .doThrow(new CannotAcquireLockException("deadlock"))
+                .doNothing()
+                .when(progressRepository).upsert(eq(1L), eq(10L), any());
+        buffer.record(1L, 10L, ReadProgressUpdate.builder().cbxProgress(4).cbxProgressPercent(20f).build());
+
+        buffer.flush();
+        buffer.record(1L, 10L, ReadProgressUpdate.builder().cbxProgress(5).build());
+        buffer.flush();
+
+        ArgumentCaptor<ReadProgressUpdate> captor = ArgumentCaptor.forClass(ReadProgressUpdate.class);
+        // The batch attempt and the single retry fail, the next flush writes the merged update
+        verify(progressRepository, times(3)).upsert(eq(1L), eq(10L), captor.capture());
+        ReadProgressUpdate written = captor.getValue();
+        assertThat(written.getCbxProgress()).isEqualTo(5);
+        assertThat(written.getCbxProgressPercent()).isEqualTo(20f);
+    }
+
+    @Test
+    void failingBook_doesNotHoldBackOtherBooks() {
+        doThrow(new DataIntegrityViolationException("book deleted"))
+                .when(progressRepository).upsert(eq(1L), eq(99L), any());
+        buffer.record(1L, 10L, ReadProgressUpdate.builder().pdfProgress(1).build());
+        buffer.record(1L, 99L, ReadProgressUpdate.builder().pdfProgress(2).build());
+
+        buffer.flush();
+        buffer.flush();
+        buffer.flush();
+        buffer.flush();
+
+        assertThat(updates("written")).isEqualTo(1.0);
+        assertThat(updates("dropped")).isEqualTo(1.0);
+    }
+
+    @Test
+    void disabledBuffer_writesThrough() {
+        buffer.shutdown();
+        appProperties.getProgressBuffer().setEnabled(false);
+        buffer = newBuffer();
+
+        buffer.record(1L, 10L, ReadProgressUpdate.builder().pdfProgress(3).build());
+
+        verify(progressRepository).upsert(eq(1L), eq(10L), any());
+    }
+}
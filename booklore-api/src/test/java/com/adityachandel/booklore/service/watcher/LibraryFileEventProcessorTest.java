@@ -0,0 +1,141 @@
+package com.adityachandel.booklore.service.watcher;
+
+import com.adityachandel.booklore.config.AppProperties;
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.repository.LibraryRepository;
+import com.adityachandel.booklore.service.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LibraryFileEventProcessorTest {
+
+    private static final long QUIET_MS = 1000;
+    private static final long LIBRARY_ID = 3L;
+
+    @TempDir
+    Path root;
+
+    private LibraryRepository libraryRepository;
+    private BookFileTransactionalHandler transactionalHandler;
+    private BookFilePersistenceService persistenceService;
+    private SimpleMeterRegistry meterRegistry;
+    private LibraryFileEventProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        libraryRepository = mock(LibraryRepository.class);
+        transactionalHandler = mock(BookFileTransactionalHandler.class);
+        persistenceService = mock(BookFilePersistenceService.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        AppProperties appProperties = new AppProperties();
+        appProperties.getFileWatcher().setQuietPeriodMs(QUIET_MS);
+        appProperties.getFileWatcher().setMaxBatchSize(2);
+        processor = new LibraryFileEventProcessor(libraryRepository, transactionalHandler, persistenceService,
+                mock(NotificationService.class), appProperties, meterRegistry);
+
+        LibraryEntity library = LibraryEntity.builder().id(LIBRARY_ID).name("lib")
+                .libraryPaths(List.of(LibraryPathEntity.builder().id(1L).path(root.toString()).build()))
+                .build();
+        when(libraryRepository.findById(LIBRARY_ID)).thenReturn(Optional.of(library));
+    }
+
+    @Test
+    void newBooksAreImportedInBatchesOnceQuiet() throws Exception {
+        List<Path> books = List.of(createBook("a.epub"), createBook("b.epub"), createBook("c.epub"));
+        for (Path book : books) {
+            event(StandardWatchEventKinds.ENTRY_CREATE, book);
+            event(StandardWatchEventKinds.ENTRY_MODIFY, book);
+        }
+
+        processor.flush(System.nanoTime());
+        verifyNoInteractions(transactionalHandler);
+
+        processor.flush(afterQuietPeriod());
+        verify(transactionalHandler).handleNewBookFiles(LIBRARY_ID, books.subList(0, 2));
+        verify(transactionalHandler).handleNewBookFiles(LIBRARY_ID, books.subList(2, 3));
+        verify(libraryRepository, times(1)).findById(LIBRARY_ID);
+        assertThat(meterRegistry.get("booklore.watcher.events.coalesced").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("booklore.watcher.event.lag").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("booklore.watcher.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void modifyWithoutPendingEventIsIgnored() throws Exception {
+        Path book = createBook("existing.pdf");
+        event(StandardWatchEventKinds.ENTRY_MODIFY, book);
+
+        processor.flush(afterQuietPeriod());
+
+        verifyNoInteractions(transactionalHandler, libraryRepository);
+    }
+
+    @Test
+    void createThenDeleteAndDeleteThenCreateCancelOut() throws Exception {
+        Path transientFile = root.resolve("transient.epub");
+        event(StandardWatchEventKinds.ENTRY_CREATE, transientFile);
+        event(StandardWatchEventKinds.ENTRY_DELETE, transientFile);
+        Path replaced = createBook("replaced.epub");
+        event(StandardWatchEventKinds.ENTRY_DELETE, replaced);
+        event(StandardWatchEventKinds.ENTRY_CREATE, replaced);
+
+        processor.flush(afterQuietPeriod());
+
+        verifyNoInteractions(transactionalHandler, libraryRepository, persistenceService);
+    }
+
+    @Test
+    void deletedBookIsMarkedDeleted() throws Exception {
+        Path gone = root.resolve("gone.epub");
+        when(persistenceService.findMatchingLibraryPath(any(), eq(gone))).thenReturn(root.toString());
+        when(persistenceService.getLibraryPathEntityForFile(any(), eq(root.toString())))
+                .thenReturn(LibraryPathEntity.builder().id(1L).path(root.toString()).build());
+        when(persistenceService.findByLibraryPathSubPathAndFileName(1L, "", "gone.epub")).thenReturn(Optional.empty());
+
+        event(StandardWatchEventKinds.ENTRY_DELETE, gone);
+        processor.flush(afterQuietPeriod());
+
+        verify(persistenceService).findByLibraryPathSubPathAndFileName(1L, "", "gone.epub");
+        verifyNoInteractions(transactionalHandler);
+    }
+
+    @Test
+    void newFolderIsWalkedIntoOneBatch() throws Exception {
+        Path folder = Files.createDirectories(root.resolve("series"));
+        Path first = Files.writeString(folder.resolve("one.cbz"), "x");
+        Path second = Files.writeString(folder.resolve("two.cbz"), "x");
+        Files.writeString(folder.resolve("notes.txt"), "x");
+
+        event(StandardWatchEventKinds.ENTRY_CREATE, folder);
+        event(StandardWatchEventKinds.ENTRY_CREATE, first);
+        processor.flush(afterQuietPeriod());
+
+        verify(transactionalHandler).handleNewBookFiles(eq(LIBRARY_ID), argThat(paths -> paths.size() == 2 && paths.containsAll(List.of(first, second))));
+    }
+
+    private Path createBook(String name) throws Exception {
+        return Files.writeString(root.resolve(name), "book");
+    }
+
+    private void event(java.nio.file.WatchEvent.Kind<?> kind, Path path) {
+        processor.processFile(kind, LIBRARY_ID, root.toString(), path.toString());
+    }
+
+    private static long afterQuietPeriod() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(QUIET_MS + 1);
+    }
+}
@@ -460,4 +460,23 @@ class BookUtilsTest {
         assertEquals("francois", BookUtils.normalizeForSearch("François"));
         assertEquals("francois", BookUtils.normalizeForSearch("FRANÇOIS"));
     }
+
+    @Test
+    void testBuildFullTextQuery_requiresEveryWordAsPrefix() {
+        assertEquals("+stephen* +kin*", BookUtils.buildFullTextQuery("stephen kin"));
+    }
+
+    @Test
+    void testBuildFullTextQuery_dropsOperatorsShortWordsAndStopwords() {
+        assertEquals("+lord* +rings*", BookUtils.buildFullTextQuery("the lord of -the- (rings)"));
+        assertEquals("+brien*", BookUtils.buildFullTextQuery("o'brien"));
+    }
+
+    @Test
+    void testBuildFullTextQuery_returnsNullWhenNothingIsIndexable() {
+        assertNull(BookUtils.buildFullTextQuery(null));
+        assertNull(BookUtils.buildFullTextQuery("  "));
+        assertNull(BookUtils.buildFullTextQuery("it"));
+        assertNull(BookUtils.buildFullTextQuery("the"));
+    }
 }
@@ -0,0 +1,144 @@
+package com.adityachandel.booklore.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileStreamingUtilsTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+    private static final Instant MODIFIED = Instant.parse("2024-05-01T10:15:30Z");
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("book.pdf");
+        Files.writeString(file, CONTENT);
+        Files.setLastModifiedTime(file, FileTime.from(MODIFIED));
+    }
+
+    @Test
+    void streamFile_withoutRange_sendsWholeFileWithValidators() throws IOException {
+        MockHttpServletResponse response = stream(new MockHttpServletRequest("GET", "/content"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(FileStreamingUtils.buildETag(CONTENT.length(), MODIFIED.toEpochMilli()));
+        assertThat(response.getDateHeader(HttpHeaders.LAST_MODIFIED)).isEqualTo(MODIFIED.toEpochMilli());
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).isEqualTo("attachment");
+    }
+
+    @Test
+    void streamFile_withMatchingETag_returnsNotModified() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/content");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, FileStreamingUtils.buildETag(CONTENT.length(), MODIFIED.toEpochMilli()));
+
+        MockHttpServletResponse response = stream(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void streamFile_withIfModifiedSince_returnsNotModified() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/content");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED.toEpochMilli());
+
+        assertThat(stream(request).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void streamFile_withRange_sendsPartialContent() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/content");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+
+        MockHttpServletResponse response = stream(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("56789");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 5-9/20");
+        assertThat(response.getContentLengthLong()).isEqualTo(5);
+    }
+
+    @Test
+    void streamFile_withSuffixRange_sendsTail() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/content");
+        request.addHeader(HttpHeaders.RANGE, "bytes=-4");
+
+        MockHttpServletResponse response = stream(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("ghij");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 16-19/20");
+    }
+
+    @Test
+    void streamFile_withStaleIfRange_sendsWholeFile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/content");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+
+        MockHttpServletResponse response = stream(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void streamFile_withUnsatisfiableRange_returns416() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/content");
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-");
+
+        MockHttpServletResponse response = stream(request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */20");
+    }
+
+    @Test
+    void streamFile_whenSendfileSupported_delegatesTransferToContainer() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/content");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-");
+
+        MockHttpServletResponse response = stream(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(2L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(20L);
+    }
+
+    @Test
+    void parseRange_ignoresMultiRangeAndMalformedHeaders() {
+        assertThat(FileStreamingUtils.parseRange("bytes=0-1,4-5", 20)).isEmpty();
+        assertThat(FileStreamingUtils.parseRange("items=0-1", 20)).isEmpty();
+        assertThat(FileStreamingUtils.parseRange("bytes=9-3", 20)).isEmpty();
+        assertThat(FileStreamingUtils.parseRange("bytes=0-100", 20)).containsExactly(0L, 19L);
+    }
+
+    private MockHttpServletResponse stream(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        FileStreamingUtils.streamFile(file, "application/octet-stream", "attachment", request, response);
+        return response;
+    }
+}
@@ -0,0 +1,112 @@
+package com.adityachandel.booklore.util;
+
+import com.adityachandel.booklore.config.AppProperties;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageProcessorTest {
+
+    @Test
+    void scale_progressiveDownscaleKeepsColours() {
+        BufferedImage source = filled(2400, 3600, new Color(200, 40, 40));
+
+        BufferedImage scaled = ImageProcessor.scale(source, 250, 350);
+
+        assertThat(scaled.getWidth()).isEqualTo(250);
+        assertThat(scaled.getHeight()).isEqualTo(350);
+        assertThat(scaled.getType()).isEqualTo(BufferedImage.TYPE_INT_RGB);
+        Color centre = new Color(scaled.getRGB(125, 175));
+        assertThat(centre.getRed()).isBetween(195, 205);
+        assertThat(centre.getGreen()).isBetween(35, 45);
+    }
+
+    @Test
+    void scale_flattensTransparencyOntoWhite() {
+        BufferedImage source = new BufferedImage(400, 400, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage scaled = ImageProcessor.scale(source, 100, 100);
+
+        assertThat(scaled.getRGB(50, 50) & 0xFFFFFF).isEqualTo(0xFFFFFF);
+    }
+
+    @Test
+    void scaleToFit_neverScalesUp() {
+        BufferedImage source = filled(300, 450, Color.BLUE);
+
+        BufferedImage scaled = ImageProcessor.scaleToFit(source, 1000, 1500);
+
+        assertThat(scaled.getWidth()).isEqualTo(300);
+        assertThat(scaled.getHeight()).isEqualTo(450);
+        assertThat(scaled).isNotSameAs(source);
+    }
+
+    @Test
+    void read_subsamplesOversizedSources() throws IOException {
+        byte[] jpeg = jpeg(filled(4400, 6600, Color.GREEN));
+
+        BufferedImage decoded = ImageProcessor.read(new ByteArrayInputStream(jpeg), 1000, 1500);
+
+        assertThat(decoded.getWidth()).isEqualTo(2200);
+        assertThat(decoded.getHeight()).isEqualTo(3300);
+    }
+
+    @Test
+    void read_keepsSourcesBelowTwiceTheBox() throws IOException {
+        byte[] jpeg = jpeg(filled(1800, 2700, Color.GREEN));
+
+        BufferedImage decoded = ImageProcessor.read(new ByteArrayInputStream(jpeg), 1000, 1500);
+
+        assertThat(decoded.getWidth()).isEqualTo(1800);
+        assertThat(decoded.getHeight()).isEqualTo(2700);
+    }
+
+    @Test
+    void read_returnsNullForNonImageData() throws IOException {
+        assertThat(ImageProcessor.read(new ByteArrayInputStream("not an image".getBytes()), 100, 100)).isNull();
+    }
+
+    @Test
+    void processAll_runsEveryItemAndCountsFailures() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getImageProcessing().setParallelism(3);
+        ImageProcessor processor = new ImageProcessor(appProperties);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        int failures = processor.processAll(List.of(1, 2, 3, 4, 5, 6), item -> {
+            threads.add(Thread.currentThread().getName());
+            ImageProcessor.scale(filled(800, 1200, Color.RED), 100, 150);
+            if (item % 3 == 0) {
+                throw new IOException("broken cover " + item);
+            }
+        });
+
+        assertThat(failures).isEqualTo(2);
+        assertThat(threads).allMatch(name -> name.startsWith("image-")).hasSizeLessThanOrEqualTo(3);
+    }
+
+    private static BufferedImage filled(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
@@ -52,6 +52,11 @@ export class AppComponent implements OnInit, OnDestroy {
         this.bookService.handleNewlyCreatedBook(JSON.parse(msg.body))
       )
     );
+    this.subscriptions.push(
+      this.rxStompService.watch('/user/queue/books-add').subscribe(msg =>
+        this.bookService.handleNewlyCreatedBooks(JSON.parse(msg.body))
+      )
+    );
     this.subscriptions.push(
       this.rxStompService.watch('/user/queue/book-update').subscribe(msg =>
         this.bookService.handleBookUpdate(JSON.parse(msg.body))
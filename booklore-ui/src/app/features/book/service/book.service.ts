@@ -597,6 +597,23 @@ export class BookService {
     this.bookStateSubject.next({...currentState, books: updatedBooks});
   }
 
+  handleNewlyCreatedBooks(books: Book[]): void {
+    if (!books || books.length === 0) return;
+    const currentState = this.bookStateSubject.value;
+    const updatedBooks = currentState.books ? [...currentState.books] : [];
+    const indexById = new Map(updatedBooks.map((book, index) => [book.id, index]));
+    books.forEach(book => {
+      const bookIndex = indexById.get(book.id);
+      if (bookIndex !== undefined) {
+        updatedBooks[bookIndex] = book;
+      } else {
+        indexById.set(book.id, updatedBooks.length);
+        updatedBooks.push(book);
+      }
+    });
+    this.bookStateSubject.next({...currentState, books: updatedBooks});
+  }
+
   handleRemovedBookIds(removedBookIds: number[]): void {
     const currentState = this.bookStateSubject.value;
     const filteredBooks = (currentState.books || []).filter(book => !removedBookIds.includes(book.id));
@@ -447,7 +447,10 @@ export class TaskManagementComponent implements OnInit, OnDestroy {
       [TaskType.UPDATE_BOOK_RECOMMENDATIONS]: 'pi-sparkles',
       [TaskType.CLEANUP_DELETED_BOOKS]: 'pi-trash',
       [TaskType.SYNC_LIBRARY_FILES]: 'pi-sync',
-      [TaskType.CLEANUP_TEMP_METADATA]: 'pi-file'
+      [TaskType.CLEANUP_TEMP_METADATA]: 'pi-file',
+      [TaskType.CONVERT_CBX_TO_CBZ]: 'pi-box',
+      [TaskType.REBUILD_READING_STATISTICS]: 'pi-chart-bar',
+      [TaskType.PRECONVERT_KOBO_BOOKS]: 'pi-tablet'
     };
     return icons[taskType] || 'pi-cog';
   }
@@ -12,7 +12,10 @@ export enum TaskType {
   CLEANUP_DELETED_BOOKS = 'CLEANUP_DELETED_BOOKS',
   SYNC_LIBRARY_FILES = 'SYNC_LIBRARY_FILES',
   CLEANUP_TEMP_METADATA = 'CLEANUP_TEMP_METADATA',
-  REFRESH_METADATA_MANUAL = 'REFRESH_METADATA_MANUAL'
+  REFRESH_METADATA_MANUAL = 'REFRESH_METADATA_MANUAL',
+  CONVERT_CBX_TO_CBZ = 'CONVERT_CBX_TO_CBZ',
+  REBUILD_READING_STATISTICS = 'REBUILD_READING_STATISTICS',
+  PRECONVERT_KOBO_BOOKS = 'PRECONVERT_KOBO_BOOKS'
 }
 
 export const TASK_TYPE_CONFIG: Record<TaskType, { parallel: boolean; async: boolean; displayOrder: number }> = {
@@ -24,6 +27,9 @@ export const TASK_TYPE_CONFIG: Record<TaskType, { parallel: boolean; async: bool
   [TaskType.REFRESH_METADATA_MANUAL]: {parallel: false, async: false, displayOrder: 6},
   [TaskType.CLEAR_CBX_CACHE]: {parallel: false, async: false, displayOrder: 7},
   [TaskType.CLEAR_PDF_CACHE]: {parallel: false, async: false, displayOrder: 8},
+  [TaskType.CONVERT_CBX_TO_CBZ]: {parallel: false, async: true, displayOrder: 9},
+  [TaskType.REBUILD_READING_STATISTICS]: {parallel: false, async: false, displayOrder: 10},
+  [TaskType.PRECONVERT_KOBO_BOOKS]: {parallel: false, async: true, displayOrder: 11},
 };
 
 export enum MetadataReplaceMode {